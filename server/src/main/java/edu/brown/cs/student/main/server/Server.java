@@ -1,18 +1,27 @@
 package edu.brown.cs.student.main.server;
 
 import static spark.Spark.after;
+import static spark.Spark.afterAfter;
 
+import edu.brown.cs.student.main.server.caching.ByteCache;
 import edu.brown.cs.student.main.server.handlers.AddPinHandler;
+import edu.brown.cs.student.main.server.handlers.CacheStatsHandler;
 import edu.brown.cs.student.main.server.handlers.ClearPinsHandler;
+import edu.brown.cs.student.main.server.handlers.CompressionFilter;
 import edu.brown.cs.student.main.server.handlers.GetAreaHandler;
 import edu.brown.cs.student.main.server.handlers.GetDataHandler;
 import edu.brown.cs.student.main.server.handlers.ListPinsHandler;
-import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.handlers.NearestHandler;
+import edu.brown.cs.student.main.server.handlers.QueryHandler;
+import edu.brown.cs.student.main.server.handlers.ReloadHandler;
+import edu.brown.cs.student.main.server.handlers.SuggestHandler;
+import edu.brown.cs.student.main.server.handlers.WithinHandler;
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
 import edu.brown.cs.student.main.server.storage.FirebaseUtilities;
 import edu.brown.cs.student.main.server.storage.StorageInterface;
-import edu.brown.cs.student.main.server.utils.JSONParser;
-import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Path;
 import spark.Filter;
 import spark.Spark;
 
@@ -22,16 +31,49 @@ import spark.Spark;
  */
 public class Server {
 
+  /**
+   * The largest number of bytes of compressed responses kept in memory.
+   */
+  private static final long COMPRESSED_CACHE_BYTES = 32L * 1024 * 1024;
+
+  /**
+   * The GeoJSON file of the geo map data.
+   */
+  private static final String DATA_PATH = "data/fullDownload.json";
+
+  /**
+   * The binary snapshot of the geo map data, written from the GeoJSON file on first start.
+   */
+  private static final String SNAPSHOT_PATH = "data/fullDownload.snapshot";
+
+  /**
+   * The system property that turns off reloading the geo map data when its GeoJSON file changes.
+   */
+  private static final String WATCH_DATA_PROPERTY = "geo.watchData";
+
+  /**
+   * The system property holding the token /reloadData requests must present. Without it the route
+   * is not served and the dataset is only reloaded by the file watcher.
+   */
+  private static final String RELOAD_TOKEN_PROPERTY = "geo.reloadToken";
+
   /**
    * Sets up the server, configures routes, and starts the Spark server.
    * 
-   * @throws FileNotFoundException if the required JSON data file is not found.
+   * @throws IOException if the required JSON data file cannot be read.
    */
-  public static void setUpServer() throws FileNotFoundException {
+  public static void setUpServer() throws IOException {
 
-    // Load the geo map data
-    JSONParser myDataSource = new JSONParser("data/fullDownload.json");
-    GeoMapCollection geomapCollection = myDataSource.getData();
+    // Load the geo map data from its binary snapshot, or parse it and precompute the simplified
+    // geometries, encoded sizes and version of the dataset, laid out as the startup options ask
+    LiveDataset geoDataset =
+        LiveDataset.load(
+            Path.of(DATA_PATH), Path.of(SNAPSHOT_PATH), DatasetOptions.fromSystemProperties());
+
+    // Rebuild the dataset in the background when its file changes, and swap it in once ready
+    if (!"false".equals(System.getProperty(WATCH_DATA_PROPERTY))) {
+      geoDataset.watch();
+    }
 
     // Set server port
     int port = 3232;
@@ -44,6 +86,10 @@ public class Server {
               response.header("Access-Control-Allow-Origin", "*");
               response.header("Access-Control-Allow-Methods", "*");
             });
+
+    // Compress responses for clients that accept it, keeping popular geo responses precompressed
+    ByteCache compressedCache = new ByteCache(COMPRESSED_CACHE_BYTES);
+    afterAfter(new CompressionFilter(compressedCache));
     
     // Initialize Firebase utilities
     StorageInterface firebaseUtils;
@@ -54,8 +100,19 @@ public class Server {
       Spark.get("addPin", new AddPinHandler(firebaseUtils));
       Spark.get("getPins", new ListPinsHandler(firebaseUtils));
       Spark.get("clearPins", new ClearPinsHandler(firebaseUtils));
-      Spark.get("getData", new GetDataHandler(geomapCollection));
-      Spark.get("getArea", new GetAreaHandler(geomapCollection));
+      Spark.get("getData", new GetDataHandler(geoDataset));
+      Spark.get("getArea", new GetAreaHandler(geoDataset));
+      Spark.get("nearest", new NearestHandler(geoDataset));
+      Spark.get("within", new WithinHandler(geoDataset));
+      Spark.get("query", new QueryHandler(geoDataset));
+      Spark.get("suggest", new SuggestHandler(geoDataset));
+      Spark.get("cacheStats", new CacheStatsHandler(geoDataset, compressedCache));
+
+      // Let operators holding the configured token ask for a reload, forced or not
+      String reloadToken = System.getProperty(RELOAD_TOKEN_PROPERTY);
+      if (reloadToken != null && !reloadToken.isEmpty()) {
+        Spark.post("reloadData", new ReloadHandler(geoDataset, reloadToken));
+      }
 
       // Initialize and start the Spark server
       Spark.init();
@@ -79,9 +136,9 @@ public class Server {
    * Main method to run the server.
    *
    * @param args Command line arguments (not used).
-   * @throws FileNotFoundException if the required JSON data file is not found.
+   * @throws IOException if the required JSON data file cannot be read.
    */
-  public static void main(String[] args) throws FileNotFoundException {
+  public static void main(String[] args) throws IOException {
     setUpServer();
   }
 }
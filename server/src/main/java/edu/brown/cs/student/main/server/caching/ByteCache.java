@@ -0,0 +1,17 @@
+package edu.brown.cs.student.main.server.caching;
+
+/**
+ * A thread-safe, size-bounded cache of byte arrays, such as compressed response bodies.
+ * Entries are weighted by their length in bytes.
+ */
+public class ByteCache extends LruCache<byte[]> {
+
+  /**
+   * Constructs an empty ByteCache with a given capacity.
+   *
+   * @param capacityBytes The largest total number of bytes the cache may hold.
+   */
+  public ByteCache(long capacityBytes) {
+    super(capacityBytes, bytes -> bytes.length);
+  }
+}
@@ -0,0 +1,44 @@
+package edu.brown.cs.student.main.server.caching;
+
+import java.util.Map;
+
+/**
+ * A fully encoded response body together with the headers that describe it, so a cached
+ * response can be replayed exactly without filtering or serializing again.
+ */
+public class EncodedResponse {
+
+  /**
+   * The encoded response body.
+   */
+  public final byte[] body;
+
+  /**
+   * The response headers that depend on the body, such as the chosen level of detail.
+   */
+  public final Map<String, String> headers;
+
+  /**
+   * Constructs an EncodedResponse.
+   *
+   * @param body The encoded response body.
+   * @param headers The response headers that depend on the body.
+   */
+  public EncodedResponse(byte[] body, Map<String, String> headers) {
+    this.body = body;
+    this.headers = headers;
+  }
+
+  /**
+   * Estimates the memory held by this response.
+   *
+   * @return The body length plus the length of every header name and value, in bytes.
+   */
+  public long weight() {
+    long weight = this.body.length;
+    for (Map.Entry<String, String> header : this.headers.entrySet()) {
+      weight += header.getKey().length() + header.getValue().length();
+    }
+    return weight;
+  }
+}
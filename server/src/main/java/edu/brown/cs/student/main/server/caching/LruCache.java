@@ -0,0 +1,151 @@
+package edu.brown.cs.student.main.server.caching;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe, size-bounded cache keyed by strings.
+ * Entries are weighted by their encoded size in bytes, and the least recently used entries are
+ * evicted once the total weight exceeds the capacity. Hits, misses and evictions are counted so
+ * the effectiveness of the cache can be monitored.
+ *
+ * @param <V> The type of the cached values.
+ */
+public class LruCache<V> {
+
+  /**
+   * The largest total weight the cache may hold, in bytes.
+   */
+  private final long capacityBytes;
+
+  /**
+   * Computes the weight of a value in bytes.
+   */
+  private final ToLongFunction<V> weigher;
+
+  /**
+   * The cached entries, in least to most recently used order.
+   */
+  private final LinkedHashMap<String, V> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * The total weight currently held, in bytes.
+   */
+  private long sizeBytes;
+
+  /**
+   * The number of lookups that found a value.
+   */
+  private long hits;
+
+  /**
+   * The number of lookups that found nothing.
+   */
+  private long misses;
+
+  /**
+   * The number of entries removed to make room for others.
+   */
+  private long evictions;
+
+  /**
+   * Constructs an empty LruCache with a given capacity.
+   *
+   * @param capacityBytes The largest total weight the cache may hold, in bytes.
+   * @param weigher Computes the weight of a value in bytes.
+   */
+  public LruCache(long capacityBytes, ToLongFunction<V> weigher) {
+    this.capacityBytes = capacityBytes;
+    this.weigher = weigher;
+  }
+
+  /**
+   * Gets a cached value and marks it as recently used.
+   *
+   * @param key The key to look up.
+   * @return The cached value, or null if the key is not cached.
+   */
+  public synchronized V get(String key) {
+    V value = this.entries.get(key);
+    if (value == null) {
+      this.misses++;
+    } else {
+      this.hits++;
+    }
+    return value;
+  }
+
+  /**
+   * Stores a value, evicting least recently used entries until the cache fits its capacity.
+   * Values heavier than the whole capacity are not cached.
+   *
+   * @param key The key to store under.
+   * @param value The value to store.
+   */
+  public synchronized void put(String key, V value) {
+    long weight = this.weigher.applyAsLong(value);
+    if (weight > this.capacityBytes) {
+      return;
+    }
+    V previous = this.entries.put(key, value);
+    if (previous != null) {
+      this.sizeBytes -= this.weigher.applyAsLong(previous);
+    }
+    this.sizeBytes += weight;
+
+    Iterator<Map.Entry<String, V>> eldest = this.entries.entrySet().iterator();
+    while (this.sizeBytes > this.capacityBytes && eldest.hasNext()) {
+      this.sizeBytes -= this.weigher.applyAsLong(eldest.next().getValue());
+      eldest.remove();
+      this.evictions++;
+    }
+  }
+
+  /**
+   * Removes every entry from the cache in a single step, so no reader can see a mix of old and
+   * new entries.
+   */
+  public synchronized void clear() {
+    this.entries.clear();
+    this.sizeBytes = 0;
+  }
+
+  /**
+   * Gets the number of entries in the cache.
+   *
+   * @return The entry count.
+   */
+  public synchronized int size() {
+    return this.entries.size();
+  }
+
+  /**
+   * Gets the total weight held by the cache.
+   *
+   * @return The total weight of the cached values, in bytes.
+   */
+  public synchronized long sizeBytes() {
+    return this.sizeBytes;
+  }
+
+  /**
+   * Gets a snapshot of the cache metrics.
+   *
+   * @return A map of hits, misses, evictions, hit rate, entry count and weight.
+   */
+  public synchronized Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    long lookups = this.hits + this.misses;
+    stats.put("hits", this.hits);
+    stats.put("misses", this.misses);
+    stats.put("evictions", this.evictions);
+    stats.put("hit_rate", lookups == 0 ? 0.0 : (double) this.hits / lookups);
+    stats.put("entries", this.entries.size());
+    stats.put("size_bytes", this.sizeBytes);
+    stats.put("capacity_bytes", this.capacityBytes);
+    return stats;
+  }
+}
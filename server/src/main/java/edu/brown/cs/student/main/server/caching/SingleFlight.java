@@ -0,0 +1,84 @@
+package edu.brown.cs.student.main.server.caching;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent computations of the same key. The first caller of a key runs the
+ * computation, and every caller that arrives while it is in flight waits for and shares its
+ * result, so a burst of identical requests costs a single computation.
+ *
+ * @param <V> The type of the computed values.
+ */
+public class SingleFlight<V> {
+
+  /**
+   * The computations currently in flight, by key.
+   */
+  private final ConcurrentHashMap<String, CompletableFuture<V>> inFlight =
+      new ConcurrentHashMap<>();
+
+  /**
+   * The number of computations that were actually run.
+   */
+  private final AtomicLong executions = new AtomicLong();
+
+  /**
+   * The number of callers that shared another caller's computation.
+   */
+  private final AtomicLong coalesced = new AtomicLong();
+
+  /**
+   * Computes the value of a key, or waits for the computation already in flight for that key.
+   *
+   * @param key The key identifying the computation.
+   * @param compute Computes the value if no computation is in flight.
+   * @return The computed value, shared by every concurrent caller of the key.
+   * @throws RuntimeException If the computation fails; every waiter sees the same failure.
+   */
+  public V run(String key, Supplier<V> compute) {
+    CompletableFuture<V> mine = new CompletableFuture<>();
+    CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, mine);
+    if (existing != null) {
+      this.coalesced.incrementAndGet();
+      try {
+        return existing.join();
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw e;
+      }
+    }
+
+    this.executions.incrementAndGet();
+    try {
+      V value = compute.get();
+      mine.complete(value);
+      return value;
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * Gets a snapshot of the coalescing metrics.
+   *
+   * @return A map of executions, coalesced callers and computations currently in flight.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("executions", this.executions.get());
+    stats.put("coalesced", this.coalesced.get());
+    stats.put("in_flight", this.inFlight.size());
+    return stats;
+  }
+}
@@ -0,0 +1,81 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.caching.LruCache;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler that reports the hit, miss and eviction metrics of the server's response caches, and
+ * how many geo queries were coalesced into shared computations, and how the dataset has been
+ * reloaded.
+ */
+public class CacheStatsHandler implements Route {
+
+  /**
+   * The source of the dataset whose result cache is reported.
+   */
+  Supplier<GeoDataset> datasets;
+
+  /**
+   * The cache of compressed response bodies.
+   */
+  LruCache<?> compressedCache;
+
+  /**
+   * Constructs a CacheStatsHandler for the given caches.
+   *
+   * @param geoDataset The dataset whose result cache is reported.
+   * @param compressedCache The cache of compressed response bodies.
+   */
+  public CacheStatsHandler(GeoDataset geoDataset, LruCache<?> compressedCache) {
+    this(() -> geoDataset, compressedCache);
+  }
+
+  /**
+   * Constructs a CacheStatsHandler reporting whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset whose result cache is reported.
+   * @param compressedCache The cache of compressed response bodies.
+   */
+  public CacheStatsHandler(Supplier<GeoDataset> datasets, LruCache<?> compressedCache) {
+    this.datasets = datasets;
+    this.compressedCache = compressedCache;
+  }
+
+  /**
+   * Handles the HTTP request for cache metrics. It returns the metrics of the result cache, the region
+   * cache, the compressed response cache and the query coalescing counters, along with the version of the
+   * dataset being served and, if the area descriptions are compressed, their storage metrics. A
+   * live dataset also reports its reload metrics.
+   *
+   * @param request The HTTP request object.
+   * @param response The HTTP response object.
+   * @return A JSON response containing the cache metrics.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    responseMap.put("response_type", "success");
+    responseMap.put("dataset_version", geoDataset.version);
+    responseMap.put("result_cache", geoDataset.resultCache.stats());
+    responseMap.put("region_cache", geoDataset.regionCache.stats());
+    responseMap.put("compressed_cache", this.compressedCache.stats());
+    responseMap.put("coalescing", geoDataset.inFlight.stats());
+    if (geoDataset.descriptionCodec != null) {
+      responseMap.put("description_storage", geoDataset.descriptionCodec.stats());
+    }
+    responseMap.put("coordinate_storage", geoDataset.coordinateStore.stats());
+    if (this.datasets instanceof LiveDataset liveDataset) {
+      responseMap.put("reload", liveDataset.stats());
+    }
+    return Utils.toMoshiJson(responseMap);
+  }
+}
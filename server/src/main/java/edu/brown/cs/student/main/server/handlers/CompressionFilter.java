@@ -0,0 +1,196 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.caching.ByteCache;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletResponse;
+import spark.Filter;
+import spark.Request;
+import spark.Response;
+
+/**
+ * A filter that compresses response bodies for clients that accept gzip or deflate encoding.
+ * It runs after every other filter, so all headers are already in place when the compressed body
+ * is written. Routes that produce repeatable responses can name a cache key, in which case the
+ * compressed body is kept in a bounded cache instead of being recompressed on every hit.
+ */
+public class CompressionFilter implements Filter {
+
+  /**
+   * The request attribute a route sets to a key that uniquely identifies its response body.
+   */
+  public static final String CACHE_KEY_ATTRIBUTE = "compressionCacheKey";
+
+  /**
+   * The request attribute a route sets to its already encoded body when it returns bytes.
+   */
+  public static final String ENCODED_BODY_ATTRIBUTE = "encodedBody";
+
+  /**
+   * Bodies smaller than this are sent uncompressed, since compression would not pay off.
+   */
+  static final int MIN_COMPRESSED_LENGTH = 256;
+
+  /**
+   * The cache of already compressed response bodies.
+   */
+  private final ByteCache compressedCache;
+
+  /**
+   * Constructs a CompressionFilter with a cache for precompressed bodies.
+   *
+   * @param compressedCache The cache that holds compressed bodies of cacheable responses.
+   */
+  public CompressionFilter(ByteCache compressedCache) {
+    this.compressedCache = compressedCache;
+  }
+
+  /**
+   * Compresses the response body with the best encoding the client accepts and writes it out.
+   * Responses that are already committed, empty, or too small are left for Spark to send as is.
+   *
+   * @param request The HTTP request object.
+   * @param response The HTTP response object.
+   * @throws IOException If the compressed body cannot be written.
+   */
+  @Override
+  public void handle(Request request, Response response) throws IOException {
+    HttpServletResponse raw = response.raw();
+    byte[] bytes = request.attribute(ENCODED_BODY_ATTRIBUTE);
+    if (bytes == null && response.body() != null) {
+      bytes = response.body().getBytes(StandardCharsets.UTF_8);
+    }
+    if (raw.isCommitted() || bytes == null || bytes.length == 0) {
+      return;
+    }
+    response.header("Vary", "Accept-Encoding");
+
+    String encoding = negotiate(request.headers("Accept-Encoding"));
+    if (encoding == null || bytes.length < MIN_COMPRESSED_LENGTH) {
+      return;
+    }
+
+    // Reuse the compressed body of cacheable responses
+    String cacheKey = request.attribute(CACHE_KEY_ATTRIBUTE);
+    byte[] compressed = null;
+    if (cacheKey != null) {
+      compressed = this.compressedCache.get(encoding + " " + cacheKey);
+    }
+    if (compressed == null) {
+      compressed = compress(bytes, encoding);
+      if (cacheKey != null) {
+        this.compressedCache.put(encoding + " " + cacheKey, compressed);
+      }
+    }
+
+    // A strong ETag must differ between the plain and the compressed representation
+    String etag = raw.getHeader("ETag");
+    if (etag != null && etag.endsWith("\"")) {
+      raw.setHeader("ETag", etag.substring(0, etag.length() - 1) + "-" + encoding + "\"");
+    }
+
+    // Write the compressed body ourselves; Spark skips serialization of committed responses
+    response.header("Content-Encoding", encoding);
+    if (raw.getContentType() == null) {
+      raw.setContentType("text/html; charset=utf-8");
+    }
+    raw.setContentLength(compressed.length);
+    raw.getOutputStream().write(compressed);
+    raw.flushBuffer();
+  }
+
+  /**
+   * Picks the content encoding to use from an Accept-Encoding header.
+   * Gzip is preferred over deflate when the client accepts both with the same quality, and
+   * encodings with a quality of 0 are never chosen.
+   *
+   * @param acceptEncoding The Accept-Encoding header, or null.
+   * @return "gzip", "deflate", or null if the response should not be compressed.
+   */
+  public static String negotiate(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return null;
+    }
+    double gzip = 0;
+    double deflate = 0;
+    double wildcard = -1;
+    boolean gzipListed = false;
+    boolean deflateListed = false;
+
+    for (String part : acceptEncoding.split(",")) {
+      String[] pieces = part.trim().split(";");
+      String coding = pieces[0].trim().toLowerCase();
+      double quality = 1;
+      for (int i = 1; i < pieces.length; i++) {
+        String parameter = pieces[i].trim();
+        if (parameter.startsWith("q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2));
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        gzip = quality;
+        gzipListed = true;
+      } else if (coding.equals("deflate")) {
+        deflate = quality;
+        deflateListed = true;
+      } else if (coding.equals("*")) {
+        wildcard = quality;
+      }
+    }
+
+    // A wildcard covers every encoding that is not listed explicitly
+    if (wildcard >= 0) {
+      gzip = gzipListed ? gzip : wildcard;
+      deflate = deflateListed ? deflate : wildcard;
+    }
+    if (gzip > 0 && gzip >= deflate) {
+      return "gzip";
+    }
+    if (deflate > 0) {
+      return "deflate";
+    }
+    return null;
+  }
+
+  /**
+   * Removes the content-coding suffix this filter adds to the ETags of compressed responses.
+   *
+   * @param etag A quoted ETag.
+   * @return The ETag of the uncompressed representation.
+   */
+  public static String stripEncodingSuffix(String etag) {
+    for (String suffix : new String[] {"-gzip\"", "-deflate\""}) {
+      if (etag.endsWith(suffix)) {
+        return etag.substring(0, etag.length() - suffix.length()) + "\"";
+      }
+    }
+    return etag;
+  }
+
+  /**
+   * Compresses bytes with a content encoding.
+   *
+   * @param bytes The bytes to compress.
+   * @param encoding Either "gzip" or "deflate".
+   * @return The compressed bytes.
+   * @throws IOException If compression fails.
+   */
+  public static byte[] compress(byte[] bytes, String encoding) throws IOException {
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (OutputStream out =
+        encoding.equals("gzip")
+            ? new GZIPOutputStream(buffer)
+            : new DeflaterOutputStream(buffer)) {
+      out.write(bytes);
+    }
+    return buffer.toByteArray();
+  }
+}
@@ -0,0 +1,132 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Supplier;
+import spark.Request;
+import spark.Response;
+
+/**
+ * Shared response logic of the geo handlers. Every geo response is identified by the dataset
+ * version and a normalized form of its query, which gives it a strong ETag. Requests whose
+ * If-None-Match header already names that ETag are answered with 304 Not Modified before any
+ * filtering or serialization happens. Other requests are served from the dataset's result cache
+ * when an identical query was answered recently.
+ */
+public class GeoResponder {
+
+  /**
+   * The dataset the responses are built from.
+   */
+  private final GeoDataset dataset;
+
+  /**
+   * Constructs a GeoResponder for a dataset.
+   *
+   * @param dataset The dataset the responses are built from.
+   */
+  public GeoResponder(GeoDataset dataset) {
+    this.dataset = dataset;
+  }
+
+  /**
+   * Answers a geo request. If the client already holds the current response, a 304 with an empty
+   * body is returned. Otherwise the encoded response is taken from the dataset's result cache, or
+   * computed and cached on a miss, and tagged with its ETag and compression cache key. Concurrent
+   * misses for the same key wait for one computation and all receive the same encoded bytes.
+   *
+   * @param request The HTTP request object.
+   * @param response The HTTP response object.
+   * @param key The normalized query, identifying the response body within the dataset.
+   * @param compute Computes the encoded response.
+   * @return The encoded response body, or an empty string for 304 responses.
+   */
+  public Object respond(
+      Request request, Response response, String key, Supplier<EncodedResponse> compute) {
+    if (notModified(request, response, key)) {
+      return "";
+    }
+
+    // On a cache miss, identical concurrent queries share a single computation
+    EncodedResponse encoded = this.dataset.resultCache.get(key);
+    if (encoded == null) {
+      encoded =
+          this.dataset.inFlight.run(
+              key,
+              () -> {
+                EncodedResponse computed = compute.get();
+                this.dataset.resultCache.put(key, computed);
+                return computed;
+              });
+    }
+    for (Map.Entry<String, String> header : encoded.headers.entrySet()) {
+      response.header(header.getKey(), header.getValue());
+    }
+
+    // Identify the response so its compressed form can be cached
+    request.attribute(CompressionFilter.CACHE_KEY_ATTRIBUTE, this.dataset.version + " " + key);
+    request.attribute(CompressionFilter.ENCODED_BODY_ATTRIBUTE, encoded.body);
+    return encoded.body;
+  }
+
+  /**
+   * Tags a response with its ETag and checks whether the client already holds it, in which case
+   * the response status is set to 304 and the caller should send an empty body.
+   *
+   * @param request The HTTP request object.
+   * @param response The HTTP response object.
+   * @param key The normalized query, identifying the response body within the dataset.
+   * @return True if the client's copy is current.
+   */
+  public boolean notModified(Request request, Response response, String key) {
+    String etag = etagFor(key);
+    response.header("ETag", etag);
+    if (matches(request.headers("If-None-Match"), etag)) {
+      response.status(304);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Builds the strong ETag of a response from the dataset version and the normalized query.
+   *
+   * @param key The normalized query.
+   * @return The quoted ETag.
+   */
+  public String etagFor(String key) {
+    String queryHash =
+        GeoDataset.sha256Hex(key.getBytes(StandardCharsets.UTF_8)).substring(0, 16);
+    return "\"" + this.dataset.version + "-" + queryHash + "\"";
+  }
+
+  /**
+   * Checks whether an If-None-Match header names an ETag. Weak prefixes and the content-coding
+   * suffix added by {@link CompressionFilter} are ignored, since If-None-Match uses weak
+   * comparison.
+   *
+   * @param ifNoneMatch The If-None-Match header, or null.
+   * @param etag The quoted ETag of the current response.
+   * @return True if the client's copy is current.
+   */
+  public static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String tag = candidate.trim();
+      if (tag.equals("*")) {
+        return true;
+      }
+      if (tag.startsWith("W/")) {
+        tag = tag.substring(2);
+      }
+      if (tag.equals(etag) || CompressionFilter.stripEncodingSuffix(tag).equals(etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
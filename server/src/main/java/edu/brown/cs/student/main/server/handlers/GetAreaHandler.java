@@ -1,11 +1,21 @@
 package edu.brown.cs.student.main.server.handlers;
 
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.SearchHit;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
 import edu.brown.cs.student.main.server.utils.GeoFilter;
 import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
 import edu.brown.cs.student.main.server.utils.Utils;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Supplier;
 import spark.Request;
 import spark.Response;
 import spark.Route;
@@ -17,29 +27,63 @@ import spark.Route;
 public class GetAreaHandler implements Route {
 
   /**
-   * The collection of geographic map data.
+   * The largest number of ranked results a single request may ask for.
    */
-  GeoMapCollection geomapCollection;
+  static final int MAX_LIMIT = 1000;
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
   
   /**
    * The adapter used to convert the geographic map collection to JSON format.
    */
   GeoMapAdapter geoMapAdapter;
 
+
   /**
-   * Constructs a GetAreaHandler with a given GeoMapCollection.
+   * Constructs a GetAreaHandler with a given GeoMapCollection, sharing the dataset already built over
+   * it if there is one.
    *
    * @param geomapCollection The collection of geographic map data to be filtered.
    */
   public GetAreaHandler(GeoMapCollection geomapCollection) {
-    this.geomapCollection = geomapCollection;
+    this(GeoDataset.of(geomapCollection));
+  }
+
+  /**
+   * Constructs a GetAreaHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data to be filtered.
+   */
+  public GetAreaHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a GetAreaHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public GetAreaHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
     this.geoMapAdapter = new GeoMapAdapter();
   }
 
   /**
    * Handles the HTTP request to retrieve area information filtered by a keyword. It expects the keyword 
    * as a query parameter. If the keyword is missing, it returns an error response. If successful, 
-   * it filters the geographic data and returns the filtered results in JSON format.
+   * it filters the geographic data and returns the filtered results in JSON format. An optional zoom
+   * or tolerance parameter selects a simplified level of detail. With a limit parameter, the search
+   * is ranked instead: the features are scored with BM25 against the words of the keyword, and
+   * only the limit most relevant are returned, most relevant first. A field parameter, such as
+   * field=1a or field=1a^2,1b, scopes the search to some keys of the area description data
+   * through per-field indexes; a feature matches if any listed field contains the keyword, and in
+   * a ranked search its score is the weighted sum of its scores in each field. Requests whose
+   * If-None-Match header names the current ETag are answered with 304 before any filtering, and
+   * results are cached per keyword, level, limit and fields.
    *
    * @param request The HTTP request object.
    * @param response The HTTP response object.
@@ -48,6 +92,8 @@ public class GetAreaHandler implements Route {
   @Override
   public Object handle(Request request, Response response) {
     Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    GeoResponder geoResponder = new GeoResponder(geoDataset);
 
     try {
       // Get the keyword from the query parameters
@@ -61,11 +107,85 @@ public class GetAreaHandler implements Route {
         return Utils.toMoshiJson(responseMap);
       }
 
-      // Filter the map collection using the provided keyword
-      GeoMapCollection collectionResult = GeoFilter.filterByKeyword(this.geomapCollection, keyword);
+      // Pick the level of detail from the optional zoom or tolerance parameters
+      int level;
+      try {
+        level =
+            GeometrySimplifier.levelFor(
+                request.queryParams("zoom"), request.queryParams("tolerance"));
+      } catch (IllegalArgumentException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", e.getMessage());
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse the optional number of ranked results
+      String limitStr = request.queryParams("limit");
+      int limit;
+      try {
+        limit = limitStr == null ? 0 : Integer.parseInt(limitStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid limit format. limit must be a whole number");
+        return Utils.toMoshiJson(responseMap);
+      }
+      if (limitStr != null && (limit < 1 || limit > MAX_LIMIT)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "limit must be between 1 and " + MAX_LIMIT);
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse the optional fields to search and their weights
+      String fieldStr = request.queryParams("field");
+      Map<String, Double> fields;
+      try {
+        fields = fieldStr == null ? null : FieldIndexes.parseWeights(fieldStr);
+      } catch (IllegalArgumentException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", e.getMessage());
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Answer from the client's copy or the result cache if possible, and only filter otherwise
+      String key =
+          "getArea?key=" + URLEncoder.encode(keyword, StandardCharsets.UTF_8) + "&level=" + level
+              + "&limit=" + limit
+              + (fields == null
+                  ? ""
+                  : "&field=" + URLEncoder.encode(fields.toString(), StandardCharsets.UTF_8));
+      return geoResponder.respond(
+          request,
+          response,
+          key,
+          () -> {
+            GeoMapCollection collectionResult;
+            if (limit > 0) {
+              // Keep the most relevant features, most relevant first
+              List<SearchHit> hits =
+                  fields == null
+                      ? geoDataset.textIndex.search(keyword, limit)
+                      : geoDataset.fieldIndexes.search(keyword, fields, limit);
+              int[] ordinals = hits.stream().mapToInt(hit -> hit.ordinal).toArray();
+              collectionResult = GeoFilter.select(geoDataset.collection, ordinals);
+            } else if (fields != null) {
+              // Keep the features with the keyword in one of the fields, through their indexes
+              int[] ordinals =
+                  geoDataset.fieldIndexes.keywordMatches(
+                      geoDataset.collection, keyword, fields.keySet());
+              collectionResult = GeoFilter.select(geoDataset.collection, ordinals);
+            } else {
+              // Filter the map collection using the provided keyword, checking only the features
+              // that contain all of its trigrams
+              collectionResult =
+                  GeoFilter.filterByKeyword(
+                      geoDataset.collection, geoDataset.trigramIndex, keyword);
+            }
 
-      // Return the filtered data in JSON format
-      return this.geoMapAdapter.toJson(collectionResult);
+            // Encode the filtered data in JSON format, simplified to the requested level
+            String json =
+                this.geoMapAdapter.toJson(GeometrySimplifier.atLevel(collectionResult, level));
+            return new EncodedResponse(json.getBytes(StandardCharsets.UTF_8), Map.of());
+          });
 
     } catch (Exception e) {
       e.printStackTrace();
@@ -1,11 +1,20 @@
 package edu.brown.cs.student.main.server.handlers;
 
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
 import edu.brown.cs.student.main.server.utils.GeoFilter;
 import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.ResponseBudget;
 import edu.brown.cs.student.main.server.utils.Utils;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.function.Supplier;
 import spark.Request;
 import spark.Response;
 import spark.Route;
@@ -18,22 +27,59 @@ import spark.Route;
 public class GetDataHandler implements Route {
 
   /**
-   * The collection of geographic map data.
+   * The response header reporting the detail level the data was simplified to.
    */
-  GeoMapCollection geomapCollection;
+  public static final String DETAIL_LEVEL_HEADER = "X-Detail-Level";
+
+  /**
+   * The response header reporting the number of decimal places kept in coordinates.
+   */
+  public static final String PRECISION_HEADER = "X-Coordinate-Precision";
+
+  /**
+   * Bounding boxes are snapped outward to a grid with this many cells per degree (about 100 m), so
+   * viewports that differ by a few meters share one index lookup.
+   */
+  static final double BBOX_GRID_CELLS_PER_DEGREE = 1000;
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
   
   /**
    * The adapter used to convert the geographic map collection to JSON format.
    */
   GeoMapAdapter geoMapAdapter;
 
+
   /**
-   * Constructs a GetDataHandler with a given GeoMapCollection.
+   * Constructs a GetDataHandler with a given GeoMapCollection, sharing the dataset already built over
+   * it if there is one.
    *
    * @param geomapCollection The collection of geographic map data to be filtered.
    */
   public GetDataHandler(GeoMapCollection geomapCollection) {
-    this.geomapCollection = geomapCollection;
+    this(GeoDataset.of(geomapCollection));
+  }
+
+  /**
+   * Constructs a GetDataHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data to be filtered.
+   */
+  public GetDataHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a GetDataHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public GetDataHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
     this.geoMapAdapter = new GeoMapAdapter();
   }
 
@@ -41,7 +87,13 @@ public class GetDataHandler implements Route {
    * Handles the HTTP request to retrieve data within a specified bounding box. It expects the bounding
    * box coordinates (minLat, minLong, maxLat, maxLong) as query parameters. The method validates the 
    * coordinates and returns filtered data if the parameters are valid, or an error message if any issues 
-   * are encountered.
+   * are encountered. An optional zoom or tolerance parameter selects a simplified level of detail, and
+   * an optional maxBytes parameter coarsens the level and coordinate precision until the response
+   * fits the budget. The chosen level and precision are reported in response headers. Requests whose
+   * If-None-Match header names the current ETag are answered with 304 before any filtering. The index is
+   * asked for the features within the bounding box snapped outward to a fine grid, which is cached so
+   * nearby viewports share it, and those features are then narrowed to the requested box, so the
+   * response never holds a feature outside it. Encoded results are cached per exact query.
    *
    * @param request The HTTP request object containing query parameters.
    * @param response The HTTP response object.
@@ -50,6 +102,8 @@ public class GetDataHandler implements Route {
   @Override
   public Object handle(Request request, Response response) {
     Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    GeoResponder geoResponder = new GeoResponder(geoDataset);
 
     try {
       // Get query parameters
@@ -106,12 +160,79 @@ public class GetDataHandler implements Route {
         return Utils.toMoshiJson(responseMap);
       }
 
-      // Filter the map collection using the bounding box coordinates
-      GeoMapCollection collectionResult =
-          GeoFilter.filterByBoundingBox(this.geomapCollection, minLong, maxLong, minLat, maxLat);
+      // Pick the level of detail from the optional zoom or tolerance parameters
+      int level;
+      try {
+        level =
+            GeometrySimplifier.levelFor(
+                request.queryParams("zoom"), request.queryParams("tolerance"));
+      } catch (IllegalArgumentException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", e.getMessage());
+        return Utils.toMoshiJson(responseMap);
+      }
 
-      // Return the filtered data in JSON format
-      return this.geoMapAdapter.toJson(collectionResult);
+      // Parse the optional response size budget
+      long maxBytes;
+      try {
+        maxBytes = ResponseBudget.parseMaxBytes(request.queryParams("maxBytes"));
+      } catch (IllegalArgumentException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", e.getMessage());
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Snap the bounding box outward to a grid so nearby viewports share one cached result
+      double snappedMinLat = snapDown(minLat);
+      double snappedMinLong = snapDown(minLong);
+      double snappedMaxLat = snapUp(maxLat);
+      double snappedMaxLong = snapUp(maxLong);
+
+      // Answer from the client's copy or the result cache if possible, and only filter otherwise
+      String key =
+          "getData?minLat=" + minLat + "&minLong=" + minLong
+              + "&maxLat=" + maxLat + "&maxLong=" + maxLong
+              + "&level=" + level + "&maxBytes=" + maxBytes;
+      double exactMinLat = minLat;
+      double exactMinLong = minLong;
+      double exactMaxLat = maxLat;
+      double exactMaxLong = maxLong;
+      int requestedLevel = level;
+      return geoResponder.respond(
+          request,
+          response,
+          key,
+          () -> {
+            // Look up the snapped box in the spatial index, then keep the features in the exact box
+            int[] region =
+                snappedRegion(
+                    geoDataset, snappedMinLong, snappedMaxLong, snappedMinLat, snappedMaxLat);
+            int[] ordinals =
+                within(geoDataset, region, exactMinLong, exactMaxLong, exactMinLat, exactMaxLat);
+            GeoMapCollection collectionResult = GeoFilter.select(geoDataset.collection, ordinals);
+
+            // Coarsen the level and coordinate precision until the result fits the budget
+            int chosenLevel = requestedLevel;
+            int precision = PackedGeometry.FULL_PRECISION;
+            if (maxBytes > 0) {
+              int[] step =
+                  ResponseBudget.STEPS[
+                      ResponseBudget.chooseStep(collectionResult, maxBytes, requestedLevel)];
+              chosenLevel = step[0];
+              precision = step[1];
+            }
+            Map<String, String> headers = new HashMap<>();
+            headers.put(DETAIL_LEVEL_HEADER, String.valueOf(chosenLevel));
+            headers.put(
+                PRECISION_HEADER,
+                precision == PackedGeometry.FULL_PRECISION ? "full" : String.valueOf(precision));
+
+            // Encode the filtered data in JSON format, simplified to the chosen level
+            String json =
+                this.geoMapAdapter.toJson(
+                    GeometrySimplifier.atLevel(collectionResult, chosenLevel, precision));
+            return new EncodedResponse(json.getBytes(StandardCharsets.UTF_8), headers);
+          });
 
     } catch (Exception e) {
       e.printStackTrace();
@@ -121,4 +242,77 @@ public class GetDataHandler implements Route {
       return Utils.toMoshiJson(responseMap);
     }
   }
+
+  /**
+   * Gets the positions of the features within a snapped bounding box, from the dataset's region
+   * cache or else from its spatial index.
+   *
+   * @param geoDataset The dataset to query.
+   * @param minLon Minimum longitude of the snapped bounding box.
+   * @param maxLon Maximum longitude of the snapped bounding box.
+   * @param minLat Minimum latitude of the snapped bounding box.
+   * @param maxLat Maximum latitude of the snapped bounding box.
+   * @return The positions of the features completely within the snapped box.
+   */
+  static int[] snappedRegion(
+      GeoDataset geoDataset, double minLon, double maxLon, double minLat, double maxLat) {
+    String key =
+        "within?minLat=" + minLat + "&minLong=" + minLon + "&maxLat=" + maxLat + "&maxLong="
+            + maxLon;
+    int[] region = geoDataset.regionCache.get(key);
+    if (region == null) {
+      region = geoDataset.spatialIndex.within(minLon, maxLon, minLat, maxLat);
+      geoDataset.regionCache.put(key, region);
+    }
+    return region;
+  }
+
+  /**
+   * Narrows the features at some positions to those completely within a bounding box, using
+   * their envelopes.
+   *
+   * @param geoDataset The dataset the positions belong to.
+   * @param ordinals The positions of the candidate features.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The positions of the features within the box, in their original order.
+   */
+  static int[] within(
+      GeoDataset geoDataset,
+      int[] ordinals,
+      double minLon,
+      double maxLon,
+      double minLat,
+      double maxLat) {
+    int[] kept = new int[ordinals.length];
+    int count = 0;
+    for (int i : ordinals) {
+      if (geoDataset.envelopes.isWithin(i, minLon, maxLon, minLat, maxLat)) {
+        kept[count++] = i;
+      }
+    }
+    return count == ordinals.length ? ordinals : Arrays.copyOf(kept, count);
+  }
+
+  /**
+   * Snaps a coordinate down to the bounding box grid.
+   *
+   * @param coordinate The coordinate, in degrees.
+   * @return The nearest grid line at or below the coordinate.
+   */
+  static double snapDown(double coordinate) {
+    return Math.floor(coordinate * BBOX_GRID_CELLS_PER_DEGREE) / BBOX_GRID_CELLS_PER_DEGREE;
+  }
+
+  /**
+   * Snaps a coordinate up to the bounding box grid.
+   *
+   * @param coordinate The coordinate, in degrees.
+   * @return The nearest grid line at or above the coordinate.
+   */
+  static double snapUp(double coordinate) {
+    return Math.ceil(coordinate * BBOX_GRID_CELLS_PER_DEGREE) / BBOX_GRID_CELLS_PER_DEGREE;
+  }
 }
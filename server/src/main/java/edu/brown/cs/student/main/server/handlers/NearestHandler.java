@@ -0,0 +1,163 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.index.Neighbor;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler to find the features nearest to a point. This class processes the request, extracts
+ * the point (lat, lng) and the number of features to return (k), and returns the nearest
+ * features in order, with their great-circle distances from the point.
+ */
+public class NearestHandler implements Route {
+
+  /**
+   * The number of features returned when k is not given.
+   */
+  static final int DEFAULT_K = 5;
+
+  /**
+   * The largest number of features a single request may ask for.
+   */
+  static final int MAX_K = 100;
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
+
+  /**
+   * Constructs a NearestHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data to search.
+   */
+  public NearestHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a NearestHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public NearestHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Handles the HTTP request for the features nearest to a point. It expects lat and lng query
+   * parameters and an optional k. The features are found with a best-first search over the
+   * dataset's spatial index, and the distance to a feature is 0 when the point lies inside it.
+   * The response lists the features nearest first, with a parallel list of distances in
+   * kilometers.
+   *
+   * @param request The HTTP request object containing query parameters.
+   * @param response The HTTP response object.
+   * @return The nearest features in JSON format or an error message.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    GeoResponder geoResponder = new GeoResponder(geoDataset);
+
+    try {
+      // Get query parameters
+      String latStr = request.queryParams("lat");
+      String lngStr = request.queryParams("lng");
+      String kStr = request.queryParams("k");
+
+      // Check if any parameters are missing
+      if (latStr == null || lngStr == null) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Missing required parameters. Please provide lat and lng");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse and validate the point and the number of features
+      double lat;
+      double lng;
+      int k;
+      try {
+        lat = Double.parseDouble(latStr);
+        lng = Double.parseDouble(lngStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid coordinate format. lat and lng must be valid numbers");
+        return Utils.toMoshiJson(responseMap);
+      }
+      try {
+        k = kStr == null ? DEFAULT_K : Integer.parseInt(kStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid k format. k must be a whole number");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (!(lat >= -90 && lat <= 90)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Latitude values must be between -90 and 90 degrees");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (!(lng >= -180 && lng <= 180)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Longitude values must be between -180 and 180 degrees");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (k < 1 || k > MAX_K) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "k must be between 1 and " + MAX_K);
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      String key = "nearest?lat=" + lat + "&lng=" + lng + "&k=" + k;
+      int count = k;
+      return geoResponder.respond(
+          request,
+          response,
+          key,
+          () -> {
+            // Search the spatial index, measuring exact distances only where bounds require it
+            List<Neighbor> neighbors =
+                geoDataset.spatialIndex.nearest(
+                    lng, lat, count, ordinal -> geoDataset.distanceKm(ordinal, lng, lat));
+
+            List<GeoMap> features = new ArrayList<>(neighbors.size());
+            List<Double> distances = new ArrayList<>(neighbors.size());
+            for (Neighbor neighbor : neighbors) {
+              features.add(geoDataset.collection.features.get(neighbor.ordinal));
+              distances.add(neighbor.distanceKm);
+            }
+            Map<String, Object> result = new HashMap<>();
+            result.put("response_type", "success");
+            result.put("type", "FeatureCollection");
+            result.put("features", features);
+            result.put("distances_km", distances);
+            String json = Utils.toMoshiJson(result);
+            return new EncodedResponse(json.getBytes(StandardCharsets.UTF_8), Map.of());
+          });
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      // Return error response in case of an exception
+      responseMap.put("response_type", "error");
+      responseMap.put("error", e.getMessage());
+      return Utils.toMoshiJson(responseMap);
+    }
+  }
+}
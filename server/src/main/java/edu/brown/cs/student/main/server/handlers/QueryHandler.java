@@ -0,0 +1,139 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.query.QueryNode;
+import edu.brown.cs.student.main.server.query.QueryParser;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler to retrieve the features matching a combination of property, keyword and bounding box
+ * predicates. This class processes the request, parses the query expression (q), and returns the
+ * matching features in JSON format.
+ */
+public class QueryHandler implements Route {
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
+
+  /**
+   * The adapter used to convert the geographic map collection to JSON format.
+   */
+  GeoMapAdapter geoMapAdapter;
+
+
+  /**
+   * Constructs a QueryHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data to be filtered.
+   */
+  public QueryHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a QueryHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public QueryHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
+    this.geoMapAdapter = new GeoMapAdapter();
+  }
+
+  /**
+   * Handles the HTTP request for the features matching a query expression, such as
+   * {@code state:NY AND (holc_grade:A OR keyword:park)}. The grammar is described in
+   * {@link QueryParser}. Every predicate is evaluated to a bitmap of feature ordinals from the
+   * dataset's indexes, and the bitmaps are combined before any feature is selected. Conjunctions
+   * are evaluated in the order a cost-based planner picks from index statistics; with
+   * explain=true the plan and its estimates are returned instead of the features. An optional
+   * zoom or tolerance parameter selects a simplified level of detail. Results are cached per
+   * canonical form of the expression and level.
+   *
+   * @param request The HTTP request object containing query parameters.
+   * @param response The HTTP response object.
+   * @return The matching geographic map data in JSON format or an error message.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    GeoResponder geoResponder = new GeoResponder(geoDataset);
+
+    try {
+      // Get the query expression
+      String q = request.queryParams("q");
+      if (q == null) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Missing required parameter. Please provide q");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse the expression and the level of detail
+      QueryNode query;
+      int level;
+      try {
+        query = QueryParser.parse(q);
+        level =
+            GeometrySimplifier.levelFor(
+                request.queryParams("zoom"), request.queryParams("tolerance"));
+      } catch (IllegalArgumentException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", e.getMessage());
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Describe the chosen plan instead of running it if asked to
+      if ("true".equals(request.queryParams("explain"))) {
+        responseMap.put("response_type", "success");
+        responseMap.put("query", query.toString());
+        responseMap.put("plan", query.explain(geoDataset));
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Answer from the client's copy or the result cache if possible, and only evaluate otherwise
+      String key =
+          "query?q=" + URLEncoder.encode(query.toString(), StandardCharsets.UTF_8)
+              + "&level=" + level;
+      return geoResponder.respond(
+          request,
+          response,
+          key,
+          () -> {
+            // Combine the predicates as bitmaps, then select the matching features
+            int[] ordinals = query.evaluate(geoDataset).toArray();
+            GeoMapCollection collectionResult =
+                GeoFilter.select(geoDataset.collection, ordinals);
+
+            // Encode the matching data in JSON format, simplified to the requested level
+            String json =
+                this.geoMapAdapter.toJson(GeometrySimplifier.atLevel(collectionResult, level));
+            return new EncodedResponse(json.getBytes(StandardCharsets.UTF_8), Map.of());
+          });
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      // Return error response in case of an exception
+      responseMap.put("response_type", "error");
+      responseMap.put("error", e.getMessage());
+      return Utils.toMoshiJson(responseMap);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler that asks the server to reload its dataset from the GeoJSON file. The new version is
+ * built in the background and published once it is ready, so this handler returns right away and
+ * requests keep being answered from the current version meanwhile. Reloading is an operator
+ * action, so only POST requests carrying the token the server was started with are served.
+ */
+public class ReloadHandler implements Route {
+
+  /**
+   * The request header that carries the reload token.
+   */
+  public static final String TOKEN_HEADER = "X-Reload-Token";
+
+  /**
+   * The dataset to reload.
+   */
+  LiveDataset liveDataset;
+
+  /**
+   * The token a request must present to be served.
+   */
+  private final byte[] token;
+
+  /**
+   * Constructs a ReloadHandler for a live dataset.
+   *
+   * @param liveDataset The dataset to reload.
+   * @param token The token a request must present in its X-Reload-Token header.
+   * @throws IllegalArgumentException if the token is empty.
+   */
+  public ReloadHandler(LiveDataset liveDataset, String token) {
+    if (token.isEmpty()) {
+      throw new IllegalArgumentException("The reload token must not be empty");
+    }
+    this.liveDataset = liveDataset;
+    this.token = token.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Handles the HTTP request to reload the dataset. By default the file is only reloaded if its
+   * size or modification time changed, so repeated requests cost nothing; an optional force
+   * parameter of true reparses it regardless, bypassing the snapshot. The response reports
+   * whether a reload was scheduled, or whether one was already waiting, along with the current
+   * reload metrics. A request without the configured token is refused with status 403 before any
+   * of this happens.
+   *
+   * @param request The HTTP request object containing query parameters.
+   * @param response The HTTP response object.
+   * @return A JSON response describing the scheduled reload.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    String given = request.headers(TOKEN_HEADER);
+    if (given == null
+        || !MessageDigest.isEqual(this.token, given.getBytes(StandardCharsets.UTF_8))) {
+      response.status(403);
+      responseMap.put("response_type", "error");
+      responseMap.put("error", "a valid " + TOKEN_HEADER + " header is required");
+      return Utils.toMoshiJson(responseMap);
+    }
+
+    String forceStr = request.queryParams("force");
+    if (forceStr != null && !forceStr.equals("true") && !forceStr.equals("false")) {
+      responseMap.put("response_type", "error");
+      responseMap.put("error", "force must be true or false");
+      return Utils.toMoshiJson(responseMap);
+    }
+
+    Future<Boolean> reload = this.liveDataset.reload("true".equals(forceStr));
+    responseMap.put("response_type", "success");
+    responseMap.put("reload", reload == null ? "already_scheduled" : "scheduled");
+    responseMap.put("stats", this.liveDataset.stats());
+    return Utils.toMoshiJson(responseMap);
+  }
+}
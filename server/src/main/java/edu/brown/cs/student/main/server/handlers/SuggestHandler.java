@@ -0,0 +1,114 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import edu.brown.cs.student.main.server.index.Completion;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler to suggest keyword completions as the user types. This class processes the request,
+ * extracts the prefix and the number of suggestions to return (limit), and returns the words of
+ * feature names and area descriptions that start with the prefix, most used first.
+ */
+public class SuggestHandler implements Route {
+
+  /**
+   * The number of suggestions returned when limit is not given.
+   */
+  static final int DEFAULT_LIMIT = 10;
+
+  /**
+   * The largest number of suggestions a single request may ask for.
+   */
+  static final int MAX_LIMIT = 100;
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
+
+  /**
+   * Constructs a SuggestHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data whose words are suggested.
+   */
+  public SuggestHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a SuggestHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public SuggestHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Handles the HTTP request for completions of a prefix. It expects a prefix query parameter and
+   * an optional limit. The completions are looked up in the dataset's sorted term dictionary, so
+   * a request only touches the words starting with the prefix and is cheap enough to send on
+   * every keystroke. Each suggestion carries the number of features that use the word.
+   *
+   * @param request The HTTP request object containing query parameters.
+   * @param response The HTTP response object.
+   * @return The suggestions in JSON format or an error message.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+
+    try {
+      // Get query parameters
+      String prefix = request.queryParams("prefix");
+      String limitStr = request.queryParams("limit");
+
+      // Check if the prefix is missing
+      if (prefix == null) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Missing required parameter. Please provide prefix");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse and validate the number of suggestions
+      int limit;
+      try {
+        limit = limitStr == null ? DEFAULT_LIMIT : Integer.parseInt(limitStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid limit format. limit must be a whole number");
+        return Utils.toMoshiJson(responseMap);
+      }
+      if (limit < 1 || limit > MAX_LIMIT) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "limit must be between 1 and " + MAX_LIMIT);
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Look up the most used words starting with the prefix
+      List<Completion> suggestions =
+          geoDataset.termDictionary.complete(prefix.strip(), limit);
+      responseMap.put("response_type", "success");
+      responseMap.put("prefix", prefix);
+      responseMap.put("suggestions", suggestions);
+      return Utils.toMoshiJson(responseMap);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      // Return error response in case of an exception
+      responseMap.put("response_type", "error");
+      responseMap.put("error", e.getMessage());
+      return Utils.toMoshiJson(responseMap);
+    }
+  }
+}
@@ -0,0 +1,292 @@
+package edu.brown.cs.student.main.server.handlers;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import edu.brown.cs.student.main.server.utils.Utils;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import javax.servlet.http.HttpServletResponse;
+import spark.Request;
+import spark.Response;
+import spark.Route;
+
+/**
+ * A handler to retrieve the features within a distance of a point. This class processes the
+ * request, extracts the point (lat, lng) and the radius (radiusKm), validates them, and streams
+ * every feature whose great-circle distance from the point is at most the radius, in JSON format.
+ */
+public class WithinHandler implements Route {
+
+  /**
+   * The adapter used to encode a single feature.
+   */
+  private static final JsonAdapter<GeoMap> FEATURE_ADAPTER =
+      new Moshi.Builder().build().adapter(GeoMap.class);
+
+  /**
+   * The adapter used to encode the list of distances.
+   */
+  private static final JsonAdapter<List<Double>> DISTANCES_ADAPTER =
+      new Moshi.Builder().build().adapter(Types.newParameterizedType(List.class, Double.class));
+
+  /**
+   * The source of the dataset being served, read once at the start of each request so the
+   * request is answered from one version even if a reload publishes another meanwhile.
+   */
+  Supplier<GeoDataset> datasets;
+
+  /**
+   * Constructs a WithinHandler with a given GeoDataset.
+   *
+   * @param geoDataset The dataset of geographic map data to search.
+   */
+  public WithinHandler(GeoDataset geoDataset) {
+    this(() -> geoDataset);
+  }
+
+  /**
+   * Constructs a WithinHandler that serves whichever dataset a source currently holds.
+   *
+   * @param datasets The source of the dataset being served, such as a {@link LiveDataset}.
+   */
+  public WithinHandler(Supplier<GeoDataset> datasets) {
+    this.datasets = datasets;
+  }
+
+  /**
+   * Handles the HTTP request for the features within a radius of a point. It expects lat, lng and
+   * radiusKm query parameters. Candidates are taken from the dataset's spatial index using a box
+   * that contains the whole circle, and each candidate is kept if its exact distance from the
+   * point, 0 when the point lies inside it, is at most the radius. Features are written to the
+   * client as they are tested rather than buffered, so a radius query costs about as much as the
+   * bounding box query around it. The response lists the features in dataset order, with a
+   * parallel list of distances in kilometers.
+   *
+   * @param request The HTTP request object containing query parameters.
+   * @param response The HTTP response object.
+   * @return A stream of the matching features in JSON format, or an error message.
+   */
+  @Override
+  public Object handle(Request request, Response response) {
+    Map<String, Object> responseMap = new HashMap<>();
+    GeoDataset geoDataset = this.datasets.get();
+    GeoResponder geoResponder = new GeoResponder(geoDataset);
+
+    try {
+      // Get query parameters
+      String latStr = request.queryParams("lat");
+      String lngStr = request.queryParams("lng");
+      String radiusStr = request.queryParams("radiusKm");
+
+      // Check if any parameters are missing
+      if (latStr == null || lngStr == null || radiusStr == null) {
+        responseMap.put("response_type", "error");
+        responseMap.put(
+            "error", "Missing required parameters. Please provide lat, lng, and radiusKm");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Parse and validate the circle
+      double lat;
+      double lng;
+      double radiusKm;
+      try {
+        lat = Double.parseDouble(latStr);
+        lng = Double.parseDouble(lngStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid coordinate format. lat and lng must be valid numbers");
+        return Utils.toMoshiJson(responseMap);
+      }
+      try {
+        radiusKm = Double.parseDouble(radiusStr);
+      } catch (NumberFormatException e) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Invalid radiusKm format. radiusKm must be a valid number");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (!(lat >= -90 && lat <= 90)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Latitude values must be between -90 and 90 degrees");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (!(lng >= -180 && lng <= 180)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "Longitude values must be between -180 and 180 degrees");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      if (!(radiusKm > 0) || Double.isInfinite(radiusKm)) {
+        responseMap.put("response_type", "error");
+        responseMap.put("error", "radiusKm must be a positive number");
+        return Utils.toMoshiJson(responseMap);
+      }
+
+      // Answer from the client's copy if possible
+      String key = "within?lat=" + lat + "&lng=" + lng + "&radiusKm=" + radiusKm;
+      if (geoResponder.notModified(request, response, key)) {
+        return "";
+      }
+
+      // Let Spark compress the stream for clients that accept gzip, tagging it as CompressionFilter
+      // tags the responses it compresses
+      response.header("Vary", "Accept-Encoding");
+      if ("gzip".equals(CompressionFilter.negotiate(request.headers("Accept-Encoding")))) {
+        HttpServletResponse raw = response.raw();
+        String etag = raw.getHeader("ETag");
+        raw.setHeader("ETag", etag.substring(0, etag.length() - 1) + "-gzip\"");
+        response.header("Content-Encoding", "gzip");
+      }
+
+      // Take candidates from the index, and test them exactly as the body is written
+      double[] envelope = GeoDistance.circleEnvelope(lng, lat, radiusKm);
+      int[] candidates =
+          geoDataset.spatialIndex.intersecting(
+              envelope[0], envelope[1], envelope[2], envelope[3]);
+      return new SequenceInputStream(
+          new FeatureStream(geoDataset, candidates, lng, lat, radiusKm));
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      // Return error response in case of an exception
+      responseMap.put("response_type", "error");
+      responseMap.put("error", e.getMessage());
+      return Utils.toMoshiJson(responseMap);
+    }
+  }
+
+  /**
+   * The pieces of a streamed response: a header, one piece per feature within the radius, and a
+   * footer with the distances. Candidates are tested only when the next piece is asked for.
+   */
+  public static final class FeatureStream implements Enumeration<InputStream> {
+
+    /**
+     * The dataset the candidates belong to.
+     */
+    private final GeoDataset dataset;
+
+    /**
+     * The ordinals of the candidate features, in ascending order.
+     */
+    private final int[] candidates;
+
+    /**
+     * The longitude of the center.
+     */
+    private final double lon;
+
+    /**
+     * The latitude of the center.
+     */
+    private final double lat;
+
+    /**
+     * The radius of the circle in kilometers.
+     */
+    private final double radiusKm;
+
+    /**
+     * The distances of the features written so far.
+     */
+    private final List<Double> distances = new ArrayList<>();
+
+    /**
+     * The position of the next candidate to test.
+     */
+    private int next = 0;
+
+    /**
+     * The next piece to hand out, or null if it has not been found yet.
+     */
+    private byte[] pending;
+
+    /**
+     * Whether the footer has been handed out.
+     */
+    private boolean finished = false;
+
+    /**
+     * Constructs a FeatureStream over candidate features.
+     *
+     * @param dataset The dataset the candidates belong to.
+     * @param candidates The ordinals of the candidate features, in ascending order.
+     * @param lon The longitude of the center.
+     * @param lat The latitude of the center.
+     * @param radiusKm The radius of the circle in kilometers.
+     */
+    public FeatureStream(
+        GeoDataset dataset, int[] candidates, double lon, double lat, double radiusKm) {
+      this.dataset = dataset;
+      this.candidates = candidates;
+      this.lon = lon;
+      this.lat = lat;
+      this.radiusKm = radiusKm;
+      this.pending =
+          "{\"response_type\":\"success\",\"type\":\"FeatureCollection\",\"features\":["
+              .getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether another piece remains, testing candidates until one is within the radius.
+     *
+     * @return True if another piece remains.
+     */
+    @Override
+    public boolean hasMoreElements() {
+      if (this.pending != null) {
+        return true;
+      }
+      while (this.next < this.candidates.length) {
+        int ordinal = this.candidates[this.next++];
+        double distance = this.dataset.distanceKm(ordinal, this.lon, this.lat);
+        if (distance <= this.radiusKm) {
+          String json = FEATURE_ADAPTER.toJson(this.dataset.collection.features.get(ordinal));
+          this.pending =
+              ((this.distances.isEmpty() ? "" : ",") + json).getBytes(StandardCharsets.UTF_8);
+          this.distances.add(distance);
+          return true;
+        }
+      }
+      if (!this.finished) {
+        this.finished = true;
+        this.pending =
+            ("],\"distances_km\":" + DISTANCES_ADAPTER.toJson(this.distances) + "}")
+                .getBytes(StandardCharsets.UTF_8);
+        return true;
+      }
+      return false;
+    }
+
+    /**
+     * Hands out the next piece.
+     *
+     * @return The next piece of the response.
+     */
+    @Override
+    public InputStream nextElement() {
+      if (!hasMoreElements()) {
+        throw new NoSuchElementException();
+      }
+      InputStream piece = new ByteArrayInputStream(this.pending);
+      this.pending = null;
+      return piece;
+    }
+  }
+}
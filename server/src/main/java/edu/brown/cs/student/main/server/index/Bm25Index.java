@@ -0,0 +1,448 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * An inverted index of the words of every feature's area descriptions, ranking features against
+ * a query with BM25. Each word has a posting list of the features that use it and how often,
+ * together with the highest score any of its postings can contribute. A top-k search uses those
+ * bounds to skip, MaxScore-style, every posting that cannot lift a feature into the current top k,
+ * so broad queries over common words cost little more than narrow ones.
+ */
+public class Bm25Index {
+
+  /**
+   * The BM25 term frequency saturation parameter.
+   */
+  static final double K1 = 1.2;
+
+  /**
+   * The BM25 document length normalization parameter.
+   */
+  static final double B = 0.75;
+
+  /**
+   * The position of each word's posting list.
+   */
+  private final Map<String, Integer> terms;
+
+  /**
+   * The features using each word, in ascending order.
+   */
+  private final int[][] postings;
+
+  /**
+   * How often each feature in a posting list uses the word, parallel to the postings.
+   */
+  private final int[][] frequencies;
+
+  /**
+   * The inverse document frequency of each word.
+   */
+  private final double[] idf;
+
+  /**
+   * The highest score any posting of each word contributes.
+   */
+  private final double[] maxScores;
+
+  /**
+   * The number of words in each feature's descriptions.
+   */
+  private final int[] lengths;
+
+  /**
+   * The average number of words per feature.
+   */
+  private final double averageLength;
+
+  /**
+   * Builds the index over every feature of a collection.
+   *
+   * @param collection The collection to index.
+   */
+  public Bm25Index(GeoMapCollection collection) {
+    this(collection, null);
+  }
+
+  /**
+   * Builds the index over one field of the area descriptions of every feature of a collection.
+   * Features without the field count as empty documents.
+   *
+   * @param collection The collection to index.
+   * @param field The key of the descriptions to index, or null to index every description.
+   */
+  public Bm25Index(GeoMapCollection collection, String field) {
+    int size = collection.features.size();
+    this.lengths = new int[size];
+
+    // Count the words of each feature, appending the feature to each word's posting list
+    Map<String, Integer> terms = new HashMap<>();
+    List<int[]> postings = new ArrayList<>();
+    List<int[]> frequencies = new ArrayList<>();
+    List<Integer> counts = new ArrayList<>();
+    Map<String, Integer> featureCounts = new HashMap<>();
+    long totalLength = 0;
+    for (int i = 0; i < size; i++) {
+      GeoMap feature = collection.features.get(i);
+      if (feature == null
+          || feature.properties == null
+          || feature.properties.area_description_data == null) {
+        continue;
+      }
+      featureCounts.clear();
+      for (String description : TrigramIndex.descriptions(feature, field)) {
+        for (String word : tokenize(description)) {
+          featureCounts.merge(word, 1, Integer::sum);
+          this.lengths[i]++;
+        }
+      }
+      totalLength += this.lengths[i];
+      for (Map.Entry<String, Integer> entry : featureCounts.entrySet()) {
+        Integer term = terms.get(entry.getKey());
+        if (term == null) {
+          term = postings.size();
+          terms.put(entry.getKey(), term);
+          postings.add(new int[4]);
+          frequencies.add(new int[4]);
+          counts.add(0);
+        }
+        int count = counts.get(term);
+        if (count == postings.get(term).length) {
+          postings.set(term, Arrays.copyOf(postings.get(term), count * 2));
+          frequencies.set(term, Arrays.copyOf(frequencies.get(term), count * 2));
+        }
+        postings.get(term)[count] = i;
+        frequencies.get(term)[count] = entry.getValue();
+        counts.set(term, count + 1);
+      }
+    }
+
+    this.terms = terms;
+    this.averageLength = size == 0 ? 0 : Math.max(1, (double) totalLength / size);
+    this.postings = new int[postings.size()][];
+    this.frequencies = new int[postings.size()][];
+    this.idf = new double[postings.size()];
+    this.maxScores = new double[postings.size()];
+    for (int term = 0; term < this.postings.length; term++) {
+      int count = counts.get(term);
+      this.postings[term] = Arrays.copyOf(postings.get(term), count);
+      this.frequencies[term] = Arrays.copyOf(frequencies.get(term), count);
+      this.idf[term] = Math.log(1 + (size - count + 0.5) / (count + 0.5));
+      for (int p = 0; p < count; p++) {
+        this.maxScores[term] = Math.max(this.maxScores[term], score(term, p));
+      }
+    }
+  }
+
+  /**
+   * Constructs a Bm25Index from its parts.
+   *
+   * @param terms The position of each word's posting list.
+   * @param postings The features using each word.
+   * @param frequencies How often each feature uses each word.
+   * @param idf The inverse document frequency of each word.
+   * @param maxScores The highest score any posting of each word contributes.
+   * @param lengths The number of words of each feature.
+   * @param averageLength The average number of words per feature.
+   */
+  private Bm25Index(
+      Map<String, Integer> terms,
+      int[][] postings,
+      int[][] frequencies,
+      double[] idf,
+      double[] maxScores,
+      int[] lengths,
+      double averageLength) {
+    this.terms = terms;
+    this.postings = postings;
+    this.frequencies = frequencies;
+    this.idf = idf;
+    this.maxScores = maxScores;
+    this.lengths = lengths;
+    this.averageLength = averageLength;
+  }
+
+  /**
+   * Writes the index, so it can be read back without rebuilding it.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    String[] words = new String[this.postings.length];
+    for (Map.Entry<String, Integer> entry : this.terms.entrySet()) {
+      words[entry.getValue()] = entry.getKey();
+    }
+    out.writeInt(words.length);
+    for (int term = 0; term < words.length; term++) {
+      DatasetSnapshot.writeText(out, words[term]);
+      out.writeDouble(this.idf[term]);
+      out.writeDouble(this.maxScores[term]);
+      out.writeInt(this.postings[term].length);
+      for (int ordinal : this.postings[term]) {
+        out.writeInt(ordinal);
+      }
+      for (int frequency : this.frequencies[term]) {
+        out.writeInt(frequency);
+      }
+    }
+    out.writeInt(this.lengths.length);
+    for (int length : this.lengths) {
+      out.writeInt(length);
+    }
+    out.writeDouble(this.averageLength);
+  }
+
+  /**
+   * Reads an index written by {@link #write}.
+   *
+   * @param in The buffer, positioned at the index.
+   * @return The index.
+   */
+  public static Bm25Index read(ByteBuffer in) {
+    int count = in.getInt();
+    Map<String, Integer> terms = new HashMap<>(count * 2);
+    int[][] postings = new int[count][];
+    int[][] frequencies = new int[count][];
+    double[] idf = new double[count];
+    double[] maxScores = new double[count];
+    for (int term = 0; term < count; term++) {
+      terms.put(DatasetSnapshot.readText(in), term);
+      idf[term] = in.getDouble();
+      maxScores[term] = in.getDouble();
+      int length = in.getInt();
+      postings[term] = DatasetSnapshot.readInts(in, length);
+      frequencies[term] = DatasetSnapshot.readInts(in, length);
+    }
+    int[] lengths = DatasetSnapshot.readInts(in, in.getInt());
+    double averageLength = in.getDouble();
+    return new Bm25Index(terms, postings, frequencies, idf, maxScores, lengths, averageLength);
+  }
+
+  /**
+   * Splits text into lowercase words of letters and digits.
+   *
+   * @param text The text.
+   * @return The words, in order.
+   */
+  public static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    int start = -1;
+    for (int i = 0; i <= text.length(); i++) {
+      boolean wordCharacter = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+      if (wordCharacter && start < 0) {
+        start = i;
+      } else if (!wordCharacter && start >= 0) {
+        words.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  /**
+   * Finds the k features most relevant to a query, scoring each feature by the BM25 of the
+   * query's distinct words that it uses. Features that use none of the words are not returned.
+   *
+   * @param query The query text.
+   * @param k The largest number of features to return.
+   * @return Up to k hits, most relevant first, with ties broken by position in the collection.
+   */
+  public List<SearchHit> search(String query, int k) {
+    return search(List.of(this), new double[] {1}, query, k);
+  }
+
+  /**
+   * Finds the k features most relevant to a query across several indexes over the same
+   * collection, such as one per description field, scoring each feature by the weighted sum of
+   * its BM25 score in each index. Features that use none of the words are not returned. Each
+   * query word of each index is a posting list with an upper bound on its weighted contribution.
+   * Lists are considered from the weakest to the strongest bound; once the bounds of the weakest
+   * lists together cannot beat the k-th best score, those lists no longer produce candidates and
+   * are only looked up for features found through the others.
+   *
+   * @param indexes The indexes, all built over the same collection.
+   * @param weights The weight of each index, parallel to the indexes.
+   * @param query The query text.
+   * @param k The largest number of features to return.
+   * @return Up to k hits, most relevant first, with ties broken by position in the collection.
+   */
+  public static List<SearchHit> search(
+      List<Bm25Index> indexes, double[] weights, String query, int k) {
+    // Gather the posting list of every known query word in every index
+    Set<String> words = new LinkedHashSet<>(tokenize(query));
+    List<int[]> found = new ArrayList<>();
+    for (int index = 0; index < indexes.size(); index++) {
+      for (String word : words) {
+        Integer term = indexes.get(index).terms.get(word);
+        if (term != null && weights[index] > 0) {
+          found.add(new int[] {index, term});
+        }
+      }
+    }
+
+    // Order the lists by their upper bounds, weakest first
+    int m = found.size();
+    Bm25Index[] owner = new Bm25Index[m];
+    int[] term = new int[m];
+    double[] weight = new double[m];
+    double[] maxScores = new double[m];
+    for (int i = 0; i < m; i++) {
+      owner[i] = indexes.get(found.get(i)[0]);
+      term[i] = found.get(i)[1];
+      weight[i] = weights[found.get(i)[0]];
+      maxScores[i] = owner[i].maxScores[term[i]] * weight[i];
+    }
+    Integer[] order = new Integer[m];
+    Arrays.setAll(order, i -> i);
+    Arrays.sort(order, (a, b) -> Double.compare(maxScores[a], maxScores[b]));
+    int[][] lists = new int[m][];
+    double[] bounds = new double[m];
+    double cumulative = 0;
+    for (int i = 0; i < m; i++) {
+      lists[i] = owner[order[i]].postings[term[order[i]]];
+      cumulative += maxScores[order[i]];
+      // Leave room for rounding, so no feature is ever skipped by a bound it could reach
+      bounds[i] = cumulative * (1 + 1e-9);
+    }
+
+    // The current top k, weakest hit on top
+    PriorityQueue<SearchHit> top = new PriorityQueue<>(Math.max(1, k), Bm25Index::weakerFirst);
+    int[] cursors = new int[m];
+    double[] contributions = new double[m];
+    int firstEssential = 0;
+    double threshold = 0;
+    while (k > 0 && firstEssential < m) {
+      // The next candidate is the smallest feature in the essential lists
+      int feature = Integer.MAX_VALUE;
+      for (int i = firstEssential; i < m; i++) {
+        if (cursors[i] < lists[i].length) {
+          feature = Math.min(feature, lists[i][cursors[i]]);
+        }
+      }
+      if (feature == Integer.MAX_VALUE) {
+        break;
+      }
+      double score = 0;
+      Arrays.fill(contributions, 0);
+      for (int i = firstEssential; i < m; i++) {
+        if (cursors[i] < lists[i].length && lists[i][cursors[i]] == feature) {
+          contributions[i] = owner[order[i]].score(term[order[i]], cursors[i]) * weight[order[i]];
+          score += contributions[i];
+          cursors[i]++;
+        }
+      }
+
+      // Complete the score from the non-essential lists while it can still enter the top k
+      for (int i = firstEssential - 1; i >= 0; i--) {
+        if (top.size() == k && score + bounds[i] <= threshold) {
+          break;
+        }
+        cursors[i] = advance(lists[i], cursors[i], feature);
+        if (cursors[i] < lists[i].length && lists[i][cursors[i]] == feature) {
+          contributions[i] = owner[order[i]].score(term[order[i]], cursors[i]) * weight[order[i]];
+          score += contributions[i];
+        }
+      }
+
+      // Add the contributions up in a fixed order, so a score never depends on the pruning
+      score = 0;
+      for (double contribution : contributions) {
+        score += contribution;
+      }
+
+      if (top.size() < k || score > threshold) {
+        top.add(new SearchHit(feature, score));
+        if (top.size() > k) {
+          top.poll();
+        }
+        if (top.size() == k) {
+          threshold = top.peek().score;
+          while (firstEssential < m && bounds[firstEssential] <= threshold) {
+            firstEssential++;
+          }
+        }
+      }
+    }
+
+    List<SearchHit> hits = new ArrayList<>(top);
+    hits.sort((a, b) -> weakerFirst(b, a));
+    return hits;
+  }
+
+  /**
+   * Gets the number of features a word appears in.
+   *
+   * @param word A lowercase word.
+   * @return The document frequency of the word.
+   */
+  public int documentFrequency(String word) {
+    Integer term = this.terms.get(word);
+    return term == null ? 0 : this.postings[term].length;
+  }
+
+  /**
+   * Computes the score a posting contributes.
+   *
+   * @param term The word.
+   * @param posting The position of the feature in the word's posting list.
+   * @return The BM25 contribution of the word to the feature.
+   */
+  private double score(int term, int posting) {
+    double frequency = this.frequencies[term][posting];
+    double length = this.lengths[this.postings[term][posting]];
+    double norm = K1 * (1 - B + B * length / this.averageLength);
+    return this.idf[term] * frequency * (K1 + 1) / (frequency + norm);
+  }
+
+  /**
+   * Moves a cursor forward to the first posting at or after a feature, galloping then
+   * searching binary.
+   *
+   * @param list The posting list.
+   * @param from The current cursor.
+   * @param feature The feature to reach.
+   * @return The new cursor, or the list length if every remaining posting is before the feature.
+   */
+  private static int advance(int[] list, int from, int feature) {
+    int step = 1;
+    int low = from;
+    int high = from;
+    while (high < list.length && list[high] < feature) {
+      low = high + 1;
+      high += step;
+      step *= 2;
+    }
+    high = Math.min(high, list.length);
+    int at = Arrays.binarySearch(list, low, high, feature);
+    return at >= 0 ? at : -at - 1;
+  }
+
+  /**
+   * Orders hits from the least to the most relevant, placing later features first among equal
+   * scores.
+   *
+   * @param a A hit.
+   * @param b Another hit.
+   * @return A negative number if a ranks below b.
+   */
+  private static int weakerFirst(SearchHit a, SearchHit b) {
+    int byScore = Double.compare(a.score, b.score);
+    return byScore != 0 ? byScore : Integer.compare(b.ordinal, a.ordinal);
+  }
+}
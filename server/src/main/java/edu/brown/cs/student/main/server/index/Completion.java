@@ -0,0 +1,28 @@
+package edu.brown.cs.student.main.server.index;
+
+/**
+ * A word suggested to complete a prefix, with the number of features that use it.
+ */
+public class Completion {
+
+  /**
+   * The suggested word.
+   */
+  public final String term;
+
+  /**
+   * The number of features whose name or descriptions use the word.
+   */
+  public final int count;
+
+  /**
+   * Constructs a Completion.
+   *
+   * @param term The suggested word.
+   * @param count The number of features that use the word.
+   */
+  public Completion(String term, int count) {
+    this.term = term;
+    this.count = count;
+  }
+}
@@ -0,0 +1,191 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * A trigram index and a word index for each key of the area description data, so a keyword search
+ * scoped to some fields only reads the postings of those fields. Each index covers one field of
+ * every feature, which keeps its posting lists shorter than those of the indexes over all
+ * descriptions.
+ */
+public class FieldIndexes {
+
+  /**
+   * The trigram index of each field.
+   */
+  private final Map<String, TrigramIndex> trigramIndexes = new HashMap<>();
+
+  /**
+   * The word index of each field.
+   */
+  private final Map<String, Bm25Index> textIndexes = new HashMap<>();
+
+  /**
+   * Builds the indexes of every field used by a feature of a collection.
+   *
+   * @param collection The collection to index.
+   */
+  public FieldIndexes(GeoMapCollection collection) {
+    Set<String> fields = new TreeSet<>();
+    for (GeoMap feature : collection.features) {
+      if (feature != null
+          && feature.properties != null
+          && feature.properties.area_description_data != null) {
+        fields.addAll(feature.properties.area_description_data.keySet());
+      }
+    }
+    for (String field : fields) {
+      this.trigramIndexes.put(field, new TrigramIndex(collection, field));
+      this.textIndexes.put(field, new Bm25Index(collection, field));
+    }
+  }
+
+  /**
+   * Constructs an empty FieldIndexes, filled by {@link #read}.
+   */
+  private FieldIndexes() {}
+
+  /**
+   * Writes the indexes of every field, so they can be read back without rebuilding them.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(this.trigramIndexes.size());
+    for (String field : new TreeSet<>(this.trigramIndexes.keySet())) {
+      DatasetSnapshot.writeText(out, field);
+      this.trigramIndexes.get(field).write(out);
+      this.textIndexes.get(field).write(out);
+    }
+  }
+
+  /**
+   * Reads indexes written by {@link #write}.
+   *
+   * @param in The buffer, positioned at the indexes.
+   * @return The indexes.
+   */
+  public static FieldIndexes read(ByteBuffer in) {
+    FieldIndexes indexes = new FieldIndexes();
+    int count = in.getInt();
+    for (int i = 0; i < count; i++) {
+      String field = DatasetSnapshot.readText(in);
+      indexes.trigramIndexes.put(field, TrigramIndex.read(in));
+      indexes.textIndexes.put(field, Bm25Index.read(in));
+    }
+    return indexes;
+  }
+
+  /**
+   * Parses a field selection such as {@code desc} or {@code 1a^2,1b}: a comma-separated list of
+   * field keys, each optionally followed by ^ and a positive weight, 1 by default.
+   *
+   * @param spec The field selection.
+   * @return The weight of each selected field, in key order.
+   * @throws IllegalArgumentException If a key is empty or repeated or a weight is malformed.
+   */
+  public static Map<String, Double> parseWeights(String spec) {
+    Map<String, Double> weights = new TreeMap<>();
+    for (String part : spec.split(",", -1)) {
+      int caret = part.lastIndexOf('^');
+      String field = (caret < 0 ? part : part.substring(0, caret)).strip();
+      double weight = 1;
+      if (caret >= 0) {
+        try {
+          weight = Double.parseDouble(part.substring(caret + 1).strip());
+        } catch (NumberFormatException e) {
+          weight = Double.NaN;
+        }
+      }
+      if (field.isEmpty()) {
+        throw new IllegalArgumentException("field must list one or more field names");
+      }
+      if (!(weight > 0) || Double.isInfinite(weight)) {
+        throw new IllegalArgumentException(
+            "Invalid weight for field " + field + ". Weights must be positive numbers");
+      }
+      if (weights.put(field, weight) != null) {
+        throw new IllegalArgumentException("field " + field + " is listed more than once");
+      }
+    }
+    return weights;
+  }
+
+  /**
+   * Finds the features whose description under any of some fields contains a keyword, checking
+   * only the candidates each field's trigram index finds for the keyword.
+   *
+   * @param collection The indexed collection.
+   * @param keyword The keyword to search for.
+   * @param fields The keys of the fields to search; keys no feature uses match nothing.
+   * @return The positions of the matching features, in ascending order.
+   */
+  public int[] keywordMatches(GeoMapCollection collection, String keyword, Set<String> fields) {
+    RoaringBitmap matches = RoaringBitmap.EMPTY;
+    for (String field : fields) {
+      TrigramIndex index = this.trigramIndexes.get(field);
+      if (index == null) {
+        continue;
+      }
+      RoaringBitmap candidates = index.candidates(keyword);
+      int[] ordinals;
+      if (candidates == null) {
+        ordinals = new int[collection.features.size()];
+        Arrays.setAll(ordinals, i -> i);
+      } else {
+        ordinals = candidates.toArray();
+      }
+      int count = 0;
+      for (int i : ordinals) {
+        GeoMap feature = collection.features.get(i);
+        if (feature != null
+            && feature.properties != null
+            && feature.properties.area_description_data != null) {
+          String description = feature.properties.area_description_data.get(field);
+          if (description != null && description.contains(keyword)) {
+            ordinals[count++] = i;
+          }
+        }
+      }
+      matches = matches.or(RoaringBitmap.of(ordinals, count));
+    }
+    return matches.toArray();
+  }
+
+  /**
+   * Finds the k features most relevant to a query within some fields, scoring each feature by the
+   * weighted sum of its BM25 scores in each field.
+   *
+   * @param query The query text.
+   * @param weights The weight of each field to search; keys no feature uses are ignored.
+   * @param k The largest number of features to return.
+   * @return Up to k hits, most relevant first, with ties broken by position in the collection.
+   */
+  public List<SearchHit> search(String query, Map<String, Double> weights, int k) {
+    List<Bm25Index> indexes = new ArrayList<>();
+    List<Double> indexWeights = new ArrayList<>();
+    for (Map.Entry<String, Double> entry : weights.entrySet()) {
+      Bm25Index index = this.textIndexes.get(entry.getKey());
+      if (index != null) {
+        indexes.add(index);
+        indexWeights.add(entry.getValue());
+      }
+    }
+    return Bm25Index.search(
+        indexes, indexWeights.stream().mapToDouble(Double::doubleValue).toArray(), query, k);
+  }
+}
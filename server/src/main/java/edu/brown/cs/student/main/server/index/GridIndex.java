@@ -0,0 +1,538 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A spatial index that divides the extent of the dataset into a uniform grid of square cells.
+ * Each cell holds the ordinals of the features whose envelopes overlap it, so a query only tests
+ * the features registered in the cells its bounding box covers. Features spanning several cells
+ * are registered in each of them, and a per-thread bitset drops the duplicates, which also
+ * returns the matches in ordinal order. This suits datasets of many small, evenly sized polygons,
+ * where a tree would cost more to build and walk than it saves.
+ */
+public class GridIndex implements SpatialIndex {
+
+  /**
+   * The largest number of cells a grid may have; coarser cells are used past it.
+   */
+  static final int MAX_CELLS = 1 << 22;
+
+  /**
+   * The envelopes of the features, by ordinal.
+   */
+  private final FeatureEnvelopes envelopes;
+
+  /**
+   * The scan that answers queries covering most of the grid.
+   */
+  private final ScanIndex scan;
+
+  /**
+   * The longitude of the west edge of the grid.
+   */
+  private final double originLon;
+
+  /**
+   * The latitude of the south edge of the grid.
+   */
+  private final double originLat;
+
+  /**
+   * The side of a cell in degrees.
+   */
+  private final double cellDegrees;
+
+  /**
+   * The longitude of the east edge of the area the grid covers, at least the data extent.
+   */
+  private final double coveredMaxLon;
+
+  /**
+   * The latitude of the north edge of the area the grid covers, at least the data extent.
+   */
+  private final double coveredMaxLat;
+
+  /**
+   * The number of cell columns.
+   */
+  private final int columns;
+
+  /**
+   * The number of cell rows.
+   */
+  private final int rows;
+
+  /**
+   * The ordinals of the features overlapping each cell, by {@code row * columns + column}.
+   */
+  private final int[][] cells;
+
+  /**
+   * The ordinals of features without a finite envelope. They are in no cell and are tested
+   * against every query, so the index answers exactly like a scan.
+   */
+  private final int[] unplaced;
+
+  /**
+   * The average number of features registered in a cell, used to estimate the cost of a query.
+   */
+  private final double registrationsPerCell;
+
+  /**
+   * A bitset per thread marking the matches of the current query; it is cleared as the matches
+   * are collected, so it can be reused by the next query.
+   */
+  private final ThreadLocal<BitSet> matches;
+
+  /**
+   * Builds a grid over feature envelopes.
+   *
+   * @param envelopes The envelopes of the features, by ordinal.
+   * @param cellDegrees The side of a cell in degrees, or 0 to size cells from the data.
+   */
+  public GridIndex(FeatureEnvelopes envelopes, double cellDegrees) {
+    this.envelopes = envelopes;
+    this.scan = new ScanIndex(envelopes);
+    int size = envelopes.size();
+    this.matches = ThreadLocal.withInitial(() -> new BitSet(size));
+
+    // Measure the extent of the finite envelopes
+    double minLon = Double.POSITIVE_INFINITY;
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLon = Double.NEGATIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    int placed = 0;
+    for (int i = 0; i < size; i++) {
+      if (isFinite(i)) {
+        minLon = Math.min(minLon, envelopes.minLons[i]);
+        minLat = Math.min(minLat, envelopes.minLats[i]);
+        maxLon = Math.max(maxLon, envelopes.maxLons[i]);
+        maxLat = Math.max(maxLat, envelopes.maxLats[i]);
+        placed++;
+      }
+    }
+    if (placed == 0) {
+      minLon = 0;
+      minLat = 0;
+      maxLon = 0;
+      maxLat = 0;
+    }
+    double width = maxLon - minLon;
+    double height = maxLat - minLat;
+
+    // Size the cells, growing them until the whole extent fits in MAX_CELLS, since a grid cut
+    // short of the extent would miss boxes lying in the cut-off strip
+    if (!(cellDegrees > 0)) {
+      cellDegrees = autoCellDegrees(envelopes, width * height, placed);
+    }
+    cellDegrees =
+        Math.max(
+            cellDegrees,
+            Math.max(
+                Math.sqrt(width * height / MAX_CELLS),
+                Math.max(width, height) / MAX_CELLS));
+    if (!(cellDegrees > 0)) {
+      cellDegrees = 1;
+    }
+    while (cellCount(width, height, cellDegrees) > MAX_CELLS) {
+      cellDegrees *= 1.01;
+    }
+    this.originLon = minLon;
+    this.originLat = minLat;
+    this.cellDegrees = cellDegrees;
+    this.columns = (int) Math.max(1, Math.ceil(width / cellDegrees));
+    this.rows = (int) Math.max(1, Math.ceil(height / cellDegrees));
+    // Rounding may leave the last cell a hair short of the extent, so queries use both
+    this.coveredMaxLon = Math.max(maxLon, this.originLon + this.columns * cellDegrees);
+    this.coveredMaxLat = Math.max(maxLat, this.originLat + this.rows * cellDegrees);
+
+    // Count the features of each cell, then fill exactly sized arrays
+    int[] counts = new int[this.columns * this.rows];
+    int[] unplaced = new int[size - placed];
+    int unplacedCount = 0;
+    for (int i = 0; i < size; i++) {
+      if (!isFinite(i)) {
+        unplaced[unplacedCount++] = i;
+        continue;
+      }
+      for (int row = row(envelopes.minLats[i]); row <= row(envelopes.maxLats[i]); row++) {
+        for (int column = column(envelopes.minLons[i]);
+            column <= column(envelopes.maxLons[i]);
+            column++) {
+          counts[row * this.columns + column]++;
+        }
+      }
+    }
+    this.unplaced = unplaced;
+    long registrations = 0;
+    for (int count : counts) {
+      registrations += count;
+    }
+    this.registrationsPerCell = (double) registrations / counts.length;
+    this.cells = new int[counts.length][];
+    for (int c = 0; c < counts.length; c++) {
+      this.cells[c] = new int[counts[c]];
+    }
+    Arrays.fill(counts, 0);
+    for (int i = 0; i < size; i++) {
+      if (!isFinite(i)) {
+        continue;
+      }
+      for (int row = row(envelopes.minLats[i]); row <= row(envelopes.maxLats[i]); row++) {
+        for (int column = column(envelopes.minLons[i]);
+            column <= column(envelopes.maxLons[i]);
+            column++) {
+          int cell = row * this.columns + column;
+          this.cells[cell][counts[cell]++] = i;
+        }
+      }
+    }
+  }
+
+  /**
+   * Finds the features lying completely inside a bounding box, testing only the features
+   * registered in the cells the box covers. When the box covers so many cells that they hold
+   * more registrations than there are features, every envelope is scanned instead, which reads
+   * less memory in a more predictable order.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  @Override
+  public int[] within(double minLon, double maxLon, double minLat, double maxLat) {
+    return query(minLon, maxLon, minLat, maxLat, true);
+  }
+
+  /**
+   * Finds the features whose envelopes overlap a bounding box, testing only the features
+   * registered in the cells the box covers, or scanning when the box covers most of the grid.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  @Override
+  public int[] intersecting(double minLon, double maxLon, double minLat, double maxLat) {
+    return query(minLon, maxLon, minLat, maxLat, false);
+  }
+
+  /**
+   * Estimates the number of features a bounding box query examines by adding up the
+   * registrations of the cells the box covers, or every feature when the query would scan.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The estimated number of candidate features.
+   */
+  @Override
+  public int estimate(double minLon, double maxLon, double minLat, double maxLat) {
+    if (!(minLon <= maxLon
+        && minLat <= maxLat
+        && maxLon >= this.originLon
+        && minLon <= this.coveredMaxLon
+        && maxLat >= this.originLat
+        && minLat <= this.coveredMaxLat)) {
+      return this.unplaced.length;
+    }
+    int firstRow = row(minLat);
+    int lastRow = row(maxLat);
+    int firstColumn = column(minLon);
+    int lastColumn = column(maxLon);
+    double coveredCells = (double) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+    if (coveredCells * this.registrationsPerCell > this.envelopes.size()) {
+      return this.envelopes.size();
+    }
+    long candidates = this.unplaced.length;
+    for (int row = firstRow; row <= lastRow; row++) {
+      for (int column = firstColumn; column <= lastColumn; column++) {
+        candidates += this.cells[row * this.columns + column].length;
+      }
+    }
+    return (int) Math.min(candidates, this.envelopes.size());
+  }
+
+  /**
+   * Tests the envelopes of the features registered in the cells a bounding box covers.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @param containment True to keep envelopes inside the box, false to keep those overlapping it.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  private int[] query(
+      double minLon, double maxLon, double minLat, double maxLat, boolean containment) {
+    // A box that misses the grid, or is malformed, covers no cell
+    boolean coversCells =
+        minLon <= maxLon
+            && minLat <= maxLat
+            && maxLon >= this.originLon
+            && minLon <= this.coveredMaxLon
+            && maxLat >= this.originLat
+            && minLat <= this.coveredMaxLat;
+    int firstRow = row(minLat);
+    int lastRow = row(maxLat);
+    int firstColumn = column(minLon);
+    int lastColumn = column(maxLon);
+    double coveredCells = (double) (lastRow - firstRow + 1) * (lastColumn - firstColumn + 1);
+    if (coversCells && coveredCells * this.registrationsPerCell > this.envelopes.size()) {
+      return this.scan.query(minLon, maxLon, minLat, maxLat, containment);
+    }
+
+    BitSet found = this.matches.get();
+    int count = 0;
+    for (int i : this.unplaced) {
+      if (matches(i, minLon, maxLon, minLat, maxLat, containment)) {
+        found.set(i);
+        count++;
+      }
+    }
+    if (coversCells) {
+      for (int row = firstRow; row <= lastRow; row++) {
+        for (int column = firstColumn; column <= lastColumn; column++) {
+          for (int i : this.cells[row * this.columns + column]) {
+            if (!found.get(i) && matches(i, minLon, maxLon, minLat, maxLat, containment)) {
+              found.set(i);
+              count++;
+            }
+          }
+        }
+      }
+    }
+
+    // Collect the matches in ordinal order, clearing the bitset for the next query
+    int[] result = new int[count];
+    int n = 0;
+    for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+      result[n++] = i;
+      found.clear(i);
+    }
+    return result;
+  }
+
+  /**
+   * Tests the envelope of a feature against a bounding box.
+   *
+   * @param i The ordinal of the feature.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @param containment True to test containment, false to test overlap.
+   * @return True if the envelope passes the test.
+   */
+  private boolean matches(
+      int i, double minLon, double maxLon, double minLat, double maxLat, boolean containment) {
+    return containment
+        ? this.envelopes.isWithin(i, minLon, maxLon, minLat, maxLat)
+        : this.envelopes.intersects(i, minLon, maxLon, minLat, maxLat);
+  }
+
+  /**
+   * Finds the features nearest to a point. Cells are visited in rings of growing size around the
+   * cell of the point, and queued by the lower bound of their distance. A ring is only added once
+   * everything queued is farther than the nearest point outside the rings added so far, so the
+   * search stops as soon as the k nearest features are known.
+   *
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @param k The largest number of features to find.
+   * @param distance The exact distance from the point to a feature.
+   * @return Up to k features with their distances, nearest first.
+   */
+  @Override
+  public List<Neighbor> nearest(
+      double lon, double lat, int k, NearestSearch.FeatureDistance distance) {
+    NearestSearch search = new NearestSearch(this.envelopes, lon, lat, k, distance);
+    int centerRow = row(lat);
+    int centerColumn = column(lon);
+    int maxRadius = Math.max(this.rows, this.columns);
+    for (int radius = 0; radius <= maxRadius; radius++) {
+      // Queue the cells on the border of the square of this radius
+      int top = centerRow + radius;
+      int bottom = centerRow - radius;
+      int left = centerColumn - radius;
+      int right = centerColumn + radius;
+      for (int row = Math.max(0, bottom); row <= Math.min(this.rows - 1, top); row++) {
+        for (int column = Math.max(0, left); column <= Math.min(this.columns - 1, right); column++) {
+          if (row == bottom || row == top || column == left || column == right) {
+            search.offerCell(row * this.columns + column, cellLowerBoundKm(row, column, lon, lat));
+          }
+        }
+      }
+
+      // Anything outside the square is at least as far as the nearest side still inside the grid
+      double limit = Double.POSITIVE_INFINITY;
+      if (bottom > 0) {
+        limit = Math.min(limit, latitudeGapKm(lat - (this.originLat + bottom * this.cellDegrees)));
+      }
+      if (top < this.rows - 1) {
+        limit =
+            Math.min(limit, latitudeGapKm(this.originLat + (top + 1) * this.cellDegrees - lat));
+      }
+      if (left > 0) {
+        limit =
+            Math.min(limit, longitudeGapKm(lon - (this.originLon + left * this.cellDegrees), lat));
+      }
+      if (right < this.columns - 1) {
+        limit =
+            Math.min(
+                limit,
+                longitudeGapKm(this.originLon + (right + 1) * this.cellDegrees - lon, lat));
+      }
+      boolean complete = search.run(limit, cell -> visitCell(search, cell));
+      if (search.result().size() == k || (complete && limit == Double.POSITIVE_INFINITY)) {
+        break;
+      }
+    }
+    return search.result();
+  }
+
+  /**
+   * Queues the features registered in a cell.
+   *
+   * @param search The search to queue them in.
+   * @param cell The cell number.
+   */
+  private void visitCell(NearestSearch search, int cell) {
+    for (int i : this.cells[cell]) {
+      search.offerFeature(i);
+    }
+  }
+
+  /**
+   * Computes a lower bound of the distance from a point to anything inside a cell.
+   *
+   * @param row The row of the cell.
+   * @param column The column of the cell.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return The lower bound in kilometers.
+   */
+  private double cellLowerBoundKm(int row, int column, double lon, double lat) {
+    // A feature's nearest point lies inside its envelope, so it is inside a cell the feature is
+    // registered in, and that cell's bound never exceeds the feature's distance
+    double minLon = this.originLon + column * this.cellDegrees;
+    double minLat = this.originLat + row * this.cellDegrees;
+    double maxLon = minLon + this.cellDegrees;
+    double maxLat = minLat + this.cellDegrees;
+    return GeoDistance.boxLowerBoundKm(minLon, maxLon, minLat, maxLat, lon, lat);
+  }
+
+  /**
+   * Converts a latitude difference into the shortest distance it can take to cover.
+   *
+   * @param gap The latitude difference in degrees.
+   * @return The distance in kilometers, 0 if the difference is negative.
+   */
+  private static double latitudeGapKm(double gap) {
+    return GeoDistance.EARTH_RADIUS_KM * Math.toRadians(Math.max(0, gap));
+  }
+
+  /**
+   * Converts a longitude difference into a lower bound of the distance to cover it.
+   *
+   * @param gap The longitude difference in degrees.
+   * @param lat The latitude of the point.
+   * @return The distance in kilometers, 0 if the difference is negative or too wide to bound.
+   */
+  private static double longitudeGapKm(double gap, double lat) {
+    return gap <= 0 || gap >= 90 ? 0 : GeoDistance.meridianDistanceKm(gap, lat);
+  }
+
+  /**
+   * Gets a description of the index with its grid dimensions.
+   *
+   * @return The description, such as "grid 120x80 @0.0100".
+   */
+  @Override
+  public String name() {
+    return String.format("grid %dx%d @%.4f", this.columns, this.rows, this.cellDegrees);
+  }
+
+  /**
+   * Picks a cell size from the data: about one feature per cell, but no smaller than twice the
+   * median feature size, so a typical feature is registered in at most four cells.
+   *
+   * @param envelopes The envelopes of the features.
+   * @param area The area of the grid in square degrees.
+   * @param placed The number of features with finite envelopes.
+   * @return The side of a cell in degrees.
+   */
+  private static double autoCellDegrees(FeatureEnvelopes envelopes, double area, int placed) {
+    double[] sides = new double[placed];
+    int n = 0;
+    for (int i = 0; i < envelopes.size() && n < placed; i++) {
+      double side =
+          Math.max(
+              envelopes.maxLons[i] - envelopes.minLons[i],
+              envelopes.maxLats[i] - envelopes.minLats[i]);
+      if (Double.isFinite(side)) {
+        sides[n++] = side;
+      }
+    }
+    Arrays.sort(sides, 0, n);
+    double medianSide = n == 0 ? 0 : sides[n / 2];
+    return Math.max(Math.sqrt(area / Math.max(1, placed)), 2 * medianSide);
+  }
+
+  /**
+   * Counts the cells a grid needs to cover an extent.
+   *
+   * @param width The width of the extent in degrees.
+   * @param height The height of the extent in degrees.
+   * @param cellDegrees The side of a cell in degrees.
+   * @return The number of cells, at least one.
+   */
+  private static double cellCount(double width, double height, double cellDegrees) {
+    return Math.max(1, Math.ceil(width / cellDegrees))
+        * Math.max(1, Math.ceil(height / cellDegrees));
+  }
+
+  /**
+   * Finds the column of the grid containing a longitude, clamped to the grid.
+   *
+   * @param lon The longitude.
+   * @return The column.
+   */
+  private int column(double lon) {
+    int column = (int) Math.floor((lon - this.originLon) / this.cellDegrees);
+    return Math.max(0, Math.min(this.columns - 1, column));
+  }
+
+  /**
+   * Finds the row of the grid containing a latitude, clamped to the grid.
+   *
+   * @param lat The latitude.
+   * @return The row.
+   */
+  private int row(double lat) {
+    int row = (int) Math.floor((lat - this.originLat) / this.cellDegrees);
+    return Math.max(0, Math.min(this.rows - 1, row));
+  }
+
+  /**
+   * Checks whether a feature has a finite envelope.
+   *
+   * @param i The ordinal of the feature.
+   * @return True if all four bounds are finite numbers.
+   */
+  private boolean isFinite(int i) {
+    return Double.isFinite(this.envelopes.minLons[i])
+        && Double.isFinite(this.envelopes.minLats[i])
+        && Double.isFinite(this.envelopes.maxLons[i])
+        && Double.isFinite(this.envelopes.maxLats[i]);
+  }
+}
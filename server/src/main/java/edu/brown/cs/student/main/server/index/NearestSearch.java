@@ -0,0 +1,218 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * A best-first nearest-neighbor search. Index cells, feature envelopes and features with exact
+ * distances share one priority queue ordered by distance. Cells and envelopes are queued by a
+ * lower bound of the distance to anything inside them, and exact distances are only computed
+ * when an envelope reaches the head of the queue, so features are reported nearest first while
+ * most far-away features are never measured.
+ */
+public class NearestSearch {
+
+  /**
+   * Computes the exact distance from the query point to a feature.
+   */
+  public interface FeatureDistance {
+
+    /**
+     * Computes the distance from the query point to a feature.
+     *
+     * @param ordinal The ordinal of the feature.
+     * @return The distance in kilometers, or positive infinity if the feature has no geometry.
+     */
+    double distanceKm(int ordinal);
+  }
+
+  /**
+   * Queue entry kind of an index cell, whose id is a cell number.
+   */
+  static final int CELL = 0;
+
+  /**
+   * Queue entry kind of a feature queued by its envelope bound, whose id is an ordinal.
+   */
+  static final int ENVELOPE = 1;
+
+  /**
+   * Queue entry kind of a feature queued by its exact distance, whose id is an ordinal.
+   */
+  static final int EXACT = 2;
+
+  /**
+   * An entry of the search queue.
+   */
+  private static class Entry {
+
+    /**
+     * The distance or lower bound the entry is ordered by, in kilometers.
+     */
+    final double distanceKm;
+
+    /**
+     * The kind of the entry: CELL, ENVELOPE or EXACT.
+     */
+    final int kind;
+
+    /**
+     * The cell number or feature ordinal of the entry.
+     */
+    final int id;
+
+    /**
+     * Constructs an Entry.
+     *
+     * @param distanceKm The distance or lower bound, in kilometers.
+     * @param kind The kind of the entry.
+     * @param id The cell number or feature ordinal.
+     */
+    Entry(double distanceKm, int kind, int id) {
+      this.distanceKm = distanceKm;
+      this.kind = kind;
+      this.id = id;
+    }
+  }
+
+  /**
+   * The envelopes of the features, by ordinal.
+   */
+  private final FeatureEnvelopes envelopes;
+
+  /**
+   * The longitude of the query point.
+   */
+  private final double lon;
+
+  /**
+   * The latitude of the query point.
+   */
+  private final double lat;
+
+  /**
+   * The number of features to find.
+   */
+  private final int k;
+
+  /**
+   * The exact distance to a feature.
+   */
+  private final FeatureDistance distance;
+
+  /**
+   * The entries still to visit, nearest first; exact distances come before bounds on ties.
+   */
+  private final PriorityQueue<Entry> queue =
+      new PriorityQueue<>(
+          (a, b) ->
+              a.distanceKm != b.distanceKm
+                  ? Double.compare(a.distanceKm, b.distanceKm)
+                  : Integer.compare(b.kind, a.kind));
+
+  /**
+   * The features already queued, since a feature may be registered in several cells.
+   */
+  private final BitSet queued = new BitSet();
+
+  /**
+   * The features found so far, nearest first.
+   */
+  private final List<Neighbor> found = new ArrayList<>();
+
+  /**
+   * Starts a search.
+   *
+   * @param envelopes The envelopes of the features, by ordinal.
+   * @param lon The longitude of the query point.
+   * @param lat The latitude of the query point.
+   * @param k The number of features to find.
+   * @param distance The exact distance to a feature.
+   */
+  public NearestSearch(
+      FeatureEnvelopes envelopes, double lon, double lat, int k, FeatureDistance distance) {
+    this.envelopes = envelopes;
+    this.lon = lon;
+    this.lat = lat;
+    this.k = k;
+    this.distance = distance;
+  }
+
+  /**
+   * Queues an index cell by a lower bound of the distance to anything inside it.
+   *
+   * @param cell The cell number, passed back to the cell visitor.
+   * @param lowerBoundKm The lower bound in kilometers.
+   */
+  public void offerCell(int cell, double lowerBoundKm) {
+    this.queue.add(new Entry(lowerBoundKm, CELL, cell));
+  }
+
+  /**
+   * Queues a feature by the lower bound of its envelope, unless it was already queued. Features
+   * without a finite envelope can never be nearest and are skipped.
+   *
+   * @param ordinal The ordinal of the feature.
+   */
+  public void offerFeature(int ordinal) {
+    if (this.queued.get(ordinal)) {
+      return;
+    }
+    this.queued.set(ordinal);
+    double bound =
+        GeoDistance.boxLowerBoundKm(
+            this.envelopes.minLons[ordinal],
+            this.envelopes.maxLons[ordinal],
+            this.envelopes.minLats[ordinal],
+            this.envelopes.maxLats[ordinal],
+            this.lon,
+            this.lat);
+    if (bound <= Double.MAX_VALUE) {
+      this.queue.add(new Entry(bound, ENVELOPE, ordinal));
+    }
+  }
+
+  /**
+   * Visits queued entries in distance order until k features are found, the queue is empty, or
+   * the head of the queue is farther than a limit. Cells are opened with the visitor, which
+   * offers their features.
+   *
+   * @param limitKm Entries farther than this are left queued.
+   * @param cellVisitor Offers the features of a cell; called with the cell number.
+   * @return True if the search is complete: k features are found or nothing is left to visit.
+   */
+  public boolean run(double limitKm, IntConsumer cellVisitor) {
+    while (this.found.size() < this.k && !this.queue.isEmpty()) {
+      if (this.queue.peek().distanceKm > limitKm) {
+        return false;
+      }
+      Entry entry = this.queue.poll();
+      if (entry.kind == CELL) {
+        cellVisitor.accept(entry.id);
+      } else if (entry.kind == ENVELOPE) {
+        double exact = this.distance.distanceKm(entry.id);
+        if (exact <= Double.MAX_VALUE) {
+          // The exact distance is never below the bound, so the queue order is preserved
+          this.queue.add(new Entry(Math.max(exact, entry.distanceKm), EXACT, entry.id));
+        }
+      } else {
+        this.found.add(new Neighbor(entry.id, entry.distanceKm));
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets the features found, nearest first.
+   *
+   * @return The neighbors, at most k of them.
+   */
+  public List<Neighbor> result() {
+    return this.found;
+  }
+}
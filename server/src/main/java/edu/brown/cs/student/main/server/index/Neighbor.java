@@ -0,0 +1,28 @@
+package edu.brown.cs.student.main.server.index;
+
+/**
+ * A feature found by a nearest-neighbor search, with its distance from the query point.
+ */
+public class Neighbor {
+
+  /**
+   * The ordinal of the feature in the dataset's collection.
+   */
+  public final int ordinal;
+
+  /**
+   * The distance from the query point to the feature, in kilometers.
+   */
+  public final double distanceKm;
+
+  /**
+   * Constructs a Neighbor.
+   *
+   * @param ordinal The ordinal of the feature.
+   * @param distanceKm The distance from the query point to the feature, in kilometers.
+   */
+  public Neighbor(int ordinal, double distanceKm) {
+    this.ordinal = ordinal;
+    this.distanceKm = distanceKm;
+  }
+}
@@ -0,0 +1,226 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index over the string fields of feature properties. For every field and every value
+ * it holds the features with exactly that value as a compressed bitmap, so filters on several
+ * fields combine as bitmap operations without touching the features. The low-cardinality fields
+ * are also dictionary-encoded: each distinct value gets a small integer code, and every feature's
+ * value is kept as its code, so testing or grouping a feature by such a field compares integers.
+ */
+public class PropertyIndex {
+
+  /**
+   * The property fields that are indexed, as named in the GeoJSON properties.
+   */
+  public static final List<String> FIELDS =
+      List.of("name", "state", "city", "holc_id", "holc_grade");
+
+  /**
+   * The indexed fields with few distinct values, which are also dictionary-encoded.
+   */
+  public static final List<String> CODED_FIELDS =
+      List.of("state", "city", "holc_id", "holc_grade");
+
+  /**
+   * The code of every feature's value, by field, or -1 where the value is missing.
+   */
+  private final Map<String, int[]> codes = new HashMap<>();
+
+  /**
+   * The distinct values of each coded field, by code.
+   */
+  private final Map<String, String[]> values = new HashMap<>();
+
+  /**
+   * The code of each value of each coded field.
+   */
+  private final Map<String, Map<String, Integer>> valueCodes = new HashMap<>();
+
+  /**
+   * The features with each value, by field and then by value.
+   */
+  private final Map<String, Map<String, RoaringBitmap>> postings;
+
+  /**
+   * The number of features in the indexed collection.
+   */
+  private final int size;
+
+  /**
+   * Builds the index over every feature of a collection.
+   *
+   * @param collection The collection to index.
+   */
+  public PropertyIndex(GeoMapCollection collection) {
+    this.size = collection.features.size();
+
+    // Gather the ordinals of each value in ascending order, then compress them
+    Map<String, Map<String, List<Integer>>> ordinals = new HashMap<>();
+    for (String field : FIELDS) {
+      ordinals.put(field, new HashMap<>());
+    }
+    for (int i = 0; i < this.size; i++) {
+      GeoMap feature = collection.features.get(i);
+      if (feature == null || feature.properties == null) {
+        continue;
+      }
+      for (String field : FIELDS) {
+        String value = valueOf(feature.properties, field);
+        if (value != null) {
+          ordinals.get(field).computeIfAbsent(value, v -> new ArrayList<>()).add(i);
+        }
+      }
+    }
+
+    this.postings = new HashMap<>();
+    for (String field : FIELDS) {
+      Map<String, RoaringBitmap> values = new HashMap<>();
+      for (Map.Entry<String, List<Integer>> entry : ordinals.get(field).entrySet()) {
+        int[] list = entry.getValue().stream().mapToInt(Integer::intValue).toArray();
+        values.put(entry.getKey(), RoaringBitmap.of(list));
+      }
+      this.postings.put(field, values);
+    }
+
+    // Number the values of each coded field in sorted order, and encode every feature's value
+    for (String field : CODED_FIELDS) {
+      String[] table = ordinals.get(field).keySet().toArray(new String[0]);
+      Arrays.sort(table);
+      Map<String, Integer> valueCodes = new HashMap<>();
+      int[] codes = new int[this.size];
+      Arrays.fill(codes, -1);
+      for (int code = 0; code < table.length; code++) {
+        valueCodes.put(table[code], code);
+        for (int ordinal : ordinals.get(field).get(table[code])) {
+          codes[ordinal] = code;
+        }
+      }
+      this.values.put(field, table);
+      this.valueCodes.put(field, valueCodes);
+      this.codes.put(field, codes);
+    }
+  }
+
+  /**
+   * Reads an indexed field of a feature's properties.
+   *
+   * @param properties The properties.
+   * @param field One of {@link #FIELDS}.
+   * @return The value, or null if it is missing.
+   */
+  public static String valueOf(Property properties, String field) {
+    switch (field) {
+      case "name":
+        return properties.name;
+      case "state":
+        return properties.state;
+      case "city":
+        return properties.city;
+      case "holc_id":
+        return properties.holc_id;
+      case "holc_grade":
+        return properties.holc_grade;
+      default:
+        throw new IllegalArgumentException("Unknown property field: " + field);
+    }
+  }
+
+  /**
+   * Finds the features whose field has exactly a given value.
+   *
+   * @param field One of {@link #FIELDS}.
+   * @param value The value, compared exactly.
+   * @return The features with the value, or an empty bitmap if there are none.
+   * @throws IllegalArgumentException If the field is not indexed.
+   */
+  public RoaringBitmap lookup(String field, String value) {
+    Map<String, RoaringBitmap> values = this.postings.get(field);
+    if (values == null) {
+      throw new IllegalArgumentException("Unknown property field: " + field);
+    }
+    return values.getOrDefault(value, RoaringBitmap.EMPTY);
+  }
+
+  /**
+   * Gets the code of a value of a coded field.
+   *
+   * @param field One of {@link #CODED_FIELDS}.
+   * @param value The value.
+   * @return The code, or -1 if no feature has the value.
+   * @throws IllegalArgumentException If the field is not coded.
+   */
+  public int code(String field, String value) {
+    Integer code = codedValues(field).get(value);
+    return code == null ? -1 : code;
+  }
+
+  /**
+   * Gets the codes of every feature's value of a coded field. The array is shared and must not be
+   * modified.
+   *
+   * @param field One of {@link #CODED_FIELDS}.
+   * @return The code of each feature's value by position in the collection, -1 where missing.
+   * @throws IllegalArgumentException If the field is not coded.
+   */
+  public int[] codes(String field) {
+    codedValues(field);
+    return this.codes.get(field);
+  }
+
+  /**
+   * Gets the value of a code of a coded field.
+   *
+   * @param field One of {@link #CODED_FIELDS}.
+   * @param code A code of the field.
+   * @return The value.
+   * @throws IllegalArgumentException If the field is not coded.
+   */
+  public String value(String field, int code) {
+    codedValues(field);
+    return this.values.get(field)[code];
+  }
+
+  /**
+   * Gets the number of distinct values of a coded field.
+   *
+   * @param field One of {@link #CODED_FIELDS}.
+   * @return The number of codes.
+   * @throws IllegalArgumentException If the field is not coded.
+   */
+  public int cardinality(String field) {
+    return codedValues(field).size();
+  }
+
+  /**
+   * Gets the codes of the values of a coded field.
+   *
+   * @param field The field.
+   * @return The code of each value.
+   * @throws IllegalArgumentException If the field is not coded.
+   */
+  private Map<String, Integer> codedValues(String field) {
+    Map<String, Integer> valueCodes = this.valueCodes.get(field);
+    if (valueCodes == null) {
+      throw new IllegalArgumentException("Property field is not coded: " + field);
+    }
+    return valueCodes;
+  }
+
+  /**
+   * Gets the number of features in the indexed collection.
+   *
+   * @return The number of features.
+   */
+  public int size() {
+    return this.size;
+  }
+}
@@ -0,0 +1,490 @@
+package edu.brown.cs.student.main.server.index;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * A compressed set of feature ordinals in the style of a roaring bitmap. Ordinals are split by
+ * their high 16 bits into chunks, and each chunk is stored in a container chosen by its density:
+ * a sorted array of the low 16 bits when the chunk holds few ordinals, or a 65536-bit bitmap when
+ * it holds many. Intersections and unions work container by container, so their cost follows the
+ * size of the sets rather than the number of features in the dataset. Bitmaps are immutable once
+ * built.
+ */
+public final class RoaringBitmap {
+
+  /**
+   * The largest number of values an array container holds before it becomes a bitmap container.
+   * Past this point the sorted array takes more memory than the 8 KB bitmap.
+   */
+  static final int ARRAY_LIMIT = 4096;
+
+  /**
+   * The number of 64-bit words of a bitmap container.
+   */
+  private static final int BITMAP_WORDS = 1 << 10;
+
+  /**
+   * The empty bitmap.
+   */
+  public static final RoaringBitmap EMPTY = new RoaringBitmap(new char[0], new Container[0], 0);
+
+  /**
+   * The high 16 bits of the ordinals of each container, in ascending order.
+   */
+  private final char[] keys;
+
+  /**
+   * The containers, parallel to the keys.
+   */
+  private final Container[] containers;
+
+  /**
+   * The number of containers in use.
+   */
+  private final int size;
+
+  /**
+   * Constructs a RoaringBitmap from its containers.
+   *
+   * @param keys The high 16 bits of each container.
+   * @param containers The containers, none of them empty.
+   * @param size The number of containers in use.
+   */
+  private RoaringBitmap(char[] keys, Container[] containers, int size) {
+    this.keys = keys;
+    this.containers = containers;
+    this.size = size;
+  }
+
+  /**
+   * Builds a bitmap from ordinals in ascending order.
+   *
+   * @param ordinals The ordinals, in strictly ascending order.
+   * @return The bitmap.
+   * @throws IllegalArgumentException If the ordinals are negative or not strictly ascending.
+   */
+  public static RoaringBitmap of(int[] ordinals) {
+    return of(ordinals, ordinals.length);
+  }
+
+  /**
+   * Builds a bitmap from the first ordinals of an array in ascending order.
+   *
+   * @param ordinals The ordinals, in strictly ascending order.
+   * @param count The number of ordinals to take from the start of the array.
+   * @return The bitmap.
+   * @throws IllegalArgumentException If the ordinals are negative or not strictly ascending.
+   */
+  public static RoaringBitmap of(int[] ordinals, int count) {
+    char[] keys = new char[4];
+    Container[] containers = new Container[4];
+    int size = 0;
+    int start = 0;
+    while (start < count) {
+      int key = ordinals[start] >>> 16;
+      int end = start;
+      int previous = -1;
+      while (end < count && ordinals[end] >>> 16 == key) {
+        if (ordinals[end] < 0 || ordinals[end] <= previous) {
+          throw new IllegalArgumentException("Ordinals must be non-negative and ascending");
+        }
+        previous = ordinals[end];
+        end++;
+      }
+      if (size > 0 && key <= keys[size - 1]) {
+        throw new IllegalArgumentException("Ordinals must be non-negative and ascending");
+      }
+      char[] values = new char[end - start];
+      for (int i = start; i < end; i++) {
+        values[i - start] = (char) ordinals[i];
+      }
+      if (size == keys.length) {
+        keys = Arrays.copyOf(keys, size * 2);
+        containers = Arrays.copyOf(containers, size * 2);
+      }
+      keys[size] = (char) key;
+      containers[size++] = Container.fromArray(values, values.length);
+      start = end;
+    }
+    return size == 0 ? EMPTY : new RoaringBitmap(keys, containers, size);
+  }
+
+  /**
+   * Checks whether the bitmap holds an ordinal.
+   *
+   * @param ordinal The ordinal.
+   * @return True if the ordinal is in the set.
+   */
+  public boolean contains(int ordinal) {
+    if (ordinal < 0) {
+      return false;
+    }
+    int at = Arrays.binarySearch(this.keys, 0, this.size, (char) (ordinal >>> 16));
+    return at >= 0 && this.containers[at].contains((char) ordinal);
+  }
+
+  /**
+   * Counts the ordinals in the bitmap.
+   *
+   * @return The number of ordinals.
+   */
+  public int cardinality() {
+    int cardinality = 0;
+    for (int i = 0; i < this.size; i++) {
+      cardinality += this.containers[i].cardinality;
+    }
+    return cardinality;
+  }
+
+  /**
+   * Checks whether the bitmap is empty.
+   *
+   * @return True if the bitmap holds no ordinals.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Lists the ordinals in the bitmap.
+   *
+   * @return The ordinals, in ascending order.
+   */
+  public int[] toArray() {
+    int[] ordinals = new int[cardinality()];
+    int count = 0;
+    for (int i = 0; i < this.size; i++) {
+      count = this.containers[i].copyTo(ordinals, count, this.keys[i] << 16);
+    }
+    return ordinals;
+  }
+
+  /**
+   * Intersects this bitmap with another.
+   *
+   * @param other The other bitmap.
+   * @return The ordinals in both bitmaps.
+   */
+  public RoaringBitmap and(RoaringBitmap other) {
+    char[] keys = new char[Math.min(this.size, other.size)];
+    Container[] containers = new Container[keys.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < this.size && j < other.size) {
+      if (this.keys[i] < other.keys[j]) {
+        i++;
+      } else if (this.keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        Container container = this.containers[i].and(other.containers[j]);
+        if (container != null) {
+          keys[size] = this.keys[i];
+          containers[size++] = container;
+        }
+        i++;
+        j++;
+      }
+    }
+    return size == 0 ? EMPTY : new RoaringBitmap(keys, containers, size);
+  }
+
+  /**
+   * Unites this bitmap with another.
+   *
+   * @param other The other bitmap.
+   * @return The ordinals in either bitmap.
+   */
+  public RoaringBitmap or(RoaringBitmap other) {
+    char[] keys = new char[this.size + other.size];
+    Container[] containers = new Container[keys.length];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < this.size || j < other.size) {
+      if (j == other.size || (i < this.size && this.keys[i] < other.keys[j])) {
+        keys[size] = this.keys[i];
+        containers[size++] = this.containers[i++];
+      } else if (i == this.size || this.keys[i] > other.keys[j]) {
+        keys[size] = other.keys[j];
+        containers[size++] = other.containers[j++];
+      } else {
+        keys[size] = this.keys[i];
+        containers[size++] = this.containers[i++].or(other.containers[j++]);
+      }
+    }
+    return size == 0 ? EMPTY : new RoaringBitmap(keys, containers, size);
+  }
+
+  /**
+   * Writes the bitmap container by container, so it can be read back without rebuilding it.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(this.size);
+    for (int i = 0; i < this.size; i++) {
+      Container container = this.containers[i];
+      out.writeChar(this.keys[i]);
+      out.writeInt(container.cardinality);
+      out.writeBoolean(container.array != null);
+      if (container.array != null) {
+        for (int j = 0; j < container.cardinality; j++) {
+          out.writeChar(container.array[j]);
+        }
+      } else {
+        for (long word : container.bitmap) {
+          out.writeLong(word);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a bitmap written by {@link #write}, copying its containers out of the buffer in bulk.
+   *
+   * @param in The buffer, positioned at the bitmap.
+   * @return The bitmap.
+   */
+  public static RoaringBitmap read(ByteBuffer in) {
+    int size = in.getInt();
+    if (size == 0) {
+      return EMPTY;
+    }
+    char[] keys = new char[size];
+    Container[] containers = new Container[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = in.getChar();
+      int cardinality = in.getInt();
+      if (in.get() != 0) {
+        char[] array = new char[cardinality];
+        in.asCharBuffer().get(array);
+        in.position(in.position() + cardinality * Character.BYTES);
+        containers[i] = new Container(array, null, cardinality);
+      } else {
+        long[] bitmap = new long[BITMAP_WORDS];
+        in.asLongBuffer().get(bitmap);
+        in.position(in.position() + BITMAP_WORDS * Long.BYTES);
+        containers[i] = new Container(null, bitmap, cardinality);
+      }
+    }
+    return new RoaringBitmap(keys, containers, size);
+  }
+
+  /**
+   * The ordinals sharing one value of the high 16 bits, stored either as a sorted array of their
+   * low 16 bits or as a bitmap over all 65536 low values.
+   */
+  private static final class Container {
+
+    /**
+     * The sorted low bits, or null for a bitmap container.
+     */
+    final char[] array;
+
+    /**
+     * The bits, or null for an array container.
+     */
+    final long[] bitmap;
+
+    /**
+     * The number of values in the container.
+     */
+    final int cardinality;
+
+    /**
+     * Constructs a Container.
+     *
+     * @param array The sorted low bits, or null.
+     * @param bitmap The bits, or null.
+     * @param cardinality The number of values.
+     */
+    private Container(char[] array, long[] bitmap, int cardinality) {
+      this.array = array;
+      this.bitmap = bitmap;
+      this.cardinality = cardinality;
+    }
+
+    /**
+     * Builds the container for sorted values, using a bitmap if there are too many for an array.
+     *
+     * @param values The sorted low bits.
+     * @param count The number of values to take from the start of the array.
+     * @return The container, or null if there are no values.
+     */
+    static Container fromArray(char[] values, int count) {
+      if (count == 0) {
+        return null;
+      }
+      if (count <= ARRAY_LIMIT) {
+        return new Container(
+            count == values.length ? values : Arrays.copyOf(values, count), null, count);
+      }
+      long[] bitmap = new long[BITMAP_WORDS];
+      for (int i = 0; i < count; i++) {
+        bitmap[values[i] >>> 6] |= 1L << values[i];
+      }
+      return new Container(null, bitmap, count);
+    }
+
+    /**
+     * Builds the container for a bitmap, using an array if it holds few enough values.
+     *
+     * @param bitmap The bits.
+     * @param cardinality The number of set bits.
+     * @return The container, or null if no bit is set.
+     */
+    static Container fromBitmap(long[] bitmap, int cardinality) {
+      if (cardinality == 0) {
+        return null;
+      }
+      if (cardinality > ARRAY_LIMIT) {
+        return new Container(null, bitmap, cardinality);
+      }
+      char[] values = new char[cardinality];
+      int count = 0;
+      for (int word = 0; word < BITMAP_WORDS; word++) {
+        long bits = bitmap[word];
+        while (bits != 0) {
+          values[count++] = (char) ((word << 6) + Long.numberOfTrailingZeros(bits));
+          bits &= bits - 1;
+        }
+      }
+      return new Container(values, null, cardinality);
+    }
+
+    /**
+     * Checks whether the container holds a value.
+     *
+     * @param value The low bits.
+     * @return True if the value is present.
+     */
+    boolean contains(char value) {
+      if (this.bitmap != null) {
+        return (this.bitmap[value >>> 6] & (1L << value)) != 0;
+      }
+      return Arrays.binarySearch(this.array, value) >= 0;
+    }
+
+    /**
+     * Copies the values of the container into an array of ordinals.
+     *
+     * @param ordinals The destination.
+     * @param at The position of the first value to write.
+     * @param high The high bits of the container, already shifted.
+     * @return The position after the last value written.
+     */
+    int copyTo(int[] ordinals, int at, int high) {
+      if (this.array != null) {
+        for (char value : this.array) {
+          ordinals[at++] = high | value;
+        }
+        return at;
+      }
+      for (int word = 0; word < BITMAP_WORDS; word++) {
+        long bits = this.bitmap[word];
+        while (bits != 0) {
+          ordinals[at++] = high | ((word << 6) + Long.numberOfTrailingZeros(bits));
+          bits &= bits - 1;
+        }
+      }
+      return at;
+    }
+
+    /**
+     * Intersects this container with another.
+     *
+     * @param other The other container.
+     * @return The values in both, or null if there are none.
+     */
+    Container and(Container other) {
+      if (this.bitmap != null && other.bitmap != null) {
+        long[] bitmap = new long[BITMAP_WORDS];
+        int cardinality = 0;
+        for (int word = 0; word < BITMAP_WORDS; word++) {
+          bitmap[word] = this.bitmap[word] & other.bitmap[word];
+          cardinality += Long.bitCount(bitmap[word]);
+        }
+        return fromBitmap(bitmap, cardinality);
+      }
+      if (this.bitmap != null || other.bitmap != null) {
+        Container sparse = this.bitmap == null ? this : other;
+        Container dense = this.bitmap == null ? other : this;
+        char[] values = new char[sparse.cardinality];
+        int count = 0;
+        for (char value : sparse.array) {
+          if (dense.contains(value)) {
+            values[count++] = value;
+          }
+        }
+        return fromArray(values, count);
+      }
+      char[] values = new char[Math.min(this.cardinality, other.cardinality)];
+      int count = 0;
+      int i = 0;
+      int j = 0;
+      while (i < this.cardinality && j < other.cardinality) {
+        if (this.array[i] < other.array[j]) {
+          i++;
+        } else if (this.array[i] > other.array[j]) {
+          j++;
+        } else {
+          values[count++] = this.array[i];
+          i++;
+          j++;
+        }
+      }
+      return fromArray(values, count);
+    }
+
+    /**
+     * Unites this container with another.
+     *
+     * @param other The other container.
+     * @return The values in either.
+     */
+    Container or(Container other) {
+      if (this.array != null && other.array != null
+          && this.cardinality + other.cardinality <= ARRAY_LIMIT) {
+        char[] values = new char[this.cardinality + other.cardinality];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.cardinality || j < other.cardinality) {
+          if (j == other.cardinality
+              || (i < this.cardinality && this.array[i] < other.array[j])) {
+            values[count++] = this.array[i++];
+          } else if (i == this.cardinality || this.array[i] > other.array[j]) {
+            values[count++] = other.array[j++];
+          } else {
+            values[count++] = this.array[i];
+            i++;
+            j++;
+          }
+        }
+        return fromArray(values, count);
+      }
+      long[] bitmap = new long[BITMAP_WORDS];
+      for (Container container : new Container[] {this, other}) {
+        if (container.bitmap != null) {
+          for (int word = 0; word < BITMAP_WORDS; word++) {
+            bitmap[word] |= container.bitmap[word];
+          }
+        } else {
+          for (char value : container.array) {
+            bitmap[value >>> 6] |= 1L << value;
+          }
+        }
+      }
+      int cardinality = 0;
+      for (long word : bitmap) {
+        cardinality += Long.bitCount(word);
+      }
+      return fromBitmap(bitmap, cardinality);
+    }
+  }
+}
@@ -0,0 +1,125 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A spatial index that tests the envelope of every feature. It needs no memory beyond the
+ * envelopes and is the baseline the other indexes are measured against.
+ */
+public class ScanIndex implements SpatialIndex {
+
+  /**
+   * The envelopes of the features, by ordinal.
+   */
+  private final FeatureEnvelopes envelopes;
+
+  /**
+   * Constructs a ScanIndex over feature envelopes.
+   *
+   * @param envelopes The envelopes of the features, by ordinal.
+   */
+  public ScanIndex(FeatureEnvelopes envelopes) {
+    this.envelopes = envelopes;
+  }
+
+  /**
+   * Finds the features lying completely inside a bounding box by testing every envelope.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  @Override
+  public int[] within(double minLon, double maxLon, double minLat, double maxLat) {
+    return query(minLon, maxLon, minLat, maxLat, true);
+  }
+
+  /**
+   * Finds the features whose envelopes overlap a bounding box by testing every envelope.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  @Override
+  public int[] intersecting(double minLon, double maxLon, double minLat, double maxLat) {
+    return query(minLon, maxLon, minLat, maxLat, false);
+  }
+
+  /**
+   * Estimates the number of features a bounding box query examines, which for a scan is every
+   * feature.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The number of features.
+   */
+  @Override
+  public int estimate(double minLon, double maxLon, double minLat, double maxLat) {
+    return this.envelopes.size();
+  }
+
+  /**
+   * Tests every envelope against a bounding box.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @param containment True to keep envelopes inside the box, false to keep those overlapping it.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  int[] query(double minLon, double maxLon, double minLat, double maxLat, boolean containment) {
+    int[] matches = new int[16];
+    int count = 0;
+    for (int i = 0; i < this.envelopes.size(); i++) {
+      if (containment
+          ? this.envelopes.isWithin(i, minLon, maxLon, minLat, maxLat)
+          : this.envelopes.intersects(i, minLon, maxLon, minLat, maxLat)) {
+        if (count == matches.length) {
+          matches = Arrays.copyOf(matches, count * 2);
+        }
+        matches[count++] = i;
+      }
+    }
+    return Arrays.copyOf(matches, count);
+  }
+
+  /**
+   * Finds the features nearest to a point, queueing every feature by its envelope bound.
+   *
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @param k The largest number of features to find.
+   * @param distance The exact distance from the point to a feature.
+   * @return Up to k features with their distances, nearest first.
+   */
+  @Override
+  public List<Neighbor> nearest(
+      double lon, double lat, int k, NearestSearch.FeatureDistance distance) {
+    NearestSearch search = new NearestSearch(this.envelopes, lon, lat, k, distance);
+    for (int i = 0; i < this.envelopes.size(); i++) {
+      search.offerFeature(i);
+    }
+    search.run(Double.POSITIVE_INFINITY, cell -> {});
+    return search.result();
+  }
+
+  /**
+   * Gets the name of the index.
+   *
+   * @return "scan".
+   */
+  @Override
+  public String name() {
+    return "scan";
+  }
+}
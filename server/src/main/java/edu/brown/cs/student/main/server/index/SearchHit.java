@@ -0,0 +1,28 @@
+package edu.brown.cs.student.main.server.index;
+
+/**
+ * A feature found by a ranked text search, with its relevance score.
+ */
+public class SearchHit {
+
+  /**
+   * The position of the feature in the collection.
+   */
+  public final int ordinal;
+
+  /**
+   * The relevance of the feature to the query; higher is more relevant.
+   */
+  public final double score;
+
+  /**
+   * Constructs a SearchHit.
+   *
+   * @param ordinal The position of the feature in the collection.
+   * @param score The relevance of the feature to the query.
+   */
+  public SearchHit(int ordinal, double score) {
+    this.ordinal = ordinal;
+    this.score = score;
+  }
+}
@@ -0,0 +1,91 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import java.util.List;
+
+/**
+ * An index that finds the features of a dataset lying inside or overlapping a bounding box, or
+ * nearest to a point. Features are identified by their position (ordinal) in the dataset's
+ * collection.
+ */
+public interface SpatialIndex {
+
+  /**
+   * The kinds of spatial index a dataset can be built with.
+   */
+  enum Kind {
+    /** Test the envelope of every feature; no extra memory. */
+    SCAN,
+    /** Test only the features registered in the cells of a uniform grid the box covers. */
+    GRID
+  }
+
+  /**
+   * Finds the features lying completely inside a bounding box, edges included.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  int[] within(double minLon, double maxLon, double minLat, double maxLat);
+
+  /**
+   * Finds the features whose envelopes overlap a bounding box, edges included. This is a
+   * conservative candidate set for queries whose exact test is done on the geometry.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The ordinals of the matching features, in ascending order.
+   */
+  int[] intersecting(double minLon, double maxLon, double minLat, double maxLat);
+
+  /**
+   * Estimates the number of features a query over a bounding box examines, from the statistics
+   * of the index and without testing any envelope. This is an upper bound on the number of
+   * features inside or overlapping the box, used to plan combined queries.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return The estimated number of candidate features.
+   */
+  int estimate(double minLon, double maxLon, double minLat, double maxLat);
+
+  /**
+   * Finds the features nearest to a point.
+   *
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @param k The largest number of features to find.
+   * @param distance The exact distance from the point to a feature.
+   * @return Up to k features with their distances, nearest first.
+   */
+  List<Neighbor> nearest(double lon, double lat, int k, NearestSearch.FeatureDistance distance);
+
+  /**
+   * Gets a short description of the index, for logs and benchmarks.
+   *
+   * @return The description of the index.
+   */
+  String name();
+
+  /**
+   * Builds a spatial index over feature envelopes.
+   *
+   * @param kind The kind of index to build.
+   * @param envelopes The envelopes of the features, by ordinal.
+   * @param gridCellDegrees The side of a grid cell in degrees, or 0 to size cells automatically.
+   * @return The index.
+   */
+  static SpatialIndex build(Kind kind, FeatureEnvelopes envelopes, double gridCellDegrees) {
+    if (kind == Kind.GRID) {
+      return new GridIndex(envelopes, gridCellDegrees);
+    }
+    return new ScanIndex(envelopes);
+  }
+}
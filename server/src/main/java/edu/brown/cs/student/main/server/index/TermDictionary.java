@@ -0,0 +1,256 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * A sorted dictionary of the words of every feature's name and area descriptions, with the number
+ * of features using each word. The words completing a prefix are a contiguous range of the
+ * dictionary, found with two binary searches. A sparse table holds the most used word of every
+ * range whose length is a power of two, so the most used word of any range takes two lookups,
+ * and the top completions are drawn from a heap of ranges split around each word taken. A
+ * suggestion then costs the same for a one-letter prefix as for a long one.
+ */
+public class TermDictionary {
+
+  /**
+   * The distinct words, in ascending order.
+   */
+  private final String[] terms;
+
+  /**
+   * The number of features using each word, parallel to the words.
+   */
+  private final int[] counts;
+
+  /**
+   * The position of the most used word of every range of 2^(j + 1) words, at best[j][start].
+   */
+  private final int[][] best;
+
+  /**
+   * Builds the dictionary over every feature of a collection, tokenizing names and descriptions
+   * like {@link Bm25Index#tokenize}.
+   *
+   * @param collection The collection to index.
+   */
+  public TermDictionary(GeoMapCollection collection) {
+    // Count every word once per feature that uses it
+    Map<String, Integer> counts = new HashMap<>();
+    Set<String> words = new HashSet<>();
+    for (GeoMap feature : collection.features) {
+      if (feature == null || feature.properties == null) {
+        continue;
+      }
+      words.clear();
+      if (feature.properties.name != null) {
+        words.addAll(Bm25Index.tokenize(feature.properties.name));
+      }
+      if (feature.properties.area_description_data != null) {
+        for (String description : feature.properties.area_description_data.values()) {
+          words.addAll(Bm25Index.tokenize(description));
+        }
+      }
+      for (String word : words) {
+        counts.merge(word, 1, Integer::sum);
+      }
+    }
+
+    this.terms = counts.keySet().toArray(new String[0]);
+    Arrays.sort(this.terms);
+    this.counts = new int[this.terms.length];
+    for (int i = 0; i < this.terms.length; i++) {
+      this.counts[i] = counts.get(this.terms[i]);
+    }
+
+    this.best = sparseTable();
+  }
+
+  /**
+   * Constructs a TermDictionary from its words and counts.
+   *
+   * @param terms The distinct words, in ascending order.
+   * @param counts The number of features using each word.
+   */
+  private TermDictionary(String[] terms, int[] counts) {
+    this.terms = terms;
+    this.counts = counts;
+    this.best = sparseTable();
+  }
+
+  /**
+   * Builds the sparse table over the words and counts.
+   *
+   * @return The position of the most used word of every range of 2^(j + 1) words, at
+   *     table[j][start].
+   */
+  private int[][] sparseTable() {
+    // Each level of the sparse table combines two ranges of the level below
+    int n = this.terms.length;
+    int[][] table = new int[n < 2 ? 0 : 31 - Integer.numberOfLeadingZeros(n)][];
+    for (int j = 1; j <= table.length; j++) {
+      int half = 1 << (j - 1);
+      table[j - 1] = new int[n - (1 << j) + 1];
+      for (int i = 0; i < table[j - 1].length; i++) {
+        int left = j == 1 ? i : table[j - 2][i];
+        int right = j == 1 ? i + half : table[j - 2][i + half];
+        table[j - 1][i] = better(left, right);
+      }
+    }
+    return table;
+  }
+
+  /**
+   * Writes the words and counts, from which the dictionary can be read back without a scan of the
+   * collection.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(this.terms.length);
+    for (int i = 0; i < this.terms.length; i++) {
+      DatasetSnapshot.writeText(out, this.terms[i]);
+      out.writeInt(this.counts[i]);
+    }
+  }
+
+  /**
+   * Reads a dictionary written by {@link #write}.
+   *
+   * @param in The buffer, positioned at the dictionary.
+   * @return The dictionary.
+   */
+  public static TermDictionary read(ByteBuffer in) {
+    int n = in.getInt();
+    String[] terms = new String[n];
+    int[] counts = new int[n];
+    for (int i = 0; i < n; i++) {
+      terms[i] = DatasetSnapshot.readText(in);
+      counts[i] = in.getInt();
+    }
+    return new TermDictionary(terms, counts);
+  }
+
+  /**
+   * Finds the most used words starting with a prefix. The prefix is compared in lowercase.
+   *
+   * @param prefix The prefix to complete.
+   * @param limit The largest number of words to return.
+   * @return Up to limit completions, most used first, with ties in alphabetical order.
+   */
+  public List<Completion> complete(String prefix, int limit) {
+    String lower = prefix.toLowerCase(Locale.ROOT);
+    int from = lowerBound(lower);
+    // Words hold only letters and digits, so every word with the prefix sorts before this one
+    int to = lowerBound(lower + Character.MAX_VALUE);
+
+    // Take the most used word of the best remaining range, then split the range around it
+    List<Completion> completions = new ArrayList<>();
+    PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> compare(a[2], b[2]));
+    if (from < to) {
+      ranges.add(new int[] {from, to, bestIn(from, to)});
+    }
+    while (completions.size() < limit && !ranges.isEmpty()) {
+      int[] range = ranges.poll();
+      int i = range[2];
+      completions.add(new Completion(this.terms[i], this.counts[i]));
+      if (range[0] < i) {
+        ranges.add(new int[] {range[0], i, bestIn(range[0], i)});
+      }
+      if (i + 1 < range[1]) {
+        ranges.add(new int[] {i + 1, range[1], bestIn(i + 1, range[1])});
+      }
+    }
+    return completions;
+  }
+
+  /**
+   * Gets the number of distinct words in the dictionary.
+   *
+   * @return The number of words.
+   */
+  public int size() {
+    return this.terms.length;
+  }
+
+  /**
+   * Finds the first word that is not less than a string.
+   *
+   * @param key The string.
+   * @return The position of the word, or the number of words if every word is less.
+   */
+  private int lowerBound(String key) {
+    int low = 0;
+    int high = this.terms.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (this.terms[mid].compareTo(key) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Finds the most used word of a range in two lookups into the sparse table, covering the range
+   * with two possibly overlapping ranges whose length is a power of two.
+   *
+   * @param from The first position of the range.
+   * @param to The position after the last of the range, greater than from.
+   * @return The position of the most used word, the first alphabetically among equal counts.
+   */
+  private int bestIn(int from, int to) {
+    int j = 31 - Integer.numberOfLeadingZeros(to - from);
+    return better(bestAt(j, from), bestAt(j, to - (1 << j)));
+  }
+
+  /**
+   * Looks up the most used word of a range of 2^j words in a sparse table.
+   *
+   * @param j The level.
+   * @param start The first position of the range.
+   * @return The position of the most used word of the range.
+   */
+  private int bestAt(int j, int start) {
+    return j == 0 ? start : this.best[j - 1][start];
+  }
+
+  /**
+   * Picks the better ranked of two words.
+   *
+   * @param a The position of a word.
+   * @param b The position of another word.
+   * @return The position of the word that ranks first.
+   */
+  private int better(int a, int b) {
+    return compare(a, b) <= 0 ? a : b;
+  }
+
+  /**
+   * Orders words from the most to the least used, alphabetically among equal counts.
+   *
+   * @param a The position of a word.
+   * @param b The position of another word.
+   * @return A negative number if the word at a ranks before the word at b.
+   */
+  private int compare(int a, int b) {
+    int byCount = Integer.compare(this.counts[b], this.counts[a]);
+    return byCount != 0 ? byCount : this.terms[a].compareTo(this.terms[b]);
+  }
+}
@@ -0,0 +1,238 @@
+package edu.brown.cs.student.main.server.index;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An index of the three-character substrings (trigrams) of every feature's area descriptions.
+ * A description that contains a keyword contains every trigram of the keyword, so intersecting
+ * the features of the keyword's trigrams gives a superset of the features whose descriptions
+ * contain it. Only those candidates need to be checked with {@link String#contains}, which keeps
+ * substring semantics, including matches inside words, while the work follows the rarest trigram
+ * instead of the size of the corpus. Trigrams do not cross from one description to another.
+ */
+public class TrigramIndex {
+
+  /**
+   * The length of the indexed substrings.
+   */
+  public static final int GRAM_LENGTH = 3;
+
+  /**
+   * The features whose descriptions contain each trigram, keyed by the packed trigram.
+   */
+  private final Map<Long, RoaringBitmap> postings;
+
+  /**
+   * The number of features in the indexed collection.
+   */
+  private final int size;
+
+  /**
+   * Builds the index over every feature of a collection.
+   *
+   * @param collection The collection to index.
+   */
+  public TrigramIndex(GeoMapCollection collection) {
+    this(collection, null);
+  }
+
+  /**
+   * Builds the index over one field of the area descriptions of every feature of a collection.
+   *
+   * @param collection The collection to index.
+   * @param field The key of the descriptions to index, or null to index every description.
+   */
+  public TrigramIndex(GeoMapCollection collection, String field) {
+    this.size = collection.features.size();
+
+    // Gather the ordinals of each trigram in ascending order, then compress them
+    Map<Long, int[]> ordinals = new HashMap<>();
+    Map<Long, Integer> counts = new HashMap<>();
+    Set<Long> grams = new HashSet<>();
+    for (int i = 0; i < this.size; i++) {
+      GeoMap feature = collection.features.get(i);
+      if (feature == null
+          || feature.properties == null
+          || feature.properties.area_description_data == null) {
+        continue;
+      }
+      grams.clear();
+      for (String description : descriptions(feature, field)) {
+        for (int at = 0; at + GRAM_LENGTH <= description.length(); at++) {
+          grams.add(pack(description, at));
+        }
+      }
+      for (Long gram : grams) {
+        int count = counts.merge(gram, 1, Integer::sum);
+        int[] list = ordinals.get(gram);
+        if (list == null || count > list.length) {
+          list = list == null ? new int[4] : Arrays.copyOf(list, list.length * 2);
+          ordinals.put(gram, list);
+        }
+        list[count - 1] = i;
+      }
+    }
+
+    this.postings = new HashMap<>(ordinals.size() * 2);
+    for (Map.Entry<Long, int[]> entry : ordinals.entrySet()) {
+      this.postings.put(
+          entry.getKey(), RoaringBitmap.of(entry.getValue(), counts.get(entry.getKey())));
+    }
+  }
+
+  /**
+   * Constructs a TrigramIndex from its postings.
+   *
+   * @param postings The features of each packed trigram.
+   * @param size The number of features in the indexed collection.
+   */
+  private TrigramIndex(Map<Long, RoaringBitmap> postings, int size) {
+    this.postings = postings;
+    this.size = size;
+  }
+
+  /**
+   * Writes the index, so it can be read back without rebuilding it.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  public void write(DataOutputStream out) throws IOException {
+    out.writeInt(this.size);
+    out.writeInt(this.postings.size());
+    for (Map.Entry<Long, RoaringBitmap> entry : this.postings.entrySet()) {
+      out.writeLong(entry.getKey());
+      entry.getValue().write(out);
+    }
+  }
+
+  /**
+   * Reads an index written by {@link #write}.
+   *
+   * @param in The buffer, positioned at the index.
+   * @return The index.
+   */
+  public static TrigramIndex read(ByteBuffer in) {
+    int size = in.getInt();
+    int count = in.getInt();
+    Map<Long, RoaringBitmap> postings = new HashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      long gram = in.getLong();
+      postings.put(gram, RoaringBitmap.read(in));
+    }
+    return new TrigramIndex(postings, size);
+  }
+
+  /**
+   * Finds the features whose descriptions may contain a keyword.
+   *
+   * @param keyword The keyword.
+   * @return The features containing every trigram of the keyword, or null if the keyword is
+   *     shorter than a trigram and every feature is a candidate.
+   */
+  public RoaringBitmap candidates(String keyword) {
+    long[] grams = distinctGrams(keyword);
+    if (grams == null) {
+      return null;
+    }
+
+    // Intersect from the rarest trigram, so every step shrinks the smallest set
+    RoaringBitmap[] lists = new RoaringBitmap[grams.length];
+    for (int i = 0; i < grams.length; i++) {
+      lists[i] = this.postings.get(grams[i]);
+      if (lists[i] == null) {
+        return RoaringBitmap.EMPTY;
+      }
+    }
+    Arrays.sort(lists, (a, b) -> Integer.compare(a.cardinality(), b.cardinality()));
+    RoaringBitmap result = lists[0];
+    for (int i = 1; i < lists.length && !result.isEmpty(); i++) {
+      result = result.and(lists[i]);
+    }
+    return result;
+  }
+
+  /**
+   * Estimates the number of candidates for a keyword from the length of its rarest trigram's
+   * posting list, without intersecting anything.
+   *
+   * @param keyword The keyword.
+   * @return An upper bound on the number of candidates.
+   */
+  public int estimate(String keyword) {
+    long[] grams = distinctGrams(keyword);
+    if (grams == null) {
+      return this.size;
+    }
+    int smallest = this.size;
+    for (long gram : grams) {
+      RoaringBitmap list = this.postings.get(gram);
+      smallest = Math.min(smallest, list == null ? 0 : list.cardinality());
+    }
+    return smallest;
+  }
+
+  /**
+   * Gets the number of features in the indexed collection.
+   *
+   * @return The number of features.
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Lists the descriptions of a feature under one key, or all of them.
+   *
+   * @param feature A feature with area description data.
+   * @param field The key of the description, or null for every description.
+   * @return The descriptions.
+   */
+  static Collection<String> descriptions(GeoMap feature, String field) {
+    Map<String, String> data = feature.properties.area_description_data;
+    if (field == null) {
+      return data.values();
+    }
+    String description = data.get(field);
+    return description == null ? List.of() : List.of(description);
+  }
+
+  /**
+   * Lists the distinct trigrams of a keyword.
+   *
+   * @param keyword The keyword.
+   * @return The packed trigrams, or null if the keyword is shorter than a trigram.
+   */
+  private static long[] distinctGrams(String keyword) {
+    if (keyword.length() < GRAM_LENGTH) {
+      return null;
+    }
+    long[] grams = new long[keyword.length() - GRAM_LENGTH + 1];
+    for (int at = 0; at < grams.length; at++) {
+      grams[at] = pack(keyword, at);
+    }
+    return Arrays.stream(grams).distinct().toArray();
+  }
+
+  /**
+   * Packs the three characters starting at a position into a long.
+   *
+   * @param text The text.
+   * @param at The position of the first character.
+   * @return The packed trigram.
+   */
+  private static long pack(String text, int at) {
+    return ((long) text.charAt(at) << 32) | ((long) text.charAt(at + 1) << 16) | text.charAt(at + 2);
+  }
+}
@@ -0,0 +1,104 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import java.util.AbstractMap;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The area description data of one feature, held as a deflate block and decompressed on demand by
+ * its {@link DescriptionCodec}. It reads like the map it replaced, with the same entries in the
+ * same order, so filters, indexes and JSON encoding use it unchanged. It cannot be modified.
+ */
+public class CompressedDescriptions extends AbstractMap<String, String> {
+
+  /**
+   * The codec that compressed the map.
+   */
+  final DescriptionCodec codec;
+
+  /**
+   * The compressed entries.
+   */
+  final byte[] bytes;
+
+  /**
+   * The slot of the codec's cache of decompressed maps this map is kept in.
+   */
+  final int slot;
+
+  /**
+   * Constructs a CompressedDescriptions.
+   *
+   * @param codec The codec that compressed the map.
+   * @param bytes The compressed entries.
+   * @param slot The slot of the codec's cache this map is kept in.
+   */
+  CompressedDescriptions(DescriptionCodec codec, byte[] bytes, int slot) {
+    this.codec = codec;
+    this.bytes = bytes;
+    this.slot = slot;
+  }
+
+  /**
+   * Gets the entries, decompressing them if they are not cached.
+   *
+   * @return The entries, in their original order.
+   */
+  @Override
+  public Set<Map.Entry<String, String>> entrySet() {
+    return this.codec.decode(this).entrySet();
+  }
+
+  /**
+   * Gets the description under a key.
+   *
+   * @param key The key.
+   * @return The description, or null if there is none.
+   */
+  @Override
+  public String get(Object key) {
+    return this.codec.decode(this).get(key);
+  }
+
+  /**
+   * Checks whether there is a description under a key.
+   *
+   * @param key The key.
+   * @return True if the key is present.
+   */
+  @Override
+  public boolean containsKey(Object key) {
+    return this.codec.decode(this).containsKey(key);
+  }
+
+  /**
+   * Gets the descriptions, decompressing them if they are not cached.
+   *
+   * @return The descriptions, in their original order.
+   */
+  @Override
+  public Collection<String> values() {
+    return this.codec.decode(this).values();
+  }
+
+  /**
+   * Gets the keys of the descriptions.
+   *
+   * @return The keys, in their original order.
+   */
+  @Override
+  public Set<String> keySet() {
+    return this.codec.decode(this).keySet();
+  }
+
+  /**
+   * Gets the number of descriptions.
+   *
+   * @return The number of entries.
+   */
+  @Override
+  public int size() {
+    return this.codec.decode(this).size();
+  }
+}
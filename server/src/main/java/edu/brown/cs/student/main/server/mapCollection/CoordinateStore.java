@@ -0,0 +1,195 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides where the vertices of a collection's packed geometries live. On the heap they are
+ * plain arrays, which the garbage collector has to scan and, in a copying collector, move. Off
+ * the heap they live in large direct buffers allocated for them, or in the memory-mapped
+ * snapshot the collection was opened from, and the heap only holds the small objects describing
+ * each geometry. The nested coordinate lists of each feature are then replaced by views over the
+ * full-resolution level, so no boxed coordinate stays on the heap either.
+ */
+public class CoordinateStore {
+
+  /**
+   * Where vertices are kept.
+   */
+  public enum Kind {
+    /** In arrays on the Java heap. */
+    HEAP,
+    /** In direct buffers allocated at load, outside the heap. */
+    DIRECT,
+    /** In place in the memory-mapped snapshot, or in direct buffers if there is none yet. */
+    MAPPED
+  }
+
+  /**
+   * The largest number of vertices of one direct buffer pair, so each buffer stays within the
+   * int-indexed size of a ByteBuffer.
+   */
+  static final int SLAB_VERTICES = 1 << 27;
+
+  /**
+   * Where the vertices of the collection are kept.
+   */
+  public final Kind kind;
+
+  /**
+   * The bytes of vertex coordinates in direct buffers allocated at load.
+   */
+  private long directBytes;
+
+  /**
+   * The bytes of vertex coordinates read in place from a mapped snapshot.
+   */
+  private long mappedBytes;
+
+  /**
+   * Constructs a CoordinateStore.
+   *
+   * @param kind Where the vertices are kept.
+   */
+  private CoordinateStore(Kind kind) {
+    this.kind = kind;
+  }
+
+  /**
+   * Moves the vertices of every detail level of a collection to where a kind of store keeps
+   * them. For a heap store nothing moves. Otherwise every level still on the heap is copied into
+   * shared direct buffers, one pair per detail level laid out in feature order, and levels
+   * already off the heap are left in place.
+   *
+   * @param collection The collection, with detail levels precomputed.
+   * @param kind Where to keep the vertices.
+   * @return The store, which reports how many bytes it holds off the heap.
+   */
+  public static CoordinateStore apply(GeoMapCollection collection, Kind kind) {
+    CoordinateStore store = new CoordinateStore(kind);
+    if (kind != Kind.HEAP) {
+      for (int level = 0; level < levelCount(collection); level++) {
+        store.moveOffHeap(collection.features, level);
+      }
+      for (GeoMap feature : collection.features) {
+        // Coordinates with more than two dimensions are not packed, so those lists are kept
+        if (feature != null
+            && feature.detailLevels != null
+            && isTwoDimensional(feature.geometry)) {
+          feature.geometry = feature.detailLevels[0].toGeometryView();
+        }
+      }
+    }
+
+    for (GeoMap feature : collection.features) {
+      if (feature == null || feature.detailLevels == null) {
+        continue;
+      }
+      for (PackedGeometry level : feature.detailLevels) {
+        if (!level.isOnHeap()) {
+          store.mappedBytes += 2L * Double.BYTES * level.vertexCount();
+        }
+      }
+    }
+    store.mappedBytes -= store.directBytes;
+    return store;
+  }
+
+  /**
+   * Copies one detail level of every feature still on the heap into direct buffers, starting a
+   * new buffer pair whenever the current one is full.
+   *
+   * @param features The features.
+   * @param level The detail level.
+   */
+  private void moveOffHeap(List<GeoMap> features, int level) {
+    long remaining = 0;
+    for (GeoMap feature : features) {
+      if (feature != null && feature.detailLevels != null) {
+        PackedGeometry packed = feature.detailLevels[level];
+        remaining += packed.isOnHeap() ? packed.vertexCount() : 0;
+      }
+    }
+
+    ByteBuffer lons = null;
+    ByteBuffer lats = null;
+    int at = 0;
+    for (GeoMap feature : features) {
+      if (feature == null
+          || feature.detailLevels == null
+          || !feature.detailLevels[level].isOnHeap()) {
+        continue;
+      }
+      PackedGeometry packed = feature.detailLevels[level];
+      int count = packed.vertexCount();
+      if (lons == null || at + count > lons.capacity() / Double.BYTES) {
+        int slab = (int) Math.max(count, Math.min(SLAB_VERTICES, remaining));
+        lons = ByteBuffer.allocateDirect(slab * Double.BYTES).order(ByteOrder.nativeOrder());
+        lats = ByteBuffer.allocateDirect(slab * Double.BYTES).order(ByteOrder.nativeOrder());
+        at = 0;
+      }
+      feature.detailLevels[level] = packed.relocate(lons, lats, at);
+      at += count;
+      remaining -= count;
+      this.directBytes += 2L * Double.BYTES * count;
+    }
+  }
+
+  /**
+   * Finds the number of detail levels of the features of a collection.
+   *
+   * @param collection The collection.
+   * @return The number of levels, or 0 if no feature has any.
+   */
+  private static int levelCount(GeoMapCollection collection) {
+    for (GeoMap feature : collection.features) {
+      if (feature != null && feature.detailLevels != null) {
+        return feature.detailLevels.length;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Checks that every coordinate of a geometry is a longitude and latitude pair, which is all
+   * packed geometries keep.
+   *
+   * @param geometry The geometry, or null.
+   * @return True if the geometry has coordinates and each has two dimensions.
+   */
+  static boolean isTwoDimensional(Geometry geometry) {
+    if (geometry == null || geometry.coordinates == null) {
+      return false;
+    }
+    for (List<List<List<Double>>> polygon : geometry.coordinates) {
+      for (List<List<Double>> ring : polygon) {
+        for (List<Double> point : ring) {
+          if (point.size() != 2) {
+            return false;
+          }
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Gets a snapshot of where the coordinates are kept.
+   *
+   * @return A map of the kind of store and of the bytes of coordinates in direct buffers and in
+   *     the mapped snapshot.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("kind", this.kind.name().toLowerCase());
+    stats.put("direct_bytes", this.directBytes);
+    stats.put("mapped_bytes", this.mappedBytes);
+    return stats;
+  }
+}
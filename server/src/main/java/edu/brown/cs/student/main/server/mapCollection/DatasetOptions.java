@@ -0,0 +1,151 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+
+/**
+ * Startup options that control how a GeoDataset is prepared. Each option can be set with a
+ * system property, such as {@code -Dgeo.hilbertOrder=true}, so layouts can be compared on real
+ * data without code changes.
+ */
+public class DatasetOptions {
+
+  /**
+   * The system property that enables Hilbert ordering of features.
+   */
+  public static final String HILBERT_ORDER_PROPERTY = "geo.hilbertOrder";
+
+  /**
+   * The system property that sets the size of the result cache in bytes.
+   */
+  public static final String RESULT_CACHE_BYTES_PROPERTY = "geo.resultCacheBytes";
+
+  /**
+   * The system property that picks the spatial index, "scan" or "grid".
+   */
+  public static final String INDEX_PROPERTY = "geo.index";
+
+  /**
+   * The system property that sets the side of a grid index cell in degrees.
+   */
+  public static final String GRID_CELL_DEGREES_PROPERTY = "geo.gridCellDegrees";
+
+  /**
+   * The system property that turns compression of area descriptions on or off.
+   */
+  public static final String COMPRESS_DESCRIPTIONS_PROPERTY = "geo.compressDescriptions";
+
+  /**
+   * The system property that picks where vertex coordinates are kept, "heap", "direct" or
+   * "mapped".
+   */
+  public static final String COORDINATES_PROPERTY = "geo.coordinates";
+
+  /**
+   * The largest number of bytes of encoded query results to cache.
+   */
+  public long resultCacheBytes = GeoDataset.RESULT_CACHE_BYTES;
+
+  /**
+   * Whether to reorder features along a Hilbert curve at load. This changes the order in which
+   * features appear in responses, so it is off by default.
+   */
+  public boolean hilbertOrder = false;
+
+  /**
+   * The kind of spatial index that answers bounding box queries.
+   */
+  public SpatialIndex.Kind index = SpatialIndex.Kind.GRID;
+
+  /**
+   * The side of a grid index cell in degrees, or 0 to size cells from the data.
+   */
+  public double gridCellDegrees = 0;
+
+  /**
+   * Whether to hold the area descriptions of features compressed once the dataset is indexed,
+   * decompressing them when they are encoded or searched without an index.
+   */
+  public boolean compressDescriptions = true;
+
+  /**
+   * Where the vertex coordinates of packed geometries are kept. Off-heap stores keep the garbage
+   * collector from scanning them; direct buffers count against -XX:MaxDirectMemorySize, which
+   * defaults to the maximum heap size.
+   */
+  public CoordinateStore.Kind coordinates = CoordinateStore.Kind.HEAP;
+
+  /**
+   * The fingerprint of the collection if it is already known, such as from a snapshot, or null to
+   * compute it.
+   */
+  public String version = null;
+
+  /**
+   * Copies the options.
+   *
+   * @return A copy with the same values.
+   */
+  public DatasetOptions copy() {
+    DatasetOptions copy = new DatasetOptions();
+    copy.resultCacheBytes = this.resultCacheBytes;
+    copy.hilbertOrder = this.hilbertOrder;
+    copy.index = this.index;
+    copy.gridCellDegrees = this.gridCellDegrees;
+    copy.compressDescriptions = this.compressDescriptions;
+    copy.coordinates = this.coordinates;
+    copy.version = this.version;
+    return copy;
+  }
+
+  /**
+   * Reads the options from system properties, keeping the default of every option that is not
+   * set.
+   *
+   * @return The options.
+   * @throws IllegalArgumentException If a property has a malformed value.
+   */
+  public static DatasetOptions fromSystemProperties() {
+    DatasetOptions options = new DatasetOptions();
+    options.hilbertOrder = Boolean.getBoolean(HILBERT_ORDER_PROPERTY);
+    String cacheBytes = System.getProperty(RESULT_CACHE_BYTES_PROPERTY);
+    if (cacheBytes != null) {
+      try {
+        options.resultCacheBytes = Long.parseLong(cacheBytes.trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(
+            RESULT_CACHE_BYTES_PROPERTY + " must be a whole number of bytes");
+      }
+    }
+    String index = System.getProperty(INDEX_PROPERTY);
+    if (index != null) {
+      try {
+        options.index = SpatialIndex.Kind.valueOf(index.trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(INDEX_PROPERTY + " must be scan or grid");
+      }
+    }
+    String cellDegrees = System.getProperty(GRID_CELL_DEGREES_PROPERTY);
+    if (cellDegrees != null) {
+      try {
+        options.gridCellDegrees = Double.parseDouble(cellDegrees.trim());
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(
+            GRID_CELL_DEGREES_PROPERTY + " must be a number of degrees");
+      }
+    }
+    String compress = System.getProperty(COMPRESS_DESCRIPTIONS_PROPERTY);
+    if (compress != null) {
+      options.compressDescriptions = Boolean.parseBoolean(compress.trim());
+    }
+    String coordinates = System.getProperty(COORDINATES_PROPERTY);
+    if (coordinates != null) {
+      try {
+        options.coordinates = CoordinateStore.Kind.valueOf(coordinates.trim().toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            COORDINATES_PROPERTY + " must be heap, direct or mapped");
+      }
+    }
+    return options;
+  }
+}
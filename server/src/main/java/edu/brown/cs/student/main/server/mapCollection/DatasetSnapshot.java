@@ -0,0 +1,631 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.TermDictionary;
+import edu.brown.cs.student.main.server.index.TrigramIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.BufferVertices;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.JSONParser;
+import edu.brown.cs.student.main.server.utils.ResponseBudget;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A versioned binary snapshot of a loaded dataset, so a restart does not parse and validate the
+ * GeoJSON text again. It holds one table of every distinct string, the properties of each
+ * feature as indexes into that table, the packed geometry of each feature at every detail level,
+ * and each feature's encoded-size estimates, together with the dataset's fingerprint. Compressed
+ * area descriptions are kept as their compressed blocks with the codec's dictionary, and the text
+ * indexes, which take the longest to build, are stored ready to use. The file is opened with a
+ * memory-mapped {@link FileChannel}, and numbers are copied out of it in bulk, except the
+ * vertices of a {@link CoordinateStore.Kind#MAPPED} store, which are read in place; a new
+ * snapshot replaces the file rather than overwriting it, so those mappings stay valid. A
+ * snapshot records the size and modification time of the GeoJSON file it was made from, and is
+ * only used while they match.
+ */
+public class DatasetSnapshot {
+
+  /**
+   * The first bytes of every snapshot, "GEOSNAP" and a zero byte.
+   */
+  static final long MAGIC = 0x47454f534e415000L;
+
+  /**
+   * The version of the layout below; snapshots of any other version are rebuilt.
+   */
+  public static final int FORMAT_VERSION = 1;
+
+  /**
+   * The marker of a feature without geometry.
+   */
+  private static final byte NO_GEOMETRY = 0;
+
+  /**
+   * The marker of a geometry with a type but without coordinates.
+   */
+  private static final byte NO_COORDINATES = 1;
+
+  /**
+   * The marker of a geometry stored as packed detail levels.
+   */
+  private static final byte PACKED = 2;
+
+  /**
+   * The marker of a null string.
+   */
+  private static final int NULL = -1;
+
+  /**
+   * The marker of area description data stored as a compressed block.
+   */
+  private static final int COMPRESSED = -2;
+
+  /**
+   * Loads a dataset from its snapshot if the snapshot matches the GeoJSON file, or else parses the
+   * GeoJSON file and writes a new snapshot for the next start. A snapshot that cannot be written
+   * is reported and skipped.
+   *
+   * @param source The GeoJSON file.
+   * @param snapshot The snapshot file.
+   * @param options How to prepare the dataset.
+   * @return The dataset.
+   * @throws IOException If the GeoJSON file cannot be read or parsed.
+   */
+  public static GeoDataset load(Path source, Path snapshot, DatasetOptions options)
+      throws IOException {
+    if (Files.exists(snapshot)) {
+      try {
+        return open(snapshot, source, options);
+      } catch (IOException e) {
+        System.out.println("Rebuilding snapshot " + snapshot + ": " + e.getMessage());
+      }
+    }
+    return rebuild(source, snapshot, options);
+  }
+
+  /**
+   * Parses the GeoJSON file and replaces its snapshot, without trying the existing snapshot
+   * first. A snapshot that cannot be written is reported and skipped.
+   *
+   * @param source The GeoJSON file.
+   * @param snapshot The snapshot file.
+   * @param options How to prepare the dataset.
+   * @return The dataset.
+   * @throws IOException If the GeoJSON file cannot be read or parsed.
+   */
+  public static GeoDataset rebuild(Path source, Path snapshot, DatasetOptions options)
+      throws IOException {
+    // Stamp the snapshot with the file as it was before parsing, so a change made during the
+    // parse leaves the snapshot stale rather than passing old data off as the new file
+    long sourceSize = Files.size(source);
+    long sourceModified = Files.getLastModifiedTime(source).toMillis();
+    GeoMapCollection collection = new JSONParser(source.toString()).getData();
+    if (collection == null || collection.features == null) {
+      throw new IOException("Could not parse " + source);
+    }
+    GeoDataset dataset = new GeoDataset(collection, options);
+    try {
+      write(dataset, snapshot, sourceSize, sourceModified);
+    } catch (IOException | IllegalArgumentException e) {
+      System.out.println("Could not write snapshot " + snapshot + ": " + e.getMessage());
+    }
+    return dataset;
+  }
+
+  /**
+   * Writes a snapshot of a dataset, stamped with the current size and modification time of the
+   * GeoJSON file. Only use it when the file cannot have changed since the dataset was parsed.
+   *
+   * @param dataset The dataset.
+   * @param snapshot The snapshot file.
+   * @param source The GeoJSON file the dataset was loaded from.
+   * @throws IOException If the snapshot cannot be written.
+   * @throws IllegalArgumentException If a coordinate has other than two dimensions.
+   */
+  public static void write(GeoDataset dataset, Path snapshot, Path source) throws IOException {
+    write(dataset, snapshot, Files.size(source), Files.getLastModifiedTime(source).toMillis());
+  }
+
+  /**
+   * Writes a snapshot of a dataset. The file is written next to its destination and then moved
+   * over it, so a reader never sees a partial snapshot.
+   *
+   * @param dataset The dataset.
+   * @param snapshot The snapshot file.
+   * @param sourceSize The size of the GeoJSON file when it was read.
+   * @param sourceModified The modification time of the GeoJSON file when it was read, in
+   *     milliseconds.
+   * @throws IOException If the snapshot cannot be written.
+   * @throws IllegalArgumentException If a coordinate has other than two dimensions.
+   */
+  public static void write(
+      GeoDataset dataset, Path snapshot, long sourceSize, long sourceModified)
+      throws IOException {
+    List<GeoMap> features = dataset.collection.features;
+
+    // Number every distinct string in order of first use
+    Map<String, Integer> strings = new LinkedHashMap<>();
+    if (dataset.collection.type != null) {
+      strings.put(dataset.collection.type, 0);
+    }
+    for (GeoMap feature : features) {
+      collectStrings(feature, strings);
+    }
+
+    Path temporary = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+      out.writeLong(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeLong(sourceSize);
+      out.writeLong(sourceModified);
+      out.writeBoolean(dataset.hilbertOrdered);
+      out.writeBoolean(dataset.descriptionCodec != null);
+      writeLayout(out);
+      out.writeUTF(dataset.version);
+
+      out.writeInt(strings.size());
+      for (String value : strings.keySet()) {
+        writeText(out, value);
+      }
+
+      writeString(out, dataset.collection.type, strings);
+      if (dataset.descriptionCodec != null) {
+        dataset.descriptionCodec.write(out);
+      }
+      out.writeInt(features.size());
+      for (GeoMap feature : features) {
+        writeFeature(out, feature, strings);
+      }
+
+      dataset.trigramIndex.write(out);
+      dataset.textIndex.write(out);
+      dataset.fieldIndexes.write(out);
+      dataset.termDictionary.write(out);
+    }
+    Files.move(
+        temporary, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Opens a snapshot and prepares a dataset from it, reusing its detail levels, encoded sizes,
+   * fingerprint, compressed descriptions and text indexes instead of computing them.
+   *
+   * @param snapshot The snapshot file.
+   * @param source The GeoJSON file the snapshot must have been made from.
+   * @param options How to prepare the dataset.
+   * @return The dataset.
+   * @throws IOException If the snapshot cannot be read, is of another format, or does not match
+   *     the GeoJSON file or the options.
+   */
+  public static GeoDataset open(Path snapshot, Path source, DatasetOptions options)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Snapshot is too large to map");
+      }
+      ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (in.remaining() < 12 || in.getLong() != MAGIC) {
+        throw new IOException("Not a dataset snapshot");
+      }
+      if (in.getInt() != FORMAT_VERSION) {
+        throw new IOException("Snapshot format version differs");
+      }
+      if (in.getLong() != Files.size(source)
+          || in.getLong() != Files.getLastModifiedTime(source).toMillis()) {
+        throw new IOException("Snapshot is older than " + source);
+      }
+      if ((in.get() != 0) != options.hilbertOrder) {
+        throw new IOException("Snapshot was written with another feature order");
+      }
+      if ((in.get() != 0) != options.compressDescriptions) {
+        throw new IOException("Snapshot was written with another description storage");
+      }
+      readLayout(in);
+      String version = readModifiedUtf8(in);
+
+      String[] strings = new String[in.getInt()];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = readText(in);
+      }
+
+      GeoMapCollection collection = new GeoMapCollection();
+      collection.type = readString(in, strings);
+      DescriptionCodec codec = options.compressDescriptions ? DescriptionCodec.read(in) : null;
+      boolean mapped = options.coordinates == CoordinateStore.Kind.MAPPED;
+      int count = in.getInt();
+      collection.features = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        collection.features.add(readFeature(in, strings, codec, i, mapped));
+      }
+
+      TrigramIndex trigramIndex = TrigramIndex.read(in);
+      Bm25Index textIndex = Bm25Index.read(in);
+      FieldIndexes fieldIndexes = FieldIndexes.read(in);
+      TermDictionary termDictionary = TermDictionary.read(in);
+
+      DatasetOptions known = options.copy();
+      known.version = version;
+      return new GeoDataset(
+          collection, known, trigramIndex, textIndex, fieldIndexes, termDictionary, codec);
+    } catch (RuntimeException e) {
+      // A truncated or corrupt file surfaces as an underflow or a bad length
+      throw new IOException("Corrupt snapshot: " + e, e);
+    }
+  }
+
+  /**
+   * Writes the detail-level ladder and size steps the snapshot's precomputed values depend on.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  private static void writeLayout(DataOutputStream out) throws IOException {
+    out.writeInt(GeometrySimplifier.TOLERANCES.length);
+    for (double tolerance : GeometrySimplifier.TOLERANCES) {
+      out.writeDouble(tolerance);
+    }
+    out.writeInt(ResponseBudget.STEPS.length);
+    for (int[] step : ResponseBudget.STEPS) {
+      out.writeInt(step[0]);
+      out.writeInt(step[1]);
+    }
+  }
+
+  /**
+   * Checks that a snapshot was written with the current detail-level ladder and size steps.
+   *
+   * @param in The snapshot, positioned at the layout.
+   * @throws IOException If the layout differs.
+   */
+  private static void readLayout(ByteBuffer in) throws IOException {
+    double[] tolerances = new double[in.getInt()];
+    for (int i = 0; i < tolerances.length; i++) {
+      tolerances[i] = in.getDouble();
+    }
+    int[][] steps = new int[in.getInt()][];
+    for (int i = 0; i < steps.length; i++) {
+      steps[i] = new int[] {in.getInt(), in.getInt()};
+    }
+    if (!Arrays.equals(tolerances, GeometrySimplifier.TOLERANCES)
+        || !Arrays.deepEquals(steps, ResponseBudget.STEPS)) {
+      throw new IOException("Snapshot was written with other detail levels");
+    }
+  }
+
+  /**
+   * Adds the strings of a feature to the string table.
+   *
+   * @param feature The feature.
+   * @param strings The index of every string seen so far.
+   */
+  private static void collectStrings(GeoMap feature, Map<String, Integer> strings) {
+    if (feature == null) {
+      return;
+    }
+    List<String> values = new ArrayList<>();
+    values.add(feature.type);
+    if (feature.geometry != null) {
+      values.add(feature.geometry.type);
+    }
+    Property properties = feature.properties;
+    if (properties != null) {
+      values.addAll(
+          Arrays.asList(
+              properties.name,
+              properties.state,
+              properties.city,
+              properties.holc_id,
+              properties.holc_grade));
+      // Compressed descriptions are stored as their blocks
+      if (properties.area_description_data != null
+          && !(properties.area_description_data instanceof CompressedDescriptions)) {
+        for (Map.Entry<String, String> entry : properties.area_description_data.entrySet()) {
+          values.add(entry.getKey());
+          values.add(entry.getValue());
+        }
+      }
+    }
+    for (String value : values) {
+      if (value != null) {
+        strings.putIfAbsent(value, strings.size());
+      }
+    }
+  }
+
+  /**
+   * Writes one feature.
+   *
+   * @param out The output.
+   * @param feature The feature, or null.
+   * @param strings The index of every string.
+   * @throws IOException If the output fails.
+   */
+  private static void writeFeature(
+      DataOutputStream out, GeoMap feature, Map<String, Integer> strings) throws IOException {
+    out.writeBoolean(feature != null);
+    if (feature == null) {
+      return;
+    }
+    writeString(out, feature.type, strings);
+
+    Property properties = feature.properties;
+    out.writeBoolean(properties != null);
+    if (properties != null) {
+      writeString(out, properties.name, strings);
+      writeString(out, properties.state, strings);
+      writeString(out, properties.city, strings);
+      writeString(out, properties.holc_id, strings);
+      writeString(out, properties.holc_grade, strings);
+      out.writeBoolean(properties.neighborhood_id != null);
+      if (properties.neighborhood_id != null) {
+        out.writeDouble(properties.neighborhood_id);
+      }
+      Map<String, String> descriptions = properties.area_description_data;
+      if (descriptions instanceof CompressedDescriptions) {
+        byte[] block = ((CompressedDescriptions) descriptions).bytes;
+        out.writeInt(COMPRESSED);
+        out.writeInt(block.length);
+        out.write(block);
+      } else if (descriptions == null) {
+        out.writeInt(NULL);
+      } else {
+        out.writeInt(descriptions.size());
+        for (Map.Entry<String, String> entry : descriptions.entrySet()) {
+          writeString(out, entry.getKey(), strings);
+          writeString(out, entry.getValue(), strings);
+        }
+      }
+    }
+
+    Geometry geometry = feature.geometry;
+    PackedGeometry[] levels = GeometrySimplifier.levelsOf(feature);
+    if (geometry == null) {
+      out.writeByte(NO_GEOMETRY);
+    } else if (levels == null) {
+      out.writeByte(NO_COORDINATES);
+      writeString(out, geometry.type, strings);
+    } else {
+      if (!CoordinateStore.isTwoDimensional(geometry)) {
+        throw new IllegalArgumentException("Only two-dimensional coordinates can be snapshot");
+      }
+      out.writeByte(PACKED);
+      writeString(out, geometry.type, strings);
+      out.writeInt(levels.length);
+      for (PackedGeometry level : levels) {
+        writeLevel(out, level);
+      }
+    }
+
+    long[] sizes = ResponseBudget.sizesOf(feature);
+    out.writeInt(sizes.length);
+    for (long size : sizes) {
+      out.writeLong(size);
+    }
+  }
+
+  /**
+   * Writes one detail level of a geometry, with its ring offsets counted from its first vertex.
+   *
+   * @param out The output.
+   * @param level The packed geometry.
+   * @throws IOException If the output fails.
+   */
+  private static void writeLevel(DataOutputStream out, PackedGeometry level) throws IOException {
+    int start = level.vertexStart();
+    out.writeInt(level.vertexCount());
+    out.writeInt(level.ringOffsets.length);
+    for (int offset : level.ringOffsets) {
+      out.writeInt(offset - start);
+    }
+    out.writeInt(level.polygonOffsets.length);
+    for (int offset : level.polygonOffsets) {
+      out.writeInt(offset);
+    }
+    for (int v = start; v < level.vertexEnd(); v++) {
+      out.writeDouble(level.lon(v));
+    }
+    for (int v = start; v < level.vertexEnd(); v++) {
+      out.writeDouble(level.lat(v));
+    }
+  }
+
+  /**
+   * Writes a string as its index in the string table, or -1 for null.
+   *
+   * @param out The output.
+   * @param value The string, or null.
+   * @param strings The index of every string.
+   * @throws IOException If the output fails.
+   */
+  private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings)
+      throws IOException {
+    out.writeInt(value == null ? NULL : strings.get(value));
+  }
+
+  /**
+   * Reads one feature, restoring its geometry from the full-resolution detail level.
+   *
+   * @param in The snapshot, positioned at the feature.
+   * @param strings The string table.
+   * @param codec The codec of compressed descriptions, or null if they are not compressed.
+   * @param ordinal The position of the feature in the collection.
+   * @param mapped Whether to leave the vertices in the snapshot rather than copy them.
+   * @return The feature, or null.
+   */
+  private static GeoMap readFeature(
+      ByteBuffer in, String[] strings, DescriptionCodec codec, int ordinal, boolean mapped) {
+    if (in.get() == 0) {
+      return null;
+    }
+    GeoMap feature = new GeoMap();
+    feature.type = readString(in, strings);
+
+    if (in.get() != 0) {
+      Property properties = new Property();
+      properties.name = readString(in, strings);
+      properties.state = readString(in, strings);
+      properties.city = readString(in, strings);
+      properties.holc_id = readString(in, strings);
+      properties.holc_grade = readString(in, strings);
+      properties.neighborhood_id = in.get() != 0 ? in.getDouble() : null;
+      int descriptionCount = in.getInt();
+      if (descriptionCount == COMPRESSED) {
+        byte[] block = new byte[in.getInt()];
+        in.get(block);
+        properties.area_description_data =
+            new CompressedDescriptions(codec, block, ordinal % DescriptionCodec.HOT_SLOTS);
+      } else if (descriptionCount != NULL) {
+        properties.area_description_data = new LinkedHashMap<>(descriptionCount * 2);
+        for (int i = 0; i < descriptionCount; i++) {
+          String key = readString(in, strings);
+          properties.area_description_data.put(key, readString(in, strings));
+        }
+      }
+      feature.properties = properties;
+    }
+
+    byte geometryKind = in.get();
+    if (geometryKind == NO_COORDINATES) {
+      feature.geometry = new Geometry();
+      feature.geometry.type = readString(in, strings);
+    } else if (geometryKind == PACKED) {
+      String type = readString(in, strings);
+      PackedGeometry[] levels = new PackedGeometry[in.getInt()];
+      for (int level = 0; level < levels.length; level++) {
+        levels[level] = readLevel(in, type, mapped);
+      }
+      feature.detailLevels = levels;
+      feature.geometry = mapped ? levels[0].toGeometryView() : levels[0].toGeometry();
+    }
+
+    long[] sizes = new long[in.getInt()];
+    in.asLongBuffer().get(sizes);
+    in.position(in.position() + sizes.length * Long.BYTES);
+    feature.encodedSizes = sizes;
+    return feature;
+  }
+
+  /**
+   * Reads one detail level of a geometry, copying its coordinates out of the snapshot in bulk,
+   * or leaving them in the mapped snapshot and reading them in place.
+   *
+   * @param in The snapshot, positioned at the level.
+   * @param type The geometry type.
+   * @param mapped Whether to leave the vertices in the snapshot.
+   * @return The packed geometry.
+   */
+  private static PackedGeometry readLevel(ByteBuffer in, String type, boolean mapped) {
+    int vertexCount = in.getInt();
+    int[] ringOffsets = readInts(in, in.getInt());
+    int[] polygonOffsets = readInts(in, in.getInt());
+    if (mapped) {
+      // Slices keep the mapping alive and read big-endian, as the snapshot was written
+      ByteBuffer lons = in.slice(in.position(), vertexCount * Double.BYTES);
+      ByteBuffer lats =
+          in.slice(in.position() + vertexCount * Double.BYTES, vertexCount * Double.BYTES);
+      in.position(in.position() + 2 * vertexCount * Double.BYTES);
+      return new PackedGeometry(type, new BufferVertices(lons, lats), ringOffsets, polygonOffsets);
+    }
+    double[] lons = readDoubles(in, vertexCount);
+    double[] lats = readDoubles(in, vertexCount);
+    return new PackedGeometry(type, lons, lats, ringOffsets, polygonOffsets);
+  }
+
+  /**
+   * Writes a string of any length as its UTF-8 length and bytes.
+   *
+   * @param out The output.
+   * @param value The string.
+   * @throws IOException If the output fails.
+   */
+  public static void writeText(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeText}.
+   *
+   * @param in The snapshot, positioned at the string.
+   * @return The string.
+   */
+  public static String readText(ByteBuffer in) {
+    byte[] bytes = new byte[in.getInt()];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Reads consecutive ints in bulk.
+   *
+   * @param in The snapshot, positioned at the ints.
+   * @param count The number of ints.
+   * @return The ints.
+   */
+  public static int[] readInts(ByteBuffer in, int count) {
+    int[] values = new int[count];
+    in.asIntBuffer().get(values);
+    in.position(in.position() + count * Integer.BYTES);
+    return values;
+  }
+
+  /**
+   * Reads consecutive doubles in bulk.
+   *
+   * @param in The snapshot, positioned at the doubles.
+   * @param count The number of doubles.
+   * @return The doubles.
+   */
+  private static double[] readDoubles(ByteBuffer in, int count) {
+    double[] values = new double[count];
+    in.asDoubleBuffer().get(values);
+    in.position(in.position() + count * Double.BYTES);
+    return values;
+  }
+
+  /**
+   * Reads a string by its index in the string table.
+   *
+   * @param in The snapshot, positioned at the index.
+   * @param strings The string table.
+   * @return The string, or null.
+   */
+  private static String readString(ByteBuffer in, String[] strings) {
+    int index = in.getInt();
+    return index == NULL ? null : strings[index];
+  }
+
+  /**
+   * Reads a short string written by {@link DataOutputStream#writeUTF}, which holds only ASCII
+   * here.
+   *
+   * @param in The snapshot, positioned at the string.
+   * @return The string.
+   */
+  private static String readModifiedUtf8(ByteBuffer in) {
+    byte[] bytes = new byte[in.getShort() & 0xFFFF];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,390 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses the area description data of every feature of a collection into one deflate block
+ * per feature, sharing a preset dictionary trained on the collection's own words. Descriptions
+ * are short, so on their own they compress poorly; with the dictionary, the words and phrases
+ * repeated across features are coded as back-references into it. The maps are decompressed on
+ * demand, and the most recently decompressed ones are kept in a small direct-mapped cache.
+ */
+public class DescriptionCodec {
+
+  /**
+   * The largest dictionary deflate can refer back into.
+   */
+  static final int DICTIONARY_BYTES = 32 * 1024;
+
+  /**
+   * The largest number of features whose words are counted to train the dictionary.
+   */
+  static final int TRAINING_FEATURES = 20000;
+
+  /**
+   * The number of slots of the cache of decompressed maps.
+   */
+  static final int HOT_SLOTS = 1024;
+
+  /**
+   * The preset dictionary shared by every block.
+   */
+  private final byte[] dictionary;
+
+  /**
+   * The most recently decompressed maps, each in the slot of its block.
+   */
+  private final AtomicReferenceArray<HotEntry> hot = new AtomicReferenceArray<>(HOT_SLOTS);
+
+  /**
+   * A reusable inflater for each thread.
+   */
+  private final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(() -> new Inflater(true));
+
+  /**
+   * The number of lookups answered from the cache of decompressed maps.
+   */
+  private final AtomicLong hits = new AtomicLong();
+
+  /**
+   * The number of lookups that decompressed a block.
+   */
+  private final AtomicLong misses = new AtomicLong();
+
+  /**
+   * The total size of the compressed blocks, in bytes.
+   */
+  private long compressedBytes;
+
+  /**
+   * The total size of the blocks before compression, in bytes.
+   */
+  private long uncompressedBytes;
+
+  /**
+   * A decompressed map and the block it came from.
+   */
+  private static final class HotEntry {
+
+    /**
+     * The block the map was decompressed from.
+     */
+    final CompressedDescriptions owner;
+
+    /**
+     * The decompressed map.
+     */
+    final Map<String, String> map;
+
+    /**
+     * Constructs a HotEntry.
+     *
+     * @param owner The block the map was decompressed from.
+     * @param map The decompressed map.
+     */
+    HotEntry(CompressedDescriptions owner, Map<String, String> map) {
+      this.owner = owner;
+      this.map = map;
+    }
+  }
+
+  /**
+   * Constructs a DescriptionCodec with a given dictionary.
+   *
+   * @param dictionary The preset dictionary, at most {@link #DICTIONARY_BYTES} long.
+   */
+  DescriptionCodec(byte[] dictionary) {
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Replaces the area description data of every feature of a collection with a compressed map
+   * holding the same entries in the same order. If some descriptions are already compressed, the
+   * codec that compressed them is reused for the rest, so compressing a collection again neither
+   * trains a second dictionary nor decompresses anything.
+   *
+   * @param collection The collection whose descriptions to compress.
+   * @return The codec that decompresses them.
+   */
+  public static DescriptionCodec compress(GeoMapCollection collection) {
+    DescriptionCodec codec = existingCodec(collection);
+    if (codec == null) {
+      codec = new DescriptionCodec(train(collection));
+    }
+    Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+    try {
+      for (int i = 0; i < collection.features.size(); i++) {
+        GeoMap feature = collection.features.get(i);
+        if (feature == null
+            || feature.properties == null
+            || feature.properties.area_description_data == null
+            || feature.properties.area_description_data instanceof CompressedDescriptions) {
+          continue;
+        }
+        byte[] block = encode(feature.properties.area_description_data);
+        deflater.reset();
+        deflater.setDictionary(codec.dictionary);
+        deflater.setInput(block);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(block.length / 2 + 16);
+        byte[] buffer = new byte[4096];
+        while (!deflater.finished()) {
+          compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+        codec.compressedBytes += compressed.size();
+        codec.uncompressedBytes += block.length;
+        feature.properties.area_description_data =
+            new CompressedDescriptions(codec, compressed.toByteArray(), i % HOT_SLOTS);
+      }
+    } finally {
+      deflater.end();
+    }
+    return codec;
+  }
+
+  /**
+   * Finds the codec that already compressed descriptions of a collection.
+   *
+   * @param collection The collection.
+   * @return The codec of the first compressed description, or null if none is compressed.
+   */
+  private static DescriptionCodec existingCodec(GeoMapCollection collection) {
+    for (GeoMap feature : collection.features) {
+      if (feature != null
+          && feature.properties != null
+          && feature.properties.area_description_data instanceof CompressedDescriptions) {
+        return ((CompressedDescriptions) feature.properties.area_description_data).codec;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Builds a dictionary from the words used most across the descriptions of a collection. Words
+   * are ranked by the bytes they would save, their repetitions times their length, and the most
+   * valuable are placed at the end of the dictionary, where back-references are shortest.
+   *
+   * @param collection The collection whose descriptions to sample.
+   * @return The dictionary.
+   */
+  static byte[] train(GeoMapCollection collection) {
+    // Count the words of evenly spaced features
+    Map<String, Integer> counts = new HashMap<>();
+    int step = Math.max(1, collection.features.size() / TRAINING_FEATURES);
+    for (int i = 0; i < collection.features.size(); i += step) {
+      GeoMap feature = collection.features.get(i);
+      if (feature == null
+          || feature.properties == null
+          || feature.properties.area_description_data == null) {
+        continue;
+      }
+      for (Map.Entry<String, String> entry : feature.properties.area_description_data.entrySet()) {
+        counts.merge(entry.getKey(), 1, Integer::sum);
+        if (entry.getValue() != null) {
+          for (String word : entry.getValue().split(" ")) {
+            if (!word.isEmpty()) {
+              counts.merge(word + " ", 1, Integer::sum);
+            }
+          }
+        }
+      }
+    }
+
+    // Keep the words that save the most until the dictionary is full
+    List<Map.Entry<String, Integer>> words = new ArrayList<>();
+    for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+      if (entry.getValue() > 1) {
+        words.add(entry);
+      }
+    }
+    words.sort(
+        (a, b) ->
+            Long.compare(
+                (long) (b.getValue() - 1) * b.getKey().length(),
+                (long) (a.getValue() - 1) * a.getKey().length()));
+    List<byte[]> chosen = new ArrayList<>();
+    int length = 0;
+    for (Map.Entry<String, Integer> word : words) {
+      byte[] bytes = word.getKey().getBytes(StandardCharsets.UTF_8);
+      if (length + bytes.length > DICTIONARY_BYTES) {
+        continue;
+      }
+      chosen.add(bytes);
+      length += bytes.length;
+    }
+    Collections.reverse(chosen);
+    ByteArrayOutputStream dictionary = new ByteArrayOutputStream(length);
+    for (byte[] bytes : chosen) {
+      dictionary.write(bytes, 0, bytes.length);
+    }
+    return dictionary.toByteArray();
+  }
+
+  /**
+   * Gets the decompressed map of a block, from the cache if it was decompressed recently.
+   *
+   * @param block The compressed map.
+   * @return The entries of the map, in their original order, in an unmodifiable map.
+   */
+  Map<String, String> decode(CompressedDescriptions block) {
+    HotEntry entry = this.hot.get(block.slot);
+    if (entry != null && entry.owner == block) {
+      this.hits.incrementAndGet();
+      return entry.map;
+    }
+    this.misses.incrementAndGet();
+    Inflater inflater = this.inflaters.get();
+    inflater.reset();
+    inflater.setDictionary(this.dictionary);
+    inflater.setInput(block.bytes);
+    Map<String, String> map;
+    try {
+      byte[] bytes = new byte[block.bytes.length * 4 + 64];
+      int length = 0;
+      while (!inflater.finished()) {
+        if (length == bytes.length) {
+          bytes = Arrays.copyOf(bytes, bytes.length * 2);
+        }
+        int inflated = inflater.inflate(bytes, length, bytes.length - length);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          throw new DataFormatException("Truncated block");
+        }
+        length += inflated;
+      }
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, length));
+      int size = in.readInt();
+      map = new LinkedHashMap<>(size * 2);
+      for (int i = 0; i < size; i++) {
+        String key = readString(in);
+        map.put(key, readString(in));
+      }
+    } catch (DataFormatException | IOException e) {
+      throw new IllegalStateException("Corrupt compressed area description data", e);
+    }
+    map = Collections.unmodifiableMap(map);
+    this.hot.set(block.slot, new HotEntry(block, map));
+    return map;
+  }
+
+  /**
+   * Writes the dictionary and the storage sizes, so a snapshot can keep the compressed blocks.
+   *
+   * @param out The output.
+   * @throws IOException If the output fails.
+   */
+  void write(DataOutputStream out) throws IOException {
+    out.writeInt(this.dictionary.length);
+    out.write(this.dictionary);
+    out.writeLong(this.compressedBytes);
+    out.writeLong(this.uncompressedBytes);
+  }
+
+  /**
+   * Reads a codec written by {@link #write}.
+   *
+   * @param in The buffer, positioned at the codec.
+   * @return The codec.
+   */
+  static DescriptionCodec read(ByteBuffer in) {
+    byte[] dictionary = new byte[in.getInt()];
+    in.get(dictionary);
+    DescriptionCodec codec = new DescriptionCodec(dictionary);
+    codec.compressedBytes = in.getLong();
+    codec.uncompressedBytes = in.getLong();
+    return codec;
+  }
+
+  /**
+   * Gets a snapshot of the storage and cache metrics.
+   *
+   * @return A map of cache hits and misses and of the compressed, uncompressed and dictionary
+   *     sizes.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    long hits = this.hits.get();
+    long misses = this.misses.get();
+    stats.put("hits", hits);
+    stats.put("misses", misses);
+    stats.put("hit_rate", hits + misses == 0 ? 0.0 : (double) hits / (hits + misses));
+    stats.put("compressed_bytes", this.compressedBytes);
+    stats.put("uncompressed_bytes", this.uncompressedBytes);
+    stats.put("dictionary_bytes", this.dictionary.length);
+    return stats;
+  }
+
+  /**
+   * Serializes a map as its size followed by its keys and values.
+   *
+   * @param map The map.
+   * @return The serialized map.
+   */
+  private static byte[] encode(Map<String, String> map) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeInt(map.size());
+      for (Map.Entry<String, String> entry : map.entrySet()) {
+        writeString(out, entry.getKey());
+        writeString(out, entry.getValue());
+      }
+    } catch (IOException e) {
+      // Writing to memory does not fail
+      throw new UncheckedIOException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Writes a string as its UTF-8 length and bytes, or -1 for null.
+   *
+   * @param out The output.
+   * @param value The string, or null.
+   * @throws IOException If the output fails.
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  /**
+   * Reads a string written by {@link #writeString}.
+   *
+   * @param in The input.
+   * @return The string, or null.
+   * @throws IOException If the input is truncated.
+   */
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,136 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The bounding envelope of every feature of a collection, in structure-of-arrays layout. Entry
+ * {@code i} of each array describes the feature at position {@code i} of the collection, so a
+ * scan over the envelopes reads four dense arrays instead of chasing every feature's vertices.
+ * Features without a geometry have NaN envelopes, which fail every comparison.
+ */
+public class FeatureEnvelopes {
+
+  /**
+   * The smallest longitude of each feature.
+   */
+  public final double[] minLons;
+
+  /**
+   * The smallest latitude of each feature.
+   */
+  public final double[] minLats;
+
+  /**
+   * The largest longitude of each feature.
+   */
+  public final double[] maxLons;
+
+  /**
+   * The largest latitude of each feature.
+   */
+  public final double[] maxLats;
+
+  /**
+   * Computes the envelopes of the features of a collection. Packed geometries are used where the
+   * features have them, and the nested coordinate lists otherwise.
+   *
+   * @param collection The collection whose features to measure.
+   */
+  public FeatureEnvelopes(GeoMapCollection collection) {
+    int size = collection.features.size();
+    this.minLons = new double[size];
+    this.minLats = new double[size];
+    this.maxLons = new double[size];
+    this.maxLats = new double[size];
+    Arrays.fill(this.minLons, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.minLats, Double.POSITIVE_INFINITY);
+    Arrays.fill(this.maxLons, Double.NEGATIVE_INFINITY);
+    Arrays.fill(this.maxLats, Double.NEGATIVE_INFINITY);
+
+    for (int i = 0; i < size; i++) {
+      GeoMap feature = collection.features.get(i);
+      PackedGeometry packed = feature.detailLevels == null ? null : feature.detailLevels[0];
+      if (packed != null) {
+        for (int v = packed.vertexStart(); v < packed.vertexEnd(); v++) {
+          include(i, packed.lon(v), packed.lat(v));
+        }
+      } else if (feature.geometry != null && feature.geometry.coordinates != null) {
+        for (List<List<List<Double>>> polygon : feature.geometry.coordinates) {
+          for (List<List<Double>> ring : polygon) {
+            for (List<Double> point : ring) {
+              include(i, point.get(0), point.get(1));
+            }
+          }
+        }
+      } else {
+        this.minLons[i] = Double.NaN;
+        this.minLats[i] = Double.NaN;
+        this.maxLons[i] = Double.NaN;
+        this.maxLats[i] = Double.NaN;
+      }
+    }
+  }
+
+  /**
+   * Grows the envelope of a feature to include a vertex. A NaN coordinate makes the envelope NaN
+   * for good, since Math.min and Math.max propagate it.
+   *
+   * @param i The position of the feature.
+   * @param lon The longitude of the vertex.
+   * @param lat The latitude of the vertex.
+   */
+  private void include(int i, double lon, double lat) {
+    this.minLons[i] = Math.min(this.minLons[i], lon);
+    this.minLats[i] = Math.min(this.minLats[i], lat);
+    this.maxLons[i] = Math.max(this.maxLons[i], lon);
+    this.maxLats[i] = Math.max(this.maxLats[i], lat);
+  }
+
+  /**
+   * Gets the number of envelopes.
+   *
+   * @return The number of features measured.
+   */
+  public int size() {
+    return this.minLons.length;
+  }
+
+  /**
+   * Checks whether the envelope of a feature lies completely inside a bounding box. Since the
+   * envelope is the tightest box around the feature's vertices, this holds exactly when every
+   * vertex of the feature is inside the bounding box.
+   *
+   * @param i The position of the feature.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return True if the feature is completely within the bounding box.
+   */
+  public boolean isWithin(int i, double minLon, double maxLon, double minLat, double maxLat) {
+    return this.minLons[i] >= minLon
+        && this.maxLons[i] <= maxLon
+        && this.minLats[i] >= minLat
+        && this.maxLats[i] <= maxLat;
+  }
+
+  /**
+   * Checks whether the envelope of a feature overlaps a bounding box at all.
+   *
+   * @param i The position of the feature.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return True if the feature's envelope and the bounding box share at least one point.
+   */
+  public boolean intersects(int i, double minLon, double maxLon, double minLat, double maxLat) {
+    return this.minLons[i] <= maxLon
+        && this.maxLons[i] >= minLon
+        && this.minLats[i] <= maxLat
+        && this.maxLats[i] >= minLat;
+  }
+}
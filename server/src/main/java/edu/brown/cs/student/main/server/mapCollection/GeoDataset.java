@@ -0,0 +1,277 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.caching.LruCache;
+import edu.brown.cs.student.main.server.caching.SingleFlight;
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.PropertyIndex;
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+import edu.brown.cs.student.main.server.index.TermDictionary;
+import edu.brown.cs.student.main.server.index.TrigramIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.HilbertOrder;
+import edu.brown.cs.student.main.server.utils.ResponseBudget;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A loaded dataset served by the geo handlers. It holds the feature collection together with
+ * everything derived from it at load time, a cache of encoded query results, and a version string
+ * that changes whenever the content of the collection changes.
+ */
+public class GeoDataset {
+
+  /**
+   * The default largest number of bytes of encoded query results kept in memory.
+   */
+  public static final long RESULT_CACHE_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * The largest number of bytes of feature positions kept for recently queried regions.
+   */
+  public static final long REGION_CACHE_BYTES = 8L * 1024 * 1024;
+
+  /**
+   * The features of the dataset.
+   */
+  public final GeoMapCollection collection;
+
+  /**
+   * The envelope of every feature, by position in the collection.
+   */
+  public final FeatureEnvelopes envelopes;
+
+  /**
+   * The index that answers bounding box queries, built over the envelopes.
+   */
+  public final SpatialIndex spatialIndex;
+
+  /**
+   * The index over the string fields of feature properties, used to combine property filters.
+   */
+  public final PropertyIndex propertyIndex;
+
+  /**
+   * The index of the trigrams of the area descriptions, used for keyword search.
+   */
+  public final TrigramIndex trigramIndex;
+
+  /**
+   * The index of the words of the area descriptions, used for ranked keyword search.
+   */
+  public final Bm25Index textIndex;
+
+  /**
+   * The trigram and word indexes of each area description field, used for field-scoped search.
+   */
+  public final FieldIndexes fieldIndexes;
+
+  /**
+   * The sorted words of the names and area descriptions, used to suggest keyword completions.
+   */
+  public final TermDictionary termDictionary;
+
+  /**
+   * The codec holding the area descriptions of the features compressed, or null if they are
+   * kept as loaded.
+   */
+  public final DescriptionCodec descriptionCodec;
+
+  /**
+   * Where the vertex coordinates of the features' packed geometries are kept.
+   */
+  public final CoordinateStore coordinateStore;
+
+  /**
+   * Whether the features were reordered along a Hilbert curve, rather than keeping their file
+   * order.
+   */
+  public final boolean hilbertOrdered;
+
+  /**
+   * A fingerprint of the dataset content, used to tell apart responses built from different data.
+   */
+  public final String version;
+
+  /**
+   * The encoded responses of recent queries against this dataset. It belongs to the dataset, so
+   * replacing the dataset replaces its cached results along with it.
+   */
+  public final LruCache<EncodedResponse> resultCache;
+
+  /**
+   * The positions of the features within recently queried regions, such as bounding boxes snapped
+   * to a grid, so queries for nearby regions share one index lookup.
+   */
+  public final LruCache<int[]> regionCache =
+      new LruCache<>(REGION_CACHE_BYTES, ordinals -> 4L * ordinals.length);
+
+  /**
+   * The query computations currently running against this dataset, shared by identical
+   * concurrent queries.
+   */
+  public final SingleFlight<EncodedResponse> inFlight = new SingleFlight<>();
+
+  /**
+   * Constructs a GeoDataset from a collection with a result cache of the default size.
+   *
+   * @param collection The features of the dataset.
+   */
+  public GeoDataset(GeoMapCollection collection) {
+    this(collection, RESULT_CACHE_BYTES);
+  }
+
+  /**
+   * Constructs a GeoDataset from a collection with a result cache of a given size.
+   *
+   * @param collection The features of the dataset.
+   * @param resultCacheBytes The largest number of bytes of encoded query results to cache.
+   */
+  public GeoDataset(GeoMapCollection collection, long resultCacheBytes) {
+    this(collection, withResultCacheBytes(resultCacheBytes));
+  }
+
+  /**
+   * Constructs a GeoDataset from a collection, sharing one instance of each repeated property
+   * string, precomputing the simplified geometries, encoded sizes and envelopes of its features,
+   * indexing their envelopes, properties and descriptions, and fingerprinting its content. If the
+   * options ask for it, the features are first reordered along a Hilbert curve, their
+   * descriptions are compressed, and their vertices are moved off the heap last. Simplified
+   * geometries, encoded sizes and the fingerprint that are already known, as when the collection
+   * comes from a snapshot, are not recomputed.
+   *
+   * @param collection The features of the dataset.
+   * @param options How to prepare the dataset.
+   */
+  public GeoDataset(GeoMapCollection collection, DatasetOptions options) {
+    this(collection, options, null, null, null, null, null);
+  }
+
+  /**
+   * Constructs a GeoDataset from a collection, reusing whichever text indexes and description
+   * codec were read along with it from a snapshot and building the rest.
+   *
+   * @param collection The features of the dataset.
+   * @param options How to prepare the dataset.
+   * @param trigramIndex The trigram index of the descriptions, or null to build it.
+   * @param textIndex The word index of the descriptions, or null to build it.
+   * @param fieldIndexes The indexes of each description field, or null to build them.
+   * @param termDictionary The dictionary of words, or null to build it.
+   * @param descriptionCodec The codec the descriptions are already compressed with, or null to
+   *     compress them if the options ask for it.
+   */
+  GeoDataset(
+      GeoMapCollection collection,
+      DatasetOptions options,
+      TrigramIndex trigramIndex,
+      Bm25Index textIndex,
+      FieldIndexes fieldIndexes,
+      TermDictionary termDictionary,
+      DescriptionCodec descriptionCodec) {
+    this.collection = collection;
+    PropertyDictionary.canonicalize(collection);
+    this.resultCache = new LruCache<>(options.resultCacheBytes, EncodedResponse::weight);
+    GeometrySimplifier.precompute(collection);
+    ResponseBudget.precompute(collection);
+    if (options.hilbertOrder) {
+      HilbertOrder.apply(collection);
+    }
+    this.hilbertOrdered = options.hilbertOrder;
+    this.envelopes = new FeatureEnvelopes(collection);
+    this.spatialIndex =
+        SpatialIndex.build(options.index, this.envelopes, options.gridCellDegrees);
+    this.propertyIndex = new PropertyIndex(collection);
+    this.trigramIndex = trigramIndex != null ? trigramIndex : new TrigramIndex(collection);
+    this.textIndex = textIndex != null ? textIndex : new Bm25Index(collection);
+    this.fieldIndexes = fieldIndexes != null ? fieldIndexes : new FieldIndexes(collection);
+    this.termDictionary =
+        termDictionary != null ? termDictionary : new TermDictionary(collection);
+    this.version = options.version != null ? options.version : fingerprint(collection);
+    // Everything above reads the descriptions once; afterwards they are mostly read for encoding
+    if (descriptionCodec != null) {
+      this.descriptionCodec = descriptionCodec;
+    } else {
+      this.descriptionCodec =
+          options.compressDescriptions ? DescriptionCodec.compress(collection) : null;
+    }
+    this.coordinateStore = CoordinateStore.apply(collection, options.coordinates);
+    collection.dataset = this;
+  }
+
+  /**
+   * Gets the dataset built over a collection, building one with the default options if there is
+   * none yet.
+   *
+   * @param collection The features of the dataset.
+   * @return The dataset that owns the collection.
+   */
+  public static GeoDataset of(GeoMapCollection collection) {
+    GeoDataset dataset = collection.dataset;
+    return dataset != null ? dataset : new GeoDataset(collection);
+  }
+
+  /**
+   * Builds default options with a given result cache size.
+   *
+   * @param resultCacheBytes The largest number of bytes of encoded query results to cache.
+   * @return The options.
+   */
+  private static DatasetOptions withResultCacheBytes(long resultCacheBytes) {
+    DatasetOptions options = new DatasetOptions();
+    options.resultCacheBytes = resultCacheBytes;
+    return options;
+  }
+
+  /**
+   * Computes the great-circle distance from a point to a feature of the dataset.
+   *
+   * @param ordinal The position of the feature in the collection.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return The distance in kilometers, 0 if the point is inside the feature, or positive
+   *     infinity if the feature has no geometry.
+   */
+  public double distanceKm(int ordinal, double lon, double lat) {
+    GeoMap feature = this.collection.features.get(ordinal);
+    if (feature.detailLevels == null) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return GeoDistance.toPolygonKm(feature.detailLevels[0], lon, lat);
+  }
+
+  /**
+   * Computes a short hash of the encoded content of a collection.
+   *
+   * @param collection The collection to fingerprint.
+   * @return The first 16 hex digits of the SHA-256 of its JSON encoding.
+   */
+  private static String fingerprint(GeoMapCollection collection) {
+    byte[] json = new GeoMapAdapter().toJson(collection).getBytes(StandardCharsets.UTF_8);
+    return sha256Hex(json).substring(0, 16);
+  }
+
+  /**
+   * Computes the SHA-256 of some bytes as a hex string.
+   *
+   * @param bytes The bytes to hash.
+   * @return The 64 hex digit hash.
+   */
+  public static String sha256Hex(byte[] bytes) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+      StringBuilder hex = new StringBuilder(digest.length * 2);
+      for (byte b : digest) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package edu.brown.cs.student.main.server.mapCollection.GeoMap;
 
 import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
 import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
 
 /**
@@ -28,6 +29,18 @@ public class GeoMap {
    */
   public Property properties;
 
+  /**
+   * The geometry packed and simplified at each level of detail, where level 0 is full resolution.
+   * This is derived at load time and is never serialized.
+   */
+  public transient PackedGeometry[] detailLevels;
+
+  /**
+   * The estimated encoded size in bytes of this feature at each step of the response budget
+   * ladder. This is derived at load time and is never serialized.
+   */
+  public transient long[] encodedSizes;
+
   /**
    * Gets the geometry of this geographical map.
    * 
@@ -0,0 +1,55 @@
+package edu.brown.cs.student.main.server.mapCollection.GeoMap.fields;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vertices held outside the Java heap, in two byte buffers of eight-byte doubles: direct buffers
+ * allocated for them, or regions of a memory-mapped file. The garbage collector sees only the
+ * small buffer objects, never the coordinates themselves. Each buffer is read in its own byte
+ * order.
+ */
+public final class BufferVertices implements Vertices {
+
+  /**
+   * The longitude of every vertex, vertex v at byte 8v.
+   */
+  public final ByteBuffer lons;
+
+  /**
+   * The latitude of every vertex, parallel to the longitudes.
+   */
+  public final ByteBuffer lats;
+
+  /**
+   * Constructs BufferVertices over two buffers, without copying them.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   */
+  public BufferVertices(ByteBuffer lons, ByteBuffer lats) {
+    this.lons = lons;
+    this.lats = lats;
+  }
+
+  /**
+   * Gets the longitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The longitude.
+   */
+  @Override
+  public double lon(int vertex) {
+    return this.lons.getDouble(vertex * Double.BYTES);
+  }
+
+  /**
+   * Gets the latitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The latitude.
+   */
+  @Override
+  public double lat(int vertex) {
+    return this.lats.getDouble(vertex * Double.BYTES);
+  }
+}
@@ -0,0 +1,50 @@
+package edu.brown.cs.student.main.server.mapCollection.GeoMap.fields;
+
+/**
+ * Vertices held in two parallel arrays on the Java heap.
+ */
+public final class HeapVertices implements Vertices {
+
+  /**
+   * The longitude of every vertex.
+   */
+  public final double[] lons;
+
+  /**
+   * The latitude of every vertex, parallel to the longitudes.
+   */
+  public final double[] lats;
+
+  /**
+   * Constructs HeapVertices over two arrays, without copying them.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   */
+  public HeapVertices(double[] lons, double[] lats) {
+    this.lons = lons;
+    this.lats = lats;
+  }
+
+  /**
+   * Gets the longitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The longitude.
+   */
+  @Override
+  public double lon(int vertex) {
+    return this.lons[vertex];
+  }
+
+  /**
+   * Gets the latitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The latitude.
+   */
+  @Override
+  public double lat(int vertex) {
+    return this.lats[vertex];
+  }
+}
@@ -0,0 +1,407 @@
+package edu.brown.cs.student.main.server.mapCollection.GeoMap.fields;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A compact, primitive-array representation of a multipolygon geometry.
+ * Longitudes and latitudes are stored in a {@link Vertices} store, on or off the heap, and the
+ * ring and polygon structure is described by offset arrays, so algorithms can walk vertices
+ * without unboxing nested {@code List<Double>} values.
+ */
+public class PackedGeometry {
+
+  /**
+   * Precision value meaning coordinates are written exactly as parsed, without rounding.
+   */
+  public static final int FULL_PRECISION = -1;
+
+  /**
+   * The geometry type of the original feature, such as "MultiPolygon".
+   */
+  public final String type;
+
+  /**
+   * The coordinates of every vertex, ring after ring.
+   */
+  public final Vertices vertices;
+
+  /**
+   * Vertex offsets of each ring. Ring {@code r} spans {@code [ringOffsets[r], ringOffsets[r + 1])}.
+   */
+  public final int[] ringOffsets;
+
+  /**
+   * Ring offsets of each polygon. Polygon {@code p} spans rings
+   * {@code [polygonOffsets[p], polygonOffsets[p + 1])}.
+   */
+  public final int[] polygonOffsets;
+
+  /**
+   * Constructs a PackedGeometry from already packed arrays.
+   *
+   * @param type The geometry type.
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param ringOffsets The vertex offsets of each ring, with a trailing end offset.
+   * @param polygonOffsets The ring offsets of each polygon, with a trailing end offset.
+   */
+  public PackedGeometry(
+      String type, double[] lons, double[] lats, int[] ringOffsets, int[] polygonOffsets) {
+    this(type, new HeapVertices(lons, lats), ringOffsets, polygonOffsets);
+  }
+
+  /**
+   * Constructs a PackedGeometry over a vertex store.
+   *
+   * @param type The geometry type.
+   * @param vertices The vertex coordinates.
+   * @param ringOffsets The vertex offsets of each ring, with a trailing end offset.
+   * @param polygonOffsets The ring offsets of each polygon, with a trailing end offset.
+   */
+  public PackedGeometry(
+      String type, Vertices vertices, int[] ringOffsets, int[] polygonOffsets) {
+    this.type = type;
+    this.vertices = vertices;
+    this.ringOffsets = ringOffsets;
+    this.polygonOffsets = polygonOffsets;
+  }
+
+  /**
+   * Packs the nested coordinate lists of a Geometry into primitive arrays.
+   *
+   * @param geometry The geometry to pack.
+   * @return The packed geometry, or null if the geometry has no coordinates.
+   */
+  public static PackedGeometry pack(Geometry geometry) {
+    if (geometry == null || geometry.getCoordinates() == null) {
+      return null;
+    }
+    List<List<List<List<Double>>>> coordinates = geometry.getCoordinates();
+
+    // First pass: count rings and vertices so the arrays can be sized exactly
+    int ringCount = 0;
+    int vertexCount = 0;
+    for (List<List<List<Double>>> polygon : coordinates) {
+      ringCount += polygon.size();
+      for (List<List<Double>> ring : polygon) {
+        vertexCount += ring.size();
+      }
+    }
+
+    double[] lons = new double[vertexCount];
+    double[] lats = new double[vertexCount];
+    int[] ringOffsets = new int[ringCount + 1];
+    int[] polygonOffsets = new int[coordinates.size() + 1];
+
+    // Second pass: copy the coordinates and record where each ring and polygon starts
+    int ring = 0;
+    int vertex = 0;
+    for (int p = 0; p < coordinates.size(); p++) {
+      polygonOffsets[p] = ring;
+      for (List<List<Double>> ringPoints : coordinates.get(p)) {
+        ringOffsets[ring++] = vertex;
+        for (List<Double> point : ringPoints) {
+          lons[vertex] = point.get(0);
+          lats[vertex] = point.get(1);
+          vertex++;
+        }
+      }
+    }
+    polygonOffsets[coordinates.size()] = ring;
+    ringOffsets[ringCount] = vertex;
+
+    return new PackedGeometry(geometry.type, lons, lats, ringOffsets, polygonOffsets);
+  }
+
+  /**
+   * Gets the longitude of a vertex.
+   *
+   * @param vertex The position of the vertex in the vertex store.
+   * @return The longitude.
+   */
+  public double lon(int vertex) {
+    return this.vertices.lon(vertex);
+  }
+
+  /**
+   * Gets the latitude of a vertex.
+   *
+   * @param vertex The position of the vertex in the vertex store.
+   * @return The latitude.
+   */
+  public double lat(int vertex) {
+    return this.vertices.lat(vertex);
+  }
+
+  /**
+   * Checks whether the vertices of this geometry are held in arrays on the Java heap.
+   *
+   * @return True for heap arrays, false for an off-heap buffer.
+   */
+  public boolean isOnHeap() {
+    return this.vertices instanceof HeapVertices;
+  }
+
+  /**
+   * Gets the number of vertices in this geometry.
+   *
+   * @return The vertex count.
+   */
+  public int vertexCount() {
+    return vertexEnd() - vertexStart();
+  }
+
+  /**
+   * Gets the position of the first vertex of this geometry in its coordinate arrays. Geometries
+   * may share their arrays with others, so their vertices need not start at 0.
+   *
+   * @return The first vertex, inclusive.
+   */
+  public int vertexStart() {
+    return this.ringOffsets[0];
+  }
+
+  /**
+   * Gets the position just past the last vertex of this geometry in its coordinate arrays.
+   *
+   * @return The last vertex, exclusive.
+   */
+  public int vertexEnd() {
+    return this.ringOffsets[this.ringOffsets.length - 1];
+  }
+
+  /**
+   * Copies the vertices of this geometry into shared coordinate arrays.
+   *
+   * @param lons The shared longitude array.
+   * @param lats The shared latitude array.
+   * @param at The position in the shared arrays to copy the first vertex to.
+   * @return An equivalent geometry backed by the shared arrays.
+   */
+  public PackedGeometry relocate(double[] lons, double[] lats, int at) {
+    if (this.vertices instanceof HeapVertices) {
+      HeapVertices heap = (HeapVertices) this.vertices;
+      System.arraycopy(heap.lons, vertexStart(), lons, at, vertexCount());
+      System.arraycopy(heap.lats, vertexStart(), lats, at, vertexCount());
+    } else {
+      for (int v = vertexStart(); v < vertexEnd(); v++) {
+        lons[at + v - vertexStart()] = lon(v);
+        lats[at + v - vertexStart()] = lat(v);
+      }
+    }
+    return new PackedGeometry(
+        this.type, new HeapVertices(lons, lats), shiftedRings(at), this.polygonOffsets);
+  }
+
+  /**
+   * Copies the vertices of this geometry into shared off-heap buffers.
+   *
+   * @param lons The shared longitude buffer.
+   * @param lats The shared latitude buffer, in the same byte order.
+   * @param at The vertex position in the shared buffers to copy the first vertex to.
+   * @return An equivalent geometry backed by the shared buffers.
+   */
+  public PackedGeometry relocate(ByteBuffer lons, ByteBuffer lats, int at) {
+    if (this.vertices instanceof HeapVertices) {
+      HeapVertices heap = (HeapVertices) this.vertices;
+      lons.asDoubleBuffer().put(at, heap.lons, vertexStart(), vertexCount());
+      lats.asDoubleBuffer().put(at, heap.lats, vertexStart(), vertexCount());
+    } else {
+      for (int v = vertexStart(); v < vertexEnd(); v++) {
+        lons.putDouble((at + v - vertexStart()) * Double.BYTES, lon(v));
+        lats.putDouble((at + v - vertexStart()) * Double.BYTES, lat(v));
+      }
+    }
+    return new PackedGeometry(
+        this.type, new BufferVertices(lons, lats), shiftedRings(at), this.polygonOffsets);
+  }
+
+  /**
+   * Gets an equivalent geometry whose vertices are in heap arrays of its own.
+   *
+   * @return This geometry if its vertices are already on the heap, or else a copy.
+   */
+  public PackedGeometry onHeap() {
+    if (isOnHeap()) {
+      return this;
+    }
+    return relocate(new double[vertexCount()], new double[vertexCount()], 0);
+  }
+
+  /**
+   * Computes the ring offsets of this geometry moved to start at another vertex position.
+   *
+   * @param at The new position of the first vertex.
+   * @return The shifted ring offsets.
+   */
+  private int[] shiftedRings(int at) {
+    int shift = at - vertexStart();
+    int[] shiftedRings = new int[this.ringOffsets.length];
+    for (int r = 0; r < shiftedRings.length; r++) {
+      shiftedRings[r] = this.ringOffsets[r] + shift;
+    }
+    return shiftedRings;
+  }
+
+  /**
+   * Gets the number of rings in this geometry.
+   *
+   * @return The ring count.
+   */
+  public int ringCount() {
+    return this.ringOffsets.length - 1;
+  }
+
+  /**
+   * Gets the number of polygons in this geometry.
+   *
+   * @return The polygon count.
+   */
+  public int polygonCount() {
+    return this.polygonOffsets.length - 1;
+  }
+
+  /**
+   * Converts this packed geometry back into a Geometry with nested coordinate lists.
+   *
+   * @return The equivalent Geometry object.
+   */
+  public Geometry toGeometry() {
+    return toGeometry(FULL_PRECISION);
+  }
+
+  /**
+   * Converts this packed geometry back into a Geometry, rounding every coordinate to a number
+   * of decimal places.
+   *
+   * @param precision The number of decimal places to keep, or {@link #FULL_PRECISION}.
+   * @return The equivalent Geometry object.
+   */
+  public Geometry toGeometry(int precision) {
+    List<List<List<List<Double>>>> coordinates = new ArrayList<>(polygonCount());
+    for (int p = 0; p < polygonCount(); p++) {
+      List<List<List<Double>>> polygon = new ArrayList<>();
+      for (int r = this.polygonOffsets[p]; r < this.polygonOffsets[p + 1]; r++) {
+        List<List<Double>> ring = new ArrayList<>(this.ringOffsets[r + 1] - this.ringOffsets[r]);
+        for (int v = this.ringOffsets[r]; v < this.ringOffsets[r + 1]; v++) {
+          ring.add(List.of(round(lon(v), precision), round(lat(v), precision)));
+        }
+        polygon.add(ring);
+      }
+      coordinates.add(polygon);
+    }
+
+    Geometry geometry = new Geometry();
+    geometry.type = this.type;
+    geometry.coordinates = coordinates;
+    return geometry;
+  }
+
+  /**
+   * Builds a Geometry whose coordinate lists are read-only views over the vertices of this
+   * geometry. Each point is read from the vertex store when it is visited, so the geometry costs
+   * a few objects however many vertices it has, and serializes exactly like {@link #toGeometry()}.
+   *
+   * @return The view.
+   */
+  public Geometry toGeometryView() {
+    Geometry geometry = new Geometry();
+    geometry.type = this.type;
+    geometry.coordinates =
+        new AbstractList<>() {
+          @Override
+          public List<List<List<Double>>> get(int polygon) {
+            return polygonView(polygon);
+          }
+
+          @Override
+          public int size() {
+            return polygonCount();
+          }
+        };
+    return geometry;
+  }
+
+  /**
+   * Builds a read-only view of the rings of one polygon.
+   *
+   * @param polygon The index of the polygon.
+   * @return The view.
+   */
+  private List<List<List<Double>>> polygonView(int polygon) {
+    int firstRing = this.polygonOffsets[polygon];
+    int endRing = this.polygonOffsets[polygon + 1];
+    return new AbstractList<>() {
+      @Override
+      public List<List<Double>> get(int ring) {
+        return ringView(firstRing + ring);
+      }
+
+      @Override
+      public int size() {
+        return endRing - firstRing;
+      }
+    };
+  }
+
+  /**
+   * Builds a read-only view of the points of one ring.
+   *
+   * @param ring The index of the ring.
+   * @return The view.
+   */
+  private List<List<Double>> ringView(int ring) {
+    int start = this.ringOffsets[ring];
+    int end = this.ringOffsets[ring + 1];
+    return new AbstractList<>() {
+      @Override
+      public List<Double> get(int point) {
+        return List.of(lon(start + point), lat(start + point));
+      }
+
+      @Override
+      public int size() {
+        return end - start;
+      }
+    };
+  }
+
+  /**
+   * Computes how many JSON bytes the vertices of this geometry take at a given precision.
+   * This counts each {@code [lon,lat]} pair and the commas between pairs of the same ring, which
+   * is the only part of a feature's encoding that changes with simplification and rounding.
+   *
+   * @param precision The number of decimal places to keep, or {@link #FULL_PRECISION}.
+   * @return The number of bytes.
+   */
+  public long encodedVertexBytes(int precision) {
+    long bytes = 0;
+    for (int v = vertexStart(); v < vertexEnd(); v++) {
+      // "[" + lon + "," + lat + "]"
+      bytes +=
+          Double.toString(round(lon(v), precision)).length()
+              + Double.toString(round(lat(v), precision)).length()
+              + 3;
+    }
+    // One comma between consecutive vertices of each ring
+    return bytes + vertexCount() - ringCount();
+  }
+
+  /**
+   * Rounds a coordinate to a number of decimal places.
+   *
+   * @param value The coordinate.
+   * @param precision The number of decimal places to keep, or {@link #FULL_PRECISION}.
+   * @return The rounded coordinate.
+   */
+  public static double round(double value, int precision) {
+    if (precision == FULL_PRECISION) {
+      return value;
+    }
+    double scale = Math.pow(10, precision);
+    return Math.round(value * scale) / scale;
+  }
+}
@@ -0,0 +1,24 @@
+package edu.brown.cs.student.main.server.mapCollection.GeoMap.fields;
+
+/**
+ * The coordinates of the vertices of packed geometries, addressed by vertex position. Several
+ * geometries may share one store, each using its own range of positions.
+ */
+public interface Vertices {
+
+  /**
+   * Gets the longitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The longitude.
+   */
+  double lon(int vertex);
+
+  /**
+   * Gets the latitude of a vertex.
+   *
+   * @param vertex The position of the vertex.
+   * @return The latitude.
+   */
+  double lat(int vertex);
+}
@@ -20,4 +20,11 @@ public class GeoMapCollection {
    * Each GeoMap in the list represents a specific geographical feature or area.
    */
   public List<GeoMap> features;
+
+  /**
+   * The dataset built over this collection, or null if none was. Building a dataset prepares the
+   * features in place, so code given only the collection reuses this dataset rather than
+   * preparing the features a second time.
+   */
+  public transient GeoDataset dataset;
 }
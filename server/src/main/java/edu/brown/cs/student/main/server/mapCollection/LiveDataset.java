@@ -0,0 +1,304 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * The dataset a server is currently serving, which can be replaced while the server runs. A
+ * reload parses the GeoJSON file and builds the new dataset with all of its indexes and caches on
+ * a background thread, and then publishes it with a single write of an atomic reference. Requests
+ * read the reference once when they start, so a request in flight finishes on the version it
+ * started with, and no request ever waits for a reload. Until a reload finishes, both versions
+ * are held in memory, and a reload that fails leaves the current version in place.
+ */
+public class LiveDataset implements Supplier<GeoDataset> {
+
+  /**
+   * How long the GeoJSON file has to stay unchanged after a change is seen before it is reloaded,
+   * so a file still being copied is not read half-written.
+   */
+  static final long SETTLE_MILLIS = 500;
+
+  /**
+   * The dataset being served.
+   */
+  private final AtomicReference<GeoDataset> current;
+
+  /**
+   * The GeoJSON file.
+   */
+  private final Path source;
+
+  /**
+   * The snapshot file, replaced on every reload.
+   */
+  private final Path snapshot;
+
+  /**
+   * How each version of the dataset is prepared.
+   */
+  private final DatasetOptions options;
+
+  /**
+   * The single thread that builds new versions, so reloads never overlap.
+   */
+  private final ExecutorService builder;
+
+  /**
+   * Whether a reload is waiting to start, so a burst of triggers queues only one more build.
+   */
+  private final AtomicBoolean pending = new AtomicBoolean();
+
+  /**
+   * Whether a trigger since the waiting reload was queued asked to force it.
+   */
+  private final AtomicBoolean pendingForce = new AtomicBoolean();
+
+  /**
+   * The size and modification time of the GeoJSON file the current version was loaded from.
+   */
+  private volatile String loadedStamp;
+
+  /**
+   * The number of versions published after the first.
+   */
+  private volatile long reloads;
+
+  /**
+   * The number of reloads that failed.
+   */
+  private volatile long failures;
+
+  /**
+   * The time the last reload took to build its version, in milliseconds.
+   */
+  private volatile long lastReloadMillis;
+
+  /**
+   * The message of the last failed reload, or null if none failed.
+   */
+  private volatile String lastError;
+
+  /**
+   * Constructs a LiveDataset serving a loaded dataset.
+   *
+   * @param dataset The first version of the dataset.
+   * @param source The GeoJSON file the dataset was loaded from.
+   * @param snapshot The snapshot file of the dataset.
+   * @param options How each version of the dataset is prepared.
+   * @throws IOException If the GeoJSON file cannot be read.
+   */
+  public LiveDataset(GeoDataset dataset, Path source, Path snapshot, DatasetOptions options)
+      throws IOException {
+    this.current = new AtomicReference<>(dataset);
+    this.source = source;
+    this.snapshot = snapshot;
+    this.options = options;
+    this.loadedStamp = stamp(source);
+    this.builder =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "dataset-reload");
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Loads the first version of a dataset from its snapshot or GeoJSON file.
+   *
+   * @param source The GeoJSON file.
+   * @param snapshot The snapshot file.
+   * @param options How each version of the dataset is prepared.
+   * @return The live dataset.
+   * @throws IOException If the GeoJSON file cannot be read or parsed.
+   */
+  public static LiveDataset load(Path source, Path snapshot, DatasetOptions options)
+      throws IOException {
+    // The stamp is taken before loading, so a change made during the load is not missed
+    String stamp = stamp(source);
+    LiveDataset live =
+        new LiveDataset(
+            DatasetSnapshot.load(source, snapshot, options.copy()), source, snapshot, options);
+    live.loadedStamp = stamp;
+    return live;
+  }
+
+  /**
+   * Gets the dataset being served. Callers should read it once per request and use that version
+   * throughout.
+   *
+   * @return The current version of the dataset.
+   */
+  @Override
+  public GeoDataset get() {
+    return this.current.get();
+  }
+
+  /**
+   * Schedules a reload of the GeoJSON file on the background thread. If a reload is already
+   * waiting to start, no other is queued, since it will read the latest file anyway; a forced
+   * trigger then makes the waiting reload forced.
+   *
+   * @param force Whether to reparse the file even if it has the size and modification time of
+   *     the current version, rather than reopening a matching snapshot.
+   * @return The reload, which completes with true if a new version was published, or null if a
+   *     reload was already waiting.
+   */
+  public Future<Boolean> reload(boolean force) {
+    if (force) {
+      this.pendingForce.set(true);
+    }
+    if (!this.pending.compareAndSet(false, true)) {
+      return null;
+    }
+    return this.builder.submit(
+        () -> {
+          // Clear the waiting flag first, so a trigger after this point queues another reload
+          this.pending.set(false);
+          return rebuild(this.pendingForce.getAndSet(false));
+        });
+  }
+
+  /**
+   * Builds a new version from the GeoJSON file and publishes it. A forced rebuild parses the file
+   * even if a snapshot matches it, so it also recovers from a bad snapshot. The snapshot is
+   * replaced rather than overwritten, so a version still reading vertices from the old mapping
+   * is unaffected.
+   *
+   * @param force Whether to rebuild even if the file is unchanged.
+   * @return True if a new version was published.
+   */
+  private boolean rebuild(boolean force) {
+    long start = System.nanoTime();
+    try {
+      String stamp = stamp(this.source);
+      if (!force && stamp.equals(this.loadedStamp)) {
+        return false;
+      }
+      GeoDataset dataset =
+          force
+              ? DatasetSnapshot.rebuild(this.source, this.snapshot, this.options.copy())
+              : DatasetSnapshot.load(this.source, this.snapshot, this.options.copy());
+      this.current.set(dataset);
+      this.loadedStamp = stamp;
+      this.reloads++;
+      this.lastReloadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      this.lastError = null;
+      System.out.println(
+          "Reloaded " + this.source + " as version " + dataset.version
+              + " in " + this.lastReloadMillis + " ms");
+      return true;
+    } catch (IOException | RuntimeException e) {
+      this.failures++;
+      this.lastError = e.getMessage();
+      System.out.println("Could not reload " + this.source + ": " + e.getMessage());
+      return false;
+    }
+  }
+
+  /**
+   * Starts a daemon thread that reloads the dataset whenever the GeoJSON file changes. Changes
+   * are collected until the file has been quiet for {@link #SETTLE_MILLIS}, and a change that
+   * leaves the size and modification time as they were does not reload.
+   *
+   * @return The watch service, which stops the watching thread when closed.
+   * @throws IOException If the directory of the GeoJSON file cannot be watched.
+   */
+  public WatchService watch() throws IOException {
+    Path directory = this.source.toAbsolutePath().getParent();
+    Path name = this.source.getFileName();
+    WatchService watcher = FileSystems.getDefault().newWatchService();
+    directory.register(
+        watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                while (true) {
+                  boolean changed = drain(watcher.take(), name);
+                  // Keep collecting events until the file settles
+                  WatchKey key;
+                  while ((key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(key, name);
+                  }
+                  if (changed) {
+                    reload(false);
+                  }
+                }
+              } catch (InterruptedException | ClosedWatchServiceException e) {
+                // The watch was stopped
+              }
+            },
+            "dataset-watch");
+    thread.setDaemon(true);
+    thread.start();
+    return watcher;
+  }
+
+  /**
+   * Takes the events of a watch key and resets it.
+   *
+   * @param key The key.
+   * @param name The file name of the GeoJSON file.
+   * @return True if one of the events was about the GeoJSON file, or the events overflowed.
+   */
+  private static boolean drain(WatchKey key, Path name) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      changed |=
+          event.kind() == StandardWatchEventKinds.OVERFLOW || name.equals(event.context());
+    }
+    key.reset();
+    return changed;
+  }
+
+  /**
+   * Identifies the state of a file by its size and modification time.
+   *
+   * @param file The file.
+   * @return The size and modification time.
+   * @throws IOException If the file cannot be read.
+   */
+  private static String stamp(Path file) throws IOException {
+    FileTime modified = Files.getLastModifiedTime(file);
+    return Files.size(file) + "@" + modified.toMillis();
+  }
+
+  /**
+   * Gets a snapshot of the reload metrics.
+   *
+   * @return A map of the version being served, the number of reloads and failed reloads, the
+   *     build time of the last reload, and the message of the last failure, if any.
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> stats = new HashMap<>();
+    stats.put("version", get().version);
+    stats.put("reloads", this.reloads);
+    stats.put("failures", this.failures);
+    stats.put("last_reload_millis", this.lastReloadMillis);
+    stats.put("reload_pending", this.pending.get());
+    if (this.lastError != null) {
+      stats.put("last_error", this.lastError);
+    }
+    return stats;
+  }
+}
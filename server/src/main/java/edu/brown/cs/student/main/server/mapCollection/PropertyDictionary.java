@@ -0,0 +1,78 @@
+package edu.brown.cs.student.main.server.mapCollection;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A dictionary used while a collection is loaded to make equal property strings share one
+ * instance. The parser creates a separate string for every occurrence of a state, city, HOLC id,
+ * HOLC grade or description key, although a few hundred distinct values repeat across thousands
+ * of features. The dictionary only lives for one load, unlike {@link String#intern}, so values of
+ * a replaced dataset are not kept alive.
+ */
+public class PropertyDictionary {
+
+  /**
+   * The canonical instance of every string seen so far.
+   */
+  private final Map<String, String> canonical = new HashMap<>();
+
+  /**
+   * The number of strings replaced by an equal canonical instance.
+   */
+  private long replaced;
+
+  /**
+   * Replaces the repeated property strings of every feature of a collection with canonical
+   * instances, keeping descriptions and their order unchanged.
+   *
+   * @param collection The collection to canonicalize.
+   * @return The number of strings replaced by an equal instance.
+   */
+  public static long canonicalize(GeoMapCollection collection) {
+    PropertyDictionary dictionary = new PropertyDictionary();
+    for (GeoMap feature : collection.features) {
+      if (feature == null || feature.properties == null) {
+        continue;
+      }
+      Property properties = feature.properties;
+      properties.state = dictionary.canonical(properties.state);
+      properties.city = dictionary.canonical(properties.city);
+      properties.holc_id = dictionary.canonical(properties.holc_id);
+      properties.holc_grade = dictionary.canonical(properties.holc_grade);
+      // Compressed descriptions hold their keys in the compressed bytes only
+      if (properties.area_description_data != null
+          && !(properties.area_description_data instanceof CompressedDescriptions)) {
+        Map<String, String> descriptions = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : properties.area_description_data.entrySet()) {
+          descriptions.put(dictionary.canonical(entry.getKey()), entry.getValue());
+        }
+        properties.area_description_data = descriptions;
+      }
+    }
+    return dictionary.replaced;
+  }
+
+  /**
+   * Gets the canonical instance of a string, making it canonical if it is the first seen.
+   *
+   * @param value The string, or null.
+   * @return The canonical instance equal to the string, or null.
+   */
+  private String canonical(String value) {
+    if (value == null) {
+      return null;
+    }
+    String existing = this.canonical.putIfAbsent(value, value);
+    if (existing == null) {
+      return value;
+    }
+    if (existing != value) {
+      this.replaced++;
+    }
+    return existing;
+  }
+}
@@ -0,0 +1,132 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A conjunction, matching the features that satisfy every one of its operands.
+ */
+public class AndNode implements QueryNode {
+
+  /**
+   * The operands, at least two.
+   */
+  final List<QueryNode> operands;
+
+  /**
+   * The plan last chosen for this conjunction, or null before the first query.
+   */
+  private volatile QueryPlan plan;
+
+  /**
+   * Constructs an AndNode.
+   *
+   * @param operands The operands, at least two.
+   */
+  public AndNode(List<QueryNode> operands) {
+    this.operands = List.copyOf(operands);
+  }
+
+  /**
+   * Gets the plan of this conjunction for a dataset, choosing it on first use. Estimating,
+   * explaining and evaluating a conjunction all share this plan, so the operands of nested
+   * conjunctions are estimated once instead of once per enclosing call.
+   *
+   * @param dataset The dataset to query.
+   * @return The cheapest plan.
+   */
+  QueryPlan plan(GeoDataset dataset) {
+    QueryPlan current = this.plan;
+    if (current == null || current.dataset != dataset) {
+      current = QueryPlan.forConjunction(this.operands, dataset);
+      this.plan = current;
+    }
+    return current;
+  }
+
+  /**
+   * Finds the features that satisfy every operand, in the order chosen by the planner.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  @Override
+  public RoaringBitmap evaluate(GeoDataset dataset) {
+    return plan(dataset).execute(dataset);
+  }
+
+  /**
+   * Checks whether a single feature satisfies every operand.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if every operand matches.
+   */
+  @Override
+  public boolean test(GeoDataset dataset, int ordinal) {
+    for (QueryNode operand : this.operands) {
+      if (!operand.test(dataset, ordinal)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Estimates the matches of the chosen plan, assuming the operands are independent.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of matching features.
+   */
+  @Override
+  public double estimateRows(GeoDataset dataset) {
+    return plan(dataset).estimatedRows;
+  }
+
+  /**
+   * Estimates the work of the chosen plan.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated cost.
+   */
+  @Override
+  public double estimateCost(GeoDataset dataset) {
+    return plan(dataset).estimatedCost;
+  }
+
+  /**
+   * Estimates the work of testing every operand on one feature.
+   *
+   * @return The sum of the operands' test costs.
+   */
+  @Override
+  public double testCost() {
+    return this.operands.stream().mapToDouble(QueryNode::testCost).sum();
+  }
+
+  /**
+   * Describes the plan chosen for the conjunction.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this conjunction.
+   */
+  @Override
+  public Map<String, Object> explain(GeoDataset dataset) {
+    return plan(dataset).explain(dataset);
+  }
+
+  /**
+   * Prints the conjunction in canonical form.
+   *
+   * @return The parenthesized operands joined by AND.
+   */
+  @Override
+  public String toString() {
+    return this.operands.stream()
+        .map(QueryNode::toString)
+        .collect(Collectors.joining(" AND ", "(", ")"));
+  }
+}
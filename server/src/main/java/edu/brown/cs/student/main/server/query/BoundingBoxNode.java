@@ -0,0 +1,125 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.util.Map;
+
+/**
+ * A predicate matching the features lying completely inside a bounding box, with the same
+ * semantics as /getData, answered from the dataset's spatial index.
+ */
+public class BoundingBoxNode implements QueryNode {
+
+  /**
+   * Minimum latitude of the bounding box.
+   */
+  final double minLat;
+
+  /**
+   * Minimum longitude of the bounding box.
+   */
+  final double minLong;
+
+  /**
+   * Maximum latitude of the bounding box.
+   */
+  final double maxLat;
+
+  /**
+   * Maximum longitude of the bounding box.
+   */
+  final double maxLong;
+
+  /**
+   * Constructs a BoundingBoxNode.
+   *
+   * @param minLat Minimum latitude of the bounding box.
+   * @param minLong Minimum longitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @param maxLong Maximum longitude of the bounding box.
+   */
+  public BoundingBoxNode(double minLat, double minLong, double maxLat, double maxLong) {
+    this.minLat = minLat;
+    this.minLong = minLong;
+    this.maxLat = maxLat;
+    this.maxLong = maxLong;
+  }
+
+  /**
+   * Finds the features inside the box with the spatial index.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  @Override
+  public RoaringBitmap evaluate(GeoDataset dataset) {
+    return RoaringBitmap.of(
+        dataset.spatialIndex.within(this.minLong, this.maxLong, this.minLat, this.maxLat));
+  }
+
+  /**
+   * Tests the envelope of a single feature against the box.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if the feature lies inside the box.
+   */
+  @Override
+  public boolean test(GeoDataset dataset, int ordinal) {
+    return dataset.envelopes.isWithin(
+        ordinal, this.minLong, this.maxLong, this.minLat, this.maxLat);
+  }
+
+  /**
+   * Estimates the matches as the candidates the spatial index would examine, an upper bound.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of features inside the box.
+   */
+  @Override
+  public double estimateRows(GeoDataset dataset) {
+    return dataset.spatialIndex.estimate(this.minLong, this.maxLong, this.minLat, this.maxLat);
+  }
+
+  /**
+   * Estimates the work of the index query as the candidates it examines.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of envelope tests.
+   */
+  @Override
+  public double estimateCost(GeoDataset dataset) {
+    return estimateRows(dataset);
+  }
+
+  /**
+   * Gets the work of testing one envelope.
+   *
+   * @return 1.
+   */
+  @Override
+  public double testCost() {
+    return 1;
+  }
+
+  /**
+   * Describes the query on the spatial index.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this predicate.
+   */
+  @Override
+  public Map<String, Object> explain(GeoDataset dataset) {
+    return QueryPlan.leaf(this, "spatial index (" + dataset.spatialIndex.name() + ")", dataset);
+  }
+
+  /**
+   * Prints the predicate in canonical form.
+   *
+   * @return The box as minLat,minLong,maxLat,maxLong.
+   */
+  @Override
+  public String toString() {
+    return "bbox:" + this.minLat + "," + this.minLong + "," + this.maxLat + "," + this.maxLong;
+  }
+}
@@ -0,0 +1,133 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.PropertyIndex;
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import java.util.Map;
+
+/**
+ * A predicate matching the features whose property field has exactly a given value, answered from
+ * the dataset's property index.
+ */
+public class FieldNode implements QueryNode {
+
+  /**
+   * The property field, one of the indexed fields.
+   */
+  final String field;
+
+  /**
+   * The value the field must have.
+   */
+  final String value;
+
+  /**
+   * The property index the code of the value was last looked up in.
+   */
+  private PropertyIndex codedIn;
+
+  /**
+   * The code of the value in that index, or -1 if no feature has it.
+   */
+  private int code;
+
+  /**
+   * Constructs a FieldNode.
+   *
+   * @param field The property field, one of the indexed fields.
+   * @param value The value the field must have.
+   */
+  public FieldNode(String field, String value) {
+    this.field = field;
+    this.value = value;
+  }
+
+  /**
+   * Looks up the features with the value in the property index.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  @Override
+  public RoaringBitmap evaluate(GeoDataset dataset) {
+    return dataset.propertyIndex.lookup(this.field, this.value);
+  }
+
+  /**
+   * Compares the field of a single feature with the value, as integer codes if the field is
+   * dictionary-encoded.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if the field has the value.
+   */
+  @Override
+  public boolean test(GeoDataset dataset, int ordinal) {
+    PropertyIndex index = dataset.propertyIndex;
+    if (PropertyIndex.CODED_FIELDS.contains(this.field)) {
+      if (this.codedIn != index) {
+        this.code = index.code(this.field, this.value);
+        this.codedIn = index;
+      }
+      return this.code >= 0 && index.codes(this.field)[ordinal] == this.code;
+    }
+    GeoMap feature = dataset.collection.features.get(ordinal);
+    return feature != null
+        && feature.properties != null
+        && this.value.equals(PropertyIndex.valueOf(feature.properties, this.field));
+  }
+
+  /**
+   * Estimates the matches as the length of the value's posting list, which is exact.
+   *
+   * @param dataset The dataset to query.
+   * @return The number of features with the value.
+   */
+  @Override
+  public double estimateRows(GeoDataset dataset) {
+    return dataset.propertyIndex.lookup(this.field, this.value).cardinality();
+  }
+
+  /**
+   * Estimates the work of reading the posting list.
+   *
+   * @param dataset The dataset to query.
+   * @return The length of the posting list.
+   */
+  @Override
+  public double estimateCost(GeoDataset dataset) {
+    return estimateRows(dataset);
+  }
+
+  /**
+   * Gets the work of comparing one field.
+   *
+   * @return 1.
+   */
+  @Override
+  public double testCost() {
+    return 1;
+  }
+
+  /**
+   * Describes the lookup in the property index.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this predicate.
+   */
+  @Override
+  public Map<String, Object> explain(GeoDataset dataset) {
+    return QueryPlan.leaf(this, "property index", dataset);
+  }
+
+  /**
+   * Prints the predicate in canonical form.
+   *
+   * @return The field and the quoted value.
+   */
+  @Override
+  public String toString() {
+    return this.field + ":" + QueryParser.quote(this.value);
+  }
+}
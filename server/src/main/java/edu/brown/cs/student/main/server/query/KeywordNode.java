@@ -0,0 +1,110 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import java.util.Map;
+
+/**
+ * A predicate matching the features whose area description contains a keyword, with the same
+ * semantics as /getArea.
+ */
+public class KeywordNode implements QueryNode {
+
+  /**
+   * The work of searching the descriptions of one feature, relative to a field comparison.
+   */
+  static final double TEST_COST = 8;
+
+  /**
+   * The keyword to search for.
+   */
+  final String keyword;
+
+  /**
+   * Constructs a KeywordNode.
+   *
+   * @param keyword The keyword to search for.
+   */
+  public KeywordNode(String keyword) {
+    this.keyword = keyword;
+  }
+
+  /**
+   * Checks the candidates the trigram index finds for the keyword.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  @Override
+  public RoaringBitmap evaluate(GeoDataset dataset) {
+    return RoaringBitmap.of(
+        GeoFilter.keywordMatches(dataset.collection, dataset.trigramIndex, this.keyword));
+  }
+
+  /**
+   * Searches the descriptions of a single feature for the keyword.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if a description contains the keyword.
+   */
+  @Override
+  public boolean test(GeoDataset dataset, int ordinal) {
+    return GeoFilter.containsKeyword(dataset.collection.features.get(ordinal), this.keyword);
+  }
+
+  /**
+   * Estimates the matches as the length of the keyword's rarest trigram posting list, an upper
+   * bound.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of features containing the keyword.
+   */
+  @Override
+  public double estimateRows(GeoDataset dataset) {
+    return dataset.trigramIndex.estimate(this.keyword);
+  }
+
+  /**
+   * Estimates the work of checking every candidate.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated cost.
+   */
+  @Override
+  public double estimateCost(GeoDataset dataset) {
+    return estimateRows(dataset) * TEST_COST;
+  }
+
+  /**
+   * Gets the work of searching the descriptions of one feature.
+   *
+   * @return {@link #TEST_COST}.
+   */
+  @Override
+  public double testCost() {
+    return TEST_COST;
+  }
+
+  /**
+   * Describes the lookup in the trigram index.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this predicate.
+   */
+  @Override
+  public Map<String, Object> explain(GeoDataset dataset) {
+    return QueryPlan.leaf(this, "trigram index", dataset);
+  }
+
+  /**
+   * Prints the predicate in canonical form.
+   *
+   * @return The quoted keyword.
+   */
+  @Override
+  public String toString() {
+    return "keyword:" + QueryParser.quote(this.keyword);
+  }
+}
@@ -0,0 +1,133 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * A disjunction, matching the features that satisfy at least one of its operands.
+ */
+public class OrNode implements QueryNode {
+
+  /**
+   * The operands, at least two.
+   */
+  final List<QueryNode> operands;
+
+  /**
+   * Constructs an OrNode.
+   *
+   * @param operands The operands, at least two.
+   */
+  public OrNode(List<QueryNode> operands) {
+    this.operands = List.copyOf(operands);
+  }
+
+  /**
+   * Unites the features of the operands.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  @Override
+  public RoaringBitmap evaluate(GeoDataset dataset) {
+    RoaringBitmap result = this.operands.get(0).evaluate(dataset);
+    for (int i = 1; i < this.operands.size(); i++) {
+      result = result.or(this.operands.get(i).evaluate(dataset));
+    }
+    return result;
+  }
+
+  /**
+   * Checks whether a single feature satisfies at least one operand.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if an operand matches.
+   */
+  @Override
+  public boolean test(GeoDataset dataset, int ordinal) {
+    for (QueryNode operand : this.operands) {
+      if (operand.test(dataset, ordinal)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Estimates the matches as the sum of the operands' matches, capped at the dataset size.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of matching features.
+   */
+  @Override
+  public double estimateRows(GeoDataset dataset) {
+    double rows = 0;
+    for (QueryNode operand : this.operands) {
+      rows += operand.estimateRows(dataset);
+    }
+    return Math.min(rows, dataset.collection.features.size());
+  }
+
+  /**
+   * Estimates the work of evaluating every operand.
+   *
+   * @param dataset The dataset to query.
+   * @return The sum of the operands' costs.
+   */
+  @Override
+  public double estimateCost(GeoDataset dataset) {
+    double cost = 0;
+    for (QueryNode operand : this.operands) {
+      cost += operand.estimateCost(dataset);
+    }
+    return cost;
+  }
+
+  /**
+   * Estimates the work of testing every operand on one feature.
+   *
+   * @return The sum of the operands' test costs.
+   */
+  @Override
+  public double testCost() {
+    return this.operands.stream().mapToDouble(QueryNode::testCost).sum();
+  }
+
+  /**
+   * Describes the evaluation of every operand.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this disjunction.
+   */
+  @Override
+  public Map<String, Object> explain(GeoDataset dataset) {
+    Map<String, Object> plan = new LinkedHashMap<>();
+    plan.put("operator", "OR");
+    plan.put("estimated_rows", Math.round(estimateRows(dataset)));
+    plan.put("estimated_cost", Math.round(estimateCost(dataset)));
+    List<Map<String, Object>> operands = new ArrayList<>();
+    for (QueryNode operand : this.operands) {
+      operands.add(operand.explain(dataset));
+    }
+    plan.put("operands", operands);
+    return plan;
+  }
+
+  /**
+   * Prints the disjunction in canonical form.
+   *
+   * @return The parenthesized operands joined by OR.
+   */
+  @Override
+  public String toString() {
+    return this.operands.stream()
+        .map(QueryNode::toString)
+        .collect(Collectors.joining(" OR ", "(", ")"));
+  }
+}
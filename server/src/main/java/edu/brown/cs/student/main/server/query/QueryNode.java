@@ -0,0 +1,64 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.util.Map;
+
+/**
+ * A node of a parsed /query expression. Every node evaluates to the set of features of a dataset
+ * that satisfy it, as a bitmap of ordinals, and prints itself in a canonical form that identifies
+ * the query in caches. Nodes also estimate their cost from index statistics, so that
+ * conjunctions can choose which operand drives the evaluation and which are only verified on its
+ * candidates.
+ */
+public interface QueryNode {
+
+  /**
+   * Finds the features of a dataset that satisfy this node.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the matching features.
+   */
+  RoaringBitmap evaluate(GeoDataset dataset);
+
+  /**
+   * Checks whether a single feature satisfies this node.
+   *
+   * @param dataset The dataset the feature belongs to.
+   * @param ordinal The position of the feature in the collection.
+   * @return True if the feature matches.
+   */
+  boolean test(GeoDataset dataset, int ordinal);
+
+  /**
+   * Estimates the number of features that satisfy this node, from index statistics.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated number of matching features.
+   */
+  double estimateRows(GeoDataset dataset);
+
+  /**
+   * Estimates the work of {@link #evaluate}, in units of one cheap per-feature test.
+   *
+   * @param dataset The dataset to query.
+   * @return The estimated cost.
+   */
+  double estimateCost(GeoDataset dataset);
+
+  /**
+   * Estimates the work of {@link #test} on one feature, in the same units as
+   * {@link #estimateCost}.
+   *
+   * @return The estimated cost of one test.
+   */
+  double testCost();
+
+  /**
+   * Describes how this node would be evaluated, with its estimates.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan of this node, as nested maps ready to be encoded in JSON.
+   */
+  Map<String, Object> explain(GeoDataset dataset);
+}
@@ -0,0 +1,292 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.PropertyIndex;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the expressions accepted by /query. An expression combines predicates with AND, OR and
+ * parentheses, where AND binds tighter than OR:
+ *
+ * <pre>
+ *   expression := conjunction ( OR conjunction )*
+ *   conjunction := operand ( AND operand )*
+ *   operand := '(' expression ')' | predicate
+ *   predicate := name ':' value
+ * </pre>
+ *
+ * <p>The name is a property field (name, state, city, holc_id, holc_grade), matched exactly;
+ * keyword, matched like /getArea; or bbox, whose value is minLat,minLong,maxLat,maxLong and is
+ * matched like /getData. Values containing spaces or parentheses are written in double quotes,
+ * with backslash escapes. Operators are case-insensitive. Parentheses may be nested at most
+ * {@link #MAX_DEPTH} deep.
+ */
+public class QueryParser {
+
+  /**
+   * The deepest nesting of parentheses accepted, which keeps both parsing and planning of a
+   * hostile expression shallow.
+   */
+  public static final int MAX_DEPTH = 32;
+
+  /**
+   * The expression being parsed.
+   */
+  private final String text;
+
+  /**
+   * The position of the next character to read.
+   */
+  private int position = 0;
+
+  /**
+   * The number of parentheses open at the current position.
+   */
+  private int depth = 0;
+
+  /**
+   * Constructs a QueryParser over an expression.
+   *
+   * @param text The expression.
+   */
+  private QueryParser(String text) {
+    this.text = text;
+  }
+
+  /**
+   * Parses an expression.
+   *
+   * @param text The expression.
+   * @return The root of the parsed expression.
+   * @throws IllegalArgumentException If the expression is malformed, with a message describing
+   *     the problem.
+   */
+  public static QueryNode parse(String text) {
+    QueryParser parser = new QueryParser(text);
+    QueryNode root = parser.expression();
+    parser.skipSpaces();
+    if (parser.position < text.length()) {
+      throw parser.error("Expected AND or OR");
+    }
+    return root;
+  }
+
+  /**
+   * Quotes a value so that the parser reads it back unchanged.
+   *
+   * @param value The value.
+   * @return The value in double quotes, with quotes and backslashes escaped.
+   */
+  public static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+  /**
+   * Parses a disjunction of conjunctions.
+   *
+   * @return The parsed node.
+   */
+  private QueryNode expression() {
+    List<QueryNode> operands = new ArrayList<>();
+    operands.add(conjunction());
+    while (keyword("OR")) {
+      operands.add(conjunction());
+    }
+    return operands.size() == 1 ? operands.get(0) : new OrNode(operands);
+  }
+
+  /**
+   * Parses a conjunction of operands.
+   *
+   * @return The parsed node.
+   */
+  private QueryNode conjunction() {
+    List<QueryNode> operands = new ArrayList<>();
+    operands.add(operand());
+    while (keyword("AND")) {
+      operands.add(operand());
+    }
+    return operands.size() == 1 ? operands.get(0) : new AndNode(operands);
+  }
+
+  /**
+   * Parses a parenthesized expression or a predicate.
+   *
+   * @return The parsed node.
+   */
+  private QueryNode operand() {
+    skipSpaces();
+    if (this.position < this.text.length() && this.text.charAt(this.position) == '(') {
+      if (this.depth == MAX_DEPTH) {
+        throw error("Parentheses nested deeper than " + MAX_DEPTH);
+      }
+      this.position++;
+      this.depth++;
+      QueryNode inner = expression();
+      this.depth--;
+      skipSpaces();
+      if (this.position >= this.text.length() || this.text.charAt(this.position) != ')') {
+        throw error("Expected )");
+      }
+      this.position++;
+      return inner;
+    }
+    return predicate();
+  }
+
+  /**
+   * Parses a predicate of the form name:value.
+   *
+   * @return The parsed node.
+   */
+  private QueryNode predicate() {
+    int start = this.position;
+    while (this.position < this.text.length() && isNameCharacter(this.text.charAt(this.position))) {
+      this.position++;
+    }
+    String name = this.text.substring(start, this.position);
+    if (name.isEmpty()) {
+      throw error("Expected a predicate");
+    }
+    if (this.position >= this.text.length() || this.text.charAt(this.position) != ':') {
+      throw error("Expected : after " + name);
+    }
+    this.position++;
+    String value = value();
+
+    if (name.equals("keyword")) {
+      return new KeywordNode(value);
+    }
+    if (name.equals("bbox")) {
+      return boundingBox(value);
+    }
+    if (PropertyIndex.FIELDS.contains(name)) {
+      return new FieldNode(name, value);
+    }
+    throw new IllegalArgumentException(
+        "Unknown query field: " + name + ". Use keyword, bbox, or one of " + PropertyIndex.FIELDS);
+  }
+
+  /**
+   * Parses a quoted or bare value.
+   *
+   * @return The value, unescaped.
+   */
+  private String value() {
+    if (this.position < this.text.length() && this.text.charAt(this.position) == '"') {
+      StringBuilder value = new StringBuilder();
+      this.position++;
+      while (this.position < this.text.length()) {
+        char c = this.text.charAt(this.position++);
+        if (c == '"') {
+          return value.toString();
+        }
+        if (c == '\\' && this.position < this.text.length()) {
+          c = this.text.charAt(this.position++);
+        }
+        value.append(c);
+      }
+      throw error("Unterminated quoted value");
+    }
+    int start = this.position;
+    while (this.position < this.text.length()) {
+      char c = this.text.charAt(this.position);
+      if (Character.isWhitespace(c) || c == '(' || c == ')') {
+        break;
+      }
+      this.position++;
+    }
+    if (start == this.position) {
+      throw error("Expected a value");
+    }
+    return this.text.substring(start, this.position);
+  }
+
+  /**
+   * Builds a bounding box predicate, validating it like /getData.
+   *
+   * @param value The box as minLat,minLong,maxLat,maxLong.
+   * @return The parsed node.
+   */
+  private QueryNode boundingBox(String value) {
+    String[] parts = value.split(",");
+    if (parts.length != 4) {
+      throw new IllegalArgumentException("bbox must be given as minLat,minLong,maxLat,maxLong");
+    }
+    double[] numbers = new double[4];
+    try {
+      for (int i = 0; i < 4; i++) {
+        numbers[i] = Double.parseDouble(parts[i].trim());
+      }
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Invalid coordinate format. All coordinates must be valid numbers");
+    }
+    double minLat = numbers[0];
+    double minLong = numbers[1];
+    double maxLat = numbers[2];
+    double maxLong = numbers[3];
+    if (!(minLat >= -90 && minLat <= 90 && maxLat >= -90 && maxLat <= 90)) {
+      throw new IllegalArgumentException("Latitude values must be between -90 and 90 degrees");
+    }
+    if (!(minLong >= -180 && minLong <= 180 && maxLong >= -180 && maxLong <= 180)) {
+      throw new IllegalArgumentException("Longitude values must be between -180 and 180 degrees");
+    }
+    if (minLat > maxLat) {
+      throw new IllegalArgumentException("minLat must be less than or equal to maxLat");
+    }
+    if (minLong > maxLong) {
+      throw new IllegalArgumentException("minLong must be less than or equal to maxLong");
+    }
+    return new BoundingBoxNode(minLat, minLong, maxLat, maxLong);
+  }
+
+  /**
+   * Consumes an operator if it comes next.
+   *
+   * @param operator The operator, in upper case.
+   * @return True if the operator was consumed.
+   */
+  private boolean keyword(String operator) {
+    skipSpaces();
+    int end = this.position + operator.length();
+    if (end <= this.text.length()
+        && this.text.regionMatches(true, this.position, operator, 0, operator.length())
+        && (end == this.text.length() || !isNameCharacter(this.text.charAt(end)))
+        && (end == this.text.length() || this.text.charAt(end) != ':')) {
+      this.position = end;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Skips whitespace.
+   */
+  private void skipSpaces() {
+    while (this.position < this.text.length()
+        && Character.isWhitespace(this.text.charAt(this.position))) {
+      this.position++;
+    }
+  }
+
+  /**
+   * Checks whether a character may appear in a predicate name.
+   *
+   * @param c The character.
+   * @return True for letters, digits and underscores.
+   */
+  private static boolean isNameCharacter(char c) {
+    return Character.isLetterOrDigit(c) || c == '_';
+  }
+
+  /**
+   * Builds the error for a malformed expression, pointing at the current position.
+   *
+   * @param message What was expected.
+   * @return The exception to throw.
+   */
+  private IllegalArgumentException error(String message) {
+    return new IllegalArgumentException(message + " at position " + this.position + " of query");
+  }
+}
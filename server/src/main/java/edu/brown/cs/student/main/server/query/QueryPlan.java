@@ -0,0 +1,201 @@
+package edu.brown.cs.student.main.server.query;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The evaluation order chosen for a conjunction. One operand drives: it is evaluated to a bitmap
+ * from its index. Each other operand is either intersected, by evaluating it to a bitmap as
+ * well, or verified, by testing it only on the features left after the intersections. The plan
+ * with the lowest estimated cost is chosen from the operands' own estimates, which come from
+ * index statistics such as posting list lengths and grid cell counts. A tiny viewport combined
+ * with a common word is driven by the spatial index, while a rare property value drives a query
+ * over a whole state.
+ */
+public class QueryPlan {
+
+  /**
+   * The dataset the plan was chosen for, since its estimates come from that dataset's indexes.
+   */
+  final GeoDataset dataset;
+
+  /**
+   * The operand evaluated first.
+   */
+  final QueryNode driver;
+
+  /**
+   * The operands evaluated to bitmaps and intersected with the driver's, most selective first.
+   */
+  final List<QueryNode> intersected;
+
+  /**
+   * The operands tested on each remaining candidate, cheapest per rejected feature first.
+   */
+  final List<QueryNode> verified;
+
+  /**
+   * The estimated number of features the conjunction matches.
+   */
+  final double estimatedRows;
+
+  /**
+   * The estimated work of the plan.
+   */
+  final double estimatedCost;
+
+  /**
+   * Constructs a QueryPlan.
+   *
+   * @param dataset The dataset the plan was chosen for.
+   * @param driver The operand evaluated first.
+   * @param intersected The operands intersected with the driver.
+   * @param verified The operands tested on each remaining candidate.
+   * @param estimatedRows The estimated number of matching features.
+   * @param estimatedCost The estimated work of the plan.
+   */
+  private QueryPlan(
+      GeoDataset dataset,
+      QueryNode driver,
+      List<QueryNode> intersected,
+      List<QueryNode> verified,
+      double estimatedRows,
+      double estimatedCost) {
+    this.dataset = dataset;
+    this.driver = driver;
+    this.intersected = intersected;
+    this.verified = verified;
+    this.estimatedRows = estimatedRows;
+    this.estimatedCost = estimatedCost;
+  }
+
+  /**
+   * Chooses the cheapest plan for a conjunction. Every operand is tried as the driver; the others
+   * are then considered from the most to the least selective, and each is intersected or verified
+   * depending on which is cheaper for the candidates expected at that point. Operands are
+   * assumed to be independent. Each operand is asked for its estimates once, so a nested
+   * conjunction, which plans itself once per dataset, is planned only once overall.
+   *
+   * @param operands The operands of the conjunction, at least one.
+   * @param dataset The dataset to query.
+   * @return The cheapest plan.
+   */
+  public static QueryPlan forConjunction(List<QueryNode> operands, GeoDataset dataset) {
+    double size = Math.max(1, dataset.collection.features.size());
+    Map<QueryNode, Double> rows = new LinkedHashMap<>();
+    Map<QueryNode, Double> costs = new LinkedHashMap<>();
+    for (QueryNode operand : operands) {
+      rows.put(operand, Math.min(size, operand.estimateRows(dataset)));
+      costs.put(operand, operand.estimateCost(dataset));
+    }
+    List<QueryNode> bySelectivity = new ArrayList<>(operands);
+    bySelectivity.sort(Comparator.comparingDouble(rows::get));
+
+    QueryPlan best = null;
+    for (QueryNode driver : operands) {
+      List<QueryNode> intersected = new ArrayList<>();
+      List<QueryNode> verified = new ArrayList<>();
+      double candidates = rows.get(driver);
+      double cost = costs.get(driver);
+      for (QueryNode operand : bySelectivity) {
+        if (operand == driver) {
+          continue;
+        }
+        double intersectCost = costs.get(operand) + candidates;
+        double verifyCost = candidates * operand.testCost();
+        if (intersectCost < verifyCost) {
+          intersected.add(operand);
+          cost += intersectCost;
+        } else {
+          verified.add(operand);
+          cost += verifyCost;
+        }
+        candidates *= rows.get(operand) / size;
+      }
+      // Run the cheapest tests per rejected feature first, so later tests see fewer candidates
+      verified.sort(
+          Comparator.comparingDouble(
+              operand -> operand.testCost() / Math.max(1e-9, 1 - rows.get(operand) / size)));
+      if (best == null || cost < best.estimatedCost) {
+        best = new QueryPlan(dataset, driver, intersected, verified, candidates, cost);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Runs the plan.
+   *
+   * @param dataset The dataset to query.
+   * @return The ordinals of the features that satisfy every operand.
+   */
+  public RoaringBitmap execute(GeoDataset dataset) {
+    RoaringBitmap result = this.driver.evaluate(dataset);
+    for (int i = 0; i < this.intersected.size() && !result.isEmpty(); i++) {
+      result = result.and(this.intersected.get(i).evaluate(dataset));
+    }
+    if (this.verified.isEmpty() || result.isEmpty()) {
+      return result;
+    }
+
+    int[] candidates = result.toArray();
+    int count = 0;
+    for (int ordinal : candidates) {
+      boolean matches = true;
+      for (int i = 0; i < this.verified.size() && matches; i++) {
+        matches = this.verified.get(i).test(dataset, ordinal);
+      }
+      if (matches) {
+        candidates[count++] = ordinal;
+      }
+    }
+    return RoaringBitmap.of(candidates, count);
+  }
+
+  /**
+   * Describes the plan.
+   *
+   * @param dataset The dataset to query.
+   * @return The plan as nested maps ready to be encoded in JSON.
+   */
+  public Map<String, Object> explain(GeoDataset dataset) {
+    Map<String, Object> plan = new LinkedHashMap<>();
+    plan.put("operator", "AND");
+    plan.put("estimated_rows", Math.round(this.estimatedRows));
+    plan.put("estimated_cost", Math.round(this.estimatedCost));
+    plan.put("driver", this.driver.explain(dataset));
+    List<Map<String, Object>> intersect = new ArrayList<>();
+    for (QueryNode operand : this.intersected) {
+      intersect.add(operand.explain(dataset));
+    }
+    plan.put("intersect", intersect);
+    List<Map<String, Object>> verify = new ArrayList<>();
+    for (QueryNode operand : this.verified) {
+      verify.add(operand.explain(dataset));
+    }
+    plan.put("verify", verify);
+    return plan;
+  }
+
+  /**
+   * Describes a predicate evaluated from a single access path.
+   *
+   * @param node The predicate.
+   * @param access How the predicate is evaluated to a bitmap.
+   * @param dataset The dataset to query.
+   * @return The description as a map ready to be encoded in JSON.
+   */
+  static Map<String, Object> leaf(QueryNode node, String access, GeoDataset dataset) {
+    Map<String, Object> plan = new LinkedHashMap<>();
+    plan.put("predicate", node.toString());
+    plan.put("access", access);
+    plan.put("estimated_rows", Math.round(node.estimateRows(dataset)));
+    plan.put("estimated_cost", Math.round(node.estimateCost(dataset)));
+    return plan;
+  }
+}
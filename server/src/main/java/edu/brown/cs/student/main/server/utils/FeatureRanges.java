@@ -0,0 +1,205 @@
+package edu.brown.cs.student.main.server.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The byte ranges of the elements of the top-level "features" array of a GeoJSON document,
+ * found by one pass over its UTF-8 bytes that tracks strings, escapes and nesting depth without
+ * decoding anything. Every byte of a multi-byte UTF-8 character is 0x80 or above, so it can
+ * never be mistaken for a quote, backslash or bracket.
+ */
+final class FeatureRanges {
+
+  /**
+   * The UTF-8 bytes of the key whose array is split.
+   */
+  private static final byte[] FEATURES_KEY = "features".getBytes(StandardCharsets.UTF_8);
+
+  /**
+   * The position of the opening bracket of the features array.
+   */
+  final int arrayStart;
+
+  /**
+   * The position of the closing bracket of the features array.
+   */
+  final int arrayEnd;
+
+  /**
+   * The position of the opening brace of each feature, in file order.
+   */
+  final int[] starts;
+
+  /**
+   * The position just past the closing brace of each feature, parallel to the starts.
+   */
+  final int[] ends;
+
+  /**
+   * Constructs FeatureRanges.
+   *
+   * @param arrayStart The position of the opening bracket of the features array.
+   * @param arrayEnd The position of the closing bracket of the features array.
+   * @param starts The position of the opening brace of each feature.
+   * @param ends The position just past the closing brace of each feature.
+   */
+  private FeatureRanges(int arrayStart, int arrayEnd, int[] starts, int[] ends) {
+    this.arrayStart = arrayStart;
+    this.arrayEnd = arrayEnd;
+    this.starts = starts;
+    this.ends = ends;
+  }
+
+  /**
+   * Gets the number of features.
+   *
+   * @return The number of features.
+   */
+  int size() {
+    return this.starts.length;
+  }
+
+  /**
+   * Finds the features of a GeoJSON document.
+   *
+   * @param json The UTF-8 bytes of the document.
+   * @return The ranges, or null if the document is not an object with exactly one "features"
+   *     key whose value is an array of objects separated by single commas, in which case it should
+   *     be decoded as a whole.
+   */
+  static FeatureRanges scan(byte[] json) {
+    int depth = 0;
+    boolean inString = false;
+    boolean escaped = false;
+    int stringStart = -1;
+    int stringEnd = -1;
+    // Set between a "features" key at depth 1 and its value
+    boolean featuresKey = false;
+    boolean inFeatures = false;
+    // Within the features array, whether a feature has ended with no comma after it yet, and
+    // whether the last token was a comma
+    boolean afterFeature = false;
+    boolean afterComma = false;
+    int arrayStart = -1;
+    int arrayEnd = -1;
+    int[] starts = new int[64];
+    int[] ends = new int[64];
+    int count = 0;
+
+    for (int i = 0; i < json.length; i++) {
+      byte b = json[i];
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (b == '\\') {
+          escaped = true;
+        } else if (b == '"') {
+          inString = false;
+          stringEnd = i;
+        }
+        continue;
+      }
+      if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+        continue;
+      }
+      if (inFeatures && depth == 2 && b != '{' && b != ',' && b != ']') {
+        // A feature that is not an object, such as null
+        return null;
+      }
+      switch (b) {
+        case '"':
+          if (featuresKey) {
+            return null;
+          }
+          inString = true;
+          stringStart = i + 1;
+          break;
+        case ':':
+          if (depth == 1 && isFeaturesKey(json, stringStart, stringEnd)) {
+            if (arrayStart >= 0) {
+              // A repeated key; the decoder keeps the last one
+              return null;
+            }
+            featuresKey = true;
+          }
+          break;
+        case '{':
+        case '[':
+          if (featuresKey) {
+            if (b == '{') {
+              return null;
+            }
+            inFeatures = true;
+            arrayStart = i;
+            featuresKey = false;
+          } else if (inFeatures && depth == 2) {
+            if (afterFeature) {
+              // Two features with no comma between them
+              return null;
+            }
+            afterComma = false;
+            if (count == starts.length) {
+              starts = Arrays.copyOf(starts, count * 2);
+              ends = Arrays.copyOf(ends, count * 2);
+            }
+            starts[count] = i;
+          }
+          depth++;
+          break;
+        case '}':
+        case ']':
+          depth--;
+          if (inFeatures && depth == 2) {
+            ends[count++] = i + 1;
+            afterFeature = true;
+          } else if (inFeatures && depth == 1) {
+            if (afterComma) {
+              // A comma after the last feature
+              return null;
+            }
+            inFeatures = false;
+            arrayEnd = i;
+          }
+          break;
+        case ',':
+          if (featuresKey) {
+            return null;
+          }
+          if (inFeatures && depth == 2) {
+            if (!afterFeature) {
+              // A comma before the first feature or right after another comma
+              return null;
+            }
+            afterFeature = false;
+            afterComma = true;
+          }
+          break;
+        default:
+          if (featuresKey) {
+            // A scalar value such as null
+            return null;
+          }
+      }
+    }
+    if (arrayStart < 0 || arrayEnd < 0 || depth != 0 || inString) {
+      return null;
+    }
+    return new FeatureRanges(
+        arrayStart, arrayEnd, Arrays.copyOf(starts, count), Arrays.copyOf(ends, count));
+  }
+
+  /**
+   * Checks whether a string token is exactly "features", with no escapes.
+   *
+   * @param json The document.
+   * @param start The position of the first byte of the string content.
+   * @param end The position of the closing quote.
+   * @return True if the string is the features key.
+   */
+  private static boolean isFeaturesKey(byte[] json, int start, int end) {
+    return start >= 0
+        && end - start == FEATURES_KEY.length
+        && Arrays.equals(json, start, end, FEATURES_KEY, 0, FEATURES_KEY.length);
+  }
+}
@@ -0,0 +1,227 @@
+package edu.brown.cs.student.main.server.utils;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+
+/**
+ * Utility class for great-circle distances between points, polygons and bounding boxes on a
+ * spherical Earth. Coordinates are in degrees and distances in kilometers.
+ */
+public class GeoDistance {
+
+  /**
+   * The mean radius of the Earth in kilometers.
+   */
+  public static final double EARTH_RADIUS_KM = 6371.0088;
+
+  /**
+   * Computes the great-circle distance between two points with the haversine formula.
+   *
+   * @param lon1 The longitude of the first point.
+   * @param lat1 The latitude of the first point.
+   * @param lon2 The longitude of the second point.
+   * @param lat2 The latitude of the second point.
+   * @return The distance in kilometers.
+   */
+  public static double haversineKm(double lon1, double lat1, double lon2, double lat2) {
+    double phi1 = Math.toRadians(lat1);
+    double phi2 = Math.toRadians(lat2);
+    double sinLat = Math.sin((phi2 - phi1) / 2);
+    double sinLon = Math.sin(Math.toRadians(lon2 - lon1) / 2);
+    double h = sinLat * sinLat + Math.cos(phi1) * Math.cos(phi2) * sinLon * sinLon;
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+  }
+
+  /**
+   * Computes a lower bound on the distance from a point to anything inside a bounding box. The
+   * bound is the larger of the latitude gap, since no path can change latitude faster than it
+   * travels, and the distance to the great circle of the nearest edge meridian, which every path
+   * into the box must cross. Both are exact lower bounds, so the bound never exceeds the true
+   * distance to any point of the box.
+   *
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return The lower bound in kilometers, 0 if the point is inside the box.
+   */
+  public static double boxLowerBoundKm(
+      double minLon, double maxLon, double minLat, double maxLat, double lon, double lat) {
+    double latGap = Math.max(0, Math.max(minLat - lat, lat - maxLat));
+    double latBound = EARTH_RADIUS_KM * Math.toRadians(latGap);
+    double lonGap = Math.max(0, Math.max(minLon - lon, lon - maxLon));
+    if (lonGap == 0 || lonGap >= 90) {
+      return latBound;
+    }
+    return Math.max(latBound, meridianDistanceKm(lonGap, lat));
+  }
+
+  /**
+   * Computes a bounding box that contains every point within a great-circle distance of a center.
+   * The latitude range grows by the angular radius, and the longitude range by the widest
+   * longitude reached on the circle. When the circle reaches a pole or crosses the antimeridian,
+   * the box spans every longitude.
+   *
+   * @param lon The longitude of the center.
+   * @param lat The latitude of the center.
+   * @param radiusKm The radius of the circle in kilometers.
+   * @return The box as {minLon, maxLon, minLat, maxLat}.
+   */
+  public static double[] circleEnvelope(double lon, double lat, double radiusKm) {
+    double angle = radiusKm / EARTH_RADIUS_KM;
+    double latDelta = Math.toDegrees(angle);
+    double minLat = lat - latDelta;
+    double maxLat = lat + latDelta;
+    if (minLat <= -90 || maxLat >= 90) {
+      return new double[] {-180, 180, Math.max(-90, minLat), Math.min(90, maxLat)};
+    }
+    double sine = Math.sin(angle) / Math.cos(Math.toRadians(lat));
+    if (angle >= Math.PI / 2 || sine >= 1) {
+      return new double[] {-180, 180, minLat, maxLat};
+    }
+    double lonDelta = Math.toDegrees(Math.asin(sine));
+    double minLon = lon - lonDelta;
+    double maxLon = lon + lonDelta;
+    if (minLon < -180 || maxLon > 180) {
+      return new double[] {-180, 180, minLat, maxLat};
+    }
+    return new double[] {minLon, maxLon, minLat, maxLat};
+  }
+
+  /**
+   * Computes the distance from a point to the great circle of a meridian.
+   *
+   * @param lonGap The longitude difference between the point and the meridian, at most 90 degrees.
+   * @param lat The latitude of the point.
+   * @return The cross-track distance in kilometers.
+   */
+  public static double meridianDistanceKm(double lonGap, double lat) {
+    double sine = Math.sin(Math.toRadians(lonGap)) * Math.cos(Math.toRadians(lat));
+    return EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.abs(sine)));
+  }
+
+  /**
+   * Computes the distance from a point to a packed multipolygon: 0 if the point is inside one of
+   * its polygons, and otherwise the distance to the nearest point of any ring edge.
+   *
+   * @param packed The multipolygon.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return The distance in kilometers, or positive infinity if the geometry has no vertices.
+   */
+  public static double toPolygonKm(PackedGeometry packed, double lon, double lat) {
+    for (int p = 0; p < packed.polygonCount(); p++) {
+      if (isInPolygon(packed, p, lon, lat)) {
+        return 0;
+      }
+    }
+    double best = Double.POSITIVE_INFINITY;
+    for (int r = 0; r < packed.ringCount(); r++) {
+      int start = packed.ringOffsets[r];
+      int end = packed.ringOffsets[r + 1];
+      if (end - start == 1) {
+        best = Math.min(best, haversineKm(lon, lat, packed.lon(start), packed.lat(start)));
+      }
+      for (int v = start + 1; v < end; v++) {
+        double edge =
+            toSegmentKm(
+                packed.lon(v - 1), packed.lat(v - 1), packed.lon(v), packed.lat(v), lon, lat);
+        best = Math.min(best, edge);
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Computes the distance from a point to a segment. As in GeoJSON, the segment is the straight
+   * line between its ends in longitude and latitude, which is also the edge that the feature
+   * envelopes and the point-in-polygon test bound. Its nearest point is found in an
+   * equirectangular projection centered on the point, and that point's distance is measured with
+   * the haversine formula. The result is therefore the exact distance to a point of the segment,
+   * never less than the true distance, and matches it for segments much shorter than the Earth's
+   * radius. Longitude differences are wrapped to the shorter way around, so segments and points
+   * on either side of the antimeridian are measured correctly.
+   *
+   * @param lon1 The longitude of the first end of the segment.
+   * @param lat1 The latitude of the first end of the segment.
+   * @param lon2 The longitude of the second end of the segment.
+   * @param lat2 The latitude of the second end of the segment.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return The distance in kilometers.
+   */
+  public static double toSegmentKm(
+      double lon1, double lat1, double lon2, double lat2, double lon, double lat) {
+    double scale = Math.cos(Math.toRadians(lat));
+    double deltaLon1 = wrapLongitude(lon1 - lon);
+    double deltaLon = wrapLongitude(lon2 - lon1);
+    double ax = deltaLon1 * scale;
+    double ay = lat1 - lat;
+    double dx = deltaLon * scale;
+    double dy = lat2 - lat1;
+    double lengthSquared = dx * dx + dy * dy;
+    double t = lengthSquared == 0 ? 0 : -(ax * dx + ay * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    return haversineKm(lon, lat, lon + deltaLon1 + t * deltaLon, lat1 + t * dy);
+  }
+
+  /**
+   * Wraps a difference of longitudes to the shorter way around the Earth.
+   *
+   * @param deltaLon The difference, in degrees.
+   * @return The equivalent difference between -180 and 180 degrees.
+   */
+  static double wrapLongitude(double deltaLon) {
+    return deltaLon - 360 * Math.floor((deltaLon + 180) / 360);
+  }
+
+  /**
+   * Checks whether a point is inside a polygon: inside its outer ring and outside its holes.
+   *
+   * @param packed The multipolygon.
+   * @param polygon The index of the polygon.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return True if the point is inside the polygon.
+   */
+  static boolean isInPolygon(PackedGeometry packed, int polygon, double lon, double lat) {
+    int firstRing = packed.polygonOffsets[polygon];
+    int endRing = packed.polygonOffsets[polygon + 1];
+    if (firstRing == endRing || !isInRing(packed, firstRing, lon, lat)) {
+      return false;
+    }
+    for (int r = firstRing + 1; r < endRing; r++) {
+      if (isInRing(packed, r, lon, lat)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a point is inside a ring by counting the ring edges a ray from it crosses.
+   *
+   * @param packed The multipolygon.
+   * @param ring The index of the ring.
+   * @param lon The longitude of the point.
+   * @param lat The latitude of the point.
+   * @return True if the ray crosses an odd number of edges.
+   */
+  static boolean isInRing(PackedGeometry packed, int ring, double lon, double lat) {
+    int start = packed.ringOffsets[ring];
+    int end = packed.ringOffsets[ring + 1];
+    boolean inside = false;
+    for (int v = start, u = end - 1; v < end; u = v++) {
+      double lonV = packed.lon(v);
+      double latV = packed.lat(v);
+      double lonU = packed.lon(u);
+      double latU = packed.lat(u);
+      if ((latV > lat) != (latU > lat)
+          && lon < (lonU - lonV) * (lat - latV) / (latU - latV) + lonV) {
+        inside = !inside;
+      }
+    }
+    return inside;
+  }
+}
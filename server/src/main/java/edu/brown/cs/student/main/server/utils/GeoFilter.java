@@ -1,9 +1,15 @@
 package edu.brown.cs.student.main.server.utils;
 
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+import edu.brown.cs.student.main.server.index.TrigramIndex;
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
 import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
 import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +44,77 @@ public class GeoFilter {
     return filteredCollection;
   }
 
+  /**
+   * Filters a GeoMapCollection where ALL coordinates of the features are within the specified
+   * bounding box, using the precomputed envelopes of its features. Each feature is decided by
+   * four comparisons against its envelope, without reading any of its vertices.
+   *
+   * @param collection Original GeoMapCollection to filter.
+   * @param envelopes The envelopes of the collection's features, in the same order.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return A new GeoMapCollection containing only the features completely within the bounding box.
+   */
+  public static GeoMapCollection filterByBoundingBox(
+      GeoMapCollection collection,
+      FeatureEnvelopes envelopes,
+      double minLon,
+      double maxLon,
+      double minLat,
+      double maxLat) {
+    GeoMapCollection filteredCollection = new GeoMapCollection();
+    filteredCollection.type = collection.type;
+    filteredCollection.features = new ArrayList<>();
+
+    for (int i = 0; i < envelopes.size(); i++) {
+      if (envelopes.isWithin(i, minLon, maxLon, minLat, maxLat)) {
+        filteredCollection.features.add(collection.features.get(i));
+      }
+    }
+    return filteredCollection;
+  }
+
+  /**
+   * Filters a GeoMapCollection where ALL coordinates of the features are within the specified
+   * bounding box, asking a spatial index for the matching features.
+   *
+   * @param collection Original GeoMapCollection to filter.
+   * @param index A spatial index over the collection's features.
+   * @param minLon Minimum longitude of the bounding box.
+   * @param maxLon Maximum longitude of the bounding box.
+   * @param minLat Minimum latitude of the bounding box.
+   * @param maxLat Maximum latitude of the bounding box.
+   * @return A new GeoMapCollection containing only the features completely within the bounding box.
+   */
+  public static GeoMapCollection filterByBoundingBox(
+      GeoMapCollection collection,
+      SpatialIndex index,
+      double minLon,
+      double maxLon,
+      double minLat,
+      double maxLat) {
+    return select(collection, index.within(minLon, maxLon, minLat, maxLat));
+  }
+
+  /**
+   * Builds a collection of the features at given positions of another collection.
+   *
+   * @param collection Original GeoMapCollection.
+   * @param ordinals The positions of the features to keep, in the order to keep them.
+   * @return A new GeoMapCollection containing only the selected features.
+   */
+  public static GeoMapCollection select(GeoMapCollection collection, int[] ordinals) {
+    GeoMapCollection filteredCollection = new GeoMapCollection();
+    filteredCollection.type = collection.type;
+    filteredCollection.features = new ArrayList<>(ordinals.length);
+    for (int i : ordinals) {
+      filteredCollection.features.add(collection.features.get(i));
+    }
+    return filteredCollection;
+  }
+
   /**
    * Filters a GeoMapCollection by a keyword found in the area description data.
    * 
@@ -59,6 +136,49 @@ public class GeoFilter {
     return filteredCollection;
   }
 
+  /**
+   * Filters a GeoMapCollection by a keyword found in the area description data, checking only the
+   * candidates a trigram index finds for the keyword. The result is identical to a scan.
+   *
+   * @param collection Original GeoMapCollection to filter.
+   * @param index The trigram index built over the collection.
+   * @param keyword The keyword to search for in the area description data.
+   * @return A new GeoMapCollection containing only the features that contain the keyword.
+   */
+  public static GeoMapCollection filterByKeyword(
+      GeoMapCollection collection, TrigramIndex index, String keyword) {
+    return select(collection, keywordMatches(collection, index, keyword));
+  }
+
+  /**
+   * Finds the features whose area description data contains a keyword, checking only the
+   * candidates a trigram index finds for the keyword, or every feature if the keyword is too
+   * short to have trigrams.
+   *
+   * @param collection The collection to search.
+   * @param index The trigram index built over the collection.
+   * @param keyword The keyword to search for in the area description data.
+   * @return The positions of the matching features, in ascending order.
+   */
+  public static int[] keywordMatches(
+      GeoMapCollection collection, TrigramIndex index, String keyword) {
+    RoaringBitmap candidates = index.candidates(keyword);
+    int[] ordinals;
+    if (candidates == null) {
+      ordinals = new int[collection.features.size()];
+      Arrays.setAll(ordinals, i -> i);
+    } else {
+      ordinals = candidates.toArray();
+    }
+    int count = 0;
+    for (int i : ordinals) {
+      if (containsKeyword(collection.features.get(i), keyword)) {
+        ordinals[count++] = i;
+      }
+    }
+    return Arrays.copyOf(ordinals, count);
+  }
+
   /**
    * Checks whether the GeoMap feature contains the specified keyword in its area description data.
    * 
@@ -66,11 +186,14 @@ public class GeoFilter {
    * @param keyword The keyword to search for.
    * @return True if the feature contains the keyword in its area description, false otherwise.
    */
-  private static boolean containsKeyword(GeoMap feature, String keyword) {
+  public static boolean containsKeyword(GeoMap feature, String keyword) {
     if (feature == null || feature.properties == null) {
       return false;
     }
     Map<String, String> dataMap = feature.properties.area_description_data;
+    if (dataMap == null) {
+      return false;
+    }
     for (String description : dataMap.values()) {
       if (description.contains(keyword)) {
         return true;
@@ -93,6 +216,18 @@ public class GeoFilter {
       GeoMap feature, double minLon, double maxLon, double minLat, double maxLat) {
     Geometry geometry = feature.getGeometry();
     if (geometry == null) return false;
+
+    // Features packed at load time are tested on their primitive vertices, wherever they live
+    PackedGeometry packed = feature.detailLevels == null ? null : feature.detailLevels[0];
+    if (packed != null) {
+      for (int v = packed.vertexStart(); v < packed.vertexEnd(); v++) {
+        if (!isPointInBoundingBox(
+            packed.lon(v), packed.lat(v), minLon, maxLon, minLat, maxLat)) {
+          return false;
+        }
+      }
+      return true;
+    }
     List<List<List<List<Double>>>> coordinates = geometry.getCoordinates();
 
     // For each polygon in the multipolygon
@@ -2,6 +2,9 @@ package edu.brown.cs.student.main.server.utils;
 
 import com.squareup.moshi.FromJson;
 import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.JsonDataException;
+import com.squareup.moshi.JsonEncodingException;
+import com.squareup.moshi.JsonReader;
 import com.squareup.moshi.Moshi;
 import com.squareup.moshi.ToJson;
 import com.squareup.moshi.Types;
@@ -10,21 +13,52 @@ import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
 import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import okio.Buffer;
 
 /**
  * A custom adapter for serializing and deserializing GeoMapCollection objects using Moshi.
- * This adapter supports converting GeoMapCollection objects to JSON and vice versa.
+ * This adapter supports converting GeoMapCollection objects to JSON and vice versa. Large
+ * documents given as bytes are decoded in parallel: their features are split into batches that
+ * are decoded on a worker pool and put back together in file order.
  */
 public class GeoMapAdapter {
 
+  /**
+   * The approximate number of bytes of features decoded by one task. A document with fewer
+   * bytes of features is decoded on the calling thread.
+   */
+  public static final int BATCH_BYTES = 1 << 20;
+
+  /**
+   * The pool parallel decoding runs on, kept apart from the common pool like the scan pool of
+   * {@link GeoFilter}.
+   */
+  private static final ForkJoinPool DECODE_POOL =
+      new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+  /**
+   * The start of a JSON path within a batch array as Moshi reports it, with the index of the
+   * feature, if any.
+   */
+  private static final Pattern BATCH_PATH =
+      Pattern.compile("(?<=at |at path )\\$(?:\\[(\\d+)\\])?");
+
   private final Moshi moshi = new Moshi.Builder().build();
   
   // Type information for nested classes to help with Moshi serialization
   Type geometry = Types.newParameterizedType(Geometry.class, String.class, List.class);
   Type geomaptype = Types.newParameterizedType(GeoMap.class, String.class, geometry, Property.class);
   Type type = Types.newParameterizedType(GeoMapCollection.class, String.class, List.class, geomaptype);
+  Type featuresType = Types.newParameterizedType(List.class, GeoMap.class);
 
   /**
    * Converts a GeoMapCollection object to its JSON representation.
@@ -50,4 +84,164 @@ public class GeoMapAdapter {
     JsonAdapter<GeoMapCollection> adapter = moshi.adapter(type);
     return adapter.fromJson(map);
   }
+
+  /**
+   * Converts the UTF-8 bytes of a JSON document to a GeoMapCollection, decoding its features in
+   * parallel batches of about {@link #BATCH_BYTES}.
+   *
+   * @param json The UTF-8 bytes of the document.
+   * @return The resulting GeoMapCollection object, with its features in file order.
+   * @throws IOException If the JSON is malformed or cannot be parsed into a GeoMapCollection.
+   */
+  public GeoMapCollection fromJson(byte[] json) throws IOException {
+    return fromJson(json, BATCH_BYTES);
+  }
+
+  /**
+   * Converts the UTF-8 bytes of a JSON document to a GeoMapCollection. The elements of the
+   * top-level features array are located by a scan of the bytes and grouped into batches of
+   * consecutive features; each batch is decoded as a JSON array of its own, on the decode pool
+   * if there is more than one. The rest of the document is decoded with an empty features array.
+   * A document whose features cannot be located this way, such as one with a null feature or a
+   * missing or stray comma between features, is decoded as a whole, so it is accepted or rejected
+   * exactly as {@link #fromJson(String)} would.
+   *
+   * @param json The UTF-8 bytes of the document.
+   * @param batchBytes The approximate number of bytes of features per batch.
+   * @return The resulting GeoMapCollection object, with its features in file order.
+   * @throws IOException If the JSON is malformed or cannot be parsed into a GeoMapCollection.
+   */
+  public GeoMapCollection fromJson(byte[] json, int batchBytes) throws IOException {
+    JsonAdapter<GeoMapCollection> adapter = moshi.adapter(type);
+    FeatureRanges ranges = FeatureRanges.scan(json);
+    if (ranges == null) {
+      return decodeWhole(adapter, new Buffer().write(json));
+    }
+
+    // Everything but the features, such as the collection type
+    Buffer outline =
+        new Buffer()
+            .write(json, 0, ranges.arrayStart + 1)
+            .write(json, ranges.arrayEnd, json.length - ranges.arrayEnd);
+    GeoMapCollection collection = decodeWhole(adapter, outline);
+    if (collection == null) {
+      throw new JsonDataException("Expected a feature collection");
+    }
+
+    // Cut the features into batches of whole features
+    List<int[]> batches = new ArrayList<>();
+    int first = 0;
+    for (int i = 0; i < ranges.size(); i++) {
+      if (i + 1 == ranges.size() || ranges.ends[i] - ranges.starts[first] >= batchBytes) {
+        batches.add(new int[] {ranges.starts[first], ranges.ends[i], first});
+        first = i + 1;
+      }
+    }
+    JsonAdapter<List<GeoMap>> features = moshi.adapter(featuresType);
+    collection.features = new ArrayList<>(ranges.size());
+    if (batches.size() <= 1 || DECODE_POOL.getParallelism() <= 1) {
+      for (int[] batch : batches) {
+        collection.features.addAll(decodeBatch(features, json, batch));
+      }
+      return collection;
+    }
+
+    List<ForkJoinTask<List<GeoMap>>> tasks = new ArrayList<>(batches.size());
+    for (int[] batch : batches) {
+      tasks.add(DECODE_POOL.submit(() -> decodeBatch(features, json, batch)));
+    }
+    try {
+      for (ForkJoinTask<List<GeoMap>> task : tasks) {
+        collection.features.addAll(task.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while decoding features");
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    } finally {
+      for (ForkJoinTask<List<GeoMap>> task : tasks) {
+        task.cancel(false);
+      }
+    }
+    return collection;
+  }
+
+  /**
+   * Decodes a run of consecutive features as a JSON array.
+   *
+   * @param features The adapter of a list of features.
+   * @param json The document.
+   * @param batch The position of the first byte of the first feature and just past the last,
+   *     and the index of the first feature in the features array.
+   * @return The features, in file order.
+   * @throws IOException If a feature is malformed, with the path of the error given within the
+   *     whole document, as a whole-document decode would report it.
+   */
+  private static List<GeoMap> decodeBatch(
+      JsonAdapter<List<GeoMap>> features, byte[] json, int[] batch) throws IOException {
+    Buffer array = new Buffer().writeByte('[').write(json, batch[0], batch[1] - batch[0]);
+    List<GeoMap> decoded;
+    try {
+      decoded = decodeWhole(features, array.writeByte(']'));
+    } catch (JsonEncodingException e) {
+      JsonEncodingException rethrown =
+          new JsonEncodingException(documentPath(e.getMessage(), batch[2]));
+      rethrown.initCause(e);
+      throw rethrown;
+    } catch (JsonDataException e) {
+      throw new JsonDataException(documentPath(e.getMessage(), batch[2]), e);
+    }
+    return decoded == null ? List.of() : decoded;
+  }
+
+  /**
+   * Rewrites the path in a Moshi error message from a batch array to the features array of the
+   * whole document, so {@code $[2].geometry} in a batch starting at feature 40 becomes
+   * {@code $.features[42].geometry}.
+   *
+   * @param message The message of the error.
+   * @param first The index of the first feature of the batch in the features array.
+   * @return The message with the path rewritten.
+   */
+  static String documentPath(String message, int first) {
+    if (message == null) {
+      return null;
+    }
+    Matcher matcher = BATCH_PATH.matcher(message);
+    StringBuilder rewritten = new StringBuilder();
+    while (matcher.find()) {
+      String path =
+          matcher.group(1) == null
+              ? "$.features"
+              : "$.features[" + (first + Integer.parseInt(matcher.group(1))) + "]";
+      matcher.appendReplacement(rewritten, Matcher.quoteReplacement(path));
+    }
+    return matcher.appendTail(rewritten).toString();
+  }
+
+  /**
+   * Decodes a whole JSON document, rejecting anything after its value like
+   * {@link JsonAdapter#fromJson(String)} does.
+   *
+   * @param adapter The adapter of the document's type.
+   * @param json The document.
+   * @param <T> The type of the document.
+   * @return The decoded value.
+   * @throws IOException If the document is malformed or has trailing content.
+   */
+  private static <T> T decodeWhole(JsonAdapter<T> adapter, Buffer json) throws IOException {
+    JsonReader reader = JsonReader.of(json);
+    T value = adapter.fromJson(reader);
+    if (reader.peek() != JsonReader.Token.END_DOCUMENT) {
+      throw new JsonDataException("JSON document was not fully consumed.");
+    }
+    return value;
+  }
 }
@@ -0,0 +1,588 @@
+package edu.brown.cs.student.main.server.utils;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.HeapVertices;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Utility class for precomputing and serving simplified versions of feature geometries.
+ * Each feature is simplified with Douglas-Peucker at a fixed ladder of tolerances, so a
+ * request for a low zoom level can be answered with far fewer vertices.
+ */
+public class GeometrySimplifier {
+
+  /**
+   * The simplification tolerance of each level of detail, in degrees.
+   * Level 0 is the full-resolution geometry.
+   */
+  public static final double[] TOLERANCES = {0.0, 0.00005, 0.0002, 0.001, 0.005};
+
+  /**
+   * The highest zoom level accepted by the zoom parameter.
+   */
+  public static final int MAX_ZOOM = 24;
+
+  /**
+   * Precomputes the detail levels of every feature in a collection.
+   *
+   * @param collection The collection to prepare.
+   */
+  public static void precompute(GeoMapCollection collection) {
+    if (collection == null || collection.features == null) {
+      return;
+    }
+    for (GeoMap feature : collection.features) {
+      levelsOf(feature);
+    }
+  }
+
+  /**
+   * Gets the detail levels of a feature, computing and storing them if they are missing.
+   *
+   * @param feature The feature whose levels to get.
+   * @return The packed geometry at each level, or null if the feature has no geometry.
+   */
+  public static PackedGeometry[] levelsOf(GeoMap feature) {
+    if (feature.detailLevels == null) {
+      PackedGeometry packed = PackedGeometry.pack(feature.getGeometry());
+      if (packed == null) {
+        return null;
+      }
+      feature.detailLevels = buildLevels(packed);
+    }
+    return feature.detailLevels;
+  }
+
+  /**
+   * Picks a detail level from the optional zoom and tolerance request parameters.
+   *
+   * @param zoomStr The zoom parameter, or null.
+   * @param toleranceStr The tolerance parameter, or null.
+   * @return The chosen level, which is 0 (full resolution) if neither parameter is given.
+   * @throws IllegalArgumentException If the parameters are malformed or both are given.
+   */
+  public static int levelFor(String zoomStr, String toleranceStr) {
+    if (zoomStr != null && toleranceStr != null) {
+      throw new IllegalArgumentException("Provide either zoom or tolerance, not both");
+    }
+    if (zoomStr != null) {
+      double zoom;
+      try {
+        zoom = Double.parseDouble(zoomStr);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Invalid zoom format. zoom must be a valid number");
+      }
+      if (!(zoom >= 0 && zoom <= MAX_ZOOM)) {
+        throw new IllegalArgumentException("zoom must be between 0 and " + MAX_ZOOM);
+      }
+      return levelForZoom(zoom);
+    }
+    if (toleranceStr != null) {
+      double tolerance;
+      try {
+        tolerance = Double.parseDouble(toleranceStr);
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(
+            "Invalid tolerance format. tolerance must be a valid number");
+      }
+      if (!(tolerance >= 0) || Double.isInfinite(tolerance)) {
+        throw new IllegalArgumentException("tolerance must be a non-negative number of degrees");
+      }
+      return levelForTolerance(tolerance);
+    }
+    return 0;
+  }
+
+  /**
+   * Gets the coarsest level whose tolerance does not exceed the given tolerance.
+   *
+   * @param tolerance The largest acceptable error, in degrees.
+   * @return The matching level.
+   */
+  public static int levelForTolerance(double tolerance) {
+    int level = 0;
+    while (level + 1 < TOLERANCES.length && TOLERANCES[level + 1] <= tolerance) {
+      level++;
+    }
+    return level;
+  }
+
+  /**
+   * Gets the coarsest level whose error stays below one screen pixel at a web map zoom level.
+   *
+   * @param zoom The web map zoom level.
+   * @return The matching level.
+   */
+  public static int levelForZoom(double zoom) {
+    // A 256 pixel tile spans 360 degrees at zoom 0 and halves with each zoom step
+    double degreesPerPixel = 360.0 / (256.0 * Math.pow(2, zoom));
+    return levelForTolerance(degreesPerPixel);
+  }
+
+  /**
+   * Builds a copy of a collection whose features carry the geometry of a given detail level.
+   * Level 0 returns the collection itself, so full-resolution output is unchanged.
+   *
+   * @param collection The collection to copy.
+   * @param level The detail level to use.
+   * @return A collection with simplified geometries.
+   */
+  public static GeoMapCollection atLevel(GeoMapCollection collection, int level) {
+    return atLevel(collection, level, PackedGeometry.FULL_PRECISION);
+  }
+
+  /**
+   * Builds a copy of a collection whose features carry the geometry of a given detail level,
+   * with coordinates rounded to a number of decimal places.
+   *
+   * @param collection The collection to copy.
+   * @param level The detail level to use.
+   * @param precision The number of decimal places to keep, or PackedGeometry.FULL_PRECISION.
+   * @return A collection with simplified geometries.
+   */
+  public static GeoMapCollection atLevel(GeoMapCollection collection, int level, int precision) {
+    if (level == 0 && precision == PackedGeometry.FULL_PRECISION) {
+      return collection;
+    }
+    GeoMapCollection simplified = new GeoMapCollection();
+    simplified.type = collection.type;
+    simplified.features = new ArrayList<>(collection.features.size());
+
+    for (GeoMap feature : collection.features) {
+      PackedGeometry[] levels = levelsOf(feature);
+      GeoMap copy = new GeoMap();
+      copy.type = feature.type;
+      copy.properties = feature.properties;
+      copy.geometry = levels == null ? feature.geometry : levels[level].toGeometry(precision);
+      simplified.features.add(copy);
+    }
+    return simplified;
+  }
+
+  /**
+   * Simplifies a packed geometry at every tolerance of the ladder.
+   * Each ring is simplified on its own; if the simplified ring would cross itself, the ring
+   * from the next finer level is kept instead. The simplified rings are then checked against
+   * each other, so a shell is not cut through one of its holes or through another polygon, and
+   * both rings of a crossing pair fall back to the next finer level. No level therefore
+   * introduces an intersection that the full-resolution geometry does not have.
+   *
+   * @param packed The full-resolution geometry.
+   * @return The geometry at each level, with the input itself at level 0 if its vertices are on
+   *     the heap, or else a heap copy of it.
+   */
+  public static PackedGeometry[] buildLevels(PackedGeometry packed) {
+    // The ring walks below index the coordinate arrays directly
+    packed = packed.onHeap();
+    HeapVertices vertices = (HeapVertices) packed.vertices;
+    int levelCount = TOLERANCES.length;
+    int vertexCount = packed.vertexCount();
+    int base = packed.ringOffsets[0];
+
+    // keep[level][v] records whether vertex v survives at that level
+    boolean[][] keep = new boolean[levelCount][vertexCount];
+    Arrays.fill(keep[0], true);
+
+    for (int level = 1; level < levelCount; level++) {
+      boolean[] mask = keep[level];
+      for (int r = 0; r < packed.ringCount(); r++) {
+        int start = packed.ringOffsets[r];
+        int end = packed.ringOffsets[r + 1] - 1;
+        simplifyRing(vertices.lons, vertices.lats, start, end, TOLERANCES[level], mask, base);
+        if (selfIntersects(vertices.lons, vertices.lats, start, end, mask, base)) {
+          restoreRing(packed, r, keep[level - 1], mask);
+        }
+      }
+      separateRings(packed, keep[level - 1], mask);
+    }
+
+    PackedGeometry[] levels = new PackedGeometry[levelCount];
+    levels[0] = packed;
+    for (int level = 1; level < levelCount; level++) {
+      levels[level] = compact(packed, keep[level]);
+    }
+    return levels;
+  }
+
+  /**
+   * Restores the rings of a level that cross each other to the next finer level. The rings of
+   * the finer level do not cross, so restoring both rings of every crossing pair ends once
+   * every ring that still crosses another has been restored. Rings that already meet at full
+   * resolution, such as a hole touching its shell at a vertex, stop the search once both of
+   * them are restored.
+   *
+   * @param packed The full-resolution geometry, with its vertices on the heap.
+   * @param finer The mask of the next finer level.
+   * @param mask The mask of the level being built.
+   */
+  private static void separateRings(PackedGeometry packed, boolean[] finer, boolean[] mask) {
+    HeapVertices vertices = (HeapVertices) packed.vertices;
+    int base = packed.ringOffsets[0];
+    int ringCount = packed.ringCount();
+    if (ringCount < 2) {
+      return;
+    }
+    boolean[] restored = new boolean[ringCount];
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      int[][] rings = new int[ringCount][];
+      double[][] bounds = new double[ringCount][];
+      for (int r = 0; r < ringCount; r++) {
+        rings[r] =
+            keptVertices(packed.ringOffsets[r], packed.ringOffsets[r + 1] - 1, mask, base);
+        bounds[r] = bounds(vertices.lons, vertices.lats, rings[r]);
+      }
+      for (int r = 0; r < ringCount; r++) {
+        for (int q = r + 1; q < ringCount; q++) {
+          if ((restored[r] && restored[q]) || !overlap(bounds[r], bounds[q])) {
+            continue;
+          }
+          if (ringsCross(vertices.lons, vertices.lats, rings[r], rings[q])) {
+            restoreRing(packed, r, finer, mask);
+            restoreRing(packed, q, finer, mask);
+            restored[r] = true;
+            restored[q] = true;
+            changed = true;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Copies the kept vertices of one ring from the mask of another level.
+   *
+   * @param packed The full-resolution geometry.
+   * @param ring The ring to restore.
+   * @param from The mask to copy from.
+   * @param to The mask to copy into.
+   */
+  private static void restoreRing(PackedGeometry packed, int ring, boolean[] from, boolean[] to) {
+    int base = packed.ringOffsets[0];
+    int start = packed.ringOffsets[ring];
+    int length = packed.ringOffsets[ring + 1] - start;
+    System.arraycopy(from, start - base, to, start - base, length);
+  }
+
+  /**
+   * Marks the vertices of one closed ring that survive Douglas-Peucker simplification.
+   * The ring is split at the vertex farthest from its first vertex, and each half is simplified
+   * separately. At least four vertices (a closed triangle) are always kept.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param start The index of the first vertex of the ring.
+   * @param end The index of the last vertex of the ring.
+   * @param tolerance The largest allowed distance of a dropped vertex from the result.
+   * @param keep The mask to fill, indexed from {@code base}.
+   * @param base The index of the first vertex of the geometry.
+   */
+  static void simplifyRing(
+      double[] lons, double[] lats, int start, int end, double tolerance, boolean[] keep,
+      int base) {
+    // Degenerate rings are kept as they are
+    if (end - start < 4) {
+      for (int v = start; v <= end; v++) {
+        keep[v - base] = true;
+      }
+      return;
+    }
+
+    int split = start + 1;
+    double farthest = -1;
+    for (int v = start + 1; v < end; v++) {
+      double d = Math.hypot(lons[v] - lons[start], lats[v] - lats[start]);
+      if (d > farthest) {
+        farthest = d;
+        split = v;
+      }
+    }
+
+    keep[start - base] = true;
+    keep[split - base] = true;
+    keep[end - base] = true;
+    int kept = 3 + douglasPeucker(lons, lats, start, split, tolerance, keep, base)
+        + douglasPeucker(lons, lats, split, end, tolerance, keep, base);
+
+    // Keep the ring a triangle at minimum by restoring the most distant remaining vertex
+    if (kept < 4) {
+      int first = split - start >= end - split ? start : split;
+      int last = first == start ? split : end;
+      keep[farthestFromSegment(lons, lats, first, last) - base] = true;
+    }
+  }
+
+  /**
+   * Runs iterative Douglas-Peucker between two kept vertices, marking the interior vertices
+   * that must be kept.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param first The first anchor vertex.
+   * @param last The last anchor vertex.
+   * @param tolerance The largest allowed distance of a dropped vertex from the result.
+   * @param keep The mask to fill, indexed from {@code base}.
+   * @param base The index of the first vertex of the geometry.
+   * @return The number of interior vertices that were marked.
+   */
+  private static int douglasPeucker(
+      double[] lons, double[] lats, int first, int last, double tolerance, boolean[] keep,
+      int base) {
+    int marked = 0;
+    int[] stack = new int[2 * Math.max(2, last - first + 1)];
+    int top = 0;
+    stack[top++] = first;
+    stack[top++] = last;
+
+    while (top > 0) {
+      int to = stack[--top];
+      int from = stack[--top];
+      if (to - from < 2) {
+        continue;
+      }
+      int index = farthestFromSegment(lons, lats, from, to);
+      double distance =
+          segmentDistance(
+              lons[index], lats[index], lons[from], lats[from], lons[to], lats[to]);
+      if (distance > tolerance) {
+        keep[index - base] = true;
+        marked++;
+        stack[top++] = from;
+        stack[top++] = index;
+        stack[top++] = index;
+        stack[top++] = to;
+      }
+    }
+    return marked;
+  }
+
+  /**
+   * Finds the interior vertex farthest from the segment between two vertices.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param from The first vertex of the segment.
+   * @param to The last vertex of the segment.
+   * @return The index of the farthest interior vertex.
+   */
+  private static int farthestFromSegment(double[] lons, double[] lats, int from, int to) {
+    int index = from + 1;
+    double farthest = -1;
+    for (int v = from + 1; v < to; v++) {
+      double d = segmentDistance(lons[v], lats[v], lons[from], lats[from], lons[to], lats[to]);
+      if (d > farthest) {
+        farthest = d;
+        index = v;
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Computes the planar distance from a point to a segment.
+   *
+   * @param px The point longitude.
+   * @param py The point latitude.
+   * @param ax The segment start longitude.
+   * @param ay The segment start latitude.
+   * @param bx The segment end longitude.
+   * @param by The segment end latitude.
+   * @return The distance in degrees.
+   */
+  private static double segmentDistance(
+      double px, double py, double ax, double ay, double bx, double by) {
+    double dx = bx - ax;
+    double dy = by - ay;
+    double lengthSquared = dx * dx + dy * dy;
+    if (lengthSquared == 0) {
+      return Math.hypot(px - ax, py - ay);
+    }
+    double t = ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+    t = Math.max(0, Math.min(1, t));
+    return Math.hypot(px - (ax + t * dx), py - (ay + t * dy));
+  }
+
+  /**
+   * Checks whether the kept vertices of a ring form a self-intersecting ring.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param start The index of the first vertex of the ring.
+   * @param end The index of the last vertex of the ring.
+   * @param keep The mask of kept vertices, indexed from {@code base}.
+   * @param base The index of the first vertex of the geometry.
+   * @return True if two non-adjacent edges of the simplified ring cross.
+   */
+  private static boolean selfIntersects(
+      double[] lons, double[] lats, int start, int end, boolean[] keep, int base) {
+    int[] ring = keptVertices(start, end, keep, base);
+    int edges = ring.length - 1;
+    for (int i = 0; i < edges; i++) {
+      for (int j = i + 2; j < edges; j++) {
+        // The first and last edges share the closing vertex
+        if (i == 0 && j == edges - 1) {
+          continue;
+        }
+        if (segmentsCross(lons, lats, ring[i], ring[i + 1], ring[j], ring[j + 1])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Checks whether an edge of one simplified ring intersects an edge of another.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param first The kept vertices of the first ring, in order.
+   * @param second The kept vertices of the second ring, in order.
+   * @return True if two edges intersect.
+   */
+  private static boolean ringsCross(double[] lons, double[] lats, int[] first, int[] second) {
+    for (int i = 0; i < first.length - 1; i++) {
+      for (int j = 0; j < second.length - 1; j++) {
+        if (segmentsCross(lons, lats, first[i], first[i + 1], second[j], second[j + 1])) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Lists the kept vertices of a ring.
+   *
+   * @param start The index of the first vertex of the ring.
+   * @param end The index of the last vertex of the ring.
+   * @param keep The mask of kept vertices, indexed from {@code base}.
+   * @param base The index of the first vertex of the geometry.
+   * @return The indexes of the kept vertices, in order.
+   */
+  private static int[] keptVertices(int start, int end, boolean[] keep, int base) {
+    int[] ring = new int[end - start + 1];
+    int n = 0;
+    for (int v = start; v <= end; v++) {
+      if (keep[v - base]) {
+        ring[n++] = v;
+      }
+    }
+    return Arrays.copyOf(ring, n);
+  }
+
+  /**
+   * Computes the bounding box of some vertices.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param ring The indexes of the vertices.
+   * @return The minimum longitude, minimum latitude, maximum longitude and maximum latitude.
+   */
+  private static double[] bounds(double[] lons, double[] lats, int[] ring) {
+    double[] bounds = {
+      Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+      Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+    };
+    for (int v : ring) {
+      bounds[0] = Math.min(bounds[0], lons[v]);
+      bounds[1] = Math.min(bounds[1], lats[v]);
+      bounds[2] = Math.max(bounds[2], lons[v]);
+      bounds[3] = Math.max(bounds[3], lats[v]);
+    }
+    return bounds;
+  }
+
+  /**
+   * Checks whether two bounding boxes share any point.
+   *
+   * @param a The first box, as returned by {@link #bounds}.
+   * @param b The second box.
+   * @return True if the boxes overlap or touch.
+   */
+  private static boolean overlap(double[] a, double[] b) {
+    return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+  }
+
+  /**
+   * Checks whether two segments intersect, including touching and collinear overlaps.
+   *
+   * @param lons The vertex longitudes.
+   * @param lats The vertex latitudes.
+   * @param a The start of the first segment.
+   * @param b The end of the first segment.
+   * @param c The start of the second segment.
+   * @param d The end of the second segment.
+   * @return True if the segments intersect.
+   */
+  private static boolean segmentsCross(double[] lons, double[] lats, int a, int b, int c, int d) {
+    double d1 = orientation(lons, lats, c, d, a);
+    double d2 = orientation(lons, lats, c, d, b);
+    double d3 = orientation(lons, lats, a, b, c);
+    double d4 = orientation(lons, lats, a, b, d);
+    if (((d1 > 0 && d2 < 0) || (d1 < 0 && d2 > 0)) && ((d3 > 0 && d4 < 0) || (d3 < 0 && d4 > 0))) {
+      return true;
+    }
+    return (d1 == 0 && onSegment(lons, lats, c, d, a))
+        || (d2 == 0 && onSegment(lons, lats, c, d, b))
+        || (d3 == 0 && onSegment(lons, lats, a, b, c))
+        || (d4 == 0 && onSegment(lons, lats, a, b, d));
+  }
+
+  /**
+   * Computes the cross product that tells which side of segment (a, b) point c lies on.
+   */
+  private static double orientation(double[] lons, double[] lats, int a, int b, int c) {
+    return (lons[b] - lons[a]) * (lats[c] - lats[a]) - (lats[b] - lats[a]) * (lons[c] - lons[a]);
+  }
+
+  /**
+   * Checks whether collinear point c lies within the bounds of segment (a, b).
+   */
+  private static boolean onSegment(double[] lons, double[] lats, int a, int b, int c) {
+    return Math.min(lons[a], lons[b]) <= lons[c]
+        && lons[c] <= Math.max(lons[a], lons[b])
+        && Math.min(lats[a], lats[b]) <= lats[c]
+        && lats[c] <= Math.max(lats[a], lats[b]);
+  }
+
+  /**
+   * Copies the kept vertices of a geometry into a new packed geometry.
+   *
+   * @param packed The full-resolution geometry.
+   * @param keep The mask of kept vertices, indexed from the first vertex of the geometry.
+   * @return The simplified geometry.
+   */
+  private static PackedGeometry compact(PackedGeometry packed, boolean[] keep) {
+    int base = packed.ringOffsets[0];
+    int count = 0;
+    for (boolean kept : keep) {
+      if (kept) {
+        count++;
+      }
+    }
+
+    double[] lons = new double[count];
+    double[] lats = new double[count];
+    int[] ringOffsets = new int[packed.ringOffsets.length];
+    int vertex = 0;
+    for (int r = 0; r < packed.ringCount(); r++) {
+      ringOffsets[r] = vertex;
+      for (int v = packed.ringOffsets[r]; v < packed.ringOffsets[r + 1]; v++) {
+        if (keep[v - base]) {
+          lons[vertex] = packed.lon(v);
+          lats[vertex] = packed.lat(v);
+          vertex++;
+        }
+      }
+    }
+    ringOffsets[packed.ringCount()] = vertex;
+
+    return new PackedGeometry(
+        packed.type, lons, lats, ringOffsets, packed.polygonOffsets.clone());
+  }
+}
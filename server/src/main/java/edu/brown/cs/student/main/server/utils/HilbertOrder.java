@@ -0,0 +1,181 @@
+package edu.brown.cs.student.main.server.utils;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Utility class for ordering features along a Hilbert curve. The curve visits every cell of a
+ * grid so that cells close together on the curve are close together on the map, so features
+ * sorted by the curve position of their envelope centers sit next to their spatial neighbors in
+ * memory and in responses.
+ */
+public class HilbertOrder {
+
+  /**
+   * The number of bits per axis of the grid the curve is drawn on.
+   */
+  public static final int BITS = 16;
+
+  /**
+   * The curve position given to features without a finite envelope, which sorts them last.
+   */
+  public static final long NO_KEY = Long.MAX_VALUE;
+
+  /**
+   * Reorders the features of a collection along a Hilbert curve of their envelope centers, and
+   * moves the packed coordinates of every detail level into one shared array per level in the
+   * same order. Features with equal curve positions keep their original relative order.
+   *
+   * @param collection The collection to reorder in place. Its features should already have
+   *     their detail levels computed.
+   */
+  public static void apply(GeoMapCollection collection) {
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(collection);
+    long[] keys = keys(envelopes);
+
+    // Sort positions by curve position; the sort is stable, so ties keep file order
+    Integer[] order = new Integer[keys.length];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, (a, b) -> Long.compare(keys[a], keys[b]));
+
+    List<GeoMap> reordered = new ArrayList<>(order.length);
+    for (int i = 0; i < order.length; i++) {
+      reordered.add(collection.features.get(order[i]));
+    }
+    collection.features = reordered;
+    packContiguously(reordered);
+  }
+
+  /**
+   * Computes the curve position of the envelope center of every feature, on a grid stretched
+   * over the extent of all finite envelopes.
+   *
+   * @param envelopes The envelopes of the features.
+   * @return The curve position of each feature, or NO_KEY for features without a finite
+   *     envelope.
+   */
+  public static long[] keys(FeatureEnvelopes envelopes) {
+    double minLon = Double.POSITIVE_INFINITY;
+    double minLat = Double.POSITIVE_INFINITY;
+    double maxLon = Double.NEGATIVE_INFINITY;
+    double maxLat = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < envelopes.size(); i++) {
+      if (isFinite(envelopes, i)) {
+        minLon = Math.min(minLon, envelopes.minLons[i]);
+        minLat = Math.min(minLat, envelopes.minLats[i]);
+        maxLon = Math.max(maxLon, envelopes.maxLons[i]);
+        maxLat = Math.max(maxLat, envelopes.maxLats[i]);
+      }
+    }
+
+    int cells = 1 << BITS;
+    long[] keys = new long[envelopes.size()];
+    for (int i = 0; i < keys.length; i++) {
+      if (!isFinite(envelopes, i)) {
+        keys[i] = NO_KEY;
+        continue;
+      }
+      double centerLon = (envelopes.minLons[i] + envelopes.maxLons[i]) / 2;
+      double centerLat = (envelopes.minLats[i] + envelopes.maxLats[i]) / 2;
+      keys[i] =
+          index(cell(centerLon, minLon, maxLon, cells), cell(centerLat, minLat, maxLat, cells));
+    }
+    return keys;
+  }
+
+  /**
+   * Computes the position of a grid cell along the Hilbert curve.
+   *
+   * @param x The column of the cell, between 0 and 2^BITS - 1.
+   * @param y The row of the cell, between 0 and 2^BITS - 1.
+   * @return The position of the cell along the curve.
+   */
+  public static long index(int x, int y) {
+    int n = 1 << BITS;
+    long d = 0;
+    for (int s = 1 << (BITS - 1); s > 0; s >>= 1) {
+      int rx = (x & s) > 0 ? 1 : 0;
+      int ry = (y & s) > 0 ? 1 : 0;
+      d += (long) s * s * ((3 * rx) ^ ry);
+
+      // Rotate the quadrant so the curve inside it has the right orientation
+      if (ry == 0) {
+        if (rx == 1) {
+          x = n - 1 - x;
+          y = n - 1 - y;
+        }
+        int t = x;
+        x = y;
+        y = t;
+      }
+    }
+    return d;
+  }
+
+  /**
+   * Maps a coordinate to a grid cell along one axis.
+   *
+   * @param value The coordinate.
+   * @param min The smallest coordinate of the grid.
+   * @param max The largest coordinate of the grid.
+   * @param cells The number of cells along the axis.
+   * @return The cell containing the coordinate.
+   */
+  private static int cell(double value, double min, double max, int cells) {
+    if (max <= min) {
+      return 0;
+    }
+    int cell = (int) ((value - min) / (max - min) * cells);
+    return Math.max(0, Math.min(cells - 1, cell));
+  }
+
+  /**
+   * Checks whether a feature has a finite envelope.
+   *
+   * @param envelopes The envelopes of the features.
+   * @param i The position of the feature.
+   * @return True if all four bounds are finite numbers.
+   */
+  private static boolean isFinite(FeatureEnvelopes envelopes, int i) {
+    return Double.isFinite(envelopes.minLons[i])
+        && Double.isFinite(envelopes.minLats[i])
+        && Double.isFinite(envelopes.maxLons[i])
+        && Double.isFinite(envelopes.maxLats[i]);
+  }
+
+  /**
+   * Moves the packed geometry of every feature into shared arrays, one pair per detail level,
+   * laid out in the order of the features. Geometries already held off the heap, such as those
+   * mapped from a snapshot written in this order, stay where they are.
+   *
+   * @param features The features, in their final order.
+   */
+  private static void packContiguously(List<GeoMap> features) {
+    for (int level = 0; level < GeometrySimplifier.TOLERANCES.length; level++) {
+      int total = 0;
+      for (GeoMap feature : features) {
+        if (feature.detailLevels != null && feature.detailLevels[level].isOnHeap()) {
+          total += feature.detailLevels[level].vertexCount();
+        }
+      }
+
+      double[] lons = new double[total];
+      double[] lats = new double[total];
+      int at = 0;
+      for (GeoMap feature : features) {
+        if (feature.detailLevels != null && feature.detailLevels[level].isOnHeap()) {
+          PackedGeometry packed = feature.detailLevels[level];
+          feature.detailLevels[level] = packed.relocate(lons, lats, at);
+          at += packed.vertexCount();
+        }
+      }
+    }
+  }
+}
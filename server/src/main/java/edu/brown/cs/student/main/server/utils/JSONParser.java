@@ -1,15 +1,15 @@
 package edu.brown.cs.student.main.server.utils;
 
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 /**
  * A utility class for parsing JSON files into GeoMapCollection objects.
  * The class reads a JSON file from the provided file path, parses it, and stores the resulting
- * GeoMapCollection data.
+ * GeoMapCollection data. The features of large files are decoded in parallel on all cores.
  */
 public class JSONParser {
   private GeoMapCollection data;
@@ -23,19 +23,12 @@ public class JSONParser {
   public JSONParser(String filePath) throws FileNotFoundException {
     try {
       // ***************** READING THE FILE *****************
-      FileReader jsonReader = new FileReader(filePath);
-      BufferedReader br = new BufferedReader(jsonReader);
-      String fileString = "";
-      String line = br.readLine();
-      while (line != null) {
-        fileString = fileString + line;
-        line = br.readLine();
-      }
-      jsonReader.close();
+      byte[] json = Files.readAllBytes(Path.of(filePath));
 
       // ****************** CREATING THE ADAPTER ***********
+      // The features of large files are decoded in parallel
       GeoMapAdapter myadapter = new GeoMapAdapter();
-      this.data = myadapter.fromJson(fileString);
+      this.data = myadapter.fromJson(json);
 
     } catch (IOException e) {
       System.out.println(e.getMessage());
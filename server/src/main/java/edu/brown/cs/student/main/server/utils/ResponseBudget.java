@@ -0,0 +1,151 @@
+package edu.brown.cs.student.main.server.utils;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Utility class for fitting a response into a size budget. Every feature keeps an estimate of its
+ * encoded size at each step of a ladder of (detail level, coordinate precision) pairs, so the
+ * most detailed step that fits a budget can be found without serializing anything.
+ */
+public class ResponseBudget {
+
+  /**
+   * The ladder of {detail level, coordinate precision} steps, from most to least detailed.
+   * The precision of each step is chosen so rounding adds less error than the simplification.
+   */
+  public static final int[][] STEPS = {
+    {0, PackedGeometry.FULL_PRECISION}, {0, 6}, {1, 5}, {2, 4}, {3, 4}, {4, 3}
+  };
+
+  /**
+   * The adapter used to measure the exact encoded size of features at full resolution.
+   */
+  private static final GeoMapAdapter geoMapAdapter = new GeoMapAdapter();
+
+  /**
+   * Precomputes the encoded-size estimates of every feature in a collection.
+   *
+   * @param collection The collection to prepare.
+   */
+  public static void precompute(GeoMapCollection collection) {
+    if (collection == null || collection.features == null) {
+      return;
+    }
+    for (GeoMap feature : collection.features) {
+      sizesOf(feature);
+    }
+  }
+
+  /**
+   * Gets the estimated encoded size of a feature at each step, computing and storing the
+   * estimates if they are missing. The full-resolution size is exact; other steps replace the
+   * bytes of the full-resolution vertices with those of the simplified, rounded vertices.
+   *
+   * @param feature The feature whose sizes to get.
+   * @return The estimated size in bytes at each step of {@link #STEPS}.
+   */
+  public static long[] sizesOf(GeoMap feature) {
+    if (feature.encodedSizes == null) {
+      GeoMapCollection single = new GeoMapCollection();
+      single.features = List.of(feature);
+      long fullSize = encodedLength(single) - encodedLength(emptyCopy(single));
+
+      long[] sizes = new long[STEPS.length];
+      PackedGeometry[] levels = GeometrySimplifier.levelsOf(feature);
+      for (int step = 0; step < STEPS.length; step++) {
+        sizes[step] = fullSize;
+        if (levels != null) {
+          sizes[step] +=
+              levels[STEPS[step][0]].encodedVertexBytes(STEPS[step][1])
+                  - levels[0].encodedVertexBytes(PackedGeometry.FULL_PRECISION);
+        }
+      }
+      feature.encodedSizes = sizes;
+    }
+    return feature.encodedSizes;
+  }
+
+  /**
+   * Estimates the encoded size of a whole collection at a given step.
+   *
+   * @param collection The collection to measure.
+   * @param step The index of the step in {@link #STEPS}.
+   * @return The estimated size in bytes.
+   */
+  public static long estimate(GeoMapCollection collection, int step) {
+    long size = encodedLength(emptyCopy(collection));
+    for (GeoMap feature : collection.features) {
+      size += sizesOf(feature)[step];
+    }
+    // Commas between features
+    return size + Math.max(0, collection.features.size() - 1);
+  }
+
+  /**
+   * Chooses the most detailed step that fits a budget, never going finer than a minimum level.
+   * If no step fits, the least detailed step is chosen so the response is as small as possible.
+   *
+   * @param collection The collection to be sent.
+   * @param maxBytes The size budget in bytes.
+   * @param minLevel The finest detail level the client asked for.
+   * @return The index of the chosen step in {@link #STEPS}.
+   */
+  public static int chooseStep(GeoMapCollection collection, long maxBytes, int minLevel) {
+    for (int step = 0; step < STEPS.length; step++) {
+      if (STEPS[step][0] >= minLevel && estimate(collection, step) <= maxBytes) {
+        return step;
+      }
+    }
+    return STEPS.length - 1;
+  }
+
+  /**
+   * Parses the optional maxBytes request parameter.
+   *
+   * @param maxBytesStr The maxBytes parameter, or null.
+   * @return The budget in bytes, or -1 if no budget was given.
+   * @throws IllegalArgumentException If the parameter is not a positive integer.
+   */
+  public static long parseMaxBytes(String maxBytesStr) {
+    if (maxBytesStr == null) {
+      return -1;
+    }
+    long maxBytes;
+    try {
+      maxBytes = Long.parseLong(maxBytesStr);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid maxBytes format. maxBytes must be an integer");
+    }
+    if (maxBytes <= 0) {
+      throw new IllegalArgumentException("maxBytes must be a positive number of bytes");
+    }
+    return maxBytes;
+  }
+
+  /**
+   * Creates a collection with the same type as another but no features.
+   *
+   * @param collection The collection to copy.
+   * @return The empty collection.
+   */
+  private static GeoMapCollection emptyCopy(GeoMapCollection collection) {
+    GeoMapCollection empty = new GeoMapCollection();
+    empty.type = collection.type;
+    empty.features = List.of();
+    return empty;
+  }
+
+  /**
+   * Measures the exact encoded size of a collection.
+   *
+   * @param collection The collection to measure.
+   * @return The size in UTF-8 bytes.
+   */
+  private static long encodedLength(GeoMapCollection collection) {
+    return geoMapAdapter.toJson(collection).getBytes(StandardCharsets.UTF_8).length;
+  }
+}
@@ -0,0 +1,85 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.mapCollection.CoordinateStore;
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares keeping vertex coordinates on the heap with keeping them in direct buffers or in a
+ * mapped snapshot. For each store it prints the heap still used once the dataset is loaded, the
+ * time of a full collection with the dataset live, and the median time of a bounding box filter
+ * that tests every feature. Run it with
+ * {@code java test.benchmark.CoordinateBenchmark [features]}.
+ */
+public class CoordinateBenchmark {
+
+  /**
+   * The number of timed filters per store, after as many warm-up filters.
+   */
+  private static final int RUNS = 21;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The number of features, 20000 by default.
+   * @throws IOException If the temporary snapshot cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    Path directory = Files.createTempDirectory("coordinate-benchmark");
+    // The snapshot only needs a source file to record; its content is not read
+    Path source = Files.createFile(directory.resolve("data.json"));
+    Path snapshot = directory.resolve("data.snapshot");
+    DatasetSnapshot.write(
+        new GeoDataset(ScanBenchmark.createCollection(size, new Random(48))), snapshot, source);
+
+    System.out.printf("%d features%n", size);
+    for (CoordinateStore.Kind kind : CoordinateStore.Kind.values()) {
+      DatasetOptions options = new DatasetOptions();
+      options.coordinates = kind;
+      GeoDataset dataset =
+          kind == CoordinateStore.Kind.MAPPED
+              ? DatasetSnapshot.open(snapshot, source, options)
+              : new GeoDataset(ScanBenchmark.createCollection(size, new Random(48)), options);
+
+      System.gc();
+      long gcStart = System.nanoTime();
+      System.gc();
+      double gcMillis = (System.nanoTime() - gcStart) / 1e6;
+      Runtime runtime = Runtime.getRuntime();
+      long heapBytes = runtime.totalMemory() - runtime.freeMemory();
+
+      double[] times = new double[RUNS];
+      int matches = 0;
+      for (int run = -RUNS; run < RUNS; run++) {
+        long start = System.nanoTime();
+        matches = GeoFilter.filterByBoundingBox(dataset.collection, -180, 180, -90, 90)
+            .features.size();
+        if (run >= 0) {
+          times[run] = (System.nanoTime() - start) / 1e6;
+        }
+      }
+      Arrays.sort(times);
+
+      System.out.printf(
+          "  %-7s heap %6.1f MB  full gc %6.1f ms  filter %6.2f ms (%d matches)  %s%n",
+          kind.name().toLowerCase(),
+          heapBytes / 1e6,
+          gcMillis,
+          times[RUNS / 2],
+          matches,
+          dataset.coordinateStore.stats());
+      dataset = null;
+    }
+    Files.delete(snapshot);
+    Files.delete(source);
+    Files.delete(directory);
+  }
+}
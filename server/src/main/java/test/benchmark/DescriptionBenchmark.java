@@ -0,0 +1,92 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.mapCollection.DescriptionCodec;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures what compressing the area descriptions saves and costs: the heap held by the
+ * descriptions before and after compression, and the time to encode a page of features to JSON
+ * with the descriptions cold and cached. Run it with
+ * {@code java test.benchmark.DescriptionBenchmark [features]}.
+ */
+public class DescriptionBenchmark {
+
+  /**
+   * The number of features encoded per timed run.
+   */
+  private static final int PAGE = 500;
+
+  /**
+   * The number of timed runs per measurement, after as many warm-up runs.
+   */
+  private static final int RUNS = 31;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The number of features, 50000 by default.
+   */
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 50000;
+    GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(45));
+    GeoMapAdapter adapter = new GeoMapAdapter();
+
+    double plain = timeEncoding(collection, adapter, size);
+    long before = usedHeap();
+    DescriptionCodec codec = DescriptionCodec.compress(collection);
+    long after = usedHeap();
+    Map<String, Object> stats = codec.stats();
+    System.out.printf("%d features%n", size);
+    System.out.printf("  description text:   %10d bytes%n", stats.get("uncompressed_bytes"));
+    System.out.printf("  compressed blocks:  %10d bytes%n", stats.get("compressed_bytes"));
+    System.out.printf("  dictionary:         %10d bytes%n", stats.get("dictionary_bytes"));
+    System.out.printf("  heap released:      %10d bytes%n", before - after);
+    System.out.printf("  encode %d features, plain:      %8.1f us%n", PAGE, plain);
+    System.out.printf("  encode %d features, compressed: %8.1f us%n", PAGE,
+        timeEncoding(collection, adapter, size));
+  }
+
+  /**
+   * Measures the median time to encode a page of features starting at random positions, so most
+   * descriptions are not in the cache of decompressed maps.
+   *
+   * @param collection The collection.
+   * @param adapter The adapter that encodes features.
+   * @param size The number of features.
+   * @return The median time in microseconds.
+   */
+  private static double timeEncoding(GeoMapCollection collection, GeoMapAdapter adapter, int size) {
+    Random random = new Random(7);
+    double[] times = new double[RUNS];
+    for (int run = -RUNS; run < RUNS; run++) {
+      int[] ordinals = new int[PAGE];
+      int start = random.nextInt(size - PAGE);
+      Arrays.setAll(ordinals, i -> start + i);
+      long begin = System.nanoTime();
+      adapter.toJson(GeoFilter.select(collection, ordinals));
+      if (run >= 0) {
+        times[run] = (System.nanoTime() - begin) / 1e3;
+      }
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2];
+  }
+
+  /**
+   * Measures the heap in use after collecting garbage.
+   *
+   * @return The used heap in bytes.
+   */
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
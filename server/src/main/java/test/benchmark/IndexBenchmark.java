@@ -0,0 +1,112 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares the spatial indexes on bounding box queries of several viewport sizes and on
+ * nearest-neighbor queries. Run it with
+ * {@code java test.benchmark.IndexBenchmark [features] [gridCellDegrees]}; it prints the median
+ * time of a query for each index and query shape.
+ */
+public class IndexBenchmark {
+
+  /**
+   * The sides of the measured viewports, in degrees.
+   */
+  private static final double[] VIEWPORTS = {0.01, 0.05, 0.2, 0.5};
+
+  /**
+   * The number of timed queries per measurement, after as many warm-up queries.
+   */
+  private static final int RUNS = 501;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The number of features, 20000 by default, and the grid cell size in degrees,
+   *     sized automatically by default.
+   */
+  public static void main(String[] args) {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    double cellDegrees = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+    GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(36));
+    DatasetOptions options = new DatasetOptions();
+    options.index = SpatialIndex.Kind.SCAN;
+    GeoDataset dataset = new GeoDataset(collection, options);
+    FeatureEnvelopes envelopes = dataset.envelopes;
+
+    for (SpatialIndex.Kind kind : SpatialIndex.Kind.values()) {
+      long start = System.nanoTime();
+      SpatialIndex index = SpatialIndex.build(kind, envelopes, cellDegrees);
+      double buildMs = (System.nanoTime() - start) / 1e6;
+      System.out.printf("%s (built in %.1f ms)%n", index.name(), buildMs);
+      for (double viewport : VIEWPORTS) {
+        System.out.printf("  viewport %.2f deg: %10.1f us%n", viewport, time(index, viewport));
+      }
+      for (int k : new int[] {1, 10}) {
+        System.out.printf("  nearest k=%-2d:       %10.1f us%n", k, timeNearest(index, dataset, k));
+      }
+    }
+  }
+
+  /**
+   * Measures the median time of nearest-neighbor queries from random points.
+   *
+   * @param index The index to query.
+   * @param dataset The dataset the index was built over, which measures exact distances.
+   * @param k The number of neighbors to find.
+   * @return The median time of a query in microseconds.
+   */
+  private static double timeNearest(SpatialIndex index, GeoDataset dataset, int k) {
+    Random random = new Random(2);
+    long[] times = new long[RUNS];
+    int sink = 0;
+    for (int run = -RUNS; run < RUNS; run++) {
+      double lon = -71.6 + random.nextDouble() * 0.4;
+      double lat = 41.6 + random.nextDouble() * 0.4;
+      long start = System.nanoTime();
+      sink += index.nearest(lon, lat, k, ordinal -> dataset.distanceKm(ordinal, lon, lat)).size();
+      if (run >= 0) {
+        times[run] = System.nanoTime() - start;
+      }
+    }
+    if (sink < 0) {
+      throw new IllegalStateException();
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2] / 1000.0;
+  }
+
+  /**
+   * Measures the median time of queries with random viewports of a given size.
+   *
+   * @param index The index to query.
+   * @param viewport The side of the viewports, in degrees.
+   * @return The median time of a query in microseconds.
+   */
+  private static double time(SpatialIndex index, double viewport) {
+    Random random = new Random(1);
+    long[] times = new long[RUNS];
+    int sink = 0;
+    for (int run = -RUNS; run < RUNS; run++) {
+      double minLon = -71.6 + random.nextDouble() * (0.4 - viewport);
+      double minLat = 41.6 + random.nextDouble() * (0.4 - viewport);
+      long start = System.nanoTime();
+      sink += index.within(minLon, minLon + viewport, minLat, minLat + viewport).length;
+      if (run >= 0) {
+        times[run] = System.nanoTime() - start;
+      }
+    }
+    if (sink < 0) {
+      throw new IllegalStateException();
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2] / 1000.0;
+  }
+}
@@ -0,0 +1,123 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.TermDictionary;
+import edu.brown.cs.student.main.server.index.TrigramIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compares keyword search by scanning every description with keyword search through the trigram
+ * index, for a common word, a rare word and a word that never occurs, compares ranked top-10
+ * searches with ranking every match, compares searching every description field with searching
+ * one, and times prefix completions. Run it with {@code java test.benchmark.KeywordBenchmark};
+ * it prints the median time of a search for each collection size.
+ */
+public class KeywordBenchmark {
+
+  /**
+   * The collection sizes to measure.
+   */
+  private static final int[] SIZES = {1000, 10000, 50000};
+
+  /**
+   * The keywords to search for: common, rare, and absent.
+   */
+  private static final String[] KEYWORDS = {"park", "near the river", "harbor"};
+
+  /**
+   * The number of timed searches per measurement, after as many warm-up searches.
+   */
+  private static final int RUNS = 31;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args Unused.
+   */
+  public static void main(String[] args) {
+    System.out.printf("%8s %-16s %12s %12s %10s%n", "features", "keyword", "scan us", "index us",
+        "matches");
+    for (int size : SIZES) {
+      GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(size));
+      TrigramIndex index = new TrigramIndex(collection);
+      for (String keyword : KEYWORDS) {
+        double scan = time(() -> GeoFilter.filterByKeyword(collection, keyword));
+        double indexed = time(() -> GeoFilter.filterByKeyword(collection, index, keyword));
+        int matches = GeoFilter.filterByKeyword(collection, index, keyword).features.size();
+        System.out.printf("%8d %-16s %12.1f %12.1f %10d%n", size, keyword, scan, indexed,
+            matches);
+      }
+    }
+
+    System.out.printf("%n%8s %-16s %12s %12s%n", "features", "ranked query", "top-10 us",
+        "all us");
+    for (int size : SIZES) {
+      GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(size));
+      Bm25Index index = new Bm25Index(collection);
+      for (String query : new String[] {"park", "park church school", "river mill"}) {
+        double top = time(() -> {
+          index.search(query, 10);
+          return null;
+        });
+        double all = time(() -> {
+          index.search(query, size);
+          return null;
+        });
+        System.out.printf("%8d %-16s %12.1f %12.1f%n", size, query, top, all);
+      }
+    }
+
+    System.out.printf("%n%8s %-16s %12s %12s%n", "features", "keyword", "all fields us",
+        "field 2 us");
+    for (int size : SIZES) {
+      GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(size));
+      TrigramIndex index = new TrigramIndex(collection);
+      FieldIndexes fields = new FieldIndexes(collection);
+      for (String keyword : new String[] {"near the", "near the river"}) {
+        double all = time(() -> GeoFilter.filterByKeyword(collection, index, keyword));
+        double scoped = time(() ->
+            GeoFilter.select(collection, fields.keywordMatches(collection, keyword, Set.of("2"))));
+        System.out.printf("%8d %-16s %12.1f %12.1f%n", size, keyword, all, scoped);
+      }
+    }
+
+    System.out.printf("%n%8s %-16s %12s%n", "features", "prefix", "suggest us");
+    for (int size : SIZES) {
+      GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(size));
+      TermDictionary dictionary = new TermDictionary(collection);
+      for (String prefix : new String[] {"", "p", "ri", "harb"}) {
+        double suggest = time(() -> {
+          dictionary.complete(prefix, 10);
+          return null;
+        });
+        System.out.printf("%8d %-16s %12.1f%n", size, "\"" + prefix + "\"", suggest);
+      }
+    }
+  }
+
+  /**
+   * Measures the median time of a search.
+   *
+   * @param search The search to run.
+   * @return The median time in microseconds.
+   */
+  private static double time(Supplier<GeoMapCollection> search) {
+    double[] times = new double[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      search.get();
+    }
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      search.get();
+      times[i] = (System.nanoTime() - start) / 1e3;
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2];
+  }
+}
@@ -0,0 +1,58 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compares decoding a GeoJSON document as one string on one thread with decoding its features
+ * in parallel batches from its bytes, and prints the median time of each. Run it with
+ * {@code java test.benchmark.LoadBenchmark [features]}.
+ */
+public class LoadBenchmark {
+
+  /**
+   * The number of timed decodes per mode, after as many warm-up decodes.
+   */
+  private static final int RUNS = 7;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The number of features, 20000 by default.
+   * @throws IOException If the document cannot be decoded.
+   */
+  public static void main(String[] args) throws IOException {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    GeoMapAdapter adapter = new GeoMapAdapter();
+    String json = adapter.toJson(ScanBenchmark.createCollection(size, new Random(49)));
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+    double[] serial = new double[RUNS];
+    double[] parallel = new double[RUNS];
+    int features = 0;
+    for (int run = -RUNS; run < RUNS; run++) {
+      long start = System.nanoTime();
+      GeoMapCollection whole = adapter.fromJson(json);
+      long middle = System.nanoTime();
+      GeoMapCollection batched = adapter.fromJson(bytes);
+      long end = System.nanoTime();
+      if (run >= 0) {
+        serial[run] = (middle - start) / 1e6;
+        parallel[run] = (end - middle) / 1e6;
+      }
+      features = Math.min(whole.features.size(), batched.features.size());
+    }
+    Arrays.sort(serial);
+    Arrays.sort(parallel);
+
+    System.out.printf(
+        "%d features, %.1f MB, %d cores%n",
+        features, bytes.length / 1e6, Runtime.getRuntime().availableProcessors());
+    System.out.printf("  serial   %8.1f ms%n", serial[RUNS / 2]);
+    System.out.printf("  parallel %8.1f ms%n", parallel[RUNS / 2]);
+  }
+}
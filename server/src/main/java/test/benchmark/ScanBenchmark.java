@@ -0,0 +1,138 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+/**
+ * Compares the index-less bounding box scan, which tests every vertex of every feature, with the
+ * envelope filter and the grid index the server uses, over synthetic collections of growing size.
+ * Run it with {@code java test.benchmark.ScanBenchmark}; it prints the median time of each query.
+ */
+public class ScanBenchmark {
+
+  /**
+   * The collection sizes to measure.
+   */
+  private static final int[] SIZES = {64, 256, 1024, 4096, 16384, 65536};
+
+  /**
+   * The number of timed runs per measurement, after as many warm-up runs.
+   */
+  private static final int RUNS = 31;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args Unused.
+   */
+  public static void main(String[] args) {
+    System.out.printf(
+        "%8s %14s %14s %14s%n", "features", "vertex scan us", "envelopes us", "grid index us");
+    for (int size : SIZES) {
+      GeoMapCollection collection = createCollection(size, new Random(size));
+      GeoDataset dataset = new GeoDataset(collection);
+      double vertices =
+          time(collection, c -> GeoFilter.filterByBoundingBox(c, -71.5, -71.3, 41.7, 41.9));
+      double envelopes =
+          time(
+              collection,
+              c -> GeoFilter.filterByBoundingBox(c, dataset.envelopes, -71.5, -71.3, 41.7, 41.9));
+      double grid =
+          time(
+              collection,
+              c ->
+                  GeoFilter.filterByBoundingBox(
+                      c, dataset.spatialIndex, -71.5, -71.3, 41.7, 41.9));
+      System.out.printf("%8d %14.1f %14.1f %14.1f%n", size, vertices, envelopes, grid);
+    }
+  }
+
+  /**
+   * Measures the median time of a query over a collection.
+   *
+   * @param collection The collection to query.
+   * @param query The query to run.
+   * @return The median time of a run in microseconds.
+   */
+  private static double time(GeoMapCollection collection, Consumer<GeoMapCollection> query) {
+    for (int i = 0; i < RUNS; i++) {
+      query.accept(collection);
+    }
+    long[] times = new long[RUNS];
+    for (int i = 0; i < RUNS; i++) {
+      long start = System.nanoTime();
+      query.accept(collection);
+      times[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(times);
+    return times[RUNS / 2] / 1000.0;
+  }
+
+  /**
+   * Creates a collection of small polygonal features scattered around Providence.
+   *
+   * @param size The number of features.
+   * @param random The source of the feature positions.
+   * @return The collection.
+   */
+  static GeoMapCollection createCollection(int size, Random random) {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      double lon = -71.6 + random.nextDouble() * 0.4;
+      double lat = 41.6 + random.nextDouble() * 0.4;
+      collection.features.add(createFeature(i, lon, lat, random));
+    }
+    return collection;
+  }
+
+  /**
+   * Creates a feature whose single ring approximates a small circle.
+   *
+   * @param id The number of the feature.
+   * @param lon The longitude of the center.
+   * @param lat The latitude of the center.
+   * @param random The source of the description words; one feature in ten mentions "river".
+   * @return The feature.
+   */
+  private static GeoMap createFeature(int id, double lon, double lat, Random random) {
+    List<List<Double>> ring = new ArrayList<>();
+    for (int i = 0; i <= 48; i++) {
+      double angle = 2 * Math.PI * (i % 48) / 48;
+      ring.add(List.of(lon + 0.005 * Math.cos(angle), lat + 0.005 * Math.sin(angle)));
+    }
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates = List.of(List.of(ring));
+
+    String[] words = {"brick", "frame", "streetcar", "mill", "park", "church", "school", "river"};
+    StringBuilder description = new StringBuilder();
+    for (int i = 0; i < 60; i++) {
+      description.append(words[random.nextInt(words.length - 1)]).append(' ');
+    }
+    Property property = new Property();
+    property.name = "area" + id;
+    property.area_description_data = new HashMap<>();
+    property.area_description_data.put("1", description.toString());
+    if (random.nextInt(10) == 0) {
+      property.area_description_data.put("2", "near the " + words[words.length - 1]);
+    }
+
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    geoMap.properties = property;
+    return geoMap;
+  }
+}
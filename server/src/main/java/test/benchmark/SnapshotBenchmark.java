@@ -0,0 +1,67 @@
+package test.benchmark;
+
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares loading a dataset by parsing its GeoJSON with opening its binary snapshot. Run it with
+ * {@code java test.benchmark.SnapshotBenchmark [features]}; it prints the size of both files and
+ * the time to a ready dataset from each.
+ */
+public class SnapshotBenchmark {
+
+  /**
+   * The number of timed loads of each kind, after one warm-up load.
+   */
+  private static final int RUNS = 3;
+
+  /**
+   * Runs the benchmark.
+   *
+   * @param args The number of features, 20000 by default.
+   * @throws IOException If the temporary files cannot be written.
+   */
+  public static void main(String[] args) throws IOException {
+    int size = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+    Path directory = Files.createTempDirectory("snapshot-benchmark");
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    GeoMapCollection collection = ScanBenchmark.createCollection(size, new Random(47));
+    Files.writeString(source, new GeoMapAdapter().toJson(collection), StandardCharsets.UTF_8);
+    collection = null;
+
+    // Loading without a snapshot parses the GeoJSON and writes the snapshot
+    double parse = Double.MAX_VALUE;
+    for (int run = 0; run <= RUNS; run++) {
+      Files.deleteIfExists(snapshot);
+      long start = System.nanoTime();
+      DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+      parse = Math.min(parse, (System.nanoTime() - start) / 1e6);
+    }
+    double open = Double.MAX_VALUE;
+    GeoDataset dataset = null;
+    for (int run = 0; run <= RUNS; run++) {
+      long start = System.nanoTime();
+      dataset = DatasetSnapshot.open(snapshot, source, new DatasetOptions());
+      open = Math.min(open, (System.nanoTime() - start) / 1e6);
+    }
+
+    System.out.printf("%d features, version %s%n", dataset.collection.features.size(),
+        dataset.version);
+    System.out.printf("  GeoJSON:  %10d bytes, parse, prepare and write snapshot %8.0f ms%n",
+        Files.size(source), parse);
+    System.out.printf("  snapshot: %10d bytes, open and prepare                   %8.0f ms%n",
+        Files.size(snapshot), open);
+    Files.delete(snapshot);
+    Files.delete(source);
+    Files.delete(directory);
+  }
+}
@@ -202,4 +202,27 @@ public class TestGetDataHandler {
     assertTrue(responseBody.containsKey("features"));
     assertEquals(1, ((Map<String, Object>) responseBody.get("features")).size());
   }
+
+  /**
+   * Tests that a bounding box just inside a feature's edge leaves the feature out, even though
+   * the box snapped outward to the lookup grid would contain it.
+   *
+   * @throws IOException if there is an error in making the request
+   */
+  @Test
+  public void testGetDataHandler_ExactBoundingBox() throws IOException {
+    String url = "getData?minLat=-10&minLong=-10&maxLat=9.9995&maxLong=10";
+    HttpURLConnection connection = tryRequest(url);
+    assertEquals(200, connection.getResponseCode());
+
+    Map<String, Object> responseBody =
+        adapter.fromJson(new Buffer().readFrom(connection.getInputStream()));
+    assertEquals(List.of(), responseBody.get("features"));
+
+    // The snapped box is cached, and a request for the whole feature still finds it
+    url = "getData?minLat=-10&minLong=-10&maxLat=10&maxLong=10";
+    connection = tryRequest(url);
+    responseBody = adapter.fromJson(new Buffer().readFrom(connection.getInputStream()));
+    assertEquals(1, ((List<?>) responseBody.get("features")).size());
+  }
 }
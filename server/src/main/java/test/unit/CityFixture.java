@@ -0,0 +1,354 @@
+package test.unit;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * A hand-built city shared by the tests of the indexes. It lays a lattice of blocks over
+ * Providence, graded like the HOLC maps from the best blocks in the center to the worst at the
+ * edges, with the shapes and area descriptions found on the real maps. Every block lies inside
+ * its own cell of the lattice, so the answer to a query can be worked out by hand.
+ */
+final class CityFixture {
+
+  /**
+   * The longitude of the west edge of the lattice.
+   */
+  static final double WEST = -71.5;
+
+  /**
+   * The latitude of the south edge of the lattice.
+   */
+  static final double SOUTH = 41.75;
+
+  /**
+   * The side of a cell of the lattice, in degrees. It is a power of two, so every lattice line
+   * is exact in binary and a box drawn on the edge of a block meets the block exactly.
+   */
+  static final double BLOCK = 1.0 / 128;
+
+  /**
+   * The number of cells from west to east.
+   */
+  static final int COLUMNS = 12;
+
+  /**
+   * The number of cells from south to north.
+   */
+  static final int ROWS = 10;
+
+  /**
+   * The HOLC grades, from best to worst.
+   */
+  static final String[] GRADES = {"A", "B", "C", "D"};
+
+  /**
+   * The street running through each column.
+   */
+  private static final String[] STREETS = {
+    "Broad", "Cranston", "Westminster", "Atwells", "Smith", "Charles", "Benefit", "Angell",
+    "Wayland", "Hope", "Blackstone", "Main"
+  };
+
+  /**
+   * The shapes a block can take.
+   */
+  enum Shape {
+    /** A square filling its cell, sharing its edges with the blocks around it. */
+    FULL,
+    /** A square inset a quarter of a cell from every edge. */
+    INSET,
+    /** A strip an eighth of a cell tall along the south edge of the cell. */
+    SLIVER,
+    /** A square filling its cell with a square hole in the middle. */
+    HOLE,
+    /** Two quarter squares in the south west and north east corners of the cell. */
+    MULTIPART,
+    /** A right triangle with its right angle in the south west corner of the cell. */
+    TRIANGLE
+  }
+
+  /**
+   * Prevents instantiation.
+   */
+  private CityFixture() {}
+
+  /**
+   * Builds the city, one block per cell, listed row by row from the south west corner.
+   *
+   * @return The collection.
+   */
+  static GeoMapCollection create() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    for (int row = 0; row < ROWS; row++) {
+      for (int column = 0; column < COLUMNS; column++) {
+        collection.features.add(block(column, row));
+      }
+    }
+    return collection;
+  }
+
+  /**
+   * Computes the position of a block in the collection built by {@link #create()}.
+   *
+   * @param column The column of the block.
+   * @param row The row of the block.
+   * @return The position.
+   */
+  static int ordinal(int column, int row) {
+    return row * COLUMNS + column;
+  }
+
+  /**
+   * Computes the longitude of the west edge of a column.
+   *
+   * @param column The column, which may lie outside the lattice.
+   * @return The longitude.
+   */
+  static double west(int column) {
+    return WEST + column * BLOCK;
+  }
+
+  /**
+   * Computes the latitude of the south edge of a row.
+   *
+   * @param row The row, which may lie outside the lattice.
+   * @return The latitude.
+   */
+  static double south(int row) {
+    return SOUTH + row * BLOCK;
+  }
+
+  /**
+   * Tells the shape of a block. Shapes repeat along the diagonals, so every row and every column
+   * holds all of them.
+   *
+   * @param column The column of the block.
+   * @param row The row of the block.
+   * @return The shape.
+   */
+  static Shape shape(int column, int row) {
+    return Shape.values()[(column + row) % Shape.values().length];
+  }
+
+  /**
+   * Tells the grade of a block, which worsens with the distance from the center of the city.
+   *
+   * @param column The column of the block.
+   * @param row The row of the block.
+   * @return The grade.
+   */
+  static String grade(int column, int row) {
+    int distance = Math.abs(column - COLUMNS / 2) + Math.abs(row - ROWS / 2);
+    return GRADES[Math.min(GRADES.length - 1, distance / 3)];
+  }
+
+  /**
+   * Builds the block of a cell.
+   *
+   * @param column The column of the block.
+   * @param row The row of the block.
+   * @return The feature.
+   */
+  static GeoMap block(int column, int row) {
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry(shape(column, row), west(column), south(row));
+    geoMap.properties = properties(column, row);
+    return geoMap;
+  }
+
+  /**
+   * Builds a multipolygon of a given shape in the cell with the given south west corner.
+   *
+   * @param shape The shape.
+   * @param lon The longitude of the south west corner of the cell.
+   * @param lat The latitude of the south west corner of the cell.
+   * @return The geometry.
+   */
+  static Geometry geometry(Shape shape, double lon, double lat) {
+    double quarter = BLOCK / 4;
+    List<List<Double>> whole = rectangle(lon, lat, lon + BLOCK, lat + BLOCK);
+    List<List<Double>> middle =
+        rectangle(lon + quarter, lat + quarter, lon + 3 * quarter, lat + 3 * quarter);
+    List<List<List<List<Double>>>> polygons;
+    switch (shape) {
+      case FULL:
+        polygons = List.of(List.of(whole));
+        break;
+      case INSET:
+        polygons = List.of(List.of(middle));
+        break;
+      case SLIVER:
+        polygons = List.of(List.of(rectangle(lon, lat, lon + BLOCK, lat + BLOCK / 8)));
+        break;
+      case HOLE:
+        List<List<Double>> hole = new ArrayList<>(middle);
+        Collections.reverse(hole);
+        polygons = List.of(List.of(whole, hole));
+        break;
+      case MULTIPART:
+        polygons =
+            List.of(
+                List.of(rectangle(lon, lat, lon + quarter, lat + quarter)),
+                List.of(rectangle(lon + 3 * quarter, lat + 3 * quarter, lon + BLOCK, lat + BLOCK)));
+        break;
+      default:
+        polygons =
+            List.of(
+                List.of(
+                    List.of(
+                        List.of(lon, lat),
+                        List.of(lon + BLOCK, lat),
+                        List.of(lon, lat + BLOCK),
+                        List.of(lon, lat))));
+        break;
+    }
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates = polygons;
+    return geometry;
+  }
+
+  /**
+   * Builds a closed rectangular ring.
+   *
+   * @param minLon The west edge.
+   * @param minLat The south edge.
+   * @param maxLon The east edge.
+   * @param maxLat The north edge.
+   * @return The ring.
+   */
+  static List<List<Double>> rectangle(double minLon, double minLat, double maxLon, double maxLat) {
+    return List.of(
+        List.of(minLon, minLat),
+        List.of(maxLon, minLat),
+        List.of(maxLon, maxLat),
+        List.of(minLon, maxLat),
+        List.of(minLon, minLat));
+  }
+
+  /**
+   * Lists the boxes the tests query, as {minLon, maxLon, minLat, maxLat}. They are drawn along
+   * the lattice, from one block to more than the whole city, starting inside the city, on its
+   * edges and beyond them. Each box also comes shrunk by a hair, so the blocks touching its edges
+   * drop out, and shifted by half a block, so it cuts through blocks.
+   *
+   * @return The boxes.
+   */
+  static List<double[]> boxes() {
+    List<double[]> boxes = new ArrayList<>();
+    double hair = 1e-9;
+    double half = BLOCK / 2;
+    for (int column : new int[] {-2, 0, 3, 10}) {
+      for (int row : new int[] {-1, 0, 4, 9}) {
+        for (int width : new int[] {1, 2, 5, 14}) {
+          for (int height : new int[] {1, 3, 12}) {
+            double minLon = west(column);
+            double maxLon = west(column + width);
+            double minLat = south(row);
+            double maxLat = south(row + height);
+            boxes.add(new double[] {minLon, maxLon, minLat, maxLat});
+            boxes.add(new double[] {minLon + hair, maxLon - hair, minLat + hair, maxLat - hair});
+            boxes.add(new double[] {minLon + half, maxLon + half, minLat + half, maxLat + half});
+          }
+        }
+      }
+    }
+    return boxes;
+  }
+
+  /**
+   * Lists the points the tests measure from, as {lon, lat}: corners shared by blocks, the
+   * middles of edges and of cells, which fall in the holes of the blocks with holes and between
+   * the parts of the blocks in two parts, and points outside the city on every side.
+   *
+   * @return The points.
+   */
+  static List<double[]> points() {
+    List<double[]> points = new ArrayList<>();
+    double[][] offsets = {{0, 0}, {0.5, 0}, {0.5, 0.5}, {0.25, 0.9}};
+    for (int column : new int[] {-3, 0, 2, 5, 6, 11, 15}) {
+      for (int row : new int[] {-2, 0, 4, 9, 13}) {
+        for (double[] offset : offsets) {
+          points.add(
+              new double[] {west(column) + offset[0] * BLOCK, south(row) + offset[1] * BLOCK});
+        }
+      }
+    }
+    return points;
+  }
+
+  /**
+   * Builds the properties of a block. The two north eastern blocks lie across the state line in
+   * Seekonk, which makes Massachusetts the rare state of the city.
+   *
+   * @param column The column of the block.
+   * @param row The row of the block.
+   * @return The properties.
+   */
+  private static Property properties(int column, int row) {
+    String grade = grade(column, row);
+    Property property = new Property();
+    property.name = STREETS[column] + " " + (row + 1);
+    if (column == COLUMNS - 1 && row >= ROWS - 2) {
+      property.state = "MA";
+      property.city = "Seekonk";
+    } else {
+      property.state = "RI";
+      property.city = column >= COLUMNS - 2 ? "Pawtucket" : "Providence";
+    }
+    property.holc_grade = grade;
+    property.holc_id = grade + (ordinal(column, row) + 1);
+    property.neighborhood_id = (double) (ordinal(column, row) + 1);
+    property.area_description_data = descriptions(grade, STREETS[column]);
+    return property;
+  }
+
+  /**
+   * Builds the area descriptions of a block, keyed by the numbered fields of the HOLC forms:
+   * terrain, favorable influences, detrimental influences and the clarifying remarks.
+   *
+   * @param grade The grade of the block.
+   * @param street The street running through the block.
+   * @return The descriptions, in the order of the form.
+   */
+  private static LinkedHashMap<String, String> descriptions(String grade, String street) {
+    LinkedHashMap<String, String> descriptions = new LinkedHashMap<>();
+    switch (grade) {
+      case "A":
+        descriptions.put("1a", "Rolling and well drained");
+        descriptions.put("2", "Fine homes along " + street + " Street near the park");
+        descriptions.put("3", "");
+        descriptions.put("8", "The best area of the city, brick and stone houses on large lots");
+        break;
+      case "B":
+        descriptions.put("1a", "Level");
+        descriptions.put("2", "Schools, churches and the " + street + " streetcar line");
+        descriptions.put("3", "Some older frame houses");
+        descriptions.put("8", "Good single family homes near the park, still desirable");
+        break;
+      case "C":
+        descriptions.put("1a", "Level, some low spots");
+        descriptions.put("2", "Convenient to transportation on " + street + " Street");
+        descriptions.put("3", "Two and three family frame houses, mill workers");
+        descriptions.put("8", "Declining, close to the mills on the river front");
+        break;
+      default:
+        descriptions.put("1a", "Low, subject to flooding");
+        descriptions.put("2", "Close to the mills along " + street + " Street");
+        descriptions.put("3", "Mills and railroad yards on the river front, poor upkeep");
+        descriptions.put("8", "Hazardous, old frame tenements");
+        break;
+    }
+    return descriptions;
+  }
+}
@@ -0,0 +1,107 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.SearchHit;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the Bm25Index class, verifying the ranking and that pruned top-k searches agree
+ * with exhaustive ones.
+ */
+public class TestBm25Index {
+
+  /**
+   * Tests tokenization into lowercase words of letters and digits.
+   */
+  @Test
+  public void testTokenize() {
+    assertEquals(
+        List.of("near", "the", "park", "1920s", "école"),
+        Bm25Index.tokenize("  Near the PARK, (1920s) École!"));
+    assertEquals(List.of(), Bm25Index.tokenize(" ,.; "));
+  }
+
+  /**
+   * Tests that more frequent and rarer words rank higher, and that unmatched features are left
+   * out.
+   */
+  @Test
+  public void testRanking() {
+    GeoMapCollection collection =
+        createCollection(
+            "park", "park park park", "river park", "school", "river", "school school");
+    Bm25Index index = new Bm25Index(collection);
+
+    List<SearchHit> hits = index.search("park", 10);
+    assertEquals(3, hits.size());
+    assertEquals(1, hits.get(0).ordinal);
+    assertEquals(0, hits.get(1).ordinal);
+    assertEquals(2, hits.get(2).ordinal);
+    assertEquals(2, index.search("river park", 1).get(0).ordinal);
+    assertTrue(index.search("harbor", 10).isEmpty());
+    assertTrue(index.search("park", 0).isEmpty());
+    assertEquals(3, index.documentFrequency("park"));
+  }
+
+  /**
+   * Tests that top-k searches return the first k hits of an exhaustive search over the
+   * descriptions of a city, for words common to most grades, words of a single grade, and
+   * queries mixing both with a word no block uses.
+   */
+  @Test
+  public void testTopKMatchesExhaustive() {
+    GeoMapCollection city = CityFixture.create();
+    String[] descriptions = new String[city.features.size()];
+    for (int i = 0; i < descriptions.length; i++) {
+      descriptions[i] =
+          String.join(" ", city.features.get(i).properties.area_description_data.values());
+    }
+    Bm25Index index = new Bm25Index(createCollection(descriptions));
+
+    String[] queries = {"frame", "stone", "frame houses", "stone park streetcar", "mills river x"};
+    for (String query : queries) {
+      List<SearchHit> all = index.search(query, descriptions.length);
+      for (int i = 1; i < all.size(); i++) {
+        assertTrue(all.get(i - 1).score >= all.get(i).score);
+      }
+      for (int k : new int[] {1, 5, 50, 500}) {
+        List<SearchHit> top = index.search(query, k);
+        assertEquals(Math.min(k, all.size()), top.size(), query);
+        for (int i = 0; i < top.size(); i++) {
+          assertEquals(all.get(i).ordinal, top.get(i).ordinal, query + " k=" + k);
+          assertEquals(all.get(i).score, top.get(i).score, 1e-9);
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a collection with one feature per description.
+   *
+   * @param descriptions The area description of each feature.
+   * @return The collection.
+   */
+  private GeoMapCollection createCollection(String... descriptions) {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    for (String description : descriptions) {
+      Property property = new Property();
+      property.area_description_data = new HashMap<>();
+      property.area_description_data.put("desc", description);
+      GeoMap geoMap = new GeoMap();
+      geoMap.type = "Feature";
+      geoMap.properties = property;
+      collection.features.add(geoMap);
+    }
+    return collection;
+  }
+}
@@ -0,0 +1,62 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.caching.ByteCache;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ByteCache class, verifying lookups, byte-weighted eviction, and clearing.
+ */
+public class TestByteCache {
+
+  /**
+   * Tests that stored values can be read back and unknown keys miss.
+   */
+  @Test
+  public void testPutAndGet() {
+    ByteCache cache = new ByteCache(100);
+    cache.put("a", new byte[10]);
+
+    assertEquals(10, cache.get("a").length);
+    assertNull(cache.get("b"));
+    assertEquals(10, cache.sizeBytes());
+  }
+
+  /**
+   * Tests that the least recently used entries are evicted once the capacity is exceeded.
+   */
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    ByteCache cache = new ByteCache(100);
+    cache.put("a", new byte[40]);
+    cache.put("b", new byte[40]);
+    cache.get("a");
+    cache.put("c", new byte[40]);
+
+    assertNotNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertNotNull(cache.get("c"));
+    assertEquals(80, cache.sizeBytes());
+  }
+
+  /**
+   * Tests that values larger than the capacity are not cached and replacing a value updates the
+   * total weight.
+   */
+  @Test
+  public void testOversizedAndReplacedValues() {
+    ByteCache cache = new ByteCache(100);
+    cache.put("big", new byte[101]);
+    assertNull(cache.get("big"));
+
+    cache.put("a", new byte[30]);
+    cache.put("a", new byte[50]);
+    assertEquals(1, cache.size());
+    assertEquals(50, cache.sizeBytes());
+
+    cache.clear();
+    assertEquals(0, cache.size());
+    assertEquals(0, cache.sizeBytes());
+  }
+}
@@ -0,0 +1,54 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.handlers.CompressionFilter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the CompressionFilter class, verifying content negotiation and that compressed
+ * bodies decode back to the original bytes.
+ */
+public class TestCompressionFilter {
+
+  /**
+   * Tests the encoding chosen for a range of Accept-Encoding headers.
+   */
+  @Test
+  public void testNegotiate() {
+    assertNull(CompressionFilter.negotiate(null));
+    assertNull(CompressionFilter.negotiate("identity"));
+    assertEquals("gzip", CompressionFilter.negotiate("gzip, deflate, br"));
+    assertEquals("deflate", CompressionFilter.negotiate("deflate"));
+    assertEquals("deflate", CompressionFilter.negotiate("gzip;q=0.5, deflate"));
+    assertNull(CompressionFilter.negotiate("gzip;q=0"));
+    assertEquals("gzip", CompressionFilter.negotiate("*"));
+    assertEquals("deflate", CompressionFilter.negotiate("*, gzip;q=0"));
+  }
+
+  /**
+   * Tests that gzip and deflate bodies decompress to the original bytes.
+   *
+   * @throws IOException if compression or decompression fails
+   */
+  @Test
+  public void testCompressRoundTrip() throws IOException {
+    byte[] body =
+        "{\"type\":\"FeatureCollection\",\"features\":[]}".repeat(50).getBytes(StandardCharsets.UTF_8);
+
+    byte[] gzipped = CompressionFilter.compress(body, "gzip");
+    assertTrue(gzipped.length < body.length);
+    assertArrayEquals(
+        body, new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes());
+
+    byte[] deflated = CompressionFilter.compress(body, "deflate");
+    assertTrue(deflated.length < body.length);
+    assertArrayEquals(
+        body, new InflaterInputStream(new ByteArrayInputStream(deflated)).readAllBytes());
+  }
+}
@@ -0,0 +1,158 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.CoordinateStore;
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the CoordinateStore class, verifying that datasets whose vertices live in
+ * direct buffers or in a mapped snapshot encode, filter and measure exactly like datasets whose
+ * vertices live on the heap.
+ */
+public class TestCoordinateStore {
+
+  /**
+   * Creates a city, whose blocks include polygons with holes and in several parts, with one
+   * block whose geometry was lost.
+   *
+   * @return The collection.
+   */
+  private static GeoMapCollection createCollection() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.get(17).geometry = null;
+    return collection;
+  }
+
+  /**
+   * Builds options with a given coordinate store.
+   *
+   * @param kind Where to keep the vertices.
+   * @return The options.
+   */
+  private static DatasetOptions options(CoordinateStore.Kind kind) {
+    DatasetOptions options = new DatasetOptions();
+    options.coordinates = kind;
+    return options;
+  }
+
+  /**
+   * Checks that a dataset answers like a dataset of the same collection kept on the heap.
+   *
+   * @param expected The heap dataset.
+   * @param actual The dataset to check.
+   */
+  private static void assertSameAnswers(GeoDataset expected, GeoDataset actual) {
+    GeoMapAdapter adapter = new GeoMapAdapter();
+    assertEquals(adapter.toJson(expected.collection), adapter.toJson(actual.collection));
+    double hair = 1e-9;
+    double[][] boxes = {
+      {CityFixture.west(0), CityFixture.west(12), CityFixture.south(0), CityFixture.south(10)},
+      {CityFixture.west(3), CityFixture.west(6), CityFixture.south(4), CityFixture.south(7)},
+      {
+        CityFixture.west(3) + hair,
+        CityFixture.west(6) - hair,
+        CityFixture.south(4) + hair,
+        CityFixture.south(7) - hair
+      },
+      {
+        CityFixture.west(3) + CityFixture.BLOCK / 2,
+        CityFixture.west(6) + CityFixture.BLOCK / 2,
+        CityFixture.south(4) + CityFixture.BLOCK / 2,
+        CityFixture.south(7) + CityFixture.BLOCK / 2
+      }
+    };
+    for (double[] box : boxes) {
+      assertEquals(
+          adapter.toJson(
+              GeoFilter.filterByBoundingBox(expected.collection, box[0], box[1], box[2], box[3])),
+          adapter.toJson(
+              GeoFilter.filterByBoundingBox(actual.collection, box[0], box[1], box[2], box[3])));
+    }
+    for (double[] point : CityFixture.points()) {
+      for (int i = 0; i < expected.collection.features.size(); i++) {
+        assertEquals(
+            expected.distanceKm(i, point[0], point[1]), actual.distanceKm(i, point[0], point[1]));
+      }
+    }
+  }
+
+  /**
+   * Counts the bytes of vertex coordinates of every detail level of a collection, and checks
+   * that none of them is on the heap.
+   *
+   * @param collection The collection.
+   * @return The number of bytes.
+   */
+  private static long offHeapBytes(GeoMapCollection collection) {
+    long bytes = 0;
+    for (GeoMap feature : collection.features) {
+      if (feature.detailLevels == null) {
+        continue;
+      }
+      for (PackedGeometry level : feature.detailLevels) {
+        assertFalse(level.isOnHeap());
+        bytes += 16L * level.vertexCount();
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Tests that a dataset with its vertices in direct buffers holds none of them on the heap and
+   * answers like a heap dataset.
+   */
+  @Test
+  public void testDirect() {
+    GeoDataset heap = new GeoDataset(createCollection(), options(CoordinateStore.Kind.HEAP));
+    GeoDataset direct = new GeoDataset(createCollection(), options(CoordinateStore.Kind.DIRECT));
+
+    assertEquals(heap.version, direct.version);
+    assertEquals(0L, heap.coordinateStore.stats().get("direct_bytes"));
+    assertEquals(
+        offHeapBytes(direct.collection), direct.coordinateStore.stats().get("direct_bytes"));
+    assertEquals(0L, direct.coordinateStore.stats().get("mapped_bytes"));
+    assertSameAnswers(heap, direct);
+  }
+
+  /**
+   * Tests that a dataset opened from a snapshot with a mapped store reads its vertices in place,
+   * and that the first load, without a snapshot yet, falls back to direct buffers.
+   *
+   * @param directory A temporary directory.
+   * @throws IOException If a file cannot be written or read.
+   */
+  @Test
+  public void testMapped(@TempDir Path directory) throws IOException {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    Files.writeString(
+        source, new GeoMapAdapter().toJson(createCollection()), StandardCharsets.UTF_8);
+    GeoDataset heap = new GeoDataset(createCollection(), options(CoordinateStore.Kind.HEAP));
+
+    DatasetOptions mapped = options(CoordinateStore.Kind.MAPPED);
+    GeoDataset first = DatasetSnapshot.load(source, snapshot, mapped);
+    assertEquals(
+        offHeapBytes(first.collection), first.coordinateStore.stats().get("direct_bytes"));
+    assertSameAnswers(heap, first);
+
+    GeoDataset opened = DatasetSnapshot.open(snapshot, source, mapped);
+    assertEquals(0L, opened.coordinateStore.stats().get("direct_bytes"));
+    assertEquals(
+        offHeapBytes(opened.collection), opened.coordinateStore.stats().get("mapped_bytes"));
+    assertSameAnswers(heap, opened);
+  }
+}
@@ -0,0 +1,267 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.Completion;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.SearchHit;
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the DatasetSnapshot class, verifying that a dataset opened from a snapshot is
+ * the dataset that was written, and that stale or corrupt snapshots are rejected.
+ */
+public class TestDatasetSnapshot {
+
+  /**
+   * Creates a city with the gaps real maps have: blocks without a city or a neighborhood id, a
+   * block whose geometry was lost and one without properties. Some blocks have a note in
+   * French, and one is bounded by a curving parkway, so its coarser detail levels drop vertices.
+   *
+   * @return The collection.
+   */
+  private static GeoMapCollection createCollection() {
+    GeoMapCollection collection = CityFixture.create();
+    for (int i = 0; i < collection.features.size(); i++) {
+      Property property = collection.features.get(i).properties;
+      if (i % 11 == 0) {
+        property.city = null;
+      }
+      if (i % 3 == 0) {
+        property.neighborhood_id = null;
+      }
+      if (i % 4 == 1) {
+        property.area_description_data.put("9", "Houses near école Saint-Jean");
+      }
+    }
+    collection.features.get(7).geometry = null;
+    collection.features.get(8).properties = null;
+
+    double centerLon = CityFixture.west(9) + CityFixture.BLOCK / 2;
+    double centerLat = CityFixture.south(9) + CityFixture.BLOCK / 2;
+    List<List<Double>> ring = new ArrayList<>();
+    for (int v = 0; v < 40; v++) {
+      double angle = 2 * Math.PI * v / 40;
+      double radius = CityFixture.BLOCK / 2 * (v % 2 == 0 ? 1 : 0.9);
+      ring.add(List.of(centerLon + radius * Math.cos(angle), centerLat + radius * Math.sin(angle)));
+    }
+    ring.add(ring.get(0));
+    collection.features.get(CityFixture.ordinal(9, 9)).geometry.coordinates =
+        List.of(List.of(ring));
+    return collection;
+  }
+
+  /**
+   * Writes a collection as GeoJSON.
+   *
+   * @param collection The collection.
+   * @param file The file to write.
+   * @throws IOException If the file cannot be written.
+   */
+  private static void writeJson(GeoMapCollection collection, Path file) throws IOException {
+    Files.writeString(file, new GeoMapAdapter().toJson(collection), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Tests that a dataset opened from a snapshot encodes to the same JSON, with the same version,
+   * detail levels and size estimates, as the dataset the snapshot was written from.
+   *
+   * @param directory A temporary directory.
+   * @throws IOException If a file cannot be written or read.
+   */
+  @Test
+  public void testRoundTrip(@TempDir Path directory) throws IOException {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeJson(createCollection(), source);
+    GeoDataset written = DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+    assertTrue(Files.exists(snapshot));
+
+    GeoDataset read = DatasetSnapshot.open(snapshot, source, new DatasetOptions());
+    GeoMapAdapter adapter = new GeoMapAdapter();
+    assertEquals(adapter.toJson(written.collection), adapter.toJson(read.collection));
+    assertEquals(written.version, read.version);
+    for (int i = 0; i < written.collection.features.size(); i++) {
+      GeoMap before = written.collection.features.get(i);
+      GeoMap after = read.collection.features.get(i);
+      assertArrayEquals(before.encodedSizes, after.encodedSizes);
+      if (before.detailLevels == null) {
+        assertNull(after.detailLevels);
+        continue;
+      }
+      assertEquals(before.detailLevels.length, after.detailLevels.length);
+      for (int level = 0; level < before.detailLevels.length; level++) {
+        PackedGeometry expected = before.detailLevels[level];
+        PackedGeometry actual = after.detailLevels[level];
+        assertEquals(expected.vertexCount(), actual.vertexCount());
+        assertArrayEquals(expected.polygonOffsets, actual.polygonOffsets);
+        for (int v = 0; v < expected.vertexCount(); v++) {
+          assertEquals(expected.lon(expected.vertexStart() + v), actual.lon(v));
+          assertEquals(expected.lat(expected.vertexStart() + v), actual.lat(v));
+        }
+      }
+    }
+    // The coarsest level of the parkway block was simplified, not copied
+    PackedGeometry[] parkway = read.collection.features.get(CityFixture.ordinal(9, 9)).detailLevels;
+    assertTrue(parkway[parkway.length - 1].vertexCount() < parkway[0].vertexCount());
+    assertEquals(
+        written.propertyIndex.lookup("state", "RI").cardinality(),
+        read.propertyIndex.lookup("state", "RI").cardinality());
+  }
+
+  /**
+   * Tests that the text indexes and compressed descriptions read from a snapshot answer searches
+   * exactly like the ones built from the GeoJSON, and that a snapshot of uncompressed
+   * descriptions is not used when compression is asked for.
+   *
+   * @param directory A temporary directory.
+   * @throws IOException If a file cannot be written or read.
+   */
+  @Test
+  public void testIndexesRoundTrip(@TempDir Path directory) throws IOException {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeJson(createCollection(), source);
+    GeoDataset written = DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+    GeoDataset read = DatasetSnapshot.open(snapshot, source, new DatasetOptions());
+
+    assertNotNull(read.descriptionCodec);
+    assertEquals(
+        written.descriptionCodec.stats().get("compressed_bytes"),
+        read.descriptionCodec.stats().get("compressed_bytes"));
+    for (String keyword : List.of("école", "brick", "near é", "zzz")) {
+      assertArrayEquals(
+          written.trigramIndex.candidates(keyword).toArray(),
+          read.trigramIndex.candidates(keyword).toArray());
+      assertArrayEquals(
+          written.fieldIndexes.keywordMatches(written.collection, keyword, Set.of("1a", "2")),
+          read.fieldIndexes.keywordMatches(read.collection, keyword, Set.of("1a", "2")));
+    }
+    for (String query : List.of("houses near", "brick frame 12", "Hope 7")) {
+      assertHitsEqual(written.textIndex.search(query, 10), read.textIndex.search(query, 10));
+      Map<String, Double> weights = FieldIndexes.parseWeights("1a^2,2");
+      assertHitsEqual(
+          written.fieldIndexes.search(query, weights, 10),
+          read.fieldIndexes.search(query, weights, 10));
+    }
+    for (String prefix : List.of("", "b", "ho", "1")) {
+      List<Completion> expected = written.termDictionary.complete(prefix, 5);
+      List<Completion> actual = read.termDictionary.complete(prefix, 5);
+      assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        assertEquals(expected.get(i).term, actual.get(i).term);
+        assertEquals(expected.get(i).count, actual.get(i).count);
+      }
+    }
+
+    DatasetOptions uncompressed = new DatasetOptions();
+    uncompressed.compressDescriptions = false;
+    assertThrows(IOException.class, () -> DatasetSnapshot.open(snapshot, source, uncompressed));
+    GeoDataset plain = DatasetSnapshot.load(source, snapshot, uncompressed);
+    GeoDataset reopened = DatasetSnapshot.open(snapshot, source, uncompressed);
+    assertNull(reopened.descriptionCodec);
+    GeoMapAdapter adapter = new GeoMapAdapter();
+    assertEquals(adapter.toJson(plain.collection), adapter.toJson(reopened.collection));
+  }
+
+  /**
+   * Checks that two lists of search hits name the same features with the same scores.
+   *
+   * @param expected The expected hits.
+   * @param actual The actual hits.
+   */
+  private static void assertHitsEqual(List<SearchHit> expected, List<SearchHit> actual) {
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertEquals(expected.get(i).ordinal, actual.get(i).ordinal);
+      assertEquals(expected.get(i).score, actual.get(i).score);
+    }
+  }
+
+  /**
+   * Tests that a snapshot is rejected once its GeoJSON file changes, when the feature order
+   * option differs, and when it is corrupt, and that loading then rebuilds it from the GeoJSON.
+   *
+   * @param directory A temporary directory.
+   * @throws IOException If a file cannot be written or read.
+   */
+  @Test
+  public void testStaleAndCorrupt(@TempDir Path directory) throws IOException {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    GeoMapCollection collection = createCollection();
+    writeJson(collection, source);
+    DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+
+    DatasetOptions hilbert = new DatasetOptions();
+    hilbert.hilbertOrder = true;
+    assertThrows(IOException.class, () -> DatasetSnapshot.open(snapshot, source, hilbert));
+
+    collection.features.remove(0);
+    writeJson(collection, source);
+    Files.setLastModifiedTime(source, FileTime.fromMillis(System.currentTimeMillis() + 5000));
+    assertThrows(
+        IOException.class, () -> DatasetSnapshot.open(snapshot, source, new DatasetOptions()));
+    GeoDataset reloaded = DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+    assertEquals(collection.features.size(), reloaded.collection.features.size());
+    GeoDataset reopened = DatasetSnapshot.open(snapshot, source, new DatasetOptions());
+    assertEquals(collection.features.size(), reopened.collection.features.size());
+
+    byte[] bytes = Files.readAllBytes(snapshot);
+    Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+    assertThrows(
+        IOException.class, () -> DatasetSnapshot.open(snapshot, source, new DatasetOptions()));
+    Files.write(snapshot, new byte[] {1, 2, 3});
+    assertThrows(
+        IOException.class, () -> DatasetSnapshot.open(snapshot, source, new DatasetOptions()));
+  }
+
+  /**
+   * Tests that a snapshot stamped with the GeoJSON file as it was read is rejected once the file
+   * changes, as when the file is replaced while it is being parsed, and that the next load then
+   * parses the new file instead of serving the old data.
+   *
+   * @param directory A temporary directory.
+   * @throws IOException If a file cannot be written or read.
+   */
+  @Test
+  public void testChangeDuringParse(@TempDir Path directory) throws IOException {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    GeoMapCollection collection = createCollection();
+    writeJson(collection, source);
+    long sizeWhenRead = Files.size(source);
+    long modifiedWhenRead = Files.getLastModifiedTime(source).toMillis();
+    GeoDataset parsed = new GeoDataset(createCollection(), new DatasetOptions());
+
+    // The file is replaced after it was read but before the snapshot is written
+    collection.features.remove(0);
+    writeJson(collection, source);
+    Files.setLastModifiedTime(source, FileTime.fromMillis(modifiedWhenRead + 5000));
+    DatasetSnapshot.write(parsed, snapshot, sizeWhenRead, modifiedWhenRead);
+
+    assertThrows(
+        IOException.class, () -> DatasetSnapshot.open(snapshot, source, new DatasetOptions()));
+    GeoDataset reloaded = DatasetSnapshot.load(source, snapshot, new DatasetOptions());
+    assertEquals(collection.features.size(), reloaded.collection.features.size());
+  }
+}
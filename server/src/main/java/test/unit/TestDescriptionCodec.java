@@ -0,0 +1,140 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.CompressedDescriptions;
+import edu.brown.cs.student.main.server.mapCollection.DescriptionCodec;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the DescriptionCodec class, verifying that compressed area descriptions read and
+ * encode exactly like the maps they replace.
+ */
+public class TestDescriptionCodec {
+
+  /**
+   * Creates a city whose descriptions also hold the cases the codec must keep: blocks whose form
+   * was never filled in, forms transcribed in another order, fields left empty or null, and
+   * accented and typographic characters.
+   *
+   * @return The collection.
+   */
+  private static GeoMapCollection createCollection() {
+    GeoMapCollection collection = CityFixture.create();
+    for (int i = 0; i < collection.features.size(); i++) {
+      Property property = collection.features.get(i).properties;
+      if (i % 17 == 0) {
+        property.area_description_data = null;
+        continue;
+      }
+      if (i % 2 == 1) {
+        // Keys in another order, so the order of each map must be kept
+        List<Map.Entry<String, String>> entries =
+            new ArrayList<>(property.area_description_data.entrySet());
+        Collections.reverse(entries);
+        property.area_description_data = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : entries) {
+          property.area_description_data.put(entry.getKey(), entry.getValue());
+        }
+      }
+      if (i % 7 == 3) {
+        property.area_description_data.put("9", "École Saint-Jean — église, 1920s");
+      }
+      if (i % 5 == 0) {
+        property.area_description_data.put("empty", i % 10 == 0 ? "" : null);
+      }
+    }
+    return collection;
+  }
+
+  /**
+   * Tests that every compressed map holds the same entries in the same order as before, and that
+   * the collection encodes to the same JSON.
+   */
+  @Test
+  public void testRoundTrip() {
+    GeoMapCollection collection = createCollection();
+    GeoMapAdapter adapter = new GeoMapAdapter();
+    String json = adapter.toJson(collection);
+    List<Map<String, String>> originals = new ArrayList<>();
+    for (GeoMap feature : collection.features) {
+      originals.add(feature.properties.area_description_data);
+    }
+
+    DescriptionCodec.compress(collection);
+    for (int i = 0; i < collection.features.size(); i++) {
+      Map<String, String> original = originals.get(i);
+      Map<String, String> compressed = collection.features.get(i).properties.area_description_data;
+      if (original == null) {
+        assertNull(compressed);
+        continue;
+      }
+      assertTrue(compressed instanceof CompressedDescriptions);
+      assertEquals(original, compressed);
+      assertEquals(new ArrayList<>(original.keySet()), new ArrayList<>(compressed.keySet()));
+      assertEquals(original.get("empty"), compressed.get("empty"));
+      assertEquals(original.containsKey("empty"), compressed.containsKey("empty"));
+    }
+    assertEquals(json, adapter.toJson(collection));
+  }
+
+  /**
+   * Tests that repeated reads are served from the cache of decompressed maps, that the
+   * descriptions shrink, and that compressed maps cannot be modified.
+   */
+  @Test
+  public void testCacheAndSize() {
+    GeoMapCollection collection = createCollection();
+    DescriptionCodec codec = DescriptionCodec.compress(collection);
+    Map<String, String> descriptions = collection.features.get(1).properties.area_description_data;
+
+    descriptions.get("1a");
+    descriptions.get("2");
+    descriptions.values();
+    Map<String, Object> stats = codec.stats();
+    assertEquals(1L, stats.get("misses"));
+    assertEquals(2L, stats.get("hits"));
+    assertTrue((long) stats.get("compressed_bytes") * 2 < (long) stats.get("uncompressed_bytes"));
+
+    assertThrows(UnsupportedOperationException.class, () -> descriptions.put("1a", "x"));
+    assertThrows(UnsupportedOperationException.class, () -> descriptions.values().clear());
+  }
+
+  /**
+   * Tests that compressing a collection again reuses its codec instead of training another one,
+   * and that a second dataset over the same collection shares the first one's codec.
+   */
+  @Test
+  public void testCompressTwice() {
+    GeoMapCollection collection = createCollection();
+    DescriptionCodec codec = DescriptionCodec.compress(collection);
+    long compressedBytes = (long) codec.stats().get("compressed_bytes");
+
+    assertSame(codec, DescriptionCodec.compress(collection));
+    assertEquals(compressedBytes, codec.stats().get("compressed_bytes"));
+
+    // The dataset's indexes, like the keyword filter, expect every description to be a string
+    GeoMapCollection shared = createCollection();
+    for (GeoMap feature : shared.features) {
+      if (feature.properties.area_description_data != null) {
+        feature.properties.area_description_data.values().removeIf(Objects::isNull);
+      }
+    }
+    GeoDataset first = new GeoDataset(shared);
+    assertSame(first, GeoDataset.of(shared));
+    GeoDataset second = new GeoDataset(shared);
+    assertSame(first.descriptionCodec, second.descriptionCodec);
+    assertTrue((long) second.descriptionCodec.stats().get("compressed_bytes") > 0);
+  }
+}
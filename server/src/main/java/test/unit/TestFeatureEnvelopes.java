@@ -0,0 +1,176 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the FeatureEnvelopes class, verifying the computed envelopes and that filtering
+ * by envelope matches filtering by vertex.
+ */
+public class TestFeatureEnvelopes {
+
+  /**
+   * Tests the envelope of a feature and the containment and overlap checks against it.
+   */
+  @Test
+  public void testEnvelope() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(createTriangle(-71.4, 41.8, 0.1));
+    GeoMap noGeometry = new GeoMap();
+    collection.features.add(noGeometry);
+
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(collection);
+    assertEquals(2, envelopes.size());
+    assertEquals(-71.4, envelopes.minLons[0], 1e-12);
+    assertEquals(-71.3, envelopes.maxLons[0], 1e-12);
+    assertEquals(41.8, envelopes.minLats[0], 1e-12);
+    assertEquals(41.9, envelopes.maxLats[0], 1e-12);
+
+    assertTrue(envelopes.isWithin(0, -71.4, -71.3, 41.8, 41.9));
+    assertFalse(envelopes.isWithin(0, -71.35, -71.3, 41.8, 41.9));
+    assertTrue(envelopes.intersects(0, -71.35, -71.0, 41.85, 42.0));
+    assertFalse(envelopes.intersects(0, -71.2, -71.0, 41.8, 41.9));
+
+    // A feature without geometry is never inside or overlapping any box
+    assertFalse(envelopes.isWithin(1, -180, 180, -90, 90));
+    assertFalse(envelopes.intersects(1, -180, 180, -90, 90));
+  }
+
+  /**
+   * Tests the envelopes of the shapes whose envelope is not simply their outer ring: a hole
+   * leaves the envelope of its shell, a multipolygon spans all its parts, and a polygon without
+   * vertices has no envelope at all.
+   */
+  @Test
+  public void testEnvelopeOfHoleAndParts() {
+    double west = CityFixture.west(3);
+    double south = CityFixture.south(4);
+    double quarter = CityFixture.BLOCK / 4;
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    GeoMap hole = new GeoMap();
+    hole.geometry = CityFixture.geometry(CityFixture.Shape.HOLE, west, south);
+    collection.features.add(hole);
+    GeoMap parts = new GeoMap();
+    parts.geometry = CityFixture.geometry(CityFixture.Shape.MULTIPART, west, south);
+    collection.features.add(parts);
+    GeoMap empty = new GeoMap();
+    empty.geometry = new Geometry();
+    empty.geometry.coordinates = List.of(List.of(List.of()));
+    collection.features.add(empty);
+
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(collection);
+    for (int i = 0; i < 2; i++) {
+      assertEquals(west, envelopes.minLons[i]);
+      assertEquals(CityFixture.west(4), envelopes.maxLons[i]);
+      assertEquals(south, envelopes.minLats[i]);
+      assertEquals(CityFixture.south(5), envelopes.maxLats[i]);
+    }
+    // A box inside the hole, or between the two parts, overlaps the envelope but holds nothing
+    double[] middle = {west + quarter, west + 3 * quarter, south + quarter, south + 3 * quarter};
+    assertTrue(envelopes.intersects(0, middle[0], middle[1], middle[2], middle[3]));
+    assertFalse(envelopes.isWithin(0, middle[0], middle[1], middle[2], middle[3]));
+    assertTrue(envelopes.intersects(1, middle[0], middle[1], middle[2], middle[3]));
+    // A box around only one part of the multipolygon misses the other
+    assertFalse(envelopes.isWithin(1, west, west + quarter, south, south + quarter));
+
+    assertFalse(Double.isFinite(envelopes.minLons[2]));
+  }
+
+  /**
+   * Tests that box edges are inclusive: a box drawn exactly on the edges of a block holds it, and
+   * the same box shrunk by a hair only holds the blocks that do not reach the edges of their
+   * cell.
+   */
+  @Test
+  public void testBoxEdgesAreInclusive() {
+    GeoMapCollection city = CityFixture.create();
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(city);
+    for (int row = 0; row < CityFixture.ROWS; row++) {
+      for (int column = 0; column < CityFixture.COLUMNS; column++) {
+        int ordinal = CityFixture.ordinal(column, row);
+        double minLon = CityFixture.west(column);
+        double maxLon = CityFixture.west(column + 1);
+        double minLat = CityFixture.south(row);
+        double maxLat = CityFixture.south(row + 1);
+        assertTrue(envelopes.isWithin(ordinal, minLon, maxLon, minLat, maxLat));
+        double hair = 1e-9;
+        assertEquals(
+            CityFixture.shape(column, row) == CityFixture.Shape.INSET,
+            envelopes.isWithin(ordinal, minLon + hair, maxLon - hair, minLat + hair, maxLat - hair),
+            column + "," + row);
+
+        // A box that only touches the east edge of the cell still overlaps the blocks reaching it
+        assertEquals(
+            CityFixture.shape(column, row) != CityFixture.Shape.INSET,
+            envelopes.intersects(ordinal, maxLon, maxLon + 1, minLat, maxLat),
+            column + "," + row);
+      }
+    }
+  }
+
+  /**
+   * Tests that filtering by envelope keeps exactly the features the vertex walk keeps, for both
+   * packed and unpacked features, over boxes on, inside and across the edges of the blocks of a
+   * city.
+   */
+  @Test
+  public void testEnvelopeFilterMatchesVertexFilter() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(createTriangle(-71.4, 41.8, 0.1));
+    collection.features.add(new GeoMap());
+    FeatureEnvelopes unpacked = new FeatureEnvelopes(collection);
+    GeometrySimplifier.precompute(collection);
+    FeatureEnvelopes packed = new FeatureEnvelopes(collection);
+
+    for (double[] box : CityFixture.boxes()) {
+      List<GeoMap> expected =
+          GeoFilter.filterByBoundingBox(collection, box[0], box[1], box[2], box[3]).features;
+      assertEquals(
+          expected,
+          GeoFilter.filterByBoundingBox(collection, packed, box[0], box[1], box[2], box[3])
+              .features);
+      assertEquals(
+          expected,
+          GeoFilter.filterByBoundingBox(collection, unpacked, box[0], box[1], box[2], box[3])
+              .features);
+    }
+  }
+
+  /**
+   * Creates a feature whose single ring is a right triangle.
+   *
+   * @param lon The longitude of the right-angle corner.
+   * @param lat The latitude of the right-angle corner.
+   * @param size The length of the two short sides, in degrees.
+   * @return The feature.
+   */
+  private GeoMap createTriangle(double lon, double lat, double size) {
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates =
+        List.of(
+            List.of(
+                List.of(
+                    List.of(lon, lat),
+                    List.of(lon + size, lat),
+                    List.of(lon, lat + size),
+                    List.of(lon, lat))));
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    return geoMap;
+  }
+}
@@ -0,0 +1,115 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.FieldIndexes;
+import edu.brown.cs.student.main.server.index.SearchHit;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the FieldIndexes class, verifying field-scoped keyword search and ranking against
+ * scans and single-field indexes.
+ */
+public class TestFieldIndexes {
+
+  /**
+   * Creates a city, with one block whose properties were lost.
+   *
+   * @return The collection.
+   */
+  private static GeoMapCollection createCollection() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.get(CityFixture.ordinal(4, 4)).properties = null;
+    return collection;
+  }
+
+  /**
+   * Tests field selections, their default and explicit weights, and malformed selections.
+   */
+  @Test
+  public void testParseWeights() {
+    assertEquals(Map.of("desc", 1.0), FieldIndexes.parseWeights("desc"));
+    assertEquals(Map.of("1a", 2.0, "1b", 1.0), FieldIndexes.parseWeights("1b, 1a^2"));
+    assertEquals(Map.of("1a", 0.5), FieldIndexes.parseWeights("1a^0.5"));
+    for (String spec : new String[] {"", ",", "1a,", "1a^0", "1a^-1", "1a^x", "1a^", "1a,1a"}) {
+      assertThrows(IllegalArgumentException.class, () -> FieldIndexes.parseWeights(spec), spec);
+    }
+  }
+
+  /**
+   * Tests that field-scoped keyword matches are exactly the features with the keyword in one of
+   * the fields, including keywords shorter than a trigram and fields no feature uses.
+   */
+  @Test
+  public void testKeywordMatchesScan() {
+    GeoMapCollection collection = createCollection();
+    FieldIndexes indexes = new FieldIndexes(collection);
+    List<Set<String>> selections =
+        List.of(Set.of("1a"), Set.of("8"), Set.of("2", "3"), Set.of("missing", "3"));
+    for (Set<String> fields : selections) {
+      for (String keyword : new String[] {"park", "mill", "ar", "k s", "frame houses", "zzz"}) {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < collection.features.size(); i++) {
+          GeoMap feature = collection.features.get(i);
+          if (feature.properties == null) {
+            continue;
+          }
+          for (String field : fields) {
+            String description = feature.properties.area_description_data.get(field);
+            if (description != null && description.contains(keyword)) {
+              expected.add(i);
+              break;
+            }
+          }
+        }
+        List<Integer> actual = new ArrayList<>();
+        for (int i : indexes.keywordMatches(collection, keyword, fields)) {
+          actual.add(i);
+        }
+        assertEquals(expected, actual, fields + " " + keyword);
+      }
+    }
+  }
+
+  /**
+   * Tests that a weighted top-k search across fields returns the best weighted sums of the
+   * features' scores in each field's own index.
+   */
+  @Test
+  public void testWeightedSearchMatchesSum() {
+    GeoMapCollection collection = createCollection();
+    FieldIndexes indexes = new FieldIndexes(collection);
+    Map<String, Double> weights = Map.of("2", 3.0, "8", 1.0);
+    Map<String, Bm25Index> single =
+        Map.of("2", new Bm25Index(collection, "2"), "8", new Bm25Index(collection, "8"));
+
+    for (String query : new String[] {"mills", "brick stone", "park schools churches"}) {
+      Map<Integer, Double> expected = new HashMap<>();
+      for (Map.Entry<String, Double> entry : weights.entrySet()) {
+        for (SearchHit hit : single.get(entry.getKey()).search(query, collection.features.size())) {
+          expected.merge(hit.ordinal, hit.score * entry.getValue(), Double::sum);
+        }
+      }
+      List<Double> best = new ArrayList<>(expected.values());
+      best.sort((a, b) -> Double.compare(b, a));
+
+      for (int k : new int[] {1, 10, 100}) {
+        List<SearchHit> top = indexes.search(query, weights, k);
+        assertEquals(Math.min(k, best.size()), top.size(), query);
+        for (int i = 0; i < top.size(); i++) {
+          assertEquals(best.get(i), top.get(i).score, 1e-9, query + " k=" + k);
+          assertEquals(expected.get(top.get(i).ordinal), top.get(i).score, 1e-9);
+        }
+      }
+    }
+    assertEquals(List.of(), indexes.search("mills", Map.of("missing", 1.0), 10));
+  }
+}
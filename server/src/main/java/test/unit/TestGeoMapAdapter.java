@@ -9,6 +9,7 @@ import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
 import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
 import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -91,6 +92,119 @@ public class TestGeoMapAdapter {
     assertEquals(0, result.features.size());
   }
 
+  /**
+   * Tests that decoding the features of a document in parallel batches gives the same collection
+   * as decoding it as a whole, including when strings contain brackets, braces, escaped quotes,
+   * multi-byte characters or a nested "features" key, and when keys follow the features array.
+   *
+   * @throws IOException if an I/O error occurs during JSON processing
+   */
+  @Test
+  public void testFromJson_ParallelBatches() throws IOException {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    String[] names = {
+      "a [b] {c}", "quote \" and \\ slash", "Coeur d\u2019Al\u00e8ne \ud83d\uddfa", "features"
+    };
+    for (int i = 0; i < 200; i++) {
+      collection.features.add(createMockGeoMap(names[i % names.length] + " " + i, "]}" + i));
+    }
+    String json = geoMapAdapter.toJson(collection);
+    // A key after the features array, and an unknown nested features key in every feature
+    json = json.substring(0, json.length() - 1) + ",\"bbox\":[-71,41,-70,42]}";
+    json =
+        json.replace(
+            "\"type\":\"Feature\"", "\"features\":[{\"x\":[1]}],\"type\":\"Feature\"");
+    byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+    String expected = geoMapAdapter.toJson(geoMapAdapter.fromJson(json));
+    assertEquals(expected, geoMapAdapter.toJson(geoMapAdapter.fromJson(bytes, 1)));
+    assertEquals(expected, geoMapAdapter.toJson(geoMapAdapter.fromJson(bytes, 4096)));
+    assertEquals(expected, geoMapAdapter.toJson(geoMapAdapter.fromJson(bytes)));
+    assertEquals(200, geoMapAdapter.fromJson(bytes, 1).features.size());
+  }
+
+  /**
+   * Tests that documents the feature scan does not split, such as ones with an empty or null
+   * feature, still decode like they do as a whole, and that malformed features are rejected.
+   *
+   * @throws IOException if an I/O error occurs during JSON processing
+   */
+  @Test
+  public void testFromJson_ParallelFallbackAndErrors() throws IOException {
+    String[] documents = {
+      "{}",
+      "{\"type\":\"FeatureCollection\",\"features\":[]}",
+      "{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\"},null]}",
+      "{\"features\":[{\"type\":\"A\"}],\"features\":[{\"type\":\"B\"}]}"
+    };
+    for (String document : documents) {
+      assertEquals(
+          geoMapAdapter.toJson(geoMapAdapter.fromJson(document)),
+          geoMapAdapter.toJson(
+              geoMapAdapter.fromJson(document.getBytes(StandardCharsets.UTF_8), 1)));
+    }
+
+    byte[] malformed =
+        "{\"features\":[{\"type\":\"Feature\"},{\"type\":\"Feature\" \"geometry\":1}]}"
+            .getBytes(StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> geoMapAdapter.fromJson(malformed, 1));
+    byte[] trailing = "{\"features\":[]} {}".getBytes(StandardCharsets.UTF_8);
+    assertThrows(IOException.class, () -> geoMapAdapter.fromJson(trailing, 1));
+  }
+
+  /**
+   * Tests that a features array with a missing, doubled, leading or trailing comma is rejected
+   * whether its features fall into one batch or one batch each, as a whole-document decode
+   * rejects it.
+   */
+  @Test
+  public void testFromJson_MalformedSeparators() {
+    String feature = "{\"type\":\"Feature\"}";
+    String[] arrays = {
+      feature + "," + feature + ",",
+      "," + feature + "," + feature,
+      feature + feature,
+      feature + "," + feature + " " + feature,
+      feature + ",," + feature,
+      feature + ", ," + feature,
+      ",",
+      feature + ","
+    };
+    for (String array : arrays) {
+      String document = "{\"type\":\"FeatureCollection\",\"features\":[" + array + "]}";
+      byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+      assertThrows(IOException.class, () -> geoMapAdapter.fromJson(document), document);
+      assertThrows(IOException.class, () -> geoMapAdapter.fromJson(bytes, 1), document);
+      assertThrows(IOException.class, () -> geoMapAdapter.fromJson(bytes), document);
+    }
+  }
+
+  /**
+   * Tests that an error in a feature of a later batch names the feature by its index in the whole
+   * features array, as a whole-document decode does.
+   */
+  @Test
+  public void testFromJson_ParallelErrorPaths() {
+    String wrongType =
+        "{\"features\":[{\"type\":\"Feature\"},{\"type\":\"Feature\"},"
+            + "{\"type\":\"Feature\",\"geometry\":1}]}";
+    String unquoted =
+        "{\"features\":[{\"type\":\"Feature\"},{\"type\":\"Feature\"},"
+            + "{\"type\":\"Feature\",\"geometry\":{\"type\":x}}]}";
+    for (String document : new String[] {wrongType, unquoted}) {
+      Exception whole = assertThrows(Exception.class, () -> geoMapAdapter.fromJson(document));
+      Exception batched =
+          assertThrows(
+              Exception.class,
+              () -> geoMapAdapter.fromJson(document.getBytes(StandardCharsets.UTF_8), 1));
+      assertTrue(whole.getMessage().contains("$.features[2].geometry"), whole.getMessage());
+      assertEquals(whole.getMessage(), batched.getMessage());
+      assertEquals(whole.getClass(), batched.getClass());
+    }
+  }
+
   /**
    * Creates a mock GeoMapCollection containing two features with different names and keywords.
    *
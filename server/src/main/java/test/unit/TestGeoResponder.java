@@ -0,0 +1,73 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.handlers.GeoResponder;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the GeoResponder class, verifying how ETags are built and matched.
+ */
+public class TestGeoResponder {
+
+  /**
+   * Tests that ETags depend on both the dataset content and the normalized query.
+   */
+  @Test
+  public void testEtagFor() {
+    GeoResponder responder = new GeoResponder(new GeoDataset(createMockGeoMapCollection("a")));
+    GeoResponder sameData = new GeoResponder(new GeoDataset(createMockGeoMapCollection("a")));
+    GeoResponder otherData = new GeoResponder(new GeoDataset(createMockGeoMapCollection("b")));
+
+    String etag = responder.etagFor("getArea?key=park&level=0");
+    assertTrue(etag.startsWith("\"") && etag.endsWith("\""));
+    assertEquals(etag, sameData.etagFor("getArea?key=park&level=0"));
+    assertNotEquals(etag, responder.etagFor("getArea?key=park&level=1"));
+    assertNotEquals(etag, otherData.etagFor("getArea?key=park&level=0"));
+  }
+
+  /**
+   * Tests If-None-Match matching, including lists, wildcards, weak tags and encoded variants.
+   */
+  @Test
+  public void testMatches() {
+    String etag = "\"abc-123\"";
+    assertFalse(GeoResponder.matches(null, etag));
+    assertFalse(GeoResponder.matches("\"other\"", etag));
+    assertTrue(GeoResponder.matches("\"abc-123\"", etag));
+    assertTrue(GeoResponder.matches("\"other\", \"abc-123\"", etag));
+    assertTrue(GeoResponder.matches("*", etag));
+    assertTrue(GeoResponder.matches("W/\"abc-123\"", etag));
+    assertTrue(GeoResponder.matches("\"abc-123-gzip\"", etag));
+    assertTrue(GeoResponder.matches("\"abc-123-deflate\"", etag));
+  }
+
+  /**
+   * Creates a mock collection with a single feature without geometry.
+   *
+   * @param description The area description of the feature.
+   * @return The mock collection.
+   */
+  private GeoMapCollection createMockGeoMapCollection(String description) {
+    Property property = new Property();
+    property.name = "neighborhood1";
+    property.area_description_data = new HashMap<>();
+    property.area_description_data.put("desc", description);
+
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.properties = property;
+
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(geoMap);
+    return collection;
+  }
+}
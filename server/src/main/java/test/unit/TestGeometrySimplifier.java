@@ -0,0 +1,192 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the GeometrySimplifier class, verifying level selection and that simplified
+ * rings stay closed and valid.
+ */
+public class TestGeometrySimplifier {
+
+  /**
+   * Tests that packing and unpacking a geometry preserves its coordinates.
+   */
+  @Test
+  public void testPackRoundTrip() {
+    Geometry geometry = createCircleGeometry(16, 0.01);
+    PackedGeometry packed = PackedGeometry.pack(geometry);
+
+    assertEquals(17, packed.vertexCount());
+    assertEquals(1, packed.ringCount());
+    assertEquals(1, packed.polygonCount());
+    assertEquals(geometry.coordinates, packed.toGeometry().coordinates);
+  }
+
+  /**
+   * Tests that coarser levels never have more vertices than finer ones and that every
+   * simplified ring stays closed with at least four vertices.
+   */
+  @Test
+  public void testLevelsShrinkAndStayClosed() {
+    PackedGeometry packed = PackedGeometry.pack(createCircleGeometry(400, 0.01));
+    PackedGeometry[] levels = GeometrySimplifier.buildLevels(packed);
+
+    assertEquals(GeometrySimplifier.TOLERANCES.length, levels.length);
+    assertSame(packed, levels[0]);
+    for (int level = 1; level < levels.length; level++) {
+      PackedGeometry simplified = levels[level];
+      assertTrue(simplified.vertexCount() <= levels[level - 1].vertexCount());
+      assertTrue(simplified.vertexCount() >= 4);
+      int last = simplified.vertexCount() - 1;
+      assertEquals(simplified.lon(0), simplified.lon(last));
+      assertEquals(simplified.lat(0), simplified.lat(last));
+    }
+    assertTrue(levels[levels.length - 1].vertexCount() < packed.vertexCount() / 10);
+  }
+
+  /**
+   * Tests that a shell is not simplified across a hole lying just inside it. Each ring is valid
+   * on its own at every level, but the coarse levels would cut the shell through the hole.
+   */
+  @Test
+  public void testShellDoesNotCrossHole() {
+    List<List<List<Double>>> polygon =
+        List.of(createCircle(400, 0.01), createCircle(37, 0.0099));
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates = List.of(polygon);
+    PackedGeometry[] levels = GeometrySimplifier.buildLevels(PackedGeometry.pack(geometry));
+
+    for (int level = 1; level < levels.length; level++) {
+      PackedGeometry simplified = levels[level];
+      assertEquals(2, simplified.ringCount());
+      assertFalse(ringsCross(simplified, 0, 1), "level " + level);
+    }
+    assertTrue(levels[1].vertexCount() < levels[0].vertexCount());
+  }
+
+  /**
+   * Tests how zoom and tolerance parameters map to levels.
+   */
+  @Test
+  public void testLevelSelection() {
+    assertEquals(0, GeometrySimplifier.levelFor(null, null));
+    assertEquals(0, GeometrySimplifier.levelFor(null, "0"));
+    assertEquals(1, GeometrySimplifier.levelFor(null, "0.0001"));
+    assertEquals(
+        GeometrySimplifier.TOLERANCES.length - 1, GeometrySimplifier.levelFor(null, "1"));
+    assertEquals(GeometrySimplifier.TOLERANCES.length - 1, GeometrySimplifier.levelFor("3", null));
+    assertEquals(0, GeometrySimplifier.levelFor("22", null));
+  }
+
+  /**
+   * Tests that malformed or conflicting parameters are rejected.
+   */
+  @Test
+  public void testLevelSelection_InvalidParameters() {
+    assertThrows(IllegalArgumentException.class, () -> GeometrySimplifier.levelFor("3", "0.1"));
+    assertThrows(IllegalArgumentException.class, () -> GeometrySimplifier.levelFor("abc", null));
+    assertThrows(IllegalArgumentException.class, () -> GeometrySimplifier.levelFor("99", null));
+    assertThrows(IllegalArgumentException.class, () -> GeometrySimplifier.levelFor(null, "-1"));
+  }
+
+  /**
+   * Tests that level 0 leaves a collection untouched and other levels copy the features.
+   */
+  @Test
+  public void testAtLevel() {
+    GeoMap feature = new GeoMap();
+    feature.type = "Feature";
+    feature.geometry = createCircleGeometry(400, 0.01);
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = List.of(feature);
+
+    assertSame(collection, GeometrySimplifier.atLevel(collection, 0));
+
+    GeoMapCollection simplified = GeometrySimplifier.atLevel(collection, 3);
+    assertEquals(1, simplified.features.size());
+    assertNotSame(feature, simplified.features.get(0));
+    assertEquals("MultiPolygon", simplified.features.get(0).geometry.type);
+    assertTrue(
+        simplified.features.get(0).geometry.coordinates.get(0).get(0).size()
+            < feature.geometry.coordinates.get(0).get(0).size());
+  }
+
+  /**
+   * Creates a multipolygon geometry with a single ring approximating a circle.
+   *
+   * @param points The number of distinct points on the circle.
+   * @param radius The radius in degrees.
+   * @return The geometry.
+   */
+  private Geometry createCircleGeometry(int points, double radius) {
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates = List.of(List.of(createCircle(points, radius)));
+    return geometry;
+  }
+
+  /**
+   * Creates a closed ring approximating a circle.
+   *
+   * @param points The number of distinct points on the circle.
+   * @param radius The radius in degrees.
+   * @return The ring.
+   */
+  private List<List<Double>> createCircle(int points, double radius) {
+    List<List<Double>> ring = new ArrayList<>();
+    for (int i = 0; i <= points; i++) {
+      double angle = 2 * Math.PI * (i % points) / points;
+      ring.add(List.of(-71.4 + radius * Math.cos(angle), 41.8 + radius * Math.sin(angle)));
+    }
+    return ring;
+  }
+
+  /**
+   * Checks whether an edge of one ring of a packed geometry properly crosses an edge of another.
+   *
+   * @param packed The geometry.
+   * @param a The first ring.
+   * @param b The second ring.
+   * @return True if two edges cross.
+   */
+  private boolean ringsCross(PackedGeometry packed, int a, int b) {
+    for (int i = packed.ringOffsets[a]; i < packed.ringOffsets[a + 1] - 1; i++) {
+      for (int j = packed.ringOffsets[b]; j < packed.ringOffsets[b + 1] - 1; j++) {
+        double d1 = side(packed, j, j + 1, i);
+        double d2 = side(packed, j, j + 1, i + 1);
+        double d3 = side(packed, i, i + 1, j);
+        double d4 = side(packed, i, i + 1, j + 1);
+        if (d1 * d2 < 0 && d3 * d4 < 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Computes the cross product that tells which side of the segment from vertex p to vertex q
+   * vertex r lies on.
+   *
+   * @param packed The geometry.
+   * @param p The start of the segment.
+   * @param q The end of the segment.
+   * @param r The vertex to test.
+   * @return The cross product.
+   */
+  private double side(PackedGeometry packed, int p, int q, int r) {
+    return (packed.lon(q) - packed.lon(p)) * (packed.lat(r) - packed.lat(p))
+        - (packed.lat(q) - packed.lat(p)) * (packed.lon(r) - packed.lon(p));
+  }
+}
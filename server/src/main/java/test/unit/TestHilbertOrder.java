@@ -0,0 +1,134 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.HeapVertices;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.HilbertOrder;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the HilbertOrder class, verifying the curve itself and the reordering of a
+ * collection and its packed coordinates.
+ */
+public class TestHilbertOrder {
+
+  /**
+   * Tests that the curve fills the corner of the grid cell by cell, moving to an adjacent cell at
+   * every step.
+   */
+  @Test
+  public void testCurveVisitsAdjacentCells() {
+    Map<Long, int[]> cells = new HashMap<>();
+    for (int x = 0; x < 8; x++) {
+      for (int y = 0; y < 8; y++) {
+        cells.put(HilbertOrder.index(x, y), new int[] {x, y});
+      }
+    }
+    for (long d = 0; d < 64; d++) {
+      assertTrue(cells.containsKey(d));
+      if (d > 0) {
+        int[] previous = cells.get(d - 1);
+        int[] current = cells.get(d);
+        assertEquals(1, Math.abs(previous[0] - current[0]) + Math.abs(previous[1] - current[1]));
+      }
+    }
+  }
+
+  /**
+   * Tests that reordering keeps every feature and its geometry, sorts the curve keys, and packs
+   * each detail level into one shared array.
+   */
+  @Test
+  public void testApplyReordersFeaturesAndCoordinates() {
+    GeoMapCollection collection = CityFixture.create();
+    GeoMap noGeometry = new GeoMap();
+    collection.features.add(0, noGeometry);
+    Map<GeoMap, List<List<List<List<Double>>>>> original = new HashMap<>();
+    for (GeoMap feature : collection.features) {
+      original.put(feature, feature.geometry == null ? null : feature.geometry.coordinates);
+    }
+    GeometrySimplifier.precompute(collection);
+
+    HilbertOrder.apply(collection);
+    long[] keys = HilbertOrder.keys(new FeatureEnvelopes(collection));
+
+    assertEquals(original.keySet(), new HashSet<>(collection.features));
+    for (int i = 1; i < keys.length; i++) {
+      assertTrue(keys[i - 1] <= keys[i]);
+    }
+    // Features without geometry sort last
+    assertSame(noGeometry, collection.features.get(collection.features.size() - 1));
+    assertEquals(HilbertOrder.NO_KEY, keys[keys.length - 1]);
+
+    Set<double[]> sharedArrays = new HashSet<>();
+    int expectedStart = 0;
+    for (GeoMap feature : collection.features) {
+      if (feature.detailLevels == null) {
+        continue;
+      }
+      sharedArrays.add(((HeapVertices) feature.detailLevels[0].vertices).lons);
+      assertEquals(expectedStart, feature.detailLevels[0].vertexStart());
+      expectedStart = feature.detailLevels[0].vertexEnd();
+      assertEquals(original.get(feature), feature.detailLevels[0].toGeometry().coordinates);
+    }
+    assertEquals(1, sharedArrays.size());
+  }
+
+  /**
+   * Tests that the curve visits the quarters of a city one at a time, starting in the south west
+   * and turning north, east and back south, so each quarter's blocks are contiguous.
+   */
+  @Test
+  public void testApplyVisitsQuarters() {
+    GeoMapCollection collection = CityFixture.create();
+    GeometrySimplifier.precompute(collection);
+    HilbertOrder.apply(collection);
+
+    int halfColumns = CityFixture.COLUMNS / 2;
+    int halfRows = CityFixture.ROWS / 2;
+    // The quarters in curve order, as {west or east, south or north}
+    int[][] quarters = {{0, 0}, {0, 1}, {1, 1}, {1, 0}};
+    int perQuarter = halfColumns * halfRows;
+    for (int i = 0; i < collection.features.size(); i++) {
+      int ordinal = collection.features.get(i).properties.neighborhood_id.intValue() - 1;
+      int column = ordinal % CityFixture.COLUMNS;
+      int row = ordinal / CityFixture.COLUMNS;
+      int[] quarter = quarters[i / perQuarter];
+      assertEquals(quarter[0], column / halfColumns, "position " + i);
+      assertEquals(quarter[1], row / halfRows, "position " + i);
+    }
+  }
+
+  /**
+   * Tests that features with the same curve position, such as a block listed twice, keep their
+   * relative order from the file.
+   */
+  @Test
+  public void testApplyKeepsTiesInFileOrder() {
+    GeoMap first = CityFixture.block(5, 5);
+    GeoMap corner = CityFixture.block(0, 0);
+    GeoMap second = CityFixture.block(5, 5);
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>(List.of(first, corner, second));
+    GeometrySimplifier.precompute(collection);
+
+    HilbertOrder.apply(collection);
+    long[] keys = HilbertOrder.keys(new FeatureEnvelopes(collection));
+    assertSame(corner, collection.features.get(0));
+    assertSame(first, collection.features.get(1));
+    assertSame(second, collection.features.get(2));
+    assertTrue(keys[0] < keys[1]);
+    assertEquals(keys[1], keys[2]);
+  }
+}
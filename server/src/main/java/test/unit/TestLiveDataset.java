@@ -0,0 +1,176 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.DatasetOptions;
+import edu.brown.cs.student.main.server.mapCollection.DatasetSnapshot;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.mapCollection.LiveDataset;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Unit tests for the LiveDataset class, verifying that reloads publish a new version without
+ * disturbing the old one, and that failed or needless reloads keep the current version.
+ */
+public class TestLiveDataset {
+
+  /**
+   * Creates a collection of square features with the given names.
+   *
+   * @param names The names of the features.
+   * @return The collection.
+   */
+  private static GeoMapCollection createCollection(String... names) {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    for (int i = 0; i < names.length; i++) {
+      Geometry geometry = new Geometry();
+      geometry.type = "MultiPolygon";
+      geometry.coordinates =
+          List.of(
+              List.of(
+                  List.of(
+                      List.of(-71.0 + i, 41.0),
+                      List.of(-70.5 + i, 41.0),
+                      List.of(-70.5 + i, 41.5),
+                      List.of(-71.0 + i, 41.5),
+                      List.of(-71.0 + i, 41.0))));
+      Property property = new Property();
+      property.name = names[i];
+      GeoMap geoMap = new GeoMap();
+      geoMap.type = "Feature";
+      geoMap.geometry = geometry;
+      geoMap.properties = property;
+      collection.features.add(geoMap);
+    }
+    return collection;
+  }
+
+  /**
+   * Writes a collection as a GeoJSON file.
+   *
+   * @param file The file.
+   * @param collection The collection.
+   * @throws Exception If the file cannot be written.
+   */
+  private static void writeCollection(Path file, GeoMapCollection collection) throws Exception {
+    Files.writeString(file, new GeoMapAdapter().toJson(collection), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Tests that a reload publishes the new version, that a dataset read before the reload still
+   * answers from the old version, and that an unchanged file is only reloaded when forced.
+   *
+   * @param directory A temporary directory.
+   * @throws Exception If a file cannot be written or read.
+   */
+  @Test
+  public void testReload(@TempDir Path directory) throws Exception {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeCollection(source, createCollection("a", "b"));
+    LiveDataset live = LiveDataset.load(source, snapshot, new DatasetOptions());
+    GeoDataset before = live.get();
+    assertFalse(live.reload(false).get());
+    assertSame(before, live.get());
+
+    writeCollection(source, createCollection("a", "b", "c"));
+    assertTrue(live.reload(false).get());
+    GeoDataset after = live.get();
+    assertNotEquals(before.version, after.version);
+    assertEquals(3, after.collection.features.size());
+    assertEquals(2, before.collection.features.size());
+    assertEquals("b", before.collection.features.get(1).properties.name);
+    assertEquals(1L, live.stats().get("reloads"));
+
+    assertTrue(live.reload(true).get());
+    assertEquals(after.version, live.get().version);
+    assertEquals(2L, live.stats().get("reloads"));
+  }
+
+  /**
+   * Tests that a forced reload parses the GeoJSON file even when a snapshot claims to match it,
+   * so a bad snapshot can be replaced without restarting, while a plain reload trusts it.
+   *
+   * @param directory A temporary directory.
+   * @throws Exception If a file cannot be written or read.
+   */
+  @Test
+  public void testForcedReloadBypassesSnapshot(@TempDir Path directory) throws Exception {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeCollection(source, createCollection("a", "b"));
+    LiveDataset live = LiveDataset.load(source, snapshot, new DatasetOptions());
+
+    // A snapshot of other data, stamped as if it had been made from the current file
+    DatasetSnapshot.write(new GeoDataset(createCollection("stale")), snapshot, source);
+    assertFalse(live.reload(false).get());
+    assertEquals(2, live.get().collection.features.size());
+
+    assertTrue(live.reload(true).get());
+    assertEquals(2, live.get().collection.features.size());
+    assertEquals(
+        2, DatasetSnapshot.open(snapshot, source, new DatasetOptions()).collection.features.size());
+  }
+
+  /**
+   * Tests that a reload of a malformed file is reported and keeps the current version.
+   *
+   * @param directory A temporary directory.
+   * @throws Exception If a file cannot be written or read.
+   */
+  @Test
+  public void testFailedReload(@TempDir Path directory) throws Exception {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeCollection(source, createCollection("a"));
+    LiveDataset live = LiveDataset.load(source, snapshot, new DatasetOptions());
+    GeoDataset before = live.get();
+
+    Files.writeString(source, "{\"features\":[{\"type\":", StandardCharsets.UTF_8);
+    assertFalse(live.reload(false).get());
+    assertSame(before, live.get());
+    assertEquals(1L, live.stats().get("failures"));
+    assertNotNull(live.stats().get("last_error"));
+  }
+
+  /**
+   * Tests that a watched dataset is reloaded once its file changes.
+   *
+   * @param directory A temporary directory.
+   * @throws Exception If a file cannot be written or read.
+   */
+  @Test
+  public void testWatch(@TempDir Path directory) throws Exception {
+    Path source = directory.resolve("data.json");
+    Path snapshot = directory.resolve("data.snapshot");
+    writeCollection(source, createCollection("a"));
+    LiveDataset live = LiveDataset.load(source, snapshot, new DatasetOptions());
+    String before = live.get().version;
+
+    WatchService watcher = live.watch();
+    try {
+      writeCollection(source, createCollection("a", "b"));
+      long deadline = System.currentTimeMillis() + 30_000;
+      while (live.get().version.equals(before) && System.currentTimeMillis() < deadline) {
+        Thread.sleep(50);
+      }
+    } finally {
+      watcher.close();
+    }
+    assertEquals(2, live.get().collection.features.size());
+  }
+}
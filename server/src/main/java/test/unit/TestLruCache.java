@@ -0,0 +1,58 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.caching.EncodedResponse;
+import edu.brown.cs.student.main.server.caching.LruCache;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the LruCache class, verifying its metrics and weighting of encoded responses.
+ */
+public class TestLruCache {
+
+  /**
+   * Tests that hits, misses and evictions are counted.
+   */
+  @Test
+  public void testStats() {
+    LruCache<EncodedResponse> cache = new LruCache<>(100, EncodedResponse::weight);
+    cache.put("a", new EncodedResponse(new byte[60], Map.of()));
+    cache.get("a");
+    cache.get("b");
+    cache.put("c", new EncodedResponse(new byte[60], Map.of()));
+
+    Map<String, Object> stats = cache.stats();
+    assertEquals(1L, stats.get("hits"));
+    assertEquals(1L, stats.get("misses"));
+    assertEquals(1L, stats.get("evictions"));
+    assertEquals(0.5, stats.get("hit_rate"));
+    assertEquals(1, stats.get("entries"));
+    assertEquals(60L, stats.get("size_bytes"));
+  }
+
+  /**
+   * Tests that headers count towards the weight of an encoded response.
+   */
+  @Test
+  public void testEncodedResponseWeight() {
+    EncodedResponse response = new EncodedResponse(new byte[10], Map.of("X-Detail-Level", "2"));
+    assertEquals(10 + "X-Detail-Level".length() + 1, response.weight());
+  }
+
+  /**
+   * Tests that clearing the cache drops every entry at once.
+   */
+  @Test
+  public void testClear() {
+    LruCache<EncodedResponse> cache = new LruCache<>(100, EncodedResponse::weight);
+    cache.put("a", new EncodedResponse(new byte[10], Map.of()));
+    cache.put("b", new EncodedResponse(new byte[10], Map.of()));
+    cache.clear();
+
+    assertNull(cache.get("a"));
+    assertNull(cache.get("b"));
+    assertEquals(0, cache.size());
+  }
+}
@@ -0,0 +1,208 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.GridIndex;
+import edu.brown.cs.student.main.server.index.Neighbor;
+import edu.brown.cs.student.main.server.index.ScanIndex;
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.PackedGeometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the great-circle distance helpers and the nearest-neighbor searches of the
+ * spatial indexes.
+ */
+public class TestNearestSearch {
+
+  /**
+   * Tests the haversine distance against a known distance and the distance to a polygon.
+   */
+  @Test
+  public void testDistances() {
+    // Providence to Boston is about 66 km
+    assertEquals(66, GeoDistance.haversineKm(-71.4128, 41.8240, -71.0589, 42.3601), 1);
+
+    PackedGeometry square = PackedGeometry.pack(createSquare(-71.5, 41.5, 0.1).geometry);
+    assertEquals(0, GeoDistance.toPolygonKm(square, -71.45, 41.55));
+    // One hundredth of a degree of latitude is about 1.11 km
+    assertEquals(1.112, GeoDistance.toPolygonKm(square, -71.45, 41.61), 0.001);
+  }
+
+  /**
+   * Tests the distance to a segment across the antimeridian, beyond either end, and along a long
+   * east-west edge, which follows its parallel as GeoJSON edges do.
+   */
+  @Test
+  public void testSegmentDistance() {
+    // A tenth of a degree off the middle of a segment crossing the antimeridian
+    assertEquals(11.12, GeoDistance.toSegmentKm(179.9, 0, -179.9, 0, 180, 0.1), 0.01);
+    assertEquals(11.12, GeoDistance.toSegmentKm(-179.9, 0, 179.9, 0, -180, -0.1), 0.01);
+
+    // Beyond the ends, the nearest end is measured
+    assertEquals(
+        GeoDistance.haversineKm(-71, 41, -71.5, 41),
+        GeoDistance.toSegmentKm(-71, 41, -70, 41, -71.5, 41), 1e-9);
+    assertEquals(
+        GeoDistance.haversineKm(-70, 41, -69, 41.2),
+        GeoDistance.toSegmentKm(-71, 41, -70, 41, -69, 41.2), 1e-9);
+
+    // A degree north of the middle of a 40 degree edge along the 60th parallel
+    assertEquals(
+        GeoDistance.haversineKm(0, 60, 0, 61),
+        GeoDistance.toSegmentKm(-20, 60, 20, 60, 0, 61), 1e-9);
+  }
+
+  /**
+   * Tests that box lower bounds never exceed the distance to the corners and center of the box,
+   * for the boxes and points of a city, and for boxes a continent wide seen from afar.
+   */
+  @Test
+  public void testBoxLowerBound() {
+    List<double[]> boxes = new ArrayList<>(CityFixture.boxes());
+    boxes.add(new double[] {-125, -67, 24, 49});
+    boxes.add(new double[] {-80, -70, 30, 50});
+    List<double[]> points = new ArrayList<>(CityFixture.points());
+    points.add(new double[] {-100, 45});
+    points.add(new double[] {-60, 20});
+    points.add(new double[] {0, 89});
+    for (double[] box : boxes) {
+      double[][] inside = {
+        {box[0], box[2]}, {box[1], box[2]}, {box[0], box[3]}, {box[1], box[3]},
+        {(box[0] + box[1]) / 2, (box[2] + box[3]) / 2}
+      };
+      for (double[] point : points) {
+        double bound =
+            GeoDistance.boxLowerBoundKm(box[0], box[1], box[2], box[3], point[0], point[1]);
+        for (double[] corner : inside) {
+          assertTrue(
+              bound <= GeoDistance.haversineKm(point[0], point[1], corner[0], corner[1]) + 1e-9);
+        }
+      }
+    }
+    // A point inside a box is no distance from it
+    assertEquals(0, GeoDistance.boxLowerBoundKm(-72, -71, 41, 42, -71.5, 41.5));
+  }
+
+  /**
+   * Tests that a point inside a block finds that block first at no distance, that a point in
+   * the hole of a block does not, and that the four blocks around a shared corner are all found
+   * at no distance.
+   */
+  @Test
+  public void testNearestBlocks() {
+    GeoDataset dataset = new GeoDataset(CityFixture.create());
+    SpatialIndex index = new GridIndex(dataset.envelopes, 0);
+
+    // The middle of a full block
+    double lon = CityFixture.west(6) + CityFixture.BLOCK / 2;
+    double lat = CityFixture.south(0) + CityFixture.BLOCK / 2;
+    assertEquals(CityFixture.Shape.FULL, CityFixture.shape(6, 0));
+    List<Neighbor> neighbors = index.nearest(lon, lat, 1, i -> dataset.distanceKm(i, lon, lat));
+    assertEquals(CityFixture.ordinal(6, 0), neighbors.get(0).ordinal);
+    assertEquals(0, neighbors.get(0).distanceKm);
+
+    // The middle of a block with a hole is a quarter block from the east and west edges of the
+    // hole, which are nearer than its north and south edges away from the equator
+    int hole = CityFixture.ordinal(3, 0);
+    assertEquals(CityFixture.Shape.HOLE, CityFixture.shape(3, 0));
+    double holeLon = CityFixture.west(3) + CityFixture.BLOCK / 2;
+    double quarterKm = GeoDistance.haversineKm(holeLon, lat, holeLon + CityFixture.BLOCK / 4, lat);
+    assertEquals(quarterKm, dataset.distanceKm(hole, holeLon, lat), 1e-6);
+
+    // The corner shared by a full block, two triangles and a block in two parts
+    double cornerLon = CityFixture.west(6);
+    double cornerLat = CityFixture.south(6);
+    List<Neighbor> corner =
+        index.nearest(cornerLon, cornerLat, 4, i -> dataset.distanceKm(i, cornerLon, cornerLat));
+    List<Integer> found = new ArrayList<>();
+    for (Neighbor neighbor : corner) {
+      assertEquals(0, neighbor.distanceKm);
+      found.add(neighbor.ordinal);
+    }
+    found.sort(null);
+    assertEquals(
+        List.of(
+            CityFixture.ordinal(5, 5),
+            CityFixture.ordinal(6, 5),
+            CityFixture.ordinal(5, 6),
+            CityFixture.ordinal(6, 6)),
+        found);
+  }
+
+  /**
+   * Tests that both indexes find the same neighbors as measuring every feature, from corners,
+   * edges and holes of the blocks of a city and from points outside it, including ties between
+   * blocks that share an edge.
+   */
+  @Test
+  public void testNearestMatchesBruteForce() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(new GeoMap());
+    GeoDataset dataset = new GeoDataset(collection);
+    SpatialIndex[] indexes = {
+      new ScanIndex(dataset.envelopes),
+      new GridIndex(dataset.envelopes, 0),
+      new GridIndex(dataset.envelopes, CityFixture.BLOCK)
+    };
+
+    for (double[] point : CityFixture.points()) {
+      double lon = point[0];
+      double lat = point[1];
+      double[] expected = new double[collection.features.size()];
+      for (int i = 0; i < expected.length; i++) {
+        expected[i] = dataset.distanceKm(i, lon, lat);
+      }
+      Arrays.sort(expected);
+
+      for (int k : new int[] {1, 4, 9}) {
+        for (SpatialIndex index : indexes) {
+          List<Neighbor> neighbors =
+              index.nearest(lon, lat, k, ordinal -> dataset.distanceKm(ordinal, lon, lat));
+          assertEquals(k, neighbors.size(), index.name());
+          for (int i = 0; i < k; i++) {
+            assertEquals(expected[i], neighbors.get(i).distanceKm, 1e-9, index.name());
+            assertEquals(
+                dataset.distanceKm(neighbors.get(i).ordinal, lon, lat),
+                neighbors.get(i).distanceKm,
+                1e-9);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Creates a feature whose single ring is a square.
+   *
+   * @param lon The longitude of the south-west corner.
+   * @param lat The latitude of the south-west corner.
+   * @param size The length of a side, in degrees.
+   * @return The feature.
+   */
+  private GeoMap createSquare(double lon, double lat, double size) {
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates =
+        List.of(
+            List.of(
+                List.of(
+                    List.of(lon, lat),
+                    List.of(lon + size, lat),
+                    List.of(lon + size, lat + size),
+                    List.of(lon, lat + size),
+                    List.of(lon, lat))));
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    return geoMap;
+  }
+}
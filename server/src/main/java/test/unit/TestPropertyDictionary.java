@@ -0,0 +1,109 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.PropertyIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.mapCollection.PropertyDictionary;
+import edu.brown.cs.student.main.server.query.FieldNode;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the PropertyDictionary class and the dictionary encoding of the property index,
+ * verifying that repeated strings share one instance and that codes stand for their values.
+ */
+public class TestPropertyDictionary {
+
+  /**
+   * Parses a collection with repeated property values, so every occurrence is its own string.
+   *
+   * @return The parsed collection.
+   * @throws IOException If the JSON is malformed.
+   */
+  private static GeoMapCollection parseCollection() throws IOException {
+    StringBuilder json = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[");
+    String[] cities = {"Providence", "Boston", "Albany"};
+    for (int i = 0; i < 30; i++) {
+      json.append(i == 0 ? "" : ",")
+          .append("{\"type\":\"Feature\",\"geometry\":null,\"properties\":{")
+          .append("\"name\":\"n").append(i).append("\",")
+          .append(i % 10 == 9 ? "" : "\"state\":\"" + (i % 2 == 0 ? "RI" : "MA") + "\",")
+          .append("\"city\":\"").append(cities[i % 3]).append("\",")
+          .append("\"holc_grade\":\"").append("ABCD".charAt(i % 4)).append("\",")
+          .append("\"area_description_data\":{\"2\":\"b").append(i).append("\",\"1a\":\"a\"}}}");
+    }
+    json.append("]}");
+    return new GeoMapAdapter().fromJson(json.toString());
+  }
+
+  /**
+   * Tests that equal values and description keys share one instance after canonicalization, and
+   * that values and the order of descriptions are unchanged.
+   *
+   * @throws IOException If the test collection cannot be parsed.
+   */
+  @Test
+  public void testCanonicalize() throws IOException {
+    GeoMapCollection collection = parseCollection();
+    Property first = collection.features.get(0).properties;
+    Property third = collection.features.get(3).properties;
+    assertNotSame(first.city, third.city);
+
+    long replaced = PropertyDictionary.canonicalize(collection);
+    assertTrue(replaced > 0);
+    assertSame(first.city, third.city);
+    assertEquals("Providence", third.city);
+    assertSame(
+        first.area_description_data.keySet().iterator().next(),
+        third.area_description_data.keySet().iterator().next());
+    assertEquals(List.of("2", "1a"), new ArrayList<>(third.area_description_data.keySet()));
+    assertEquals("b3", third.area_description_data.get("2"));
+    assertNull(collection.features.get(9).properties.state);
+    assertEquals(0, PropertyDictionary.canonicalize(collection));
+  }
+
+  /**
+   * Tests that every feature's code stands for its value, that missing values have no code, and
+   * that a predicate tested through codes agrees with the index.
+   *
+   * @throws IOException If the test collection cannot be parsed.
+   */
+  @Test
+  public void testCodes() throws IOException {
+    GeoDataset dataset = new GeoDataset(parseCollection());
+    PropertyIndex index = dataset.propertyIndex;
+    assertEquals(2, index.cardinality("state"));
+    assertEquals(3, index.cardinality("city"));
+    assertEquals(-1, index.code("state", "NY"));
+    assertThrows(IllegalArgumentException.class, () -> index.code("name", "n1"));
+
+    for (String field : PropertyIndex.CODED_FIELDS) {
+      int[] codes = index.codes(field);
+      for (int i = 0; i < codes.length; i++) {
+        String value = PropertyIndex.valueOf(dataset.collection.features.get(i).properties, field);
+        assertEquals(value, codes[i] < 0 ? null : index.value(field, codes[i]), field + " " + i);
+      }
+    }
+
+    for (String value : new String[] {"RI", "MA", "NY"}) {
+      FieldNode node = new FieldNode("state", value);
+      List<Integer> tested = new ArrayList<>();
+      for (int i = 0; i < dataset.collection.features.size(); i++) {
+        if (node.test(dataset, i)) {
+          tested.add(i);
+        }
+      }
+      List<Integer> looked = new ArrayList<>();
+      for (int i : node.evaluate(dataset).toArray()) {
+        looked.add(i);
+      }
+      assertEquals(looked, tested, value);
+    }
+  }
+}
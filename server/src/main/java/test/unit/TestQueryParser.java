@@ -0,0 +1,144 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.query.QueryNode;
+import edu.brown.cs.student.main.server.query.QueryParser;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for /query expressions, verifying parsing, canonical forms and evaluation over the
+ * property and spatial indexes.
+ */
+public class TestQueryParser {
+
+  /**
+   * Tests that operators bind as documented and that the canonical form parses back to itself.
+   */
+  @Test
+  public void testCanonicalForm() {
+    QueryNode query =
+        QueryParser.parse("state:NY and city:\"New York\" or (holc_grade:A OR keyword:park)");
+    assertEquals(
+        "((state:\"NY\" AND city:\"New York\") OR (holc_grade:\"A\" OR keyword:\"park\"))",
+        query.toString());
+    assertEquals(query.toString(), QueryParser.parse(query.toString()).toString());
+    assertEquals(
+        "keyword:\"say \\\"hi\\\"\"", QueryParser.parse("keyword:\"say \\\"hi\\\"\"").toString());
+  }
+
+  /**
+   * Tests that malformed expressions are rejected with a message.
+   */
+  @Test
+  public void testMalformed() {
+    for (String query :
+        new String[] {
+          "", "state", "state:", "color:red", "state:NY AND", "(state:NY", "state:NY city:X",
+          "keyword:\"open", "bbox:1,2,3", "bbox:50,0,40,1", "bbox:0,200,1,201"
+        }) {
+      IllegalArgumentException e =
+          assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(query), query);
+      assertNotNull(e.getMessage());
+    }
+  }
+
+  /**
+   * Tests that parentheses nested up to the limit are accepted and deeper ones are rejected
+   * before they can exhaust the stack.
+   */
+  @Test
+  public void testNestingLimit() {
+    String atLimit =
+        "(".repeat(QueryParser.MAX_DEPTH) + "state:NY" + ")".repeat(QueryParser.MAX_DEPTH);
+    assertEquals("state:\"NY\"", QueryParser.parse(atLimit).toString());
+
+    String tooDeep = "(".repeat(QueryParser.MAX_DEPTH + 1) + "state:NY"
+        + ")".repeat(QueryParser.MAX_DEPTH + 1);
+    assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(tooDeep));
+    String hostile = "(".repeat(100_000);
+    assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(hostile));
+  }
+
+  /**
+   * Tests evaluation of conjunctions and disjunctions of field, keyword and bbox predicates.
+   */
+  @Test
+  public void testEvaluate() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(createFeature("NY", "Buffalo", "A", "near the park", 42.9, -78.9));
+    collection.features.add(createFeature("NY", "Albany", "B", "river front", 42.6, -73.8));
+    collection.features.add(createFeature("RI", "Providence", "A", "park land", 41.8, -71.4));
+    collection.features.add(createFeature("NY", "Buffalo", "C", "industrial", 42.8, -78.8));
+    collection.features.add(new GeoMap());
+    GeoDataset dataset = new GeoDataset(collection);
+
+    assertArrayEquals(new int[] {0, 1, 3}, evaluate(dataset, "state:NY"));
+    assertArrayEquals(new int[] {0}, evaluate(dataset, "state:NY AND holc_grade:A"));
+    assertArrayEquals(new int[] {0, 2, 3}, evaluate(dataset, "city:Buffalo OR keyword:park"));
+    assertArrayEquals(
+        new int[] {0, 2}, evaluate(dataset, "keyword:park AND (state:RI OR city:Buffalo)"));
+    assertArrayEquals(new int[] {0, 3}, evaluate(dataset, "bbox:42,-80,43,-78"));
+    assertArrayEquals(new int[] {3}, evaluate(dataset, "bbox:42,-80,43,-78 AND holc_grade:C"));
+    assertArrayEquals(new int[0], evaluate(dataset, "state:ny"));
+  }
+
+  /**
+   * Parses and evaluates an expression.
+   *
+   * @param dataset The dataset to query.
+   * @param query The expression.
+   * @return The ordinals of the matching features.
+   */
+  private int[] evaluate(GeoDataset dataset, String query) {
+    return QueryParser.parse(query).evaluate(dataset).toArray();
+  }
+
+  /**
+   * Creates a feature with a small square geometry and some properties.
+   *
+   * @param state The state.
+   * @param city The city.
+   * @param grade The HOLC grade.
+   * @param description The area description.
+   * @param lat The latitude of the south west corner.
+   * @param lon The longitude of the south west corner.
+   * @return The feature.
+   */
+  private GeoMap createFeature(
+      String state, String city, String grade, String description, double lat, double lon) {
+    Property property = new Property();
+    property.state = state;
+    property.city = city;
+    property.holc_grade = grade;
+    property.area_description_data = new HashMap<>();
+    property.area_description_data.put("desc", description);
+
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates =
+        List.of(
+            List.of(
+                List.of(
+                    List.of(lon, lat),
+                    List.of(lon + 0.01, lat),
+                    List.of(lon + 0.01, lat + 0.01),
+                    List.of(lon, lat + 0.01),
+                    List.of(lon, lat))));
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    geoMap.properties = property;
+    return geoMap;
+  }
+}
@@ -0,0 +1,142 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.query.QueryNode;
+import edu.brown.cs.student.main.server.query.QueryParser;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the query planner, verifying that conjunctions are driven by their most
+ * selective operand and that every plan returns the same features as testing each one.
+ */
+public class TestQueryPlan {
+
+  /**
+   * A city of blocks graded from A in the center to D at the edges, all in Rhode Island but two.
+   */
+  private static GeoDataset dataset;
+
+  /**
+   * Builds the dataset shared by the tests.
+   */
+  @BeforeAll
+  public static void setUp() {
+    dataset = new GeoDataset(CityFixture.create());
+  }
+
+  /**
+   * Tests that a viewport of one block drives a query with a keyword found in half the city,
+   * which is only verified.
+   */
+  @Test
+  public void testSmallViewportDrives() {
+    Map<String, Object> plan =
+        QueryParser.parse("keyword:park AND " + bbox(6, 5, 1, 1)).explain(dataset);
+    assertEquals("AND", plan.get("operator"));
+    assertTrue(predicate(plan.get("driver")).startsWith("bbox:"));
+    assertEquals(1, ((List<?>) plan.get("verify")).size());
+  }
+
+  /**
+   * Tests that a state with two blocks drives a query over the whole city.
+   */
+  @Test
+  public void testRareValueDrives() {
+    Map<String, Object> plan =
+        QueryParser.parse(bbox(-1, -1, 14, 12) + " AND keyword:park AND state:MA")
+            .explain(dataset);
+    assertEquals("state:\"MA\"", predicate(plan.get("driver")));
+    assertEquals(2, ((List<?>) plan.get("verify")).size());
+  }
+
+  /**
+   * Tests that planned evaluation returns exactly the features that pass every test, for
+   * queries over property values, keywords and boxes along and across the edges of blocks.
+   */
+  @Test
+  public void testPlansMatchBruteForce() {
+    String[] queries = {
+      "state:RI AND holc_grade:A",
+      "keyword:park AND " + bbox(4, 3, 4, 4),
+      "state:MA AND " + bbox(6, 5, 6, 5) + " AND keyword:river",
+      "(state:MA OR holc_grade:B) AND keyword:park AND " + bbox(0, 0, 12, 10),
+      "holc_grade:C AND (keyword:river AND " + bbox(0, 0, 6, 5) + ")",
+      "city:Pawtucket AND keyword:streetcar",
+      "keyword:mills AND bbox:" + (CityFixture.south(2) + CityFixture.BLOCK / 2) + ","
+          + (CityFixture.west(0) + CityFixture.BLOCK / 2) + "," + CityFixture.south(8) + ","
+          + CityFixture.west(4)
+    };
+    for (String text : queries) {
+      QueryNode query = QueryParser.parse(text);
+      List<Integer> expected = new ArrayList<>();
+      for (int i = 0; i < dataset.collection.features.size(); i++) {
+        if (query.test(dataset, i)) {
+          expected.add(i);
+        }
+      }
+      assertFalse(expected.isEmpty(), text);
+      assertArrayEquals(
+          expected.stream().mapToInt(Integer::intValue).toArray(),
+          query.evaluate(dataset).toArray(),
+          text);
+    }
+  }
+
+  /**
+   * Tests that a conjunction nested as deep as the parser allows is planned once per level, so
+   * explaining and evaluating it stays fast, and that it still matches every test.
+   */
+  @Test
+  public void testDeeplyNestedConjunction() {
+    String text = "state:RI";
+    for (int i = 0; i < QueryParser.MAX_DEPTH; i++) {
+      text = "(" + text + " AND holc_grade:" + "ABCD".charAt(i % 2) + ")";
+    }
+    QueryNode query = QueryParser.parse(text);
+    String finalText = text;
+    assertTimeoutPreemptively(
+        Duration.ofSeconds(5),
+        () -> {
+          assertEquals("AND", query.explain(dataset).get("operator"));
+          // Grades A and B never both hold, so nothing matches
+          assertTrue(query.evaluate(dataset).isEmpty(), finalText);
+        });
+  }
+
+  /**
+   * Writes the bounding box predicate of a rectangle of blocks.
+   *
+   * @param column The column of the south west block.
+   * @param row The row of the south west block.
+   * @param columns The number of columns.
+   * @param rows The number of rows.
+   * @return The predicate.
+   */
+  private static String bbox(int column, int row, int columns, int rows) {
+    return "bbox:"
+        + CityFixture.south(row)
+        + ","
+        + CityFixture.west(column)
+        + ","
+        + CityFixture.south(row + rows)
+        + ","
+        + CityFixture.west(column + columns);
+  }
+
+  /**
+   * Reads the predicate of a leaf plan.
+   *
+   * @param plan The plan, as returned by explain.
+   * @return The canonical form of the predicate.
+   */
+  private static String predicate(Object plan) {
+    return (String) ((Map<?, ?>) plan).get("predicate");
+  }
+}
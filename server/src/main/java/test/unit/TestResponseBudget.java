@@ -0,0 +1,114 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoMapAdapter;
+import edu.brown.cs.student.main.server.utils.GeometrySimplifier;
+import edu.brown.cs.student.main.server.utils.ResponseBudget;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the ResponseBudget class, verifying size estimates against real encodings and
+ * the choice of step for a budget.
+ */
+public class TestResponseBudget {
+
+  private final GeoMapAdapter geoMapAdapter = new GeoMapAdapter();
+
+  /**
+   * Tests that the estimate of every step matches the size of the encoding it describes.
+   */
+  @Test
+  public void testEstimatesMatchEncoding() {
+    GeoMapCollection collection = createMockGeoMapCollection();
+
+    for (int step = 0; step < ResponseBudget.STEPS.length; step++) {
+      GeoMapCollection encoded =
+          GeometrySimplifier.atLevel(
+              collection, ResponseBudget.STEPS[step][0], ResponseBudget.STEPS[step][1]);
+      int actual = geoMapAdapter.toJson(encoded).getBytes(StandardCharsets.UTF_8).length;
+      assertEquals(actual, ResponseBudget.estimate(collection, step));
+    }
+  }
+
+  /**
+   * Tests that a generous budget keeps full detail and a tight one coarsens the response.
+   */
+  @Test
+  public void testChooseStep() {
+    GeoMapCollection collection = createMockGeoMapCollection();
+    long fullSize = ResponseBudget.estimate(collection, 0);
+
+    assertEquals(0, ResponseBudget.chooseStep(collection, fullSize, 0));
+    assertTrue(ResponseBudget.chooseStep(collection, fullSize - 1, 0) > 0);
+    assertEquals(
+        ResponseBudget.STEPS.length - 1, ResponseBudget.chooseStep(collection, 1, 0));
+
+    // A requested level is never refined by a generous budget
+    int step = ResponseBudget.chooseStep(collection, fullSize, 2);
+    assertTrue(ResponseBudget.STEPS[step][0] >= 2);
+  }
+
+  /**
+   * Tests parsing of the maxBytes parameter.
+   */
+  @Test
+  public void testParseMaxBytes() {
+    assertEquals(-1, ResponseBudget.parseMaxBytes(null));
+    assertEquals(2048, ResponseBudget.parseMaxBytes("2048"));
+    assertThrows(IllegalArgumentException.class, () -> ResponseBudget.parseMaxBytes("0"));
+    assertThrows(IllegalArgumentException.class, () -> ResponseBudget.parseMaxBytes("lots"));
+  }
+
+  /**
+   * Creates a mock collection of two detailed circular features.
+   *
+   * @return The mock collection.
+   */
+  private GeoMapCollection createMockGeoMapCollection() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(createMockGeoMap("neighborhood1", -71.40, 41.80));
+    collection.features.add(createMockGeoMap("neighborhood2", -71.43, 41.83));
+    return collection;
+  }
+
+  /**
+   * Creates a mock feature whose single ring approximates a circle.
+   *
+   * @param name The name of the feature.
+   * @param lon The longitude of the center.
+   * @param lat The latitude of the center.
+   * @return The mock feature.
+   */
+  private GeoMap createMockGeoMap(String name, double lon, double lat) {
+    List<List<Double>> ring = new ArrayList<>();
+    for (int i = 0; i <= 300; i++) {
+      double angle = 2 * Math.PI * (i % 300) / 300;
+      ring.add(List.of(lon + 0.01 * Math.cos(angle), lat + 0.01 * Math.sin(angle)));
+    }
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates = List.of(List.of(ring));
+
+    Property property = new Property();
+    property.name = name;
+    property.area_description_data = new HashMap<>();
+    property.area_description_data.put("desc", "Fine homes — near the park");
+
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    geoMap.properties = property;
+    return geoMap;
+  }
+}
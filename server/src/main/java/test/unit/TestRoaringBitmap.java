@@ -0,0 +1,135 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.RoaringBitmap;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the RoaringBitmap class, verifying its set operations against sorted sets on
+ * both sparse and dense chunks.
+ */
+public class TestRoaringBitmap {
+
+  /**
+   * Tests building, membership and listing, including values in several chunks.
+   */
+  @Test
+  public void testOfAndContains() {
+    RoaringBitmap bitmap = RoaringBitmap.of(new int[] {0, 5, 65535, 65536, 200000});
+    assertEquals(5, bitmap.cardinality());
+    assertTrue(bitmap.contains(65535));
+    assertTrue(bitmap.contains(65536));
+    assertFalse(bitmap.contains(6));
+    assertFalse(bitmap.contains(-1));
+    assertArrayEquals(new int[] {0, 5, 65535, 65536, 200000}, bitmap.toArray());
+    assertTrue(RoaringBitmap.of(new int[0]).isEmpty());
+    assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.of(new int[] {3, 3}));
+    assertThrows(IllegalArgumentException.class, () -> RoaringBitmap.of(new int[] {70000, 1}));
+  }
+
+  /**
+   * Tests intersections and unions of every pair of sets shaped to hit the edges of the
+   * containers: empty sets, the last value of a chunk, arrays at and just over the size where
+   * they turn into bitmaps, a full chunk, a run across two chunks, and sparse and dense sets
+   * spanning several chunks.
+   */
+  @Test
+  public void testAndOrMatchSortedSets() {
+    List<TreeSet<Integer>> sets = new ArrayList<>();
+    sets.add(new TreeSet<>());
+    sets.add(new TreeSet<>(List.of(65535)));
+    sets.add(range(0, 200000, 1000));
+    sets.add(range(0, 4096 * 16, 16));
+    sets.add(range(65536, 65536 + 4097 * 2, 2));
+    sets.add(range(0, 65536, 1));
+    sets.add(range(60000, 70000, 1));
+    sets.add(range(0, 3 * 65536, 2));
+    sets.add(range(65537, 2 * 65536, 2));
+
+    int[] probes = {0, 1, 4095, 4096, 60000, 65535, 65536, 65537, 70000, 131071, 131072, 199999};
+    for (TreeSet<Integer> a : sets) {
+      for (TreeSet<Integer> b : sets) {
+        RoaringBitmap left = RoaringBitmap.of(toArray(a));
+        RoaringBitmap right = RoaringBitmap.of(toArray(b));
+
+        TreeSet<Integer> intersection = new TreeSet<>(a);
+        intersection.retainAll(b);
+        TreeSet<Integer> union = new TreeSet<>(a);
+        union.addAll(b);
+        assertArrayEquals(toArray(intersection), left.and(right).toArray());
+        assertArrayEquals(toArray(union), left.or(right).toArray());
+        assertEquals(intersection.size(), left.and(right).cardinality());
+        assertEquals(union.size(), left.or(right).cardinality());
+        for (int probe : probes) {
+          assertEquals(intersection.contains(probe), left.and(right).contains(probe));
+          assertEquals(union.contains(probe), left.or(right).contains(probe));
+        }
+      }
+    }
+  }
+
+  /**
+   * Builds the set of values from a start to an end with a fixed step.
+   *
+   * @param start The first value.
+   * @param end The value past the last one.
+   * @param step The gap between two values.
+   * @return The set.
+   */
+  private TreeSet<Integer> range(int start, int end, int step) {
+    TreeSet<Integer> set = new TreeSet<>();
+    for (int i = start; i < end; i += step) {
+      set.add(i);
+    }
+    return set;
+  }
+
+  /**
+   * Lists a set of values in ascending order.
+   *
+   * @param set The set.
+   * @return The values.
+   */
+  private int[] toArray(TreeSet<Integer> set) {
+    return set.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Tests that a bitmap with both array and bitmap containers reads back equal to what was
+   * written, as do chunks with exactly as many values as an array holds and one more.
+   *
+   * @throws IOException If writing to memory fails.
+   */
+  @Test
+  public void testWriteAndRead() throws IOException {
+    int[] ordinals = new int[10000];
+    for (int i = 0; i < ordinals.length; i++) {
+      // A dense first chunk and a sparse second one
+      ordinals[i] = i < 9000 ? i * 2 : 65536 + i * 7;
+    }
+    RoaringBitmap bitmap = RoaringBitmap.of(ordinals);
+    int[] full = toArray(range(0, 4096 * 3, 3));
+    int[] overfull = toArray(range(0, 4097 * 3, 3));
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      bitmap.write(out);
+      RoaringBitmap.EMPTY.write(out);
+      RoaringBitmap.of(full).write(out);
+      RoaringBitmap.of(overfull).write(out);
+    }
+    ByteBuffer in = ByteBuffer.wrap(bytes.toByteArray());
+    assertArrayEquals(ordinals, RoaringBitmap.read(in).toArray());
+    assertTrue(RoaringBitmap.read(in).isEmpty());
+    assertArrayEquals(full, RoaringBitmap.read(in).toArray());
+    assertArrayEquals(overfull, RoaringBitmap.read(in).toArray());
+    assertFalse(in.hasRemaining());
+  }
+}
@@ -0,0 +1,102 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.caching.SingleFlight;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the SingleFlight class, verifying that concurrent identical computations are
+ * coalesced and that failures reach every waiter.
+ */
+public class TestSingleFlight {
+
+  /**
+   * Tests that concurrent callers of one key share a single computation and the same result.
+   *
+   * @throws Exception if a worker thread fails
+   */
+  @Test
+  public void testConcurrentCallersShareOneComputation() throws Exception {
+    SingleFlight<byte[]> singleFlight = new SingleFlight<>();
+    AtomicInteger computations = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    int callers = 8;
+
+    ExecutorService pool = Executors.newFixedThreadPool(callers);
+    try {
+      List<Future<byte[]>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(
+            pool.submit(
+                () ->
+                    singleFlight.run(
+                        "getData?bbox",
+                        () -> {
+                          computations.incrementAndGet();
+                          try {
+                            release.await();
+                          } catch (InterruptedException e) {
+                            throw new IllegalStateException(e);
+                          }
+                          return new byte[] {1, 2, 3};
+                        })));
+      }
+
+      // Let the computation finish only once every other caller is waiting on it
+      while ((long) singleFlight.stats().get("coalesced") < callers - 1) {
+        Thread.sleep(5);
+      }
+      release.countDown();
+
+      byte[] first = results.get(0).get();
+      for (Future<byte[]> result : results) {
+        assertSame(first, result.get());
+      }
+      assertEquals(1, computations.get());
+      assertEquals(1L, singleFlight.stats().get("executions"));
+      assertEquals(0, singleFlight.stats().get("in_flight"));
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Tests that a key is computed again once its previous computation has finished.
+   */
+  @Test
+  public void testSequentialCallersComputeAgain() {
+    SingleFlight<Integer> singleFlight = new SingleFlight<>();
+    AtomicInteger computations = new AtomicInteger();
+
+    singleFlight.run("key", computations::incrementAndGet);
+    singleFlight.run("key", computations::incrementAndGet);
+
+    assertEquals(2, computations.get());
+  }
+
+  /**
+   * Tests that a failing computation is rethrown and does not stay in flight.
+   */
+  @Test
+  public void testFailurePropagates() {
+    SingleFlight<Integer> singleFlight = new SingleFlight<>();
+
+    assertThrows(
+        IllegalStateException.class,
+        () ->
+            singleFlight.run(
+                "key",
+                () -> {
+                  throw new IllegalStateException("boom");
+                }));
+    assertEquals(1, singleFlight.run("key", () -> 1));
+  }
+}
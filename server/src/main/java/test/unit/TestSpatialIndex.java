@@ -0,0 +1,156 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.GridIndex;
+import edu.brown.cs.student.main.server.index.ScanIndex;
+import edu.brown.cs.student.main.server.index.SpatialIndex;
+import edu.brown.cs.student.main.server.mapCollection.FeatureEnvelopes;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Geometry;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the spatial indexes, verifying that the grid index answers every query exactly
+ * like a scan of the envelopes.
+ */
+public class TestSpatialIndex {
+
+  /**
+   * Tests the scan index on a small collection.
+   */
+  @Test
+  public void testScanIndex() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(createSquare(-71.5, 41.5, 0.1));
+    collection.features.add(createSquare(-71.0, 41.0, 0.1));
+    collection.features.add(createSquare(-71.45, 41.55, 0.01));
+
+    SpatialIndex index = new ScanIndex(new FeatureEnvelopes(collection));
+    assertArrayEquals(new int[] {0, 2}, index.within(-71.5, -71.4, 41.5, 41.6));
+    assertArrayEquals(new int[] {2}, index.within(-71.46, -71.4, 41.5, 41.6));
+    assertArrayEquals(new int[0], index.within(-70, -69, 40, 41));
+  }
+
+  /**
+   * Tests that a box drawn along the lattice of a city holds exactly the blocks of its cells,
+   * whether the grid cells line up with the blocks or not.
+   */
+  @Test
+  public void testLatticeBox() {
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(CityFixture.create());
+    List<Integer> blocks = new ArrayList<>();
+    for (int row = 4; row < 7; row++) {
+      for (int column = 3; column < 6; column++) {
+        blocks.add(CityFixture.ordinal(column, row));
+      }
+    }
+    int[] expected = blocks.stream().mapToInt(Integer::intValue).toArray();
+    double minLon = CityFixture.west(3);
+    double maxLon = CityFixture.west(6);
+    double minLat = CityFixture.south(4);
+    double maxLat = CityFixture.south(7);
+
+    for (double cellDegrees : new double[] {0, CityFixture.BLOCK, CityFixture.BLOCK * 3 / 4}) {
+      SpatialIndex grid = new GridIndex(envelopes, cellDegrees);
+      assertArrayEquals(expected, grid.within(minLon, maxLon, minLat, maxLat), grid.name());
+      // Outside the city, nothing
+      assertArrayEquals(
+          new int[0],
+          grid.intersecting(CityFixture.west(-3), CityFixture.west(-1), minLat, maxLat),
+          grid.name());
+    }
+  }
+
+  /**
+   * Tests that grids of several cell sizes, including cells the size of a block, agree with the
+   * scan for both containment and overlap, and never estimate fewer candidates than match, over
+   * boxes on, inside and across the edges of the blocks of a city and boxes outside it. The city
+   * also holds a feature without geometry, which matches nothing, and one without vertices,
+   * which matches everything.
+   */
+  @Test
+  public void testGridMatchesScan() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(50, new GeoMap());
+    GeoMap empty = new GeoMap();
+    empty.geometry = new Geometry();
+    empty.geometry.coordinates = List.of();
+    collection.features.add(70, empty);
+
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(collection);
+    SpatialIndex scan = new ScanIndex(envelopes);
+    double[] cellSizes = {0, 0.001, CityFixture.BLOCK, 0.02, 0.5, 10};
+    for (double cellDegrees : cellSizes) {
+      SpatialIndex grid = new GridIndex(envelopes, cellDegrees);
+      for (double[] box : CityFixture.boxes()) {
+        assertArrayEquals(
+            scan.within(box[0], box[1], box[2], box[3]),
+            grid.within(box[0], box[1], box[2], box[3]),
+            grid.name());
+        assertArrayEquals(
+            scan.intersecting(box[0], box[1], box[2], box[3]),
+            grid.intersecting(box[0], box[1], box[2], box[3]),
+            grid.name());
+        assertTrue(
+            grid.estimate(box[0], box[1], box[2], box[3])
+                >= grid.intersecting(box[0], box[1], box[2], box[3]).length);
+      }
+      assertArrayEquals(new int[] {70}, grid.within(10, 11, 10, 11));
+    }
+  }
+
+  /**
+   * Tests a grid whose requested cells are too small for the extent of the data, here a corner
+   * of the contiguous United States to the other at about one kilometer. The cells must grow
+   * until the grid still reaches the north east corner, so a box lying there finds the feature.
+   */
+  @Test
+  public void testFineGridCoversWholeExtent() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(createSquare(-125, 24, 0.005));
+    collection.features.add(createSquare(-67, 48.995, 0.005));
+
+    FeatureEnvelopes envelopes = new FeatureEnvelopes(collection);
+    SpatialIndex grid = new GridIndex(envelopes, 0.01);
+    SpatialIndex scan = new ScanIndex(envelopes);
+    assertArrayEquals(new int[] {1}, scan.within(-67, -66.99, 48.99, 49.01));
+    assertArrayEquals(new int[] {1}, grid.within(-67, -66.99, 48.99, 49.01), grid.name());
+    assertArrayEquals(new int[] {1}, grid.intersecting(-66.996, -66.99, 48.999, 49.01));
+    assertTrue(grid.estimate(-67, -66.99, 48.99, 49.01) >= 1);
+    assertArrayEquals(new int[] {0}, grid.within(-125.01, -124.99, 23.99, 24.01));
+  }
+
+  /**
+   * Creates a feature whose single ring is a square.
+   *
+   * @param lon The longitude of the south-west corner.
+   * @param lat The latitude of the south-west corner.
+   * @param size The length of a side, in degrees.
+   * @return The feature.
+   */
+  private GeoMap createSquare(double lon, double lat, double size) {
+    Geometry geometry = new Geometry();
+    geometry.type = "MultiPolygon";
+    geometry.coordinates =
+        List.of(
+            List.of(
+                List.of(
+                    List.of(lon, lat),
+                    List.of(lon + size, lat),
+                    List.of(lon + size, lat + size),
+                    List.of(lon, lat + size),
+                    List.of(lon, lat))));
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.geometry = geometry;
+    return geoMap;
+  }
+}
@@ -0,0 +1,123 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.Bm25Index;
+import edu.brown.cs.student.main.server.index.Completion;
+import edu.brown.cs.student.main.server.index.TermDictionary;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the TermDictionary class, verifying that completions are the most used words
+ * starting with a prefix.
+ */
+public class TestTermDictionary {
+
+  /**
+   * Builds a feature with a name and some descriptions.
+   *
+   * @param name The name of the feature.
+   * @param descriptions The descriptions of the feature.
+   * @return The feature.
+   */
+  private static GeoMap feature(String name, String... descriptions) {
+    Property property = new Property();
+    property.name = name;
+    property.area_description_data = new HashMap<>();
+    for (int i = 0; i < descriptions.length; i++) {
+      property.area_description_data.put(String.valueOf(i), descriptions[i]);
+    }
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    geoMap.properties = property;
+    return geoMap;
+  }
+
+  /**
+   * Lists the words and counts of some completions.
+   *
+   * @param completions The completions.
+   * @return Each completion as "word:count".
+   */
+  private static List<String> describe(List<Completion> completions) {
+    List<String> described = new ArrayList<>();
+    for (Completion completion : completions) {
+      described.add(completion.term + ":" + completion.count);
+    }
+    return described;
+  }
+
+  /**
+   * Tests that words are counted once per feature across its name and descriptions, ranked by
+   * count with ties in alphabetical order, and matched case-insensitively.
+   */
+  @Test
+  public void testRanking() {
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.type = "FeatureCollection";
+    collection.features = new ArrayList<>();
+    collection.features.add(feature("Park Hill", "park park", "parking lots"));
+    collection.features.add(feature("Parkside", "near the park"));
+    collection.features.add(feature(null, "Parkway and park"));
+    collection.features.add(feature("Pine", "parking"));
+    collection.features.add(null);
+    TermDictionary dictionary = new TermDictionary(collection);
+
+    assertEquals(
+        List.of("park:3", "parking:2", "parkside:1", "parkway:1"),
+        describe(dictionary.complete("PAR", 10)));
+    assertEquals(List.of("park:3", "parking:2"), describe(dictionary.complete("park", 2)));
+    assertEquals(List.of("pine:1"), describe(dictionary.complete("pi", 10)));
+    assertEquals(List.of(), describe(dictionary.complete("zz", 10)));
+    assertEquals(List.of(), describe(dictionary.complete("parkways", 10)));
+    assertEquals(4, dictionary.complete("", 4).size());
+  }
+
+  /**
+   * Tests prefixes against counting every word of the names and descriptions of a city by brute
+   * force, including the empty prefix, digits from the block numbers and a prefix nothing
+   * starts with.
+   */
+  @Test
+  public void testMatchesBruteForce() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(feature("Hope 3", "école, l'école"));
+    Map<String, Integer> counts = new HashMap<>();
+    for (GeoMap feature : collection.features) {
+      Set<String> words = new HashSet<>(Bm25Index.tokenize(feature.properties.name));
+      for (String description : feature.properties.area_description_data.values()) {
+        words.addAll(Bm25Index.tokenize(description));
+      }
+      for (String word : words) {
+        counts.merge(word, 1, Integer::sum);
+      }
+    }
+    TermDictionary dictionary = new TermDictionary(collection);
+    assertEquals(counts.size(), dictionary.size());
+    assertEquals(List.of("hope:11"), describe(dictionary.complete("hop", 5)));
+
+    String[] prefixes = {"", "p", "pa", "park", "mi", "st", "1", "hope", "é", "x"};
+    for (String prefix : prefixes) {
+      List<String> expected = new ArrayList<>();
+      counts.entrySet().stream()
+          .filter(entry -> entry.getKey().startsWith(prefix))
+          .sorted(
+              (a, b) ->
+                  a.getValue().equals(b.getValue())
+                      ? a.getKey().compareTo(b.getKey())
+                      : Integer.compare(b.getValue(), a.getValue()))
+          .limit(5)
+          .forEach(entry -> expected.add(entry.getKey() + ":" + entry.getValue()));
+      assertEquals(expected, describe(dictionary.complete(prefix, 5)), prefix);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import edu.brown.cs.student.main.server.index.TrigramIndex;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.fields.Property;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoFilter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the TrigramIndex class, verifying that keyword search through the index returns
+ * exactly what a scan with String.contains returns.
+ */
+public class TestTrigramIndex {
+
+  /**
+   * Tests keywords of every length against a scan of the descriptions of a city, including
+   * matches inside words, across word boundaries, in either case, keywords shorter than a
+   * trigram, and the empty keyword. Features without properties, without descriptions, with an
+   * empty description or with accented words are added to the city.
+   */
+  @Test
+  public void testMatchesScan() {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(feature(null));
+    collection.features.add(feature(new HashMap<>()));
+    collection.features.add(feature(new HashMap<>(Map.of("8", ""))));
+    collection.features.add(
+        feature(new HashMap<>(Map.of("2", "Parkway and école", "3", "Parkway traffic"))));
+    TrigramIndex index = new TrigramIndex(collection);
+
+    String[] keywords = {
+      "", "a", "ar", "ark", "park", "Park", "k s", "car line", "reetc", "éco", "zzz", "mill mill",
+      "Mills", "brick and stone", "front, poor"
+    };
+    for (String keyword : keywords) {
+      assertEquals(
+          GeoFilter.filterByKeyword(collection, keyword).features,
+          GeoFilter.filterByKeyword(collection, index, keyword).features,
+          keyword);
+      assertTrue(
+          index.estimate(keyword)
+              >= GeoFilter.filterByKeyword(collection, keyword).features.size());
+    }
+    assertEquals(1, GeoFilter.filterByKeyword(collection, index, "éco").features.size());
+  }
+
+  /**
+   * Builds a feature with the given descriptions.
+   *
+   * @param descriptions The descriptions, or null for a feature without properties.
+   * @return The feature.
+   */
+  private static GeoMap feature(Map<String, String> descriptions) {
+    GeoMap geoMap = new GeoMap();
+    geoMap.type = "Feature";
+    if (descriptions != null) {
+      geoMap.properties = new Property();
+      geoMap.properties.area_description_data = descriptions;
+    }
+    return geoMap;
+  }
+
+  /**
+   * Tests that trigrams do not span two descriptions of the same feature.
+   */
+  @Test
+  public void testNoMatchAcrossDescriptions() {
+    Property property = new Property();
+    property.area_description_data = new HashMap<>();
+    property.area_description_data.put("1", "ab");
+    property.area_description_data.put("2", "cd");
+    GeoMap geoMap = new GeoMap();
+    geoMap.properties = property;
+    GeoMapCollection collection = new GeoMapCollection();
+    collection.features = new ArrayList<>();
+    collection.features.add(geoMap);
+
+    TrigramIndex index = new TrigramIndex(collection);
+    assertTrue(index.candidates("abc").isEmpty());
+    assertTrue(index.candidates("bcd").isEmpty());
+    assertNull(index.candidates("ab"));
+  }
+}
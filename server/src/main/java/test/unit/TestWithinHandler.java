@@ -0,0 +1,140 @@
+package test.unit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.squareup.moshi.JsonAdapter;
+import com.squareup.moshi.Moshi;
+import com.squareup.moshi.Types;
+import edu.brown.cs.student.main.server.handlers.WithinHandler;
+import edu.brown.cs.student.main.server.mapCollection.GeoDataset;
+import edu.brown.cs.student.main.server.mapCollection.GeoMap.GeoMap;
+import edu.brown.cs.student.main.server.mapCollection.GeoMapCollection;
+import edu.brown.cs.student.main.server.utils.GeoDistance;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for radius queries, verifying that the circle envelope never misses a point of the
+ * circle and that the streamed response matches a brute force distance test.
+ */
+public class TestWithinHandler {
+
+  /**
+   * Tests that points all around a circle lie inside the envelope computed for it, for circles
+   * from a city block to a continent across, centered in Providence, on the equator, on both
+   * sides of the antimeridian and next to both poles.
+   */
+  @Test
+  public void testCircleEnvelopeContainsCircle() {
+    double[][] centers = {{-71.4, 41.8}, {0, 0}, {179.9, 10}, {-179.9, -10}, {30, 89}, {-60, -89}};
+    for (double[] center : centers) {
+      for (double radiusKm : new double[] {1, 10, 100, 1000, 5000}) {
+        double[] envelope = GeoDistance.circleEnvelope(center[0], center[1], radiusKm);
+        for (int i = 0; i < 32; i++) {
+          double[] point = destination(center[0], center[1], i * Math.PI / 16, radiusKm);
+          String label = Arrays.toString(center) + " " + radiusKm + " km";
+          assertTrue(point[0] >= envelope[0] - 1e-9 && point[0] <= envelope[1] + 1e-9, label);
+          assertTrue(point[1] >= envelope[2] - 1e-9 && point[1] <= envelope[3] + 1e-9, label);
+        }
+      }
+    }
+    assertArrayEquals(
+        new double[] {-180, 180, 89 - Math.toDegrees(500 / GeoDistance.EARTH_RADIUS_KM), 90},
+        GeoDistance.circleEnvelope(0, 89, 500),
+        1e-9);
+  }
+
+  /**
+   * Tests that the streamed response lists exactly the features a brute force test finds, in
+   * dataset order, with their distances, for circles around points of a city. One radius is
+   * exactly the distance from the middle of a block with a hole to the block, which must be
+   * included.
+   */
+  @Test
+  public void testStreamMatchesBruteForce() throws IOException {
+    GeoMapCollection collection = CityFixture.create();
+    collection.features.add(new GeoMap());
+    GeoDataset dataset = new GeoDataset(collection);
+    double holeLon = CityFixture.west(3) + CityFixture.BLOCK / 2;
+    double holeLat = CityFixture.south(0) + CityFixture.BLOCK / 2;
+    assertEquals(CityFixture.Shape.HOLE, CityFixture.shape(3, 0));
+    double holeKm = dataset.distanceKm(CityFixture.ordinal(3, 0), holeLon, holeLat);
+    double[][] circles = {
+      {holeLon, holeLat, holeKm},
+      {holeLon, holeLat, 1},
+      {CityFixture.west(6), CityFixture.south(5), 0.5},
+      {CityFixture.west(6), CityFixture.south(5), 3},
+      {CityFixture.west(-10), CityFixture.south(5), 2},
+      {CityFixture.west(-10), CityFixture.south(5), 50}
+    };
+
+    Type mapType = Types.newParameterizedType(Map.class, String.class, Object.class);
+    JsonAdapter<Map<String, Object>> adapter = new Moshi.Builder().build().adapter(mapType);
+    for (double[] circle : circles) {
+      double lon = circle[0];
+      double lat = circle[1];
+      double radiusKm = circle[2];
+      double[] envelope = GeoDistance.circleEnvelope(lon, lat, radiusKm);
+      int[] candidates =
+          dataset.spatialIndex.intersecting(envelope[0], envelope[1], envelope[2], envelope[3]);
+      SequenceInputStream stream =
+          new SequenceInputStream(
+              new WithinHandler.FeatureStream(dataset, candidates, lon, lat, radiusKm));
+      Map<String, Object> result =
+          adapter.fromJson(new String(stream.readAllBytes(), StandardCharsets.UTF_8));
+
+      List<Double> expected = new ArrayList<>();
+      for (int i = 0; i < collection.features.size(); i++) {
+        double distance = dataset.distanceKm(i, lon, lat);
+        if (distance <= radiusKm) {
+          expected.add(distance);
+        }
+      }
+      assertEquals("success", result.get("response_type"));
+      assertEquals(expected, result.get("distances_km"));
+      assertEquals(expected.size(), ((List<?>) result.get("features")).size());
+    }
+
+    // The smallest circle only reaches the block with the hole, whose inner ring it touches
+    List<Integer> inside = new ArrayList<>();
+    for (int i = 0; i < collection.features.size(); i++) {
+      if (dataset.distanceKm(i, holeLon, holeLat) <= holeKm) {
+        inside.add(i);
+      }
+    }
+    assertEquals(List.of(CityFixture.ordinal(3, 0)), inside);
+  }
+
+  /**
+   * Computes the point at a distance and initial bearing from a start point.
+   *
+   * @param lon The longitude of the start point.
+   * @param lat The latitude of the start point.
+   * @param bearing The initial bearing, in radians clockwise from north.
+   * @param distanceKm The distance to travel.
+   * @return The destination as {lon, lat}, with the longitude normalized to [-180, 180].
+   */
+  private double[] destination(double lon, double lat, double bearing, double distanceKm) {
+    double angle = distanceKm / GeoDistance.EARTH_RADIUS_KM;
+    double phi = Math.toRadians(lat);
+    double endPhi =
+        Math.asin(
+            Math.sin(phi) * Math.cos(angle)
+                + Math.cos(phi) * Math.sin(angle) * Math.cos(bearing));
+    double endLambda =
+        Math.toRadians(lon)
+            + Math.atan2(
+                Math.sin(bearing) * Math.sin(angle) * Math.cos(phi),
+                Math.cos(angle) - Math.sin(phi) * Math.sin(endPhi));
+    double endLon = Math.toDegrees(endLambda);
+    endLon = ((endLon + 540) % 360) - 180;
+    return new double[] {endLon, Math.toDegrees(endPhi)};
+  }
+}